@@ -0,0 +1,119 @@
+package com.attendance.benchmarks;
+
+import com.attendance.controllers.AttendanceFilterController;
+import com.attendance.models.User;
+
+import jakarta.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HOD attendance filter (getFilteredAttendanceResults and what the controller does
+ * with its rows), driven through {@link AttendanceFilterController} as the results page
+ * and as the CSV export.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttendanceFilterBenchmark {
+    private static final String SERVLET_PATH = "/hod/attendance/filter";
+
+    /**
+     * month: the whole department for the last month;
+     * monthBelowThreshold: the same, keeping students under 75%;
+     * classSemester: one class for the whole semester
+     */
+    @Param({"month", "monthBelowThreshold", "classSemester"})
+    public String filter;
+
+    private AttendanceFilterController controller;
+    private Map<String, Object> session;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServletException, IOException {
+        SyntheticDataset dataset = BenchmarkDatabase.acquire().getDataset();
+        int departmentId = 1;
+        LocalDate endDate = dataset.getEndDate();
+
+        User hod = new User();
+        hod.setUserId(dataset.getHodId(departmentId));
+        hod.setRole("HOD");
+        hod.setDepartmentId(departmentId);
+
+        Map<String, Object> filterParams = new HashMap<>();
+        filterParams.put("departmentId", departmentId);
+        filterParams.put("academicYear", SyntheticDataset.academicYearOf(endDate));
+        filterParams.put("semester", SyntheticDataset.semesterOf(endDate));
+        switch (filter) {
+            case "month":
+            case "monthBelowThreshold":
+                filterParams.put("fromDate", endDate.minusMonths(1).toString());
+                filterParams.put("toDate", endDate.toString());
+                if ("monthBelowThreshold".equals(filter)) {
+                    filterParams.put("threshold", 75.0);
+                    filterParams.put("comparisonType", "below");
+                }
+                break;
+            case "classSemester":
+                filterParams.put("classId", departmentId);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter: " + filter);
+        }
+
+        session = new HashMap<>();
+        session.put("user", hod);
+        session.put("attendanceFilterParams", filterParams);
+
+        controller = new AttendanceFilterController();
+        controller.init();
+
+        results().assertSucceeded("/WEB-INF/views/hod/attendance/detailed-report.jsp");
+        ServletExchange export = export();
+        export.assertSucceeded(null);
+        if (export.getBodyLength() == 0) {
+            throw new IllegalStateException("Filter " + filter + " exported no data");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.destroy();
+        BenchmarkDatabase.release();
+    }
+
+    @Benchmark
+    public ServletExchange results() throws ServletException, IOException {
+        ServletExchange exchange = new ServletExchange(SERVLET_PATH, "/results", session);
+        controller.service(exchange.request(), exchange.response());
+        return exchange;
+    }
+
+    @Benchmark
+    public ServletExchange export() throws ServletException, IOException {
+        ServletExchange exchange = new ServletExchange(SERVLET_PATH, "/export", session);
+        controller.service(exchange.request(), exchange.response());
+        return exchange;
+    }
+}
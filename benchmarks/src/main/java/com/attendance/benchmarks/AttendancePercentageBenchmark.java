@@ -0,0 +1,115 @@
+package com.attendance.benchmarks;
+
+import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.impl.AttendanceDaoImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The calculate*Percentage family of {@link AttendanceDaoImpl}. Each invocation picks a
+ * different student, class, subject or department so the results reflect a mix of cold
+ * and cached pages rather than one hot row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttendancePercentageBenchmark {
+    private SyntheticDataset dataset;
+    private AttendanceDao attendanceDao;
+    private String academicYear;
+    private String semester;
+    private String month;
+
+    @State(Scope.Thread)
+    public static class Target {
+        private final SplittableRandom random = new SplittableRandom(7);
+        private SyntheticDataset dataset;
+
+        int studentIndex;
+        int classId;
+        int departmentId;
+        String subjectCode;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dataset = SyntheticDataset.fromSettings();
+        }
+
+        @Setup(Level.Invocation)
+        public void pick() {
+            studentIndex = random.nextInt(dataset.getStudents());
+            classId = dataset.getClassOfStudent(studentIndex);
+            departmentId = dataset.getDepartmentOfClass(classId);
+            subjectCode = dataset.getSubjectCode(departmentId, random.nextInt(dataset.getSubjectsPerDepartment()));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDatabase.acquire().getDataset();
+        attendanceDao = new AttendanceDaoImpl();
+        academicYear = SyntheticDataset.academicYearOf(dataset.getEndDate());
+        semester = SyntheticDataset.semesterOf(dataset.getEndDate());
+        month = dataset.getEndDate().getMonth().toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.release();
+    }
+
+    @Benchmark
+    public double studentSubject(Target target) throws SQLException {
+        return attendanceDao.calculateAttendancePercentage(
+                dataset.getStudentId(target.studentIndex), target.subjectCode, semester, academicYear);
+    }
+
+    @Benchmark
+    public double subjectOverall(Target target) throws SQLException {
+        return attendanceDao.calculateSubjectOverallAttendancePercentage(target.subjectCode, academicYear, semester);
+    }
+
+    @Benchmark
+    public double subjectClass(Target target) throws SQLException {
+        return attendanceDao.calculateSubjectClassAttendancePercentage(
+                target.classId, target.subjectCode, academicYear, semester);
+    }
+
+    @Benchmark
+    public double classSemester(Target target) throws SQLException {
+        return attendanceDao.calculateClassAttendancePercentage(target.classId, academicYear, semester, null);
+    }
+
+    @Benchmark
+    public double classMonth(Target target) throws SQLException {
+        return attendanceDao.calculateClassAttendancePercentage(target.classId, academicYear, semester, month);
+    }
+
+    @Benchmark
+    public double department(Target target) throws SQLException {
+        return attendanceDao.calculateDepartmentAttendancePercentage(target.departmentId, academicYear, semester, null);
+    }
+
+    @Benchmark
+    public double institution() throws SQLException {
+        return attendanceDao.calculateInstitutionAttendancePercentage(academicYear, semester, null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.attendance.benchmarks;
+
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.DatabaseConnection;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * The PostgreSQL database the benchmarks run against, shared by all benchmarks in a JVM.
+ *
+ * With BENCH_DATABASE_URL (a jdbc:postgresql URL of an empty, dedicated database) the
+ * benchmarks use that server. Otherwise a local embedded PostgreSQL is started on
+ * BENCH_PG_PORT (default 54329) with its data kept in BENCH_PG_DIR (default
+ * target/bench-postgres), so the synthetic dataset is generated once and reused by every
+ * JMH fork and later run.
+ *
+ * The application's DAOs reach the database through {@link DatabaseConnection}, which is
+ * pointed at this database via the DATABASE_URL system property before first use.
+ */
+public final class BenchmarkDatabase {
+    private static final Logger LOGGER = Logger.getLogger(BenchmarkDatabase.class.getName());
+
+    private static BenchmarkDatabase instance;
+    private static int references;
+
+    private final EmbeddedPostgres embedded;
+    private final String jdbcUrl;
+    private final SyntheticDataset dataset;
+
+    private BenchmarkDatabase(EmbeddedPostgres embedded, String jdbcUrl, SyntheticDataset dataset) {
+        this.embedded = embedded;
+        this.jdbcUrl = jdbcUrl;
+        this.dataset = dataset;
+    }
+
+    /**
+     * Start (or join) the benchmark database and make sure the dataset is loaded.
+     * Every call must be paired with {@link #release()}.
+     */
+    public static synchronized BenchmarkDatabase acquire() {
+        if (instance == null) {
+            instance = open(SyntheticDataset.fromSettings());
+        }
+        references++;
+        return instance;
+    }
+
+    /**
+     * Release the database; the last user closes the pool and stops the embedded server
+     */
+    public static synchronized void release() {
+        if (instance == null || --references > 0) {
+            return;
+        }
+        DatabaseConnection.closeAllConnections();
+        if (instance.embedded != null) {
+            try {
+                instance.embedded.close();
+            } catch (IOException e) {
+                LOGGER.warning("Error stopping embedded PostgreSQL: " + e.getMessage());
+            }
+        }
+        instance = null;
+    }
+
+    private static BenchmarkDatabase open(SyntheticDataset dataset) {
+        EmbeddedPostgres embedded = null;
+        String jdbcUrl = AppSettings.getString("BENCH_DATABASE_URL", null);
+
+        if (jdbcUrl == null) {
+            File dataDirectory = new File(AppSettings.getString("BENCH_PG_DIR", "target/bench-postgres"));
+            try {
+                embedded = EmbeddedPostgres.builder()
+                        .setDataDirectory(dataDirectory)
+                        .setCleanDataDirectory(false)
+                        .setPort(AppSettings.getInt("BENCH_PG_PORT", 54329))
+                        .setServerConfig("max_wal_size", "4GB")
+                        .setServerConfig("shared_buffers", AppSettings.getString("BENCH_PG_SHARED_BUFFERS", "512MB"))
+                        .start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to start embedded PostgreSQL in " + dataDirectory, e);
+            }
+            jdbcUrl = embedded.getJdbcUrl("postgres", "postgres");
+            LOGGER.info("Embedded PostgreSQL started on port " + embedded.getPort() + " (" + dataDirectory + ")");
+        }
+
+        // Must be set before DatabaseConnection is first used
+        System.setProperty("DATABASE_URL", jdbcUrl);
+
+        try (Connection conn = DriverManager.getConnection(jdbcUrl)) {
+            new SyntheticDataGenerator(dataset).ensureLoaded(conn);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to prepare the benchmark dataset", e);
+        }
+
+        return new BenchmarkDatabase(embedded, jdbcUrl, dataset);
+    }
+
+    public SyntheticDataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Open a direct (non-pooled) connection, e.g. for benchmark housekeeping
+     */
+    public Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(jdbcUrl);
+    }
+
+    /**
+     * Generate the dataset without running any benchmark
+     */
+    public static void main(String[] args) {
+        acquire();
+        release();
+    }
+}
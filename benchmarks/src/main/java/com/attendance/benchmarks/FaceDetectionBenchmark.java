@@ -0,0 +1,84 @@
+package com.attendance.benchmarks;
+
+import com.attendance.models.FaceRegion;
+import com.attendance.utils.GrayImage;
+import com.attendance.utils.HaarCascade;
+import com.attendance.utils.HaarFaceDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Face detection ({@link HaarFaceDetector}) on one 640x480 frame; the throughput is the
+ * frame rate. Without {@code -p image=...} the frame is synthetic (smooth gradients and
+ * sensor-like noise), which has no faces and exercises the early-rejection path; pass a
+ * photo, scaled to 640x480, to measure real frames. Run from the project root so the
+ * cascade in data/ is found, or pass {@code -p cascade=...}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FaceDetectionBenchmark {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @Param({"data/haarcascade_frontalface_default.xml"})
+    public String cascade;
+
+    @Param({""})
+    public String image;
+
+    @Param({"24", "48"})
+    public int minSize;
+
+    private HaarFaceDetector detector;
+    private GrayImage frame;
+
+    @Setup
+    public void setUp() throws IOException {
+        detector = new HaarFaceDetector(HaarCascade.load(Paths.get(cascade)), 1.1, 3, minSize);
+        if (image.isEmpty()) {
+            frame = syntheticFrame();
+        } else {
+            ByteBuffer encoded = ByteBuffer.wrap(Files.readAllBytes(Paths.get(image)));
+            frame = GrayImage.read(encoded, Long.MAX_VALUE).resize(WIDTH, HEIGHT);
+        }
+    }
+
+    private static GrayImage syntheticFrame() {
+        Random random = new Random(42);
+        byte[] pixels = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double value = 128 + 50 * Math.sin(x / 37.0) * Math.cos(y / 53.0) + random.nextGaussian() * 6;
+                pixels[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, (int) value));
+            }
+        }
+        return new GrayImage(WIDTH, HEIGHT, pixels);
+    }
+
+    @Benchmark
+    public List<FaceRegion> detect() {
+        return detector.detect(frame);
+    }
+}
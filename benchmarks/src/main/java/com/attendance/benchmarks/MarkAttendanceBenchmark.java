@@ -0,0 +1,98 @@
+package com.attendance.benchmarks;
+
+import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.impl.AttendanceDaoImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link AttendanceDaoImpl#markAttendance} for one class roster, as a teacher submits it.
+ *
+ * Every invocation marks a new (class, date) pair in a dedicated academic year so the
+ * generated dataset is never modified; those rows and their rollups are removed when
+ * the trial ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarkAttendanceBenchmark {
+    private static final String ACADEMIC_YEAR = "2099";
+    private static final LocalDate FIRST_DATE = LocalDate.of(2099, 1, 1);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BenchmarkDatabase database;
+    private SyntheticDataset dataset;
+    private AttendanceDao attendanceDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.acquire();
+        dataset = database.getDataset();
+        attendanceDao = new AttendanceDaoImpl();
+        removeMarkedRows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try {
+            removeMarkedRows();
+        } finally {
+            BenchmarkDatabase.release();
+        }
+    }
+
+    @Benchmark
+    public int markClass() throws SQLException {
+        long n = sequence.getAndIncrement();
+        int classId = (int) (n % dataset.getClasses()) + 1;
+        LocalDate date = FIRST_DATE.plusDays(n / dataset.getClasses());
+        String subjectCode = dataset.getSubjectCode(dataset.getDepartmentOfClass(classId), 0);
+
+        List<Integer> students = dataset.getClassStudents(classId);
+        Map<Integer, String> statuses = new HashMap<>();
+        for (int i = 0; i < students.size(); i++) {
+            statuses.put(students.get(i), i % 10 == 0 ? "Absent" : "Present");
+        }
+
+        return attendanceDao.markAttendance(subjectCode, Date.valueOf(date),
+                SyntheticDataset.semesterOf(date), ACADEMIC_YEAR, statuses);
+    }
+
+    private void removeMarkedRows() throws SQLException {
+        try (Connection conn = database.openConnection()) {
+            for (String table : new String[] {"Attendance", "AttendanceRollup"}) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "DELETE FROM " + table + " WHERE academic_year = ?")) {
+                    stmt.setString(1, ACADEMIC_YEAR);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.attendance.benchmarks;
+
+import com.attendance.utils.PasswordUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying one login password ({@link PasswordUtils#verifySecurePassword}) at
+ * candidate PBKDF2 iteration counts, to choose PASSWORD_HASH_ITERATIONS. The latency of
+ * a login is roughly one verification; peak logins per second per core are the inverse.
+ * Run with {@code -t} set to the verifier pool size to see the throughput under load.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"50000", "100000", "210000", "310000", "600000"})
+    public int iterations;
+
+    private String storedHash;
+    private String legacyHash;
+
+    @Setup
+    public void setUp() {
+        storedHash = PasswordUtils.generateSecurePassword(PASSWORD, iterations);
+        String salt = PasswordUtils.generateSalt();
+        legacyHash = salt + ":" + PasswordUtils.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return PasswordUtils.verifySecurePassword(PASSWORD, storedHash);
+    }
+
+    /**
+     * A first login with a legacy hash: verify it, then hash at the new cost
+     */
+    @Benchmark
+    public String verifyLegacyAndRehash() {
+        if (!PasswordUtils.verifySecurePassword(PASSWORD, legacyHash)) {
+            throw new IllegalStateException("Legacy hash did not verify");
+        }
+        return PasswordUtils.generateSecurePassword(PASSWORD, iterations);
+    }
+}
@@ -0,0 +1,148 @@
+package com.attendance.benchmarks;
+
+import com.attendance.controllers.FixedAttendanceReportController;
+import com.attendance.models.User;
+
+import jakarta.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report builders of {@link FixedAttendanceReportController}, driven through the
+ * servlet with the JSP forward stubbed out. Each report is checked once before
+ * measuring, so a report that fails (and renders the error page) is not timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"student", "class", "subject", "department", "institution",
+            "hodDashboard", "hodClasses", "principalDashboard", "principalDepartments"})
+    public String report;
+
+    private FixedAttendanceReportController controller;
+    private Map<String, Object> session;
+    private String servletPath;
+    private String pathInfo;
+    private Map<String, String> parameters;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServletException, IOException {
+        SyntheticDataset dataset = BenchmarkDatabase.acquire().getDataset();
+        LocalDate endDate = dataset.getEndDate();
+        int departmentId = 1;
+        int classId = 1;
+
+        parameters = new HashMap<>();
+        parameters.put("academicYear", SyntheticDataset.academicYearOf(endDate));
+        parameters.put("semester", SyntheticDataset.semesterOf(endDate));
+
+        User user = user(dataset.getAdminId(), "Admin", null);
+        String expectedView;
+        switch (report) {
+            case "student":
+                route("/reports", "/student");
+                parameters.put("studentId", String.valueOf(dataset.getStudentId(0)));
+                expectedView = "student_report.jsp";
+                break;
+            case "class":
+                route("/reports", "/class");
+                parameters.put("classId", String.valueOf(classId));
+                expectedView = "class_report.jsp";
+                break;
+            case "subject":
+                route("/reports", "/subject");
+                parameters.put("subjectCode", dataset.getSubjectCode(departmentId, 0));
+                expectedView = "subject_report.jsp";
+                break;
+            case "department":
+                route("/reports", "/department");
+                parameters.put("departmentId", String.valueOf(departmentId));
+                expectedView = "department_report.jsp";
+                break;
+            case "institution":
+                route("/reports", "/institution");
+                expectedView = "institution_report.jsp";
+                break;
+            case "hodDashboard":
+                route("/hod/reports", "/");
+                user = user(dataset.getHodId(departmentId), "HOD", departmentId);
+                expectedView = "hod_dashboard.jsp";
+                break;
+            case "hodClasses":
+                route("/hod/reports", "/classes");
+                user = user(dataset.getHodId(departmentId), "HOD", departmentId);
+                expectedView = "hod_classes.jsp";
+                break;
+            case "principalDashboard":
+                route("/principal/reports", "/");
+                user = user(dataset.getPrincipalId(), "Principal", null);
+                expectedView = "principal_dashboard.jsp";
+                break;
+            case "principalDepartments":
+                route("/principal/reports", "/departments");
+                user = user(dataset.getPrincipalId(), "Principal", null);
+                expectedView = "principal_departments.jsp";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown report: " + report);
+        }
+
+        session = new HashMap<>();
+        session.put("currentUser", user);
+
+        controller = new FixedAttendanceReportController();
+        controller.init();
+
+        build().assertSucceeded(expectedView);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.destroy();
+        BenchmarkDatabase.release();
+    }
+
+    @Benchmark
+    public ServletExchange build() throws ServletException, IOException {
+        ServletExchange exchange = new ServletExchange(servletPath, pathInfo, session);
+        parameters.forEach(exchange::parameter);
+        controller.service(exchange.request(), exchange.response());
+        return exchange;
+    }
+
+    private void route(String servletPath, String pathInfo) {
+        this.servletPath = servletPath;
+        this.pathInfo = pathInfo;
+    }
+
+    private static User user(int userId, String role, Integer departmentId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setRole(role);
+        user.setDepartmentId(departmentId);
+        return user;
+    }
+}
@@ -0,0 +1,263 @@
+package com.attendance.benchmarks;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A single request/response pair for driving a servlet outside a container.
+ *
+ * The request, session and response are dynamic proxies backed by plain maps; JSP
+ * forwards are recorded instead of rendered and the response body is counted and
+ * discarded, so a benchmark measures the controller and DAO work only.
+ */
+public class ServletExchange {
+    private final String servletPath;
+    private final String pathInfo;
+    private final Map<String, String> parameters = new LinkedHashMap<>();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final Map<String, Object> sessionAttributes;
+
+    private String forwardedTo;
+    private String redirectedTo;
+    private int status = HttpServletResponse.SC_OK;
+    private long bodyLength;
+
+    /**
+     * @param servletPath Servlet path the controller routes on (e.g. "/reports")
+     * @param pathInfo Path after the servlet path (e.g. "/class"), or null
+     * @param sessionAttributes Session contents (shared between exchanges of the same "user")
+     */
+    public ServletExchange(String servletPath, String pathInfo, Map<String, Object> sessionAttributes) {
+        this.servletPath = servletPath;
+        this.pathInfo = pathInfo;
+        this.sessionAttributes = sessionAttributes;
+    }
+
+    public ServletExchange parameter(String name, Object value) {
+        if (value != null) {
+            parameters.put(name, value.toString());
+        }
+        return this;
+    }
+
+    public HttpServletRequest request() {
+        HttpSession session = proxy(HttpSession.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getAttribute":
+                    return sessionAttributes.get((String) args[0]);
+                case "setAttribute":
+                    sessionAttributes.put((String) args[0], args[1]);
+                    return null;
+                case "removeAttribute":
+                    sessionAttributes.remove((String) args[0]);
+                    return null;
+                case "getAttributeNames":
+                    return Collections.enumeration(sessionAttributes.keySet());
+                case "getId":
+                    return "benchmark";
+                default:
+                    return null;
+            }
+        });
+
+        RequestDispatcher dispatcher = proxy(RequestDispatcher.class, (method, args) -> null);
+
+        return proxy(HttpServletRequest.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getMethod":
+                    return "GET";
+                case "getServletPath":
+                    return servletPath;
+                case "getPathInfo":
+                    return pathInfo;
+                case "getContextPath":
+                    return "";
+                case "getRequestURI":
+                    return servletPath + (pathInfo != null ? pathInfo : "");
+                case "getProtocol":
+                    return "HTTP/1.1";
+                case "getParameter":
+                    return parameters.get((String) args[0]);
+                case "getParameterValues": {
+                    String value = parameters.get((String) args[0]);
+                    return value != null ? new String[] {value} : null;
+                }
+                case "getParameterNames":
+                    return Collections.enumeration(parameters.keySet());
+                case "getParameterMap": {
+                    Map<String, String[]> map = new LinkedHashMap<>();
+                    parameters.forEach((name, value) -> map.put(name, new String[] {value}));
+                    return map;
+                }
+                case "getAttribute":
+                    return attributes.get((String) args[0]);
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+                    return null;
+                case "removeAttribute":
+                    attributes.remove((String) args[0]);
+                    return null;
+                case "getSession":
+                    return session;
+                case "getRequestDispatcher":
+                    forwardedTo = (String) args[0];
+                    return dispatcher;
+                case "getHeaderNames":
+                case "getHeaders":
+                    return Collections.emptyEnumeration();
+                case "getDateHeader":
+                    return -1L;
+                case "getLocale":
+                    return Locale.getDefault();
+                case "getCharacterEncoding":
+                    return "UTF-8";
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+
+    public HttpServletResponse response() {
+        PrintWriter writer = new PrintWriter(new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                bodyLength += length;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                bodyLength++;
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) {
+                bodyLength += length;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        return proxy(HttpServletResponse.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getWriter":
+                    return writer;
+                case "getOutputStream":
+                    return outputStream;
+                case "setStatus":
+                case "sendError":
+                    status = (Integer) args[0];
+                    return null;
+                case "sendRedirect":
+                    status = HttpServletResponse.SC_FOUND;
+                    redirectedTo = (String) args[0];
+                    return null;
+                case "getStatus":
+                    return status;
+                case "encodeURL":
+                case "encodeRedirectURL":
+                    return args[0];
+                case "getCharacterEncoding":
+                    return "UTF-8";
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public String getForwardedTo() {
+        return forwardedTo;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * Fail unless the controller completed normally (rendered a view other than the
+     * error page, or wrote a body); used to validate a benchmark before measuring it
+     * @param expectedView Substring of the view path the controller should forward to, or null
+     */
+    public void assertSucceeded(String expectedView) {
+        if (status >= 300 || redirectedTo != null) {
+            throw new IllegalStateException("Request " + servletPath + pathInfo + " failed with status " + status +
+                                            (redirectedTo != null ? " (redirect to " + redirectedTo + ")" : ""));
+        }
+        if (expectedView != null && (forwardedTo == null || !forwardedTo.contains(expectedView))) {
+            throw new IllegalStateException("Request " + servletPath + pathInfo + " forwarded to " + forwardedTo +
+                                            " instead of " + expectedView + ": " + attributes.get("error"));
+        }
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return type.getSimpleName() + " stub";
+                        default:
+                            return handler.invoke(method, args);
+                    }
+                }));
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,289 @@
+package com.attendance.benchmarks;
+
+import com.attendance.dao.impl.AttendanceRollupDaoImpl;
+import com.attendance.utils.MigrationRunner;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Loads a deterministic synthetic institution into an empty PostgreSQL database.
+ *
+ * Rows are streamed with COPY; indexes are added afterwards by the application's own
+ * migrations, and the attendance rollups are rebuilt the same way the rollup job does.
+ * Each student has a fixed attendance tendency (55-98% present, ~2% on leave) so the
+ * percentage reports return a realistic spread.
+ */
+public class SyntheticDataGenerator {
+    private static final Logger LOGGER = Logger.getLogger(SyntheticDataGenerator.class.getName());
+
+    private static final String SCHEMA_RESOURCE = "/bench-schema.sql";
+    private static final String PASSWORD = "benchmark";
+
+    private final SyntheticDataset dataset;
+
+    public SyntheticDataGenerator(SyntheticDataset dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * Make sure the database holds this dataset, regenerating it if it is missing or
+     * was generated with a different scale
+     * @param conn A direct (non-pooled) connection to the benchmark database
+     * @return true if the data was (re)generated
+     * @throws SQLException If a database error occurs
+     * @throws IllegalStateException If the database holds tables not created by this generator
+     */
+    public boolean ensureLoaded(Connection conn) throws SQLException {
+        String existing = loadedKey(conn);
+        if (dataset.getKey().equals(existing)) {
+            LOGGER.info("Benchmark dataset already loaded: " + existing);
+            return false;
+        }
+        if (existing == null && hasTables(conn)) {
+            throw new IllegalStateException("Refusing to overwrite a database that was not created by the " +
+                                            "benchmark generator; point BENCH_DATABASE_URL at an empty database");
+        }
+
+        long start = System.currentTimeMillis();
+        LOGGER.info("Generating benchmark dataset " + dataset.getKey() +
+                    " (" + dataset.getAttendanceRows() + " attendance rows)");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA public CASCADE");
+            stmt.execute("CREATE SCHEMA public");
+            for (String sql : MigrationRunner.splitStatements(readResource(SCHEMA_RESOURCE))) {
+                stmt.execute(sql);
+            }
+        }
+
+        PGConnection pgConn = conn.unwrap(PGConnection.class);
+        copy(pgConn, "COPY Users (user_id, name, full_name, username, email, password, role, department_id) " +
+                     "FROM STDIN", this::writeUsers);
+        copy(pgConn, "COPY Departments (department_id, department_name, department_code, hod_id) " +
+                     "FROM STDIN", this::writeDepartments);
+        copy(pgConn, "COPY Classes (class_id, class_name, course, year, department_id, max_students) " +
+                     "FROM STDIN", this::writeClasses);
+        copy(pgConn, "COPY Subjects (subject_code, subject_name, semester, credits) FROM STDIN", this::writeSubjects);
+        copy(pgConn, "COPY DepartmentSubjects (department_id, subject_code, credits) FROM STDIN",
+             this::writeDepartmentSubjects);
+        copy(pgConn, "COPY StudentEnrollments (student_id, class_id, academic_year, enrollment_date) FROM STDIN",
+             this::writeEnrollments);
+        copy(pgConn, "COPY TeacherAssignments (teacher_id, subject_code, class_id, academic_year) FROM STDIN",
+             this::writeTeacherAssignments);
+        long attendanceStart = System.currentTimeMillis();
+        copy(pgConn, "COPY Attendance (student_id, subject_code, attendance_date, status, semester, " +
+                     "academic_year, marked_by) FROM STDIN", this::writeAttendance);
+        LOGGER.info("Attendance loaded in " + (System.currentTimeMillis() - attendanceStart) + " ms");
+
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : new String[] {"users:user_id", "departments:department_id", "classes:class_id"}) {
+                String[] parts = table.split(":");
+                stmt.execute("SELECT setval(pg_get_serial_sequence('" + parts[0] + "', '" + parts[1] + "'), " +
+                             "(SELECT MAX(" + parts[1] + ") FROM " + parts[0] + "))");
+            }
+        }
+
+        new MigrationRunner().migrate();
+        int rollupRows = new AttendanceRollupDaoImpl().rebuild();
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("VACUUM ANALYZE");
+            stmt.executeUpdate("INSERT INTO bench_dataset (dataset, attendance_rows) VALUES ('" +
+                               dataset.getKey() + "', " + dataset.getAttendanceRows() + ")");
+        }
+
+        LOGGER.info("Benchmark dataset generated in " + (System.currentTimeMillis() - start) + " ms (" +
+                    rollupRows + " rollup rows)");
+        return true;
+    }
+
+    private String loadedKey(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT to_regclass('bench_dataset') IS NOT NULL")) {
+            if (!rs.next() || !rs.getBoolean(1)) {
+                return null;
+            }
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT dataset FROM bench_dataset ORDER BY generated_at DESC LIMIT 1")) {
+            // An empty marker table means a load was interrupted
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
+    private boolean hasTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT EXISTS (SELECT 1 FROM pg_tables WHERE schemaname = 'public')")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private interface RowWriter {
+        void write(Writer out) throws IOException;
+    }
+
+    private void copy(PGConnection conn, String sql, RowWriter rows) throws SQLException {
+        PGCopyOutputStream copy = new PGCopyOutputStream(conn, sql, 1 << 20);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), 1 << 16)) {
+            rows.write(out);
+        } catch (IOException e) {
+            throw new SQLException("COPY failed: " + sql, e);
+        }
+    }
+
+    private static void row(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(values[i] == null ? "\\N" : values[i].toString());
+        }
+        out.write('\n');
+    }
+
+    private void writeUsers(Writer out) throws IOException {
+        user(out, dataset.getAdminId(), "Benchmark Admin", "Admin", null);
+        user(out, dataset.getPrincipalId(), "Benchmark Principal", "Principal", null);
+        for (int d = 1; d <= dataset.getDepartments(); d++) {
+            user(out, dataset.getHodId(d), "HOD " + d, "HOD", d);
+            for (int s = 0; s < dataset.getSubjectsPerDepartment(); s++) {
+                user(out, dataset.getTeacherId(d, s), "Teacher " + dataset.getSubjectCode(d, s), "Teacher", d);
+            }
+        }
+        for (int i = 0; i < dataset.getStudents(); i++) {
+            int classId = dataset.getClassOfStudent(i);
+            user(out, dataset.getStudentId(i), "Student " + (i + 1), "Student", dataset.getDepartmentOfClass(classId));
+        }
+    }
+
+    private void user(Writer out, int userId, String name, String role, Integer departmentId) throws IOException {
+        String username = role.toLowerCase() + userId;
+        row(out, userId, name, name, username, username + "@bench.local", PASSWORD, role, departmentId);
+    }
+
+    private void writeDepartments(Writer out) throws IOException {
+        for (int d = 1; d <= dataset.getDepartments(); d++) {
+            row(out, d, "Department " + d, String.format("DEP%02d", d), dataset.getHodId(d));
+        }
+    }
+
+    private void writeClasses(Writer out) throws IOException {
+        for (int c = 1; c <= dataset.getClasses(); c++) {
+            row(out, c, "Class " + c, "Course " + dataset.getDepartmentOfClass(c), String.valueOf((c - 1) % 4 + 1),
+                dataset.getDepartmentOfClass(c), dataset.getClassSize());
+        }
+    }
+
+    private void writeSubjects(Writer out) throws IOException {
+        for (int d = 1; d <= dataset.getDepartments(); d++) {
+            for (int s = 0; s < dataset.getSubjectsPerDepartment(); s++) {
+                row(out, dataset.getSubjectCode(d, s), "Subject " + dataset.getSubjectCode(d, s), s % 8 + 1, 4);
+            }
+        }
+    }
+
+    private void writeDepartmentSubjects(Writer out) throws IOException {
+        for (int d = 1; d <= dataset.getDepartments(); d++) {
+            for (int s = 0; s < dataset.getSubjectsPerDepartment(); s++) {
+                row(out, d, dataset.getSubjectCode(d, s), 4);
+            }
+        }
+    }
+
+    private TreeSet<String> academicYears() {
+        TreeSet<String> years = new TreeSet<>();
+        for (LocalDate date : dataset.getSchoolDays()) {
+            years.add(SyntheticDataset.academicYearOf(date));
+        }
+        return years;
+    }
+
+    private void writeEnrollments(Writer out) throws IOException {
+        LocalDate enrolled = dataset.getSchoolDays().get(0);
+        for (String year : academicYears()) {
+            for (int i = 0; i < dataset.getStudents(); i++) {
+                row(out, dataset.getStudentId(i), dataset.getClassOfStudent(i), year, enrolled);
+            }
+        }
+    }
+
+    private void writeTeacherAssignments(Writer out) throws IOException {
+        for (String year : academicYears()) {
+            for (int c = 1; c <= dataset.getClasses(); c++) {
+                int d = dataset.getDepartmentOfClass(c);
+                for (int s = 0; s < dataset.getSubjectsPerDepartment(); s++) {
+                    row(out, dataset.getTeacherId(d, s), dataset.getSubjectCode(d, s), c, year);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows in marking order: per day, per class, per subject, the whole class roster
+     */
+    private void writeAttendance(Writer out) throws IOException {
+        double[] presentRate = new double[dataset.getStudents()];
+        SplittableRandom tendencies = new SplittableRandom(dataset.getSeed());
+        for (int i = 0; i < presentRate.length; i++) {
+            presentRate[i] = 0.55 + tendencies.nextDouble() * 0.43;
+        }
+
+        SplittableRandom random = new SplittableRandom(dataset.getSeed() + 1);
+        List<LocalDate> days = dataset.getSchoolDays();
+        long written = 0;
+        int dayCount = 0;
+        for (LocalDate date : days) {
+            String day = date.toString();
+            String year = SyntheticDataset.academicYearOf(date);
+            String semester = SyntheticDataset.semesterOf(date);
+            for (int c = 1; c <= dataset.getClasses(); c++) {
+                int d = dataset.getDepartmentOfClass(c);
+                int first = (c - 1) * dataset.getClassSize();
+                int last = Math.min(dataset.getStudents(), first + dataset.getClassSize());
+                for (int s = 0; s < dataset.getSubjectsPerDepartment(); s++) {
+                    String subjectCode = dataset.getSubjectCode(d, s);
+                    String markedBy = String.valueOf(dataset.getTeacherId(d, s));
+                    for (int i = first; i < last; i++) {
+                        double roll = random.nextDouble();
+                        String status = roll < 0.02 ? "On Leave" : roll < 0.02 + 0.98 * presentRate[i] ? "Present" : "Absent";
+                        row(out, dataset.getStudentId(i), subjectCode, day, status, semester, year, markedBy);
+                    }
+                    written += last - first;
+                }
+            }
+            if (++dayCount % 20 == 0) {
+                LOGGER.info("Attendance rows written: " + written + " (" + dayCount + "/" + days.size() + " days)");
+            }
+        }
+    }
+
+    private static String readResource(String name) {
+        try (InputStream in = SyntheticDataGenerator.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException("Resource not found on classpath: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.attendance.benchmarks;
+
+import com.attendance.utils.AppSettings;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shape of the synthetic benchmark dataset and the deterministic id layout used by the
+ * generator, so benchmarks can pick students, classes and subjects without querying.
+ *
+ * Settings (system property or environment variable):
+ * BENCH_STUDENTS (default 20000), BENCH_DAYS (school days, default 200),
+ * BENCH_SUBJECTS (subjects per student, default 6), BENCH_CLASS_SIZE (default 60),
+ * BENCH_STUDENTS_PER_DEPARTMENT (default 2000), BENCH_END_DATE (last school day,
+ * default 2025-12-19) and BENCH_SEED (default 42).
+ *
+ * User ids: 1 = Admin, 2 = Principal, then one HOD per department, one teacher per
+ * department subject, then the students. Department, class and subject ids start at 1.
+ */
+public class SyntheticDataset {
+    private final int students;
+    private final int days;
+    private final int subjectsPerDepartment;
+    private final int classSize;
+    private final int departments;
+    private final LocalDate endDate;
+    private final long seed;
+
+    public SyntheticDataset(int students, int days, int subjectsPerDepartment, int classSize,
+                            int studentsPerDepartment, LocalDate endDate, long seed) {
+        if (students < 1 || days < 1 || subjectsPerDepartment < 1 || classSize < 1 || studentsPerDepartment < 1) {
+            throw new IllegalArgumentException("Dataset dimensions must be positive");
+        }
+        this.students = students;
+        this.days = days;
+        this.subjectsPerDepartment = subjectsPerDepartment;
+        this.classSize = classSize;
+        this.departments = (students + studentsPerDepartment - 1) / studentsPerDepartment;
+        this.endDate = endDate;
+        this.seed = seed;
+    }
+
+    /**
+     * Dataset configured from settings (institution scale by default)
+     */
+    public static SyntheticDataset fromSettings() {
+        return new SyntheticDataset(
+                AppSettings.getInt("BENCH_STUDENTS", 20000),
+                AppSettings.getInt("BENCH_DAYS", 200),
+                AppSettings.getInt("BENCH_SUBJECTS", 6),
+                AppSettings.getInt("BENCH_CLASS_SIZE", 60),
+                AppSettings.getInt("BENCH_STUDENTS_PER_DEPARTMENT", 2000),
+                LocalDate.parse(AppSettings.getString("BENCH_END_DATE", "2025-12-19")),
+                AppSettings.getLong("BENCH_SEED", 42));
+    }
+
+    /**
+     * Key stored with the generated data; a different key triggers regeneration
+     */
+    public String getKey() {
+        return "students=" + students + ";days=" + days + ";subjects=" + subjectsPerDepartment +
+               ";classSize=" + classSize + ";departments=" + departments +
+               ";end=" + endDate + ";seed=" + seed;
+    }
+
+    public int getStudents() {
+        return students;
+    }
+
+    public int getSubjectsPerDepartment() {
+        return subjectsPerDepartment;
+    }
+
+    public int getClassSize() {
+        return classSize;
+    }
+
+    public int getDepartments() {
+        return departments;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getAttendanceRows() {
+        return (long) students * days * subjectsPerDepartment;
+    }
+
+    /**
+     * Number of classes; classes are spread round-robin over the departments
+     */
+    public int getClasses() {
+        return (students + classSize - 1) / classSize;
+    }
+
+    public int getAdminId() {
+        return 1;
+    }
+
+    public int getPrincipalId() {
+        return 2;
+    }
+
+    public int getHodId(int departmentId) {
+        return 2 + departmentId;
+    }
+
+    public int getTeacherId(int departmentId, int subjectIndex) {
+        return 3 + departments + (departmentId - 1) * subjectsPerDepartment + subjectIndex;
+    }
+
+    /**
+     * @param index Zero-based student index
+     */
+    public int getStudentId(int index) {
+        return 3 + departments + departments * subjectsPerDepartment + index;
+    }
+
+    public int getMaxUserId() {
+        return getStudentId(students - 1);
+    }
+
+    public int getClassOfStudent(int index) {
+        return index / classSize + 1;
+    }
+
+    public int getDepartmentOfClass(int classId) {
+        return (classId - 1) % departments + 1;
+    }
+
+    /**
+     * Student ids enrolled in a class
+     */
+    public List<Integer> getClassStudents(int classId) {
+        int first = (classId - 1) * classSize;
+        int last = Math.min(students, first + classSize);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = first; i < last; i++) {
+            ids.add(getStudentId(i));
+        }
+        return ids;
+    }
+
+    /**
+     * @param subjectIndex Zero-based subject index within the department
+     */
+    public String getSubjectCode(int departmentId, int subjectIndex) {
+        return String.format("D%02dS%d", departmentId, subjectIndex + 1);
+    }
+
+    /**
+     * The school days (Monday to Friday) ending on the configured end date, oldest first
+     */
+    public List<LocalDate> getSchoolDays() {
+        List<LocalDate> dates = new ArrayList<>(days);
+        LocalDate date = endDate;
+        while (dates.size() < days) {
+            if (date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                dates.add(date);
+            }
+            date = date.minusDays(1);
+        }
+        Collections.reverse(dates);
+        return dates;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Academic year of a date (calendar year, as the controllers default to)
+     */
+    public static String academicYearOf(LocalDate date) {
+        return String.valueOf(date.getYear());
+    }
+
+    /**
+     * Semester of a date (July to December is "Odd", as the controllers default to)
+     */
+    public static String semesterOf(LocalDate date) {
+        return date.getMonthValue() >= 7 ? "Odd" : "Even";
+    }
+}
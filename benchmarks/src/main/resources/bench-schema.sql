@@ -0,0 +1,146 @@
+-- Schema used by the synthetic benchmark dataset.
+-- Based on src/main/resources/database/schema.sql, plus the extra columns the DAO
+-- mappers read (Users.name/phone_no/department_id, Classes.course/year,
+-- Subjects.semester/credits, TeacherAssignments.assignment_type) so every code path
+-- under test resolves against one database.
+-- Indexes come from the application's migrations, which run after the data load.
+
+CREATE TABLE Users (
+    user_id SERIAL PRIMARY KEY,
+    name VARCHAR(100),
+    full_name VARCHAR(100),
+    username VARCHAR(100),
+    email VARCHAR(100) UNIQUE NOT NULL,
+    password VARCHAR(200) NOT NULL,
+    phone_no VARCHAR(20),
+    role VARCHAR(20) NOT NULL,
+    department_id INTEGER,
+    status VARCHAR(20) NOT NULL DEFAULT 'Active',
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE Departments (
+    department_id SERIAL PRIMARY KEY,
+    department_name VARCHAR(100) NOT NULL,
+    department_code VARCHAR(20) UNIQUE NOT NULL,
+    hod_id INTEGER REFERENCES Users(user_id),
+    description TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE Classes (
+    class_id SERIAL PRIMARY KEY,
+    class_name VARCHAR(100) NOT NULL,
+    course VARCHAR(100),
+    year VARCHAR(20),
+    semester VARCHAR(10),
+    department_id INTEGER NOT NULL REFERENCES Departments(department_id),
+    class_teacher_id INTEGER REFERENCES Users(user_id),
+    max_students INTEGER,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE Subjects (
+    subject_code VARCHAR(20) PRIMARY KEY,
+    subject_name VARCHAR(100) NOT NULL,
+    semester VARCHAR(10),
+    credits INTEGER,
+    description TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE DepartmentSubjects (
+    department_subject_id SERIAL PRIMARY KEY,
+    department_id INTEGER NOT NULL REFERENCES Departments(department_id),
+    subject_code VARCHAR(20) NOT NULL REFERENCES Subjects(subject_code),
+    semester VARCHAR(10),
+    credits INTEGER,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    UNIQUE (department_id, subject_code, semester)
+);
+
+CREATE TABLE StudentEnrollments (
+    enrollment_id SERIAL PRIMARY KEY,
+    student_id INTEGER NOT NULL REFERENCES Users(user_id),
+    class_id INTEGER NOT NULL REFERENCES Classes(class_id),
+    semester VARCHAR(10),
+    academic_year VARCHAR(20) NOT NULL,
+    enrollment_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    status VARCHAR(20) NOT NULL DEFAULT 'Active',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    UNIQUE (student_id, academic_year)
+);
+
+CREATE TABLE TeacherAssignments (
+    assignment_id SERIAL PRIMARY KEY,
+    teacher_id INTEGER NOT NULL REFERENCES Users(user_id),
+    subject_code VARCHAR(20) NOT NULL REFERENCES Subjects(subject_code),
+    class_id INTEGER NOT NULL REFERENCES Classes(class_id),
+    academic_year VARCHAR(20),
+    assignment_type VARCHAR(50) NOT NULL DEFAULT 'Subject Teacher',
+    status VARCHAR(20) NOT NULL DEFAULT 'Active',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    UNIQUE (teacher_id, subject_code, class_id, academic_year)
+);
+
+CREATE TABLE Attendance (
+    attendance_id SERIAL PRIMARY KEY,
+    student_id INTEGER NOT NULL REFERENCES Users(user_id),
+    subject_code VARCHAR(20) NOT NULL REFERENCES Subjects(subject_code),
+    attendance_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('Present', 'Absent', 'On Leave')),
+    semester VARCHAR(10) NOT NULL,
+    academic_year VARCHAR(20) NOT NULL,
+    marked_by VARCHAR(100),
+    marked_at TIMESTAMP,
+    remarks TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    UNIQUE (student_id, subject_code, attendance_date)
+);
+
+CREATE TABLE AttendanceRollup (
+    student_id INTEGER NOT NULL,
+    subject_code VARCHAR(20) NOT NULL,
+    academic_year VARCHAR(20) NOT NULL,
+    semester VARCHAR(10) NOT NULL,
+    attendance_month SMALLINT NOT NULL,
+    present_count INTEGER NOT NULL DEFAULT 0,
+    absent_count INTEGER NOT NULL DEFAULT 0,
+    leave_count INTEGER NOT NULL DEFAULT 0,
+    total_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (student_id, subject_code, academic_year, semester, attendance_month)
+);
+
+CREATE INDEX idx_attendance_rollup_year_semester ON AttendanceRollup (academic_year, semester);
+
+CREATE TABLE LeaveApplications (
+    leave_id SERIAL PRIMARY KEY,
+    student_id INTEGER NOT NULL REFERENCES Users(user_id),
+    class_id INTEGER NOT NULL REFERENCES Classes(class_id),
+    reason TEXT NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'Pending',
+    approved_by INTEGER REFERENCES Users(user_id),
+    approval_date TIMESTAMP,
+    remarks TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- Identifies the generated dataset so it is only rebuilt when the scale changes
+CREATE TABLE bench_dataset (
+    dataset VARCHAR(200) NOT NULL,
+    attendance_rows BIGINT NOT NULL,
+    generated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
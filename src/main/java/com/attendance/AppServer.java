@@ -24,6 +24,7 @@ import java.util.logging.Logger;
 import org.apache.catalina.LifecycleException;
 
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.ExternalSessionManager;
 
 /**
  * Main application server for the Student Attendance Management System.
@@ -100,6 +101,12 @@ public class AppServer {
             // Create context and configure
             Context context = tomcat.addWebapp(contextPath, docBase.getAbsolutePath());
             context.setCreateUploadTargets(true);
+
+            // Keep sessions in an external store when configured (SESSION_STORE)
+            ExternalSessionManager sessionManager = ExternalSessionManager.fromSettings();
+            if (sessionManager != null) {
+                context.setManager(sessionManager);
+            }
             
             // Enable detailed logging for context configuration issues
             context.setLogEffectiveWebXml(true);
@@ -0,0 +1,88 @@
+package com.attendance;
+
+import com.attendance.models.AttendanceImportResult;
+import com.attendance.utils.AttendanceImporter;
+import com.attendance.utils.DatabaseConnection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command-line bulk attendance import (see AttendanceImporter), for files too large to
+ * upload or for importing biometric logs from a scheduled task:
+ *
+ *   java com.attendance.AttendanceImportCli [--semester S] [--academic-year Y]
+ *        [--marked-by USER_ID] [--max-rejects N] [--dry-run] FILE
+ *
+ * The database is configured as for the server (DATABASE_URL or PGHOST etc.). Exits
+ * with 0 if the import completed without rejected rows, 1 if rows were rejected and
+ * 2 if the import failed.
+ */
+public class AttendanceImportCli {
+
+    public static void main(String[] args) {
+        AttendanceImporter importer = new AttendanceImporter();
+        Path file = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--dry-run")) {
+                importer.setDryRun(true);
+            } else if (i + 1 < args.length && arg.equals("--semester")) {
+                importer.setSemester(args[++i]);
+            } else if (i + 1 < args.length && arg.equals("--academic-year")) {
+                importer.setAcademicYear(args[++i]);
+            } else if (i + 1 < args.length && arg.equals("--marked-by")) {
+                importer.setMarkedBy(Integer.valueOf(args[++i]));
+            } else if (i + 1 < args.length && arg.equals("--max-rejects")) {
+                importer.setMaxRejects(Long.parseLong(args[++i]));
+            } else if (!arg.startsWith("--") && file == null) {
+                file = Paths.get(arg);
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (file == null) {
+            usage();
+            return;
+        }
+
+        AttendanceImportResult result = new AttendanceImportResult(file.toString(), importer.isDryRun(), 100);
+        importer.setProgressListener(progress -> System.err.println(progress));
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            importer.importCsv(reader, result);
+        } catch (IOException e) {
+            System.err.println("Cannot read " + file + ": " + e.getMessage());
+            System.exit(2);
+        } finally {
+            DatabaseConnection.closeAllConnections();
+        }
+
+        for (AttendanceImportResult.RejectedRow row : result.getRejectedRows()) {
+            System.out.println("REJECTED line " + row.getLineNumber() + ": " + row.getReason() + " [" + row.getLine() + "]");
+        }
+        if (result.getRowsRejected() > result.getRejectedRows().size()) {
+            System.out.println("... " + (result.getRowsRejected() - result.getRejectedRows().size()) + " more rejected rows");
+        }
+        System.out.println(result);
+
+        if (result.getPhase() != AttendanceImportResult.Phase.COMPLETED) {
+            System.exit(2);
+        }
+        if (result.getRowsRejected() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: AttendanceImportCli [--semester S] [--academic-year Y] [--marked-by USER_ID] " +
+                           "[--max-rejects N] [--dry-run] FILE");
+        System.exit(2);
+    }
+}
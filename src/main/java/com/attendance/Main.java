@@ -13,6 +13,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.ExternalSessionManager;
 
 /**
  * Main class to launch the embedded Tomcat server
@@ -86,6 +87,12 @@ public class Main {
             resources.addPreResources(new DirResourceSet(resources, "/WEB-INF/classes",
                     additionWebInfClasses.getAbsolutePath(), "/"));
             ctx.setResources(resources);
+
+            // Keep sessions in an external store when configured (SESSION_STORE)
+            ExternalSessionManager sessionManager = ExternalSessionManager.fromSettings();
+            if (sessionManager != null) {
+                ctx.setManager(sessionManager);
+            }
     
             // Start the server
             try {
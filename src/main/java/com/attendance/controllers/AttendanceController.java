@@ -1,12 +1,16 @@
 package com.attendance.controllers;
 
 import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.LeaveApplicationDao;
 import com.attendance.dao.UserDao;
 import com.attendance.dao.impl.AttendanceDaoImpl;
+import com.attendance.dao.impl.LeaveApplicationDaoImpl;
 import com.attendance.dao.impl.UserDaoImpl;
 import com.attendance.models.Attendance;
+import com.attendance.models.LeaveIntervalIndex;
+import com.attendance.models.MarkAttendanceResult;
 import com.attendance.models.User;
-import com.attendance.utils.EmailNotificationService;
+import com.attendance.utils.Metrics;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -34,9 +38,9 @@ import java.util.logging.Logger;
 public class AttendanceController extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(AttendanceController.class.getName());
     
-    private final AttendanceDao attendanceDAO = new AttendanceDaoImpl();
-    private final UserDao userDAO = new UserDaoImpl();
-    private final EmailNotificationService emailService = EmailNotificationService.getInstance();
+    private final AttendanceDao attendanceDAO = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+    private final UserDao userDAO = Metrics.timed(UserDao.class, new UserDaoImpl());
+    private final LeaveApplicationDao leaveApplicationDAO = new LeaveApplicationDaoImpl();
     
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
@@ -119,7 +123,19 @@ public class AttendanceController extends HttpServlet {
             request.setAttribute("students", students);
             
             // Set default date to today
-            request.setAttribute("currentDate", LocalDate.now().toString());
+            String dateStr = request.getParameter("date");
+            LocalDate date = dateStr != null && !dateStr.isEmpty() ? LocalDate.parse(dateStr) : LocalDate.now();
+            request.setAttribute("currentDate", date.toString());
+            
+            // Students with approved leave on the date, loaded in one query
+            List<Integer> studentIds = new ArrayList<>();
+            for (User student : students) {
+                studentIds.add(student.getUserId());
+            }
+            LeaveIntervalIndex leaveIndex = leaveApplicationDAO.findApprovedLeavesByStudents(
+                    studentIds, Date.valueOf(date), Date.valueOf(date));
+            request.setAttribute("leaveIndex", leaveIndex);
+            request.setAttribute("studentsOnLeave", leaveIndex.getStudentsOnLeave(date));
             
             request.getRequestDispatcher("/WEB-INF/views/attendance/mark.jsp").forward(request, response);
             
@@ -165,31 +181,30 @@ public class AttendanceController extends HttpServlet {
                 studentIds.add(Integer.parseInt(studentId));
             }
             
-            // Mark attendance for selected students
-            int count = attendanceDAO.markAttendanceBulk(studentIds, subjectCode, attendanceDate, 
-                                                      status, semester, academicYear, user.getFullName());
-            
-            // Send email notifications
-            for (Integer studentId : studentIds) {
-                User student = userDAO.getById(studentId);
-                
-                if (student != null) {
-                    Attendance attendance = new Attendance();
-                    attendance.setStudentId(studentId);
-                    attendance.setSubjectCode(subjectCode);
-                    attendance.setAttendanceDate(attendanceDate);
-                    attendance.setStatus(status);
-                    attendance.setSemester(Integer.parseInt(semester));
-                    attendance.setAcademicYear(academicYear);
-                    
-                    emailService.sendAttendanceNotification(student, attendance, subjectCode);
+            // Mark attendance for selected students; re-submitting a sheet only updates the
+            // records that changed. Students are notified through the notification outbox.
+            MarkAttendanceResult result;
+            if ("Absent".equals(status)) {
+                // Students with approved leave on the date are recorded as On Leave
+                LeaveIntervalIndex leaveIndex = leaveApplicationDAO.findApprovedLeavesByStudents(
+                        studentIds, attendanceDate, attendanceDate);
+                Map<Integer, String> studentStatuses = new LinkedHashMap<>();
+                for (Integer studentId : studentIds) {
+                    studentStatuses.put(studentId, leaveIndex.resolveStatus(studentId, attendanceDate.toLocalDate(), status));
                 }
+                result = attendanceDAO.upsertAttendance(subjectCode, attendanceDate, semester, academicYear,
+                                                        studentStatuses, user.getUserId());
+            } else {
+                result = attendanceDAO.markAttendanceBulk(studentIds, status, attendanceDate, 
+                                                          subjectCode, semester, academicYear, user.getUserId());
             }
             
-            request.setAttribute("successMessage", count + " attendance records marked successfully");
+            request.setAttribute("markResult", result);
+            request.setAttribute("successMessage", result.getInsertedCount() + " attendance records marked, " +
+                                 result.getUpdatedCount() + " updated, " + result.getUnchangedCount() + " unchanged");
             showMarkAttendancePage(request, response);
             
-            LOGGER.info("Attendance marked for " + count + " students in " + subjectCode);
+            LOGGER.info("Attendance marked in " + subjectCode + ": " + result);
             
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error marking attendance", e);
@@ -209,6 +224,9 @@ public class AttendanceController extends HttpServlet {
         String studentId = request.getParameter("studentId");
         String subjectCode = request.getParameter("subjectCode");
         String dateStr = request.getParameter("date");
+        String classId = request.getParameter("classId");
+        String fromDateStr = request.getParameter("fromDate");
+        String toDateStr = request.getParameter("toDate");
         
         try {
             List<Attendance> attendanceList;
@@ -216,6 +234,11 @@ public class AttendanceController extends HttpServlet {
             if (user.isStudent()) {
                 // Students can only view their own attendance
                 attendanceList = attendanceDAO.getByStudent(user.getUserId());
+            } else if (classId != null && !classId.isEmpty() && fromDateStr != null && !fromDateStr.isEmpty()
+                       && toDateStr != null && !toDateStr.isEmpty()) {
+                // View a class over a date range, showing absences covered by approved leave as On Leave
+                attendanceList = attendanceDAO.findEffectiveByClassAndDateRange(Integer.parseInt(classId),
+                        Date.valueOf(fromDateStr), Date.valueOf(toDateStr));
             } else if (studentId != null && !studentId.isEmpty()) {
                 // View attendance for a specific student
                 attendanceList = attendanceDAO.getByStudent(Integer.parseInt(studentId));
@@ -311,17 +334,11 @@ public class AttendanceController extends HttpServlet {
             if (attendance != null) {
                 attendance.setStatus(status);
                 attendance.setRemarks(remarks);
-                attendance.setMarkedBy(user.getFullName());
+                attendance.setMarkedById(user.getUserId());
                 
+                // Notifies the student (through the outbox) if the status changed
                 attendanceDAO.update(attendance);
                 
-                // Get the student and send notification
-                User student = userDAO.getById(attendance.getStudentId());
-                
-                if (student != null) {
-                    emailService.sendAttendanceNotification(student, attendance, attendance.getSubjectCode());
-                }
-                
                 request.setAttribute("successMessage", "Attendance record updated successfully");
                 response.sendRedirect(request.getContextPath() + "/attendance/view");
                 
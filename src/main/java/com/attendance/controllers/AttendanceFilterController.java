@@ -3,8 +3,12 @@ package com.attendance.controllers;
 import com.attendance.dao.*;
 import com.attendance.dao.impl.*;
 import com.attendance.models.*;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.AttendanceFilterQuery;
+import com.attendance.utils.CsvExporter;
 import com.attendance.utils.DatabaseConnection;
 import com.attendance.utils.DateUtils;
+import com.attendance.utils.Metrics;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -14,7 +18,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -42,18 +45,22 @@ public class AttendanceFilterController extends HttpServlet {
     private StudentEnrollmentDao studentEnrollmentDao;
     private TeacherAssignmentDao teacherAssignmentDao;
     private DepartmentSubjectDao departmentSubjectDao;
+    private CsvExporter csvExporter;
+    private int pageSize;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        attendanceDao = new AttendanceDaoImpl();
-        userDao = new UserDaoImpl();
+        attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+        userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
         classDao = new ClassDaoImpl();
         subjectDao = new SubjectDaoImpl();
         departmentDao = new DepartmentDaoImpl();
         studentEnrollmentDao = new StudentEnrollmentDaoImpl();
         teacherAssignmentDao = new TeacherAssignmentDaoImpl();
         departmentSubjectDao = new DepartmentSubjectDaoImpl();
+        csvExporter = new CsvExporter();
+        pageSize = Math.max(1, AppSettings.getInt("FILTER_PAGE_SIZE", 500));
     }
 
     @Override
@@ -315,46 +322,29 @@ public class AttendanceFilterController extends HttpServlet {
         
         try {
             // Process filter parameters to fetch attendance data
-            List<Map<String, Object>> filteredResults = getFilteredAttendanceResults(filterParams);
+            AttendanceFilterResult filteredResults = getFilteredAttendanceResults(filterParams, request, true);
             
             // Get additional data for display
             Map<Integer, User> students = new HashMap<>();
             Map<String, Subject> subjects = new HashMap<>();
             Map<Integer, com.attendance.models.Class> classes = new HashMap<>();
             
-            // Collect unique IDs
-            Set<Integer> studentIds = new HashSet<>();
-            Set<String> subjectCodes = new HashSet<>();
-            Set<Integer> classIds = new HashSet<>();
-            
-            for (Map<String, Object> result : filteredResults) {
-                if (result.containsKey("studentId")) {
-                    studentIds.add((Integer) result.get("studentId"));
-                }
-                if (result.containsKey("subjectCode")) {
-                    subjectCodes.add((String) result.get("subjectCode"));
-                }
-                if (result.containsKey("classId")) {
-                    classIds.add((Integer) result.get("classId"));
-                }
-            }
-            
             // Fetch details for display
-            for (int studentId : studentIds) {
+            for (int studentId : filteredResults.getDistinctStudentIds()) {
                 User student = userDao.findById(studentId);
                 if (student != null) {
                     students.put(studentId, student);
                 }
             }
             
-            for (String code : subjectCodes) {
+            for (String code : filteredResults.getSubjectCodes()) {
                 Subject subject = subjectDao.findByCode(code);
                 if (subject != null) {
                     subjects.put(code, subject);
                 }
             }
             
-            for (int classId : classIds) {
+            for (int classId : filteredResults.getDistinctClassIds()) {
                 com.attendance.models.Class cls = classDao.findById(classId);
                 if (cls != null) {
                     classes.put(classId, cls);
@@ -363,6 +353,7 @@ public class AttendanceFilterController extends HttpServlet {
             
             request.setAttribute("filterParams", filterParams);
             request.setAttribute("filteredResults", filteredResults);
+            request.setAttribute("filterSummary", getFilterSummary(filterParams));
             request.setAttribute("students", students);
             request.setAttribute("subjects", subjects);
             request.setAttribute("classes", classes);
@@ -502,22 +493,14 @@ public class AttendanceFilterController extends HttpServlet {
         
         try {
             // Process filter parameters to fetch attendance data
-            List<Map<String, Object>> filteredResults = getFilteredAttendanceResults(filterParams);
+            // Not paged: the per-subject summary covers every row
+            AttendanceFilterResult filteredResults = getFilteredAttendanceResults(filterParams, request, false);
             
             // Get additional data for display
             Map<String, Subject> subjects = new HashMap<>();
             
-            // Collect unique subject codes
-            Set<String> subjectCodes = new HashSet<>();
-            
-            for (Map<String, Object> result : filteredResults) {
-                if (result.containsKey("subjectCode")) {
-                    subjectCodes.add((String) result.get("subjectCode"));
-                }
-            }
-            
             // Fetch subject details for display
-            for (String code : subjectCodes) {
+            for (String code : filteredResults.getSubjectCodes()) {
                 Subject subject = subjectDao.findByCode(code);
                 if (subject != null) {
                     subjects.put(code, subject);
@@ -529,28 +512,14 @@ public class AttendanceFilterController extends HttpServlet {
             Map<String, Integer> presentCounts = new HashMap<>();
             Map<String, Integer> totalCounts = new HashMap<>();
             
-            for (String code : subjectCodes) {
-                int presentCount = 0;
-                int totalCount = 0;
-                
-                for (Map<String, Object> result : filteredResults) {
-                    if (code.equals(result.get("subjectCode"))) {
-                        totalCount++;
-                        if ("Present".equals(result.get("status"))) {
-                            presentCount++;
-                        }
-                    }
-                }
+            for (Map.Entry<String, int[]> entry : filteredResults.countBySubject("Present").entrySet()) {
+                String code = entry.getKey();
+                int presentCount = entry.getValue()[0];
+                int totalCount = entry.getValue()[1];
                 
                 presentCounts.put(code, presentCount);
                 totalCounts.put(code, totalCount);
-                
-                if (totalCount > 0) {
-                    double percentage = (double) presentCount / totalCount * 100;
-                    attendancePercentages.put(code, percentage);
-                } else {
-                    attendancePercentages.put(code, 0.0);
-                }
+                attendancePercentages.put(code, (double) presentCount / totalCount * 100);
             }
             
             request.setAttribute("filterParams", filterParams);
@@ -751,53 +720,60 @@ public class AttendanceFilterController extends HttpServlet {
                 return;
             }
             
+            // Generate appropriate report view based on report type
+            String reportType = (String) filterParams.getOrDefault("reportType", "detailed");
+            
+            // Row listings are paged; summaries and comparisons aggregate every row
+            boolean paged = "detailed".equals(reportType) || "below-threshold".equals(reportType);
+            
             // Process filter parameters to fetch attendance data
-            List<Map<String, Object>> filteredResults = getFilteredAttendanceResults(filterParams);
+            AttendanceFilterResult filteredResults = getFilteredAttendanceResults(filterParams, request, paged);
             
             // Get additional data for display
             Map<Integer, User> students = new HashMap<>();
             Map<String, Subject> subjects = new HashMap<>();
             Map<Integer, com.attendance.models.Class> classes = new HashMap<>();
             
-            // Collect unique IDs
-            Set<Integer> studentIds = new HashSet<>();
-            Set<String> subjectCodes = new HashSet<>();
-            Set<Integer> classIds = new HashSet<>();
-            
-            for (Map<String, Object> result : filteredResults) {
-                if (result.containsKey("studentId")) {
-                    studentIds.add((Integer) result.get("studentId"));
-                }
-                if (result.containsKey("subjectCode")) {
-                    subjectCodes.add((String) result.get("subjectCode"));
-                }
-                if (result.containsKey("classId")) {
-                    classIds.add((Integer) result.get("classId"));
-                }
-            }
-            
             // Fetch details for display
-            for (int studentId : studentIds) {
+            for (int studentId : filteredResults.getDistinctStudentIds()) {
                 User student = userDao.findById(studentId);
                 if (student != null) {
                     students.put(studentId, student);
                 }
             }
             
-            for (String code : subjectCodes) {
+            for (String code : filteredResults.getSubjectCodes()) {
                 Subject subject = subjectDao.findByCode(code);
                 if (subject != null) {
                     subjects.put(code, subject);
                 }
             }
             
-            for (int classId : classIds) {
+            for (int classId : filteredResults.getDistinctClassIds()) {
                 com.attendance.models.Class cls = classDao.findById(classId);
                 if (cls != null) {
                     classes.put(classId, cls);
                 }
             }
             
+            if (paged) {
+                // The page holds only some of the rows; the figures cover all of them
+                request.setAttribute("filterSummary", getFilterSummary(filterParams));
+            }
+            if ("below-threshold".equals(reportType)) {
+                List<Map<String, Object>> figures = getStudentSubjectFigures(filterParams);
+                for (Map<String, Object> figure : figures) {
+                    int studentId = (Integer) figure.get("studentId");
+                    if (!students.containsKey(studentId)) {
+                        User student = userDao.findById(studentId);
+                        if (student != null) {
+                            students.put(studentId, student);
+                        }
+                    }
+                }
+                request.setAttribute("studentSubjectFigures", figures);
+            }
+            
             request.setAttribute("department", department);
             request.setAttribute("filterParams", filterParams);
             request.setAttribute("filteredResults", filteredResults);
@@ -805,8 +781,6 @@ public class AttendanceFilterController extends HttpServlet {
             request.setAttribute("subjects", subjects);
             request.setAttribute("classes", classes);
             
-            // Generate appropriate report view based on report type
-            String reportType = (String) filterParams.getOrDefault("reportType", "detailed");
             String reportView;
             
             switch (reportType) {
@@ -857,102 +831,18 @@ public class AttendanceFilterController extends HttpServlet {
         }
         
         try {
-            // Process filter parameters to fetch attendance data
-            List<Map<String, Object>> filteredResults = getFilteredAttendanceResults(filterParams);
-            
-            // Get additional data for CSV
-            Map<Integer, User> students = new HashMap<>();
-            Map<String, Subject> subjects = new HashMap<>();
-            Map<Integer, com.attendance.models.Class> classes = new HashMap<>();
-            
-            // Collect unique IDs
-            Set<Integer> studentIds = new HashSet<>();
-            Set<String> subjectCodes = new HashSet<>();
-            Set<Integer> classIds = new HashSet<>();
-            
-            for (Map<String, Object> result : filteredResults) {
-                if (result.containsKey("studentId")) {
-                    studentIds.add((Integer) result.get("studentId"));
-                }
-                if (result.containsKey("subjectCode")) {
-                    subjectCodes.add((String) result.get("subjectCode"));
-                }
-                if (result.containsKey("classId")) {
-                    classIds.add((Integer) result.get("classId"));
-                }
-            }
-            
-            // Fetch details for CSV
-            for (int studentId : studentIds) {
-                User student = userDao.findById(studentId);
-                if (student != null) {
-                    students.put(studentId, student);
-                }
-            }
-            
-            for (String code : subjectCodes) {
-                Subject subject = subjectDao.findByCode(code);
-                if (subject != null) {
-                    subjects.put(code, subject);
-                }
-            }
-            
-            for (int classId : classIds) {
-                com.attendance.models.Class cls = classDao.findById(classId);
-                if (cls != null) {
-                    classes.put(classId, cls);
-                }
-            }
-            
-            // Generate CSV content
-            StringBuilder csv = new StringBuilder();
-            
-            // Add header row
-            csv.append("Date,Student ID,Student Name,Subject Code,Subject Name,Class,Semester,Status\n");
-            
-            // Add data rows
-            for (Map<String, Object> result : filteredResults) {
-                Date date = (Date) result.get("attendanceDate");
-                int studentId = (int) result.get("studentId");
-                String subjectCode = (String) result.get("subjectCode");
-                String semester = (String) result.get("semester");
-                String status = (String) result.get("status");
-                int classId = (int) result.getOrDefault("classId", 0);
-                
-                String studentName = "";
-                if (students.containsKey(studentId)) {
-                    studentName = students.get(studentId).getFullName();
-                }
-                
-                String subjectName = "";
-                if (subjects.containsKey(subjectCode)) {
-                    subjectName = subjects.get(subjectCode).getSubjectName();
-                }
-                
-                String className = "";
-                if (classes.containsKey(classId)) {
-                    className = classes.get(classId).getClassName();
-                }
-                
-                csv.append(date).append(",");
-                csv.append(studentId).append(",");
-                csv.append(escapeCSV(studentName)).append(",");
-                csv.append(escapeCSV(subjectCode)).append(",");
-                csv.append(escapeCSV(subjectName)).append(",");
-                csv.append(escapeCSV(className)).append(",");
-                csv.append(escapeCSV(semester)).append(",");
-                csv.append(escapeCSV(status)).append("\n");
-            }
-            
-            // Set response headers for CSV download
-            response.setContentType("text/csv");
-            response.setHeader("Content-Disposition", "attachment; filename=\"attendance_report.csv\"");
-            
-            // Write CSV content to response
-            response.getWriter().write(csv.toString());
+            // Stream straight from the database; names are joined in SQL
+            AttendanceFilterQuery query = new AttendanceFilterQuery(filterParams);
+            String sql = query.toSql(AttendanceFilterQuery.CSV_COLUMNS, AttendanceFilterQuery.CSV_JOINS, true);
+            csvExporter.export(request, response, "attendance_report.csv", AttendanceFilterQuery.CSV_HEADERS, sql,
+                               stmt -> query.bind(stmt, true));
             
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Database error while exporting attendance data", e);
+            if (response.isCommitted()) {
+                // Part of the file has already been sent; the download ends truncated
+                return;
+            }
             if ("Teacher".equals(user.getRole())) {
                 response.sendRedirect(request.getContextPath() + "/teacher/attendance/filter/results?error=exportFailed");
             } else if ("HOD".equals(user.getRole())) {
@@ -964,220 +854,117 @@ public class AttendanceFilterController extends HttpServlet {
     }
     
     /**
-     * Get filtered attendance results based on filter parameters
+     * Get filtered attendance results based on filter parameters.
+     * When paged, the page starts after the "cursor" request parameter (keyset paging on
+     * the results' sort key) and the request gets a "listPage" Page for the pagination links.
      */
-    private List<Map<String, Object>> getFilteredAttendanceResults(Map<String, Object> filterParams) throws SQLException {
-        List<Map<String, Object>> results = new ArrayList<>();
-        
-        // Base SQL for attendance query
-        StringBuilder sql = new StringBuilder("SELECT a.attendance_id, a.attendance_date, a.student_id, a.subject_code, " +
-                                            "a.semester, a.academic_year, a.status, se.class_id " +
-                                            "FROM Attendance a " +
-                                            "JOIN StudentEnrollments se ON a.student_id = se.student_id " +
-                                            "WHERE 1=1 ");
-        
-        // List of parameters for prepared statement
-        List<Object> params = new ArrayList<>();
-        
-        // Add where clauses based on filter parameters
-        if (filterParams.containsKey("studentId")) {
-            sql.append("AND a.student_id = ? ");
-            params.add(filterParams.get("studentId"));
-        }
-        
-        if (filterParams.containsKey("subjectCode")) {
-            sql.append("AND a.subject_code = ? ");
-            params.add(filterParams.get("subjectCode"));
-        }
-        
-        if (filterParams.containsKey("classId")) {
-            sql.append("AND se.class_id = ? ");
-            params.add(filterParams.get("classId"));
-        }
-        
-        if (filterParams.containsKey("semester")) {
-            sql.append("AND a.semester = ? ");
-            params.add(filterParams.get("semester"));
-        }
-        
-        if (filterParams.containsKey("academicYear")) {
-            sql.append("AND a.academic_year = ? ");
-            params.add(filterParams.get("academicYear"));
-        }
-        
-        if (filterParams.containsKey("fromDate")) {
-            try {
-                LocalDate fromDate = LocalDate.parse((String) filterParams.get("fromDate"));
-                sql.append("AND a.attendance_date >= ? ");
-                params.add(Date.valueOf(fromDate));
-            } catch (Exception e) {
-                // Invalid date format, ignore
-            }
-        }
-        
-        if (filterParams.containsKey("toDate")) {
+    private AttendanceFilterResult getFilteredAttendanceResults(Map<String, Object> filterParams,
+                                                                HttpServletRequest request, boolean paged) throws SQLException {
+        AttendanceFilterResult results = new AttendanceFilterResult();
+        
+        // The threshold, if any, is evaluated by the query
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filterParams);
+        if (paged) {
+            // One extra row tells whether there is a next page
             try {
-                LocalDate toDate = LocalDate.parse((String) filterParams.get("toDate"));
-                sql.append("AND a.attendance_date <= ? ");
-                params.add(Date.valueOf(toDate));
-            } catch (Exception e) {
-                // Invalid date format, ignore
+                query.page(pageSize + 1, request.getParameter("cursor"));
+            } catch (IllegalArgumentException e) {
+                // Tampered or stale page cursor, show the first page
+                query.page(pageSize + 1, null);
             }
         }
-        
-        if (filterParams.containsKey("status")) {
-            sql.append("AND a.status = ? ");
-            params.add(filterParams.get("status"));
-        }
-        
-        if (filterParams.containsKey("departmentId")) {
-            sql.append("AND EXISTS (SELECT 1 FROM Classes c WHERE c.class_id = se.class_id AND c.department_id = ?) ");
-            params.add(filterParams.get("departmentId"));
-        }
-        
-        if (filterParams.containsKey("teacherId")) {
-            sql.append("AND EXISTS (SELECT 1 FROM TeacherAssignments ta WHERE ta.subject_code = a.subject_code " +
-                     "AND ta.class_id = se.class_id AND ta.teacher_id = ?) ");
-            params.add(filterParams.get("teacherId"));
-        }
-        
-        // Add order clause
-        sql.append("ORDER BY a.attendance_date DESC, a.subject_code, se.class_id, a.student_id");
+        String sql = query.toSql(AttendanceFilterQuery.RESULT_COLUMNS, "", true);
         
         // Execute query
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            // Set parameters
-            for (int i = 0; i < params.size(); i++) {
-                setParameter(stmt, i + 1, params.get(i));
-            }
+            query.bind(stmt, true);
             
             // Execute and process results
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("attendanceId", rs.getInt("attendance_id"));
-                    result.put("attendanceDate", rs.getDate("attendance_date"));
-                    result.put("studentId", rs.getInt("student_id"));
-                    result.put("subjectCode", rs.getString("subject_code"));
-                    result.put("semester", rs.getString("semester"));
-                    result.put("academicYear", rs.getString("academic_year"));
-                    result.put("status", rs.getString("status"));
-                    result.put("classId", rs.getInt("class_id"));
-                    
-                    results.add(result);
+                    java.sql.Date attendanceDate = rs.getDate("attendance_date");
+                    results.addRow(rs.getInt("attendance_id"),
+                                   attendanceDate != null ? attendanceDate.toLocalDate() : null,
+                                   rs.getInt("student_id"),
+                                   rs.getString("subject_code"),
+                                   rs.getString("semester"),
+                                   rs.getString("academic_year"),
+                                   rs.getString("status"),
+                                   rs.getInt("class_id"));
                 }
             }
         }
         
-        // Apply additional filtering that's complex to do in SQL
-        
-        // Filter by attendance threshold if specified
-        if (filterParams.containsKey("threshold") && filterParams.containsKey("comparisonType")) {
-            double threshold = (double) filterParams.get("threshold");
-            String comparisonType = (String) filterParams.get("comparisonType");
-            
-            results = filterByAttendanceThreshold(results, threshold, comparisonType);
+        if (paged) {
+            String nextCursor = null;
+            if (results.size() > pageSize) {
+                results.truncate(pageSize);
+                int last = pageSize - 1;
+                nextCursor = AttendanceFilterQuery.cursorOf(results.getAttendanceDate(last),
+                        results.getSubjectCode(last), results.getClassId(last), results.getStudentId(last));
+            }
+            request.setAttribute("listPage", new Page<>(results, pageSize, nextCursor));
         }
         
         return results;
     }
     
     /**
-     * Filter results by attendance threshold
+     * Status counts over every row of the filter, not only the page shown: totalRecords,
+     * presentCount, absentCount, leaveCount and studentCount
      */
-    private List<Map<String, Object>> filterByAttendanceThreshold(List<Map<String, Object>> results, 
-                                                               double threshold, String comparisonType) {
-        // Group attendance by student and subject
-        Map<String, List<Map<String, Object>>> grouped = new HashMap<>();
-        
-        for (Map<String, Object> result : results) {
-            int studentId = (int) result.get("studentId");
-            String subjectCode = (String) result.get("subjectCode");
-            String key = studentId + "_" + subjectCode;
-            
-            if (!grouped.containsKey(key)) {
-                grouped.put(key, new ArrayList<>());
-            }
-            
-            grouped.get(key).add(result);
-        }
+    private Map<String, Integer> getFilterSummary(Map<String, Object> filterParams) throws SQLException {
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filterParams);
+        String sql = query.toAggregateSql(AttendanceFilterQuery.COUNT_COLUMNS +
+                                          ", COUNT(DISTINCT a.student_id) AS student_count", "", true);
         
-        // Calculate attendance percentages and filter
-        List<Map<String, Object>> filteredResults = new ArrayList<>();
-        
-        for (String key : grouped.keySet()) {
-            List<Map<String, Object>> studentSubjectAttendance = grouped.get(key);
-            
-            int totalCount = studentSubjectAttendance.size();
-            int presentCount = 0;
-            
-            for (Map<String, Object> attendance : studentSubjectAttendance) {
-                if ("Present".equals(attendance.get("status"))) {
-                    presentCount++;
-                }
-            }
-            
-            double percentage = totalCount > 0 ? (double) presentCount / totalCount * 100 : 0;
-            
-            boolean includeRecords = false;
-            
-            switch (comparisonType) {
-                case "below":
-                    includeRecords = percentage < threshold;
-                    break;
-                case "above":
-                    includeRecords = percentage > threshold;
-                    break;
-                case "equal":
-                    includeRecords = Math.abs(percentage - threshold) < 0.01; // Allow small margin due to floating point
-                    break;
-                default:
-                    includeRecords = true;
-            }
-            
-            if (includeRecords) {
-                filteredResults.addAll(studentSubjectAttendance);
+        Map<String, Integer> summary = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            query.bindConditions(stmt, true);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                summary.put("totalRecords", rs.getInt("total_count"));
+                summary.put("presentCount", rs.getInt("present_count"));
+                summary.put("absentCount", rs.getInt("absent_count"));
+                summary.put("leaveCount", rs.getInt("leave_count"));
+                summary.put("studentCount", rs.getInt("student_count"));
             }
         }
-        
-        return filteredResults;
-    }
-    
-    /**
-     * Set parameter of appropriate type in prepared statement
-     */
-    private void setParameter(PreparedStatement stmt, int index, Object param) throws SQLException {
-        if (param instanceof String) {
-            stmt.setString(index, (String) param);
-        } else if (param instanceof Integer) {
-            stmt.setInt(index, (Integer) param);
-        } else if (param instanceof Date) {
-            stmt.setDate(index, (Date) param);
-        } else if (param instanceof Double) {
-            stmt.setDouble(index, (Double) param);
-        } else if (param instanceof Boolean) {
-            stmt.setBoolean(index, (Boolean) param);
-        } else if (param == null) {
-            stmt.setNull(index, java.sql.Types.VARCHAR);
-        }
+        return summary;
     }
     
     /**
-     * Escape a string for CSV format
+     * Attendance per (student, subject) over every row of the filter, lowest percentage
+     * first: studentId, subjectCode, presentCount, totalCount and percentage
      */
-    private String escapeCSV(String value) {
-        if (value == null) {
-            return "";
-        }
-        
-        boolean needsQuoting = value.contains(",") || value.contains("\"") || value.contains("\n");
-        
-        if (needsQuoting) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
-        } else {
-            return value;
+    private List<Map<String, Object>> getStudentSubjectFigures(Map<String, Object> filterParams) throws SQLException {
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filterParams);
+        String sql = query.toAggregateSql("a.student_id, a.subject_code, " + AttendanceFilterQuery.COUNT_COLUMNS,
+                                          "a.student_id, a.subject_code", true) +
+                     " ORDER BY COUNT(*) FILTER (WHERE a.status = 'Present') * 1.0 / COUNT(*), " +
+                     "a.student_id, a.subject_code";
+        
+        List<Map<String, Object>> figures = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            query.bindConditions(stmt, true);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int present = rs.getInt("present_count");
+                    int total = rs.getInt("total_count");
+                    Map<String, Object> figure = new HashMap<>();
+                    figure.put("studentId", rs.getInt("student_id"));
+                    figure.put("subjectCode", rs.getString("subject_code"));
+                    figure.put("presentCount", present);
+                    figure.put("totalCount", total);
+                    figure.put("percentage", (double) present / total * 100);
+                    figures.add(figure);
+                }
+            }
         }
+        return figures;
     }
-}
\ No newline at end of file
+}
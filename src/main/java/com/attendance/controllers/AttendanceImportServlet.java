@@ -0,0 +1,171 @@
+package com.attendance.controllers;
+
+import com.attendance.models.AttendanceImportResult;
+import com.attendance.models.User;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.AttendanceImporter;
+import com.attendance.utils.SessionUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admin page for bulk attendance imports (see AttendanceImporter).
+ *
+ * An uploaded file is spooled to a temporary file and imported in the background, one
+ * import at a time (IMPORT_QUEUE_SIZE more may wait); the page shows the progress and
+ * the rejected rows of the most recent imports.
+ */
+@WebServlet(name = "AttendanceImportServlet", urlPatterns = {"/admin/attendance-import/*"})
+@MultipartConfig(fileSizeThreshold = 1024 * 1024, maxFileSize = 200L * 1024 * 1024, maxRequestSize = 201L * 1024 * 1024)
+public class AttendanceImportServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(AttendanceImportServlet.class.getName());
+
+    private static final int MAX_REMEMBERED_IMPORTS = 20;
+    private static final String VIEW = "/views/admin/attendance-import.jsp";
+
+    // Most recent imports by ID, oldest first
+    private final Map<String, AttendanceImportResult> imports = Collections.synchronizedMap(
+            new LinkedHashMap<String, AttendanceImportResult>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AttendanceImportResult> eldest) {
+                    return size() > MAX_REMEMBERED_IMPORTS && eldest.getValue().isFinished();
+                }
+            });
+
+    private ThreadPoolExecutor executor;
+    private int maxReportedRejects;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        maxReportedRejects = AppSettings.getInt("IMPORT_MAX_REPORTED_REJECTS", 500);
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, AppSettings.getInt("IMPORT_QUEUE_SIZE", 4))), r -> {
+                    Thread thread = new Thread(r, "attendance-import");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String pathInfo = request.getPathInfo();
+
+        if (pathInfo != null && !pathInfo.equals("/")) {
+            String importId = pathInfo.substring(1);
+            AttendanceImportResult result = imports.get(importId);
+            if (result == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            request.setAttribute("importId", importId);
+            request.setAttribute("importResult", result);
+            request.setAttribute("rejectedRows", result.getRejectedRows());
+        }
+
+        List<Map.Entry<String, AttendanceImportResult>> recent;
+        synchronized (imports) {
+            recent = new ArrayList<>(imports.entrySet());
+        }
+        Collections.reverse(recent);
+        request.setAttribute("imports", recent);
+        request.getRequestDispatcher(VIEW).forward(request, response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        Part filePart;
+        try {
+            filePart = request.getPart("file");
+        } catch (IllegalStateException e) {
+            // Thrown when the upload exceeds the configured size limits
+            request.setAttribute("error", "The file is too large.");
+            doGet(request, response);
+            return;
+        }
+        if (filePart == null || filePart.getSize() == 0) {
+            request.setAttribute("error", "Please choose a CSV file to import.");
+            doGet(request, response);
+            return;
+        }
+
+        String fileName = filePart.getSubmittedFileName();
+        Path spoolFile = Files.createTempFile("attendance-import-", ".csv");
+        try (InputStream in = filePart.getInputStream()) {
+            Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            filePart.delete();
+        }
+
+        AttendanceImporter importer = new AttendanceImporter();
+        importer.setSemester(request.getParameter("semester"));
+        importer.setAcademicYear(request.getParameter("academicYear"));
+        importer.setDryRun(request.getParameter("dryRun") != null);
+        User user = SessionUtil.getUser(request);
+        importer.setMarkedBy(user != null ? user.getUserId() : null);
+
+        String importId = UUID.randomUUID().toString();
+        AttendanceImportResult result = new AttendanceImportResult(fileName, importer.isDryRun(), maxReportedRejects);
+
+        try {
+            executor.execute(() -> runImport(importer, spoolFile, result));
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(spoolFile);
+            request.setAttribute("error", "Too many imports are waiting. Please try again later.");
+            doGet(request, response);
+            return;
+        }
+
+        imports.put(importId, result);
+        LOGGER.info("Queued attendance import " + importId + " of " + fileName +
+                    (user != null ? " by " + user.getUsername() : ""));
+        response.sendRedirect(request.getContextPath() + "/admin/attendance-import/" + importId);
+    }
+
+    private void runImport(AttendanceImporter importer, Path spoolFile, AttendanceImportResult result) {
+        try {
+            importer.importCsv(Files.newBufferedReader(spoolFile, StandardCharsets.UTF_8), result);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error reading uploaded attendance file", e);
+            result.setErrorMessage(e.getMessage());
+            result.setPhase(AttendanceImportResult.Phase.FAILED);
+        } finally {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error deleting " + spoolFile, e);
+            }
+        }
+    }
+}
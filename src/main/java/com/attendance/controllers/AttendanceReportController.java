@@ -3,8 +3,10 @@ package com.attendance.controllers;
 import com.attendance.dao.*;
 import com.attendance.dao.impl.*;
 import com.attendance.models.*;
+import com.attendance.utils.AuthorizationService;
 import com.attendance.utils.DateUtils;
 import com.attendance.utils.EmailNotificationService;
+import com.attendance.utils.Metrics;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -42,12 +44,13 @@ public class AttendanceReportController extends HttpServlet {
     private TeacherAssignmentDao teacherAssignmentDao;
     private DepartmentSubjectDao departmentSubjectDao;
     private EmailNotificationService emailService;
+    private AuthorizationService authorizationService;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        attendanceDao = new AttendanceDaoImpl();
-        userDao = new UserDaoImpl();
+        attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+        userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
         classDao = new ClassDaoImpl();
         subjectDao = new SubjectDaoImpl();
         departmentDao = new DepartmentDaoImpl();
@@ -55,6 +58,7 @@ public class AttendanceReportController extends HttpServlet {
         teacherAssignmentDao = new TeacherAssignmentDaoImpl();
         departmentSubjectDao = new DepartmentSubjectDaoImpl();
         emailService = EmailNotificationService.getInstance();
+        authorizationService = new AuthorizationService();
     }
 
     @Override
@@ -306,17 +310,11 @@ public class AttendanceReportController extends HttpServlet {
             
             if ("Teacher".equals(user.getRole())) {
                 // Check if teacher is assigned to this subject and class
-                TeacherAssignment assignment = teacherAssignmentDao.findByTeacherSubjectAndClass(
-                        user.getUserId(), subjectCode, classId);
-                hasPermission = (assignment != null);
+                hasPermission = authorizationService.teaches(user, subjectCode, classId);
             } else if ("HOD".equals(user.getRole())) {
                 // Check if class belongs to HOD's department
-                List<Department> departments = departmentDao.findByHod(user.getUserId());
-                if (!departments.isEmpty()) {
-                    Department department = departments.get(0); // Get first department (HODs typically manage one department)
-                    com.attendance.models.Class cls = classDao.findById(classId);
-                    hasPermission = (cls != null && cls.getDepartmentId() == department.getDepartmentId());
-                }
+                com.attendance.models.Class cls = classDao.findById(classId);
+                hasPermission = authorizationService.canViewClass(user, cls);
             } else if ("Principal".equals(user.getRole()) || "Admin".equals(user.getRole())) {
                 // Principal and admin have permission to all
                 hasPermission = true;
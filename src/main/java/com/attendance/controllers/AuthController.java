@@ -3,6 +3,9 @@ package com.attendance.controllers;
 import com.attendance.dao.UserDao;
 import com.attendance.dao.impl.UserDaoImpl;
 import com.attendance.models.User;
+import com.attendance.utils.AuthorizationService;
+import com.attendance.utils.LoginThrottledException;
+import com.attendance.utils.Metrics;
 import com.attendance.utils.PasswordUtils;
 
 import jakarta.servlet.ServletException;
@@ -22,7 +25,8 @@ import java.util.logging.Logger;
 @WebServlet(urlPatterns = {"/login", "/logout", "/register"})
 public class AuthController extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(AuthController.class.getName());
-    private final UserDao userDAO = new UserDaoImpl();
+    private final UserDao userDAO = Metrics.timed(UserDao.class, new UserDaoImpl());
+    private final AuthorizationService authorizationService = new AuthorizationService();
     
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
@@ -106,6 +110,9 @@ public class AuthController extends HttpServlet {
                 session.setAttribute("userRole", user.getRole());
                 session.setAttribute("userName", user.getFullName());
                 
+                // Compute what the user may see once, for the permission checks of later requests
+                authorizationService.getScope(user);
+                
                 LOGGER.info("User logged in: " + user.getEmail());
                 
                 // Redirect based on role
@@ -116,6 +123,12 @@ public class AuthController extends HttpServlet {
                 request.getRequestDispatcher("/WEB-INF/views/auth/login.jsp").forward(request, response);
             }
             
+        } catch (LoginThrottledException e) {
+            LOGGER.warning("Login throttled: " + e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "2");
+            request.setAttribute("errorMessage", "Too many sign-ins right now. Please try again in a moment.");
+            request.getRequestDispatcher("/WEB-INF/views/auth/login.jsp").forward(request, response);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error during login", e);
             request.setAttribute("errorMessage", "An error occurred during login");
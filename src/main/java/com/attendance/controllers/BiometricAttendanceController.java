@@ -1,22 +1,29 @@
 package com.attendance.controllers;
 
+import com.attendance.dao.AttendanceDao;
 import com.attendance.dao.UserDao;
+import com.attendance.dao.impl.AttendanceDaoImpl;
 import com.attendance.dao.impl.UserDaoImpl;
-import com.attendance.models.Attendance;
-import com.attendance.models.BiometricData;
 import com.attendance.models.User;
+import com.attendance.utils.BiometricUploadStore;
 import com.attendance.utils.FaceRecognitionService;
 import com.attendance.utils.EmailNotificationService;
+import com.attendance.utils.GrayImage;
+import com.attendance.utils.Metrics;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
 import java.io.IOException;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,11 +36,15 @@ import java.util.logging.Logger;
     "/biometric/verify", 
     "/biometric/attendance"
 })
+// Parts always go to disk (threshold 0), so BiometricUploadStore can move rather than copy them
+@MultipartConfig(fileSizeThreshold = 0, maxFileSize = 16L * 1024 * 1024, maxRequestSize = 17L * 1024 * 1024)
 public class BiometricAttendanceController extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(BiometricAttendanceController.class.getName());
     
-    private final UserDao userDao = new UserDaoImpl();
+    private final UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
+    private final AttendanceDao attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
     private final FaceRecognitionService faceService = FaceRecognitionService.getInstance();
+    private final BiometricUploadStore uploadStore = BiometricUploadStore.getInstance();
     private final EmailNotificationService emailService = EmailNotificationService.getInstance();
     
     @Override
@@ -121,17 +132,18 @@ public class BiometricAttendanceController extends HttpServlet {
         User user = (User) session.getAttribute("user");
         
         try {
+            GrayImage image = readCapture(request);
+            if (image == null) {
+                request.setAttribute("errorMessage", "Please capture a photo of your face first.");
+                request.setAttribute("faceRegistered", false);
+                request.getRequestDispatcher("/WEB-INF/views/biometric/register.jsp").forward(request, response);
+                return;
+            }
+            
             // Attempt to register the face
-            boolean success = faceService.registerFace(user.getUserId());
+            boolean success = faceService.registerFace(user.getUserId(), image);
             
             if (success) {
-                // Update biometric data
-                BiometricData bioData = new BiometricData();
-                bioData.setStudentId(user.getUserId());
-                bioData.setFaceRegistered(true);
-                bioData.setRegistrationStatus("Registered");
-                bioData.setLastRegistrationDate(new java.sql.Timestamp(System.currentTimeMillis()));
-                
                 // Send email notification
                 emailService.sendBiometricRegistrationNotification(user, true);
                 
@@ -139,7 +151,7 @@ public class BiometricAttendanceController extends HttpServlet {
                 
                 LOGGER.info("Face registration successful for student: " + user.getUserId());
             } else {
-                request.setAttribute("errorMessage", "Failed to register face. Please try again.");
+                request.setAttribute("errorMessage", "Failed to register face. Make sure your face alone is in the frame and try again.");
                 LOGGER.warning("Face registration failed for student: " + user.getUserId());
             }
             
@@ -182,8 +194,15 @@ public class BiometricAttendanceController extends HttpServlet {
         User user = (User) session.getAttribute("user");
         
         try {
+            GrayImage image = readCapture(request);
+            if (image == null) {
+                request.setAttribute("errorMessage", "Please capture a photo of your face first.");
+                request.getRequestDispatcher("/WEB-INF/views/biometric/verify.jsp").forward(request, response);
+                return;
+            }
+            
             // Attempt to verify the face
-            boolean success = faceService.verifyFace(user.getUserId());
+            boolean success = faceService.verifyFace(user.getUserId(), image);
             
             if (success) {
                 request.setAttribute("successMessage", "Face verification successful!");
@@ -251,8 +270,15 @@ public class BiometricAttendanceController extends HttpServlet {
         }
         
         try {
+            GrayImage image = readCapture(request);
+            if (image == null) {
+                request.setAttribute("errorMessage", "Please capture a photo of your face first.");
+                request.getRequestDispatcher("/WEB-INF/views/biometric/attendance.jsp").forward(request, response);
+                return;
+            }
+            
             // Verify face before marking attendance
-            boolean verified = faceService.verifyFace(user.getUserId());
+            boolean verified = faceService.verifyFace(user.getUserId(), image);
             
             if (!verified) {
                 request.setAttribute("errorMessage", "Face verification failed. Cannot mark attendance.");
@@ -260,24 +286,11 @@ public class BiometricAttendanceController extends HttpServlet {
                 return;
             }
             
-            // Create attendance record
-            Attendance attendance = new Attendance();
-            attendance.setStudentId(user.getUserId());
-            attendance.setSubjectCode(subjectCode);
-            attendance.setAttendanceDate(Date.valueOf(LocalDate.now()));
-            attendance.setStatus("Present");  // Present since face is verified
-            // Convert semester string to integer
-            attendance.setSemester(Integer.parseInt(semester));
-            attendance.setAcademicYear(academicYear);
-            attendance.setMarkedBy("Biometric System");
-            attendance.setRemarks("Attendance marked via face recognition");
-            
-            // Attendance would be saved to the database here
-            // TODO: Implement AttendanceDao and save the attendance
-            
-            // Send email notification
-            // Since we don't have the subject details yet, we'll use the code
-            emailService.sendAttendanceNotification(user, attendance, subjectCode);
+            // Present since the face is verified; the student is notified through the notification outbox
+            Map<Integer, String> studentAttendance = new LinkedHashMap<>();
+            studentAttendance.put(user.getUserId(), "Present");
+            attendanceDao.upsertAttendance(subjectCode, Date.valueOf(LocalDate.now()), semester, academicYear,
+                                           studentAttendance, user.getUserId());
             
             request.setAttribute("successMessage", "Attendance marked successfully for " + subjectCode);
             request.getRequestDispatcher("/WEB-INF/views/biometric/attendance.jsp").forward(request, response);
@@ -290,4 +303,20 @@ public class BiometricAttendanceController extends HttpServlet {
             request.getRequestDispatcher("/WEB-INF/views/biometric/attendance.jsp").forward(request, response);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Read the captured photo, posted as "image": an image file, or the base64 data URL
+     * the biometric pages send. It is spooled to disk (see BiometricUploadStore) and
+     * decoded from there, not buffered on the heap.
+     * @return The photo, or null if none was posted
+     */
+    private GrayImage readCapture(HttpServletRequest request) throws IOException, ServletException {
+        Part part = request.getPart("image");
+        if (part == null || part.getSize() == 0) {
+            return null;
+        }
+        try (BiometricUploadStore.Upload upload = uploadStore.receive(part)) {
+            return upload.decode();
+        }
+    }
+}
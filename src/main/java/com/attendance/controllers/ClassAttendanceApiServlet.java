@@ -0,0 +1,271 @@
+package com.attendance.controllers;
+
+import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.LeaveApplicationDao;
+import com.attendance.dao.StudentEnrollmentDao;
+import com.attendance.dao.impl.AttendanceDaoImpl;
+import com.attendance.dao.impl.LeaveApplicationDaoImpl;
+import com.attendance.dao.impl.StudentEnrollmentDaoImpl;
+import com.attendance.models.LeaveIntervalIndex;
+import com.attendance.models.MarkAttendanceResult;
+import com.attendance.models.User;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.AuthorizationService;
+import com.attendance.utils.BiometricUploadStore;
+import com.attendance.utils.ClassroomRecognizer;
+import com.attendance.utils.FaceRecognitionService;
+import com.attendance.utils.GrayImage;
+import com.attendance.utils.JsonWriter;
+import com.attendance.utils.Metrics;
+import com.attendance.utils.SessionUtil;
+import com.attendance.utils.UploadRejectedException;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JSON API for biometric attendance of a whole class from classroom photos:
+ * POST /api/biometric/class-attendance, multipart, with classId, subjectCode, semester,
+ * academicYear, an optional date (default today) and one or more "frame" parts (a photo
+ * or a short burst of frames).
+ *
+ * The frames are spooled to disk (see BiometricUploadStore), then decoded and searched
+ * for the class's students one at a time (see ClassroomRecognizer), so a request holds
+ * one decoded frame at most; frames larger than FACE_MAX_IMAGE_PIXELS are rejected
+ * before decoding, and at most CLASS_ATTENDANCE_CONCURRENCY photo sets are processed
+ * at once. The roster comes from
+ * StudentEnrollmentDao.findStudentsByClass: recognized students are marked Present, the
+ * other students with a registered face Absent (On Leave with approved leave), all in one
+ * upsertAttendance call recording the signed-in teacher as the marker; students without a
+ * registered face are reported but not marked.
+ * With dryRun=true nothing is written, so the teacher can review the outcome first.
+ * The response lists each student's status and recognition confidence.
+ */
+@WebServlet(name = "ClassAttendanceApiServlet", urlPatterns = {"/api/biometric/class-attendance"})
+@MultipartConfig(fileSizeThreshold = 0, maxFileSize = 10L * 1024 * 1024,
+                 maxRequestSize = 50L * 1024 * 1024)
+public class ClassAttendanceApiServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ClassAttendanceApiServlet.class.getName());
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private AttendanceDao attendanceDao;
+    private StudentEnrollmentDao enrollmentDao;
+    private LeaveApplicationDao leaveApplicationDao;
+    private AuthorizationService authorizationService;
+    private FaceRecognitionService faceService;
+    private Semaphore permits;
+    private BiometricUploadStore uploadStore;
+    private int maxFrames;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+        enrollmentDao = new StudentEnrollmentDaoImpl();
+        leaveApplicationDao = new LeaveApplicationDaoImpl();
+        authorizationService = new AuthorizationService();
+        faceService = FaceRecognitionService.getInstance();
+        permits = new Semaphore(Math.max(1, AppSettings.getInt("CLASS_ATTENDANCE_CONCURRENCY", 2)), true);
+        uploadStore = BiometricUploadStore.getInstance();
+        maxFrames = Math.max(1, AppSettings.getInt("CLASS_ATTENDANCE_MAX_FRAMES", 8));
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        User user = SessionUtil.getUser(request);
+        if (user == null) {
+            sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Not signed in");
+            return;
+        }
+
+        String classIdParam = request.getParameter("classId");
+        String subjectCode = request.getParameter("subjectCode");
+        String semester = request.getParameter("semester");
+        String academicYear = request.getParameter("academicYear");
+        String dateParam = request.getParameter("date");
+        boolean dryRun = Boolean.parseBoolean(request.getParameter("dryRun"));
+        if (isEmpty(classIdParam) || isEmpty(subjectCode) || isEmpty(semester) || isEmpty(academicYear)) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Class, subject, semester and academic year are required");
+            return;
+        }
+
+        int classId;
+        Date date;
+        try {
+            classId = Integer.parseInt(classIdParam);
+            date = isEmpty(dateParam) ? Date.valueOf(LocalDate.now()) : Date.valueOf(dateParam);
+        } catch (IllegalArgumentException e) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid class or date");
+            return;
+        }
+
+        boolean acquired = false;
+        try {
+            if (!authorizationService.teaches(user, subjectCode, classId)) {
+                sendError(response, HttpServletResponse.SC_FORBIDDEN, "You do not teach this subject in this class");
+                return;
+            }
+
+            acquired = permits.tryAcquire(10, TimeUnit.SECONDS);
+            if (!acquired) {
+                response.setHeader("Retry-After", "10");
+                sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        "Too many classroom photos are being processed; try again shortly");
+                return;
+            }
+
+            List<User> students = enrollmentDao.findStudentsByClass(classId, academicYear);
+            List<Integer> studentIds = new ArrayList<>();
+            for (User student : students) {
+                studentIds.add(student.getUserId());
+            }
+
+            ClassroomRecognizer recognizer = faceService.newClassroomRecognizer(studentIds);
+            if (recognizer == null) {
+                sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Face recognition is unavailable");
+                return;
+            }
+
+            for (Part part : request.getParts()) {
+                if (!"frame".equals(part.getName())) {
+                    continue;
+                }
+                if (recognizer.getFrameCount() == maxFrames) {
+                    sendError(response, HttpServletResponse.SC_BAD_REQUEST,
+                            "At most " + maxFrames + " frames can be sent at once");
+                    return;
+                }
+                GrayImage frame;
+                try (BiometricUploadStore.Upload upload = uploadStore.receive(part)) {
+                    frame = upload.decode();
+                } catch (UploadRejectedException e) {
+                    if (e.isRetryable()) {
+                        response.setHeader("Retry-After", "10");
+                    }
+                    sendError(response, e.isRetryable() ? HttpServletResponse.SC_SERVICE_UNAVAILABLE
+                            : HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+                    return;
+                } catch (IOException e) {
+                    sendError(response, HttpServletResponse.SC_BAD_REQUEST,
+                            "Frame " + (recognizer.getFrameCount() + 1) + ": " + e.getMessage());
+                    return;
+                }
+                recognizer.addFrame(frame);
+            }
+            if (recognizer.getFrameCount() == 0) {
+                sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Please upload a classroom photo");
+                return;
+            }
+
+            // Students with approved leave on the date are recorded as On Leave
+            LeaveIntervalIndex leaveIndex = leaveApplicationDao.findApprovedLeavesByStudents(studentIds, date, date);
+            Map<Integer, String> studentStatuses = new LinkedHashMap<>();
+            for (User student : students) {
+                int studentId = student.getUserId();
+                if (recognizer.isRecognized(studentId)) {
+                    studentStatuses.put(studentId, "Present");
+                } else if (recognizer.isRegistered(studentId)) {
+                    studentStatuses.put(studentId, leaveIndex.resolveStatus(studentId, date.toLocalDate(), "Absent"));
+                }
+            }
+
+            MarkAttendanceResult result = null;
+            if (!dryRun && !studentStatuses.isEmpty()) {
+                result = attendanceDao.upsertAttendance(subjectCode, date, semester, academicYear,
+                                                        studentStatuses, user.getUserId());
+                LOGGER.info("Classroom attendance marked by " + user.getUserId() + " in class " + classId +
+                            ", " + subjectCode + ": " + result);
+            }
+
+            sendJson(response, toJson(classId, subjectCode, date, dryRun, recognizer, students,
+                                      studentStatuses, result));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error marking classroom attendance for class " + classId + ", " + subjectCode, e);
+            sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to mark attendance");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Interrupted");
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    private Map<String, Object> toJson(int classId, String subjectCode, Date date, boolean dryRun,
+                                       ClassroomRecognizer recognizer, List<User> students,
+                                       Map<Integer, String> studentStatuses, MarkAttendanceResult result) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("classId", classId);
+        body.put("subjectCode", subjectCode);
+        body.put("date", date.toString());
+        body.put("dryRun", dryRun);
+        body.put("frames", recognizer.getFrameCount());
+        body.put("facesDetected", recognizer.getFaceCount());
+        body.put("unmatchedFaces", recognizer.getUnmatchedFaceCount());
+        if (result != null) {
+            body.put("inserted", result.getInsertedCount());
+            body.put("updated", result.getUpdatedCount());
+            body.put("unchanged", result.getUnchangedCount());
+        }
+
+        List<Object> rows = new ArrayList<>();
+        for (User student : students) {
+            int studentId = student.getUserId();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("studentId", studentId);
+            row.put("name", student.getFullName());
+            row.put("registered", recognizer.isRegistered(studentId));
+            row.put("recognized", recognizer.isRecognized(studentId));
+            // Confidence is rounded for display; null when the student could not be recognized at all
+            float confidence = recognizer.getConfidence(studentId);
+            row.put("confidence", confidence >= 0 ? Math.round(confidence * 1000) / 1000.0 : null);
+            row.put("status", studentStatuses.get(studentId));
+            if (result != null && result.getOutcome(studentId) != null) {
+                row.put("outcome", result.getOutcome(studentId).name());
+            }
+            rows.add(row);
+        }
+        body.put("students", rows);
+        return body;
+    }
+
+    private boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private void sendJson(HttpServletResponse response, Object body) throws IOException {
+        response.setContentType(CONTENT_TYPE);
+        Writer writer = response.getWriter();
+        JsonWriter.write(writer, body);
+        writer.flush();
+    }
+
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        response.setStatus(status);
+        sendJson(response, body);
+    }
+}
@@ -0,0 +1,249 @@
+package com.attendance.controllers;
+
+import com.attendance.dao.AttendanceRollupDao;
+import com.attendance.dao.impl.AttendanceRollupDaoImpl;
+import com.attendance.models.AccessScope;
+import com.attendance.models.Attendance;
+import com.attendance.models.Department;
+import com.attendance.models.StudentEnrollment;
+import com.attendance.models.Subject;
+import com.attendance.models.TeacherAssignment;
+import com.attendance.models.User;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.AuthorizationService;
+import com.attendance.utils.DashboardWidgets;
+import com.attendance.utils.JsonWriter;
+import com.attendance.utils.SessionUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JSON API for the widgets of the signed-in user's reports dashboard (see DashboardWidgets):
+ * GET /api/dashboard lists the widget names of the user's dashboard, and
+ * GET /api/dashboard/{widget} returns one widget's data.
+ *
+ * Widget responses carry a weak ETag built from the attendance data version
+ * (AttendanceRollupDao.getVersion), the user's access scope and the date, so a client
+ * that sends If-None-Match gets 304 Not Modified until attendance changes, without the
+ * widget being loaded. Widgets that also show reference data (user counts, classes,
+ * assignments) are revalidated at least every DASHBOARD_REFERENCE_TTL_SECONDS.
+ */
+@WebServlet(name = "DashboardApiServlet", urlPatterns = {"/api/dashboard/*"})
+public class DashboardApiServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(DashboardApiServlet.class.getName());
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private DashboardWidgets dashboardWidgets;
+    private AuthorizationService authorizationService;
+    private AttendanceRollupDao rollupDao;
+    private long referenceTtlSeconds;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        dashboardWidgets = new DashboardWidgets();
+        authorizationService = new AuthorizationService();
+        rollupDao = new AttendanceRollupDaoImpl();
+        referenceTtlSeconds = Math.max(1, AppSettings.getLong("DASHBOARD_REFERENCE_TTL_SECONDS", 300));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        User user = SessionUtil.getUser(request);
+        if (user == null) {
+            sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Not signed in");
+            return;
+        }
+
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || pathInfo.equals("/")) {
+            List<String> names = new ArrayList<>();
+            for (DashboardWidgets.Widget widget : DashboardWidgets.Widget.forRole(user.getRole())) {
+                names.add(widget.getName());
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("widgets", names);
+            sendJson(response, body);
+            return;
+        }
+
+        DashboardWidgets.Widget widget = DashboardWidgets.Widget.fromName(pathInfo.substring(1));
+        if (widget == null) {
+            sendError(response, HttpServletResponse.SC_NOT_FOUND, "No such widget");
+            return;
+        }
+        if (!widget.isShownTo(user.getRole())) {
+            sendError(response, HttpServletResponse.SC_FORBIDDEN, "Widget is not on your dashboard");
+            return;
+        }
+
+        try {
+            DashboardWidgets.Context context = dashboardWidgets.newContext(user);
+            String etag = etag(widget, context);
+            response.setHeader("Cache-Control", "private, no-cache");
+            if (etag != null) {
+                response.setHeader("ETag", etag);
+                if (matches(request.getHeader("If-None-Match"), etag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+            sendJson(response, toJsonValue(dashboardWidgets.load(widget, context)));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading dashboard widget " + widget.getName(), e);
+            sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to load widget");
+        }
+    }
+
+    /**
+     * The ETag of a widget for a user: it changes when attendance changes, when the
+     * user's scope (role, departments, assignments) or enrollment changes, and daily,
+     * as the current semester and month follow the date
+     * @return The ETag, or null if the data version could not be read
+     */
+    private String etag(DashboardWidgets.Widget widget, DashboardWidgets.Context context) throws SQLException {
+        long version;
+        try {
+            version = rollupDao.getVersion();
+        } catch (SQLException e) {
+            // Serve the widget uncached rather than fail it
+            return null;
+        }
+
+        User user = context.getUser();
+        AccessScope scope = authorizationService.getScope(user);
+        StringBuilder tag = new StringBuilder("W/\"")
+                .append(widget.getName())
+                .append('.').append(user.getUserId())
+                .append('.').append(Integer.toHexString(scope.contentHash()))
+                .append('.').append(version)
+                .append('.').append(LocalDate.now().toEpochDay());
+        if (scope.isStudent()) {
+            StudentEnrollment enrollment = context.getEnrollment();
+            tag.append('.').append(enrollment != null
+                    ? enrollment.getClassId() + "-" + enrollment.getAcademicYear()
+                    : "none");
+        }
+        if (widget.isReferenceData()) {
+            tag.append('.').append(System.currentTimeMillis() / 1000 / referenceTtlSeconds);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Weak comparison of an If-None-Match header with an ETag
+     */
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * Replace the models in a widget's data with maps of the fields the dashboard shows
+     */
+    private Object toJsonValue(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(String.valueOf(entry.getKey()), toJsonValue(entry.getValue()));
+            }
+            return map;
+        }
+        if (value instanceof Iterable) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (Iterable<?>) value) {
+                list.add(toJsonValue(element));
+            }
+            return list;
+        }
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (value instanceof Subject) {
+            Subject subject = (Subject) value;
+            fields.put("subjectCode", subject.getSubjectCode());
+            fields.put("subjectName", subject.getSubjectName());
+            fields.put("departmentId", subject.getDepartmentId());
+            fields.put("semester", subject.getSemester());
+            fields.put("credits", subject.getCredits());
+        } else if (value instanceof com.attendance.models.Class) {
+            com.attendance.models.Class classObj = (com.attendance.models.Class) value;
+            fields.put("classId", classObj.getClassId());
+            fields.put("className", classObj.getClassName());
+            fields.put("year", classObj.getYear());
+            fields.put("semester", classObj.getSemester());
+            fields.put("departmentId", classObj.getDepartmentId());
+            fields.put("academicYear", classObj.getAcademicYear());
+        } else if (value instanceof Department) {
+            Department department = (Department) value;
+            fields.put("departmentId", department.getDepartmentId());
+            fields.put("departmentName", department.getDepartmentName());
+            fields.put("departmentCode", department.getDepartmentCode());
+            fields.put("hodId", department.getHodId());
+        } else if (value instanceof Attendance) {
+            Attendance attendance = (Attendance) value;
+            fields.put("attendanceId", attendance.getAttendanceId());
+            fields.put("subjectCode", attendance.getSubjectCode());
+            fields.put("attendanceDate", attendance.getAttendanceDate());
+            fields.put("status", attendance.getStatus());
+            fields.put("remarks", attendance.getRemarks());
+        } else if (value instanceof TeacherAssignment) {
+            TeacherAssignment assignment = (TeacherAssignment) value;
+            fields.put("subjectCode", assignment.getSubjectCode());
+            fields.put("classId", assignment.getClassId());
+            fields.put("assignmentType", assignment.getAssignmentType());
+        } else if (value instanceof StudentEnrollment) {
+            StudentEnrollment enrollment = (StudentEnrollment) value;
+            fields.put("enrollmentId", enrollment.getEnrollmentId());
+            fields.put("classId", enrollment.getClassId());
+            fields.put("academicYear", enrollment.getAcademicYear());
+            fields.put("semester", enrollment.getSemester());
+            fields.put("status", enrollment.getEnrollmentStatus());
+        } else {
+            return value;
+        }
+        return fields;
+    }
+
+    private void sendJson(HttpServletResponse response, Object body) throws IOException {
+        response.setContentType(CONTENT_TYPE);
+        Writer writer = response.getWriter();
+        JsonWriter.write(writer, body);
+        writer.flush();
+    }
+
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        response.setStatus(status);
+        sendJson(response, body);
+    }
+}
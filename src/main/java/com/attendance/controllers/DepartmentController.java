@@ -12,6 +12,7 @@ import com.attendance.models.Department;
 import com.attendance.models.DepartmentSubject;
 import com.attendance.models.Subject;
 import com.attendance.models.User;
+import com.attendance.utils.Metrics;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -45,7 +46,7 @@ public class DepartmentController extends HttpServlet {
         departmentDao = new DepartmentDaoImpl();
         subjectDao = new SubjectDaoImpl();
         departmentSubjectDao = new DepartmentSubjectDaoImpl();
-        userDao = new UserDaoImpl();
+        userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
     }
 
     @Override
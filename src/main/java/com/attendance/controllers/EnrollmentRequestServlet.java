@@ -3,6 +3,7 @@ package com.attendance.controllers;
 import com.attendance.dao.*;
 import com.attendance.dao.impl.*;
 import com.attendance.models.*;
+import com.attendance.utils.Metrics;
 import com.attendance.utils.SessionUtil;
 
 import java.io.IOException;
@@ -24,7 +25,7 @@ public class EnrollmentRequestServlet extends HttpServlet {
     
     private EnrollmentRequestDAO enrollmentRequestDAO = new EnrollmentRequestDaoImpl();
     private StudentEnrollmentDAO studentEnrollmentDAO = new StudentEnrollmentDAO();
-    private UserDao userDAO = new UserDaoImpl();
+    private UserDao userDAO = Metrics.timed(UserDao.class, new UserDaoImpl());
     private ClassDAO classDAO = new ClassDAOImpl();
     private DepartmentDAO departmentDAO = new DepartmentDAOImpl();
     private TeacherAssignmentDAO teacherAssignmentDAO = new TeacherAssignmentDAO();
@@ -3,8 +3,14 @@ package com.attendance.controllers;
 import com.attendance.dao.*;
 import com.attendance.dao.impl.*;
 import com.attendance.models.*;
+import com.attendance.utils.AttendanceFilterQuery;
+import com.attendance.utils.AuthorizationService;
+import com.attendance.utils.CsvExporter;
+import com.attendance.utils.DashboardWidgets;
 import com.attendance.utils.DateUtils;
 import com.attendance.utils.EmailNotificationService;
+import com.attendance.utils.Metrics;
+import com.attendance.utils.SessionUtil;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -40,16 +46,22 @@ public class FixedAttendanceReportController extends HttpServlet {
     private DepartmentDao departmentDao;
     private TeacherAssignmentDao teacherAssignmentDao;
     private StudentEnrollmentDao studentEnrollmentDao;
+    private AuthorizationService authorizationService;
+    private CsvExporter csvExporter;
+    private DashboardWidgets dashboardWidgets;
     
     @Override
     public void init() throws ServletException {
-        attendanceDao = new AttendanceDaoImpl();
-        userDao = new UserDaoImpl();
+        attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+        userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
         classDao = new ClassDaoImpl();
         subjectDao = new SubjectDaoImpl();
         departmentDao = new DepartmentDaoImpl();
         teacherAssignmentDao = new TeacherAssignmentDaoImpl();
         studentEnrollmentDao = new StudentEnrollmentDaoImpl();
+        authorizationService = new AuthorizationService();
+        csvExporter = new CsvExporter();
+        dashboardWidgets = new DashboardWidgets();
     }
     
     @Override
@@ -120,20 +132,11 @@ public class FixedAttendanceReportController extends HttpServlet {
             String role = currentUser.getRole();
             
             try {
-                // Prepare common data for dashboard
-                request.setAttribute("userCount", userDao.findAll().size());
-                request.setAttribute("activeUserCount", userDao.findByStatus("Active").size());
-                
-                // Role-specific data
-                if ("Student".equals(role)) {
-                    prepareStudentDashboard(request, currentUser);
-                } else if ("Teacher".equals(role) || "Class Teacher".equals(role)) {
-                    prepareTeacherDashboard(request, currentUser);
-                } else if ("HOD".equals(role)) {
-                    prepareHodDashboard(request, currentUser);
-                } else if ("Principal".equals(role) || "Admin".equals(role)) {
-                    preparePrincipalDashboard(request, currentUser);
-                }
+                // Common data and the widgets of the user's role, loaded concurrently
+                List<DashboardWidgets.Widget> widgets = new ArrayList<>();
+                widgets.add(DashboardWidgets.Widget.USER_COUNTS);
+                widgets.addAll(dashboardWidgetsOf(dashboardRoleOf(role)));
+                prepareDashboard(request, currentUser, widgets);
                 
                 request.getRequestDispatcher("/WEB-INF/views/reports/dashboard.jsp")
                        .forward(request, response);
@@ -154,75 +157,7 @@ public class FixedAttendanceReportController extends HttpServlet {
      */
     private void prepareStudentDashboard(HttpServletRequest request, User student) 
             throws SQLException {
-        
-        // Find the student's enrollment
-        List<StudentEnrollment> enrollments = 
-                studentEnrollmentDao.findByStudentId(student.getUserId());
-        
-        if (!enrollments.isEmpty()) {
-            StudentEnrollment enrollment = enrollments.get(0); // Get the most recent
-            
-            // Calculate attendance statistics
-            double overallAttendance = 
-                    attendanceDao.calculateAttendancePercentage(
-                            student.getUserId(), 
-                            enrollment.getAcademicYear(),
-                            null, // semester
-                            null  // month
-                    );
-            
-            // Current semester attendance
-            String currentSemester = getCurrentSemester();
-            double semesterAttendance = 
-                    attendanceDao.calculateAttendancePercentage(
-                            student.getUserId(), 
-                            enrollment.getAcademicYear(),
-                            currentSemester,
-                            null  // month
-                    );
-            
-            // Current month attendance
-            String currentMonth = getCurrentMonth();
-            double monthlyAttendance = 
-                    attendanceDao.calculateAttendancePercentage(
-                            student.getUserId(), 
-                            enrollment.getAcademicYear(),
-                            currentSemester,
-                            currentMonth
-                    );
-            
-            // Subject-wise attendance
-            Map<String, Double> subjectAttendance = new HashMap<>();
-            List<Subject> subjects = subjectDao.findByClassId(enrollment.getClassId());
-            
-            for (Subject subject : subjects) {
-                double percentage = 
-                        attendanceDao.calculateSubjectAttendancePercentage(
-                                student.getUserId(), 
-                                subject.getSubjectCode(),
-                                enrollment.getAcademicYear(),
-                                currentSemester
-                        );
-                subjectAttendance.put(subject.getSubjectName(), percentage);
-            }
-            
-            // Set the data as request attributes
-            request.setAttribute("enrollment", enrollment);
-            request.setAttribute("overallAttendance", overallAttendance);
-            request.setAttribute("semesterAttendance", semesterAttendance);
-            request.setAttribute("monthlyAttendance", monthlyAttendance);
-            request.setAttribute("subjectAttendance", subjectAttendance);
-            request.setAttribute("subjects", subjects);
-            
-            // Get class information
-            com.attendance.models.Class studentClass = classDao.findById(enrollment.getClassId());
-            request.setAttribute("studentClass", studentClass);
-            
-            // Get recent attendance records
-            List<Attendance> recentAttendance = 
-                    attendanceDao.findRecentByStudent(student.getUserId(), 10);
-            request.setAttribute("recentAttendance", recentAttendance);
-        }
+        prepareDashboard(request, student, "Student");
     }
     
     /**
@@ -230,65 +165,7 @@ public class FixedAttendanceReportController extends HttpServlet {
      */
     private void prepareTeacherDashboard(HttpServletRequest request, User teacher) 
             throws SQLException {
-        
-        // Find the teacher's assignments
-        List<TeacherAssignment> assignments = 
-                teacherAssignmentDao.findByTeacherId(teacher.getUserId());
-        
-        Map<Integer, Double> classAttendance = new HashMap<>();
-        Map<String, Double> subjectAttendance = new HashMap<>();
-        
-        // Class attendance for class teacher
-        if ("Class Teacher".equals(teacher.getRole())) {
-            for (TeacherAssignment assignment : assignments) {
-                if ("Class Teacher".equals(assignment.getAssignmentType())) {
-                    int classId = assignment.getClassId();
-                    double attendancePercentage = 
-                            attendanceDao.calculateClassAttendancePercentage(
-                                    classId,
-                                    getCurrentAcademicYear(),
-                                    getCurrentSemester(),
-                                    null  // all months
-                            );
-                    classAttendance.put(classId, attendancePercentage);
-                }
-            }
-        }
-        
-        // Subject attendance for all teachers
-        for (TeacherAssignment assignment : assignments) {
-            String subjectCode = assignment.getSubjectCode();
-            double attendancePercentage = 
-                    attendanceDao.calculateSubjectOverallAttendancePercentage(
-                            subjectCode,
-                            getCurrentAcademicYear(),
-                            getCurrentSemester()
-                    );
-            subjectAttendance.put(subjectCode, attendancePercentage);
-        }
-        
-        // Get class and subject information
-        List<com.attendance.models.Class> classes = new ArrayList<>();
-        for (Integer classId : classAttendance.keySet()) {
-            classes.add(classDao.findById(classId));
-        }
-        
-        List<Subject> subjects = new ArrayList<>();
-        for (String subjectCode : subjectAttendance.keySet()) {
-            subjects.add(subjectDao.findByCode(subjectCode));
-        }
-        
-        // Set data as request attributes
-        request.setAttribute("assignments", assignments);
-        request.setAttribute("classAttendance", classAttendance);
-        request.setAttribute("subjectAttendance", subjectAttendance);
-        request.setAttribute("classes", classes);
-        request.setAttribute("subjects", subjects);
-        
-        // Get attendance statistics for the last seven days
-        Map<String, Object> weeklySummary = 
-                attendanceDao.getWeeklyAttendanceSummary(teacher.getUserId());
-        request.setAttribute("weeklySummary", weeklySummary);
+        prepareDashboard(request, teacher, "Teacher");
     }
     
     /**
@@ -296,63 +173,7 @@ public class FixedAttendanceReportController extends HttpServlet {
      */
     private void prepareHodDashboard(HttpServletRequest request, User hod) 
             throws SQLException {
-        
-        int departmentId = hod.getDepartmentId();
-        Department department = departmentDao.findById(departmentId);
-        
-        // Department statistics
-        int totalStudents = userDao.findByRoleAndDepartment("Student", departmentId).size();
-        int totalTeachers = userDao.findByRoleAndDepartment("Teacher", departmentId).size();
-        int totalClasses = classDao.findByDepartment(departmentId).size();
-        
-        // Department attendance overview
-        double departmentAttendance = 
-                attendanceDao.calculateDepartmentAttendancePercentage(
-                        departmentId,
-                        getCurrentAcademicYear(),
-                        getCurrentSemester(),
-                        null  // all months
-                );
-        
-        // Class-wise attendance in the department
-        Map<Integer, Double> classAttendance = new HashMap<>();
-        List<com.attendance.models.Class> departmentClasses = classDao.findByDepartment(departmentId);
-        
-        for (com.attendance.models.Class cls : departmentClasses) {
-            double attendancePercentage = 
-                    attendanceDao.calculateClassAttendancePercentage(
-                            cls.getClassId(),
-                            getCurrentAcademicYear(),
-                            getCurrentSemester(),
-                            null  // all months
-                    );
-            classAttendance.put(cls.getClassId(), attendancePercentage);
-        }
-        
-        // Subject-wise attendance in the department
-        Map<String, Double> subjectAttendance = new HashMap<>();
-        List<Subject> departmentSubjects = subjectDao.findByDepartment(departmentId);
-        
-        for (Subject subject : departmentSubjects) {
-            double attendancePercentage = 
-                    attendanceDao.calculateSubjectOverallAttendancePercentage(
-                            subject.getSubjectCode(),
-                            getCurrentAcademicYear(),
-                            getCurrentSemester()
-                    );
-            subjectAttendance.put(subject.getSubjectCode(), attendancePercentage);
-        }
-        
-        // Set data as request attributes
-        request.setAttribute("department", department);
-        request.setAttribute("totalStudents", totalStudents);
-        request.setAttribute("totalTeachers", totalTeachers);
-        request.setAttribute("totalClasses", totalClasses);
-        request.setAttribute("departmentAttendance", departmentAttendance);
-        request.setAttribute("classAttendance", classAttendance);
-        request.setAttribute("subjectAttendance", subjectAttendance);
-        request.setAttribute("classes", departmentClasses);
-        request.setAttribute("subjects", departmentSubjects);
+        prepareDashboard(request, hod, "HOD");
     }
     
     /**
@@ -360,49 +181,56 @@ public class FixedAttendanceReportController extends HttpServlet {
      */
     private void preparePrincipalDashboard(HttpServletRequest request, User principal) 
             throws SQLException {
-        
-        // Institution-wide statistics
-        int totalStudents = userDao.findByRole("Student").size();
-        int totalTeachers = userDao.findByRole("Teacher").size();
-        int totalHods = userDao.findByRole("HOD").size();
-        int totalDepartments = departmentDao.findAll().size();
-        
-        // Overall attendance statistics
-        double institutionAttendance = 
-                attendanceDao.calculateInstitutionAttendancePercentage(
-                        getCurrentAcademicYear(),
-                        getCurrentSemester(),
-                        null  // all months
-                );
-        
-        // Department-wise attendance
-        Map<Integer, Double> departmentAttendance = new HashMap<>();
-        List<Department> allDepartments = departmentDao.findAll();
-        
-        for (Department dept : allDepartments) {
-            double attendancePercentage = 
-                    attendanceDao.calculateDepartmentAttendancePercentage(
-                            dept.getDepartmentId(),
-                            getCurrentAcademicYear(),
-                            getCurrentSemester(),
-                            null  // all months
-                    );
-            departmentAttendance.put(dept.getDepartmentId(), attendancePercentage);
+        prepareDashboard(request, principal, "Principal");
+    }
+    
+    private void prepareDashboard(HttpServletRequest request, User user, String dashboardRole)
+            throws SQLException {
+        prepareDashboard(request, user, dashboardWidgetsOf(dashboardRole));
+    }
+    
+    /**
+     * Load widgets concurrently into request attributes; the names of widgets that failed
+     * or were too slow go in "unavailableWidgets" so the page can say what is missing
+     */
+    private void prepareDashboard(HttpServletRequest request, User user, List<DashboardWidgets.Widget> widgets)
+            throws SQLException {
+        DashboardWidgets.Loaded loaded = dashboardWidgets.loadAll(widgets, dashboardWidgets.newContext(user));
+        for (Map.Entry<String, Object> attribute : loaded.getAttributes().entrySet()) {
+            request.setAttribute(attribute.getKey(), attribute.getValue());
         }
-        
-        // Monthly trend for current academic year
-        Map<String, Double> monthlyTrend = 
-                attendanceDao.getMonthlyAttendanceTrend(getCurrentAcademicYear());
-        
-        // Set data as request attributes
-        request.setAttribute("totalStudents", totalStudents);
-        request.setAttribute("totalTeachers", totalTeachers);
-        request.setAttribute("totalHods", totalHods);
-        request.setAttribute("totalDepartments", totalDepartments);
-        request.setAttribute("institutionAttendance", institutionAttendance);
-        request.setAttribute("departmentAttendance", departmentAttendance);
-        request.setAttribute("departments", allDepartments);
-        request.setAttribute("monthlyTrend", monthlyTrend);
+        if (!loaded.getUnavailable().isEmpty()) {
+            List<String> unavailable = new ArrayList<>();
+            for (DashboardWidgets.Widget widget : loaded.getUnavailable()) {
+                unavailable.add(widget.getName());
+            }
+            request.setAttribute("unavailableWidgets", unavailable);
+        }
+    }
+    
+    /**
+     * The widgets of a role's dashboard, other than the user counts
+     */
+    private List<DashboardWidgets.Widget> dashboardWidgetsOf(String dashboardRole) {
+        List<DashboardWidgets.Widget> widgets = DashboardWidgets.Widget.forRole(dashboardRole);
+        widgets.remove(DashboardWidgets.Widget.USER_COUNTS);
+        return widgets;
+    }
+    
+    /**
+     * The role whose dashboard a user sees, or null for none
+     */
+    private String dashboardRoleOf(String role) {
+        if ("Student".equals(role)) {
+            return "Student";
+        } else if ("Teacher".equals(role) || "Class Teacher".equals(role)) {
+            return "Teacher";
+        } else if ("HOD".equals(role)) {
+            return "HOD";
+        } else if ("Principal".equals(role) || "Admin".equals(role)) {
+            return "Principal";
+        }
+        return null;
     }
     
     /**
@@ -443,7 +271,7 @@ public class FixedAttendanceReportController extends HttpServlet {
             }
             
             // Check authorization (only the student, their teachers, HOD, or principal can view)
-            if (!isAuthorizedToViewStudentReport(currentUser, student)) {
+            if (!authorizationService.canViewStudent(currentUser, student)) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, 
                         "You are not authorized to view this student's report");
                 return;
@@ -478,29 +306,32 @@ public class FixedAttendanceReportController extends HttpServlet {
             // Get class details
             com.attendance.models.Class studentClass = classDao.findById(enrollment.getClassId());
             
-            // Get attendance statistics
-            double overallAttendance = 
-                    attendanceDao.calculateAttendancePercentage(
-                            studentId, 
-                            academicYear,
-                            semester,
-                            month
-                    );
-            
             // Get subject-wise attendance if no specific subject is selected
             Map<String, Double> subjectAttendance = new HashMap<>();
             List<Subject> subjects = subjectDao.findByClassId(enrollment.getClassId());
+            List<AttendanceAggregate> subjectAggregates = attendanceDao.aggregatePercentages(
+                    AttendanceAggregate.Scope.STUDENT, studentId,
+                    AttendanceAggregate.GroupBy.SUBJECT,
+                    aggregateFilters(academicYear, semester, null));
             
+            Map<String, Double> subjectPercentages = new HashMap<>();
+            for (AttendanceAggregate aggregate : subjectAggregates) {
+                subjectPercentages.put(aggregate.getGroupCode(), aggregate.getPercentage());
+            }
             for (Subject subject : subjects) {
-                double percentage = 
-                        attendanceDao.calculateSubjectAttendancePercentage(
-                                studentId, 
-                                subject.getSubjectCode(),
-                                academicYear,
-                                semester
-                        );
-                subjectAttendance.put(subject.getSubjectCode(), percentage);
+                subjectAttendance.put(subject.getSubjectCode(), 
+                        subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
+            }
+            
+            // Get attendance statistics (the per-subject counts already cover the whole semester)
+            if (month != null && !month.isEmpty()) {
+                subjectAggregates = attendanceDao.aggregatePercentages(
+                        AttendanceAggregate.Scope.STUDENT, studentId,
+                        AttendanceAggregate.GroupBy.SUBJECT,
+                        aggregateFilters(academicYear, semester, month));
             }
+            double overallAttendance = 
+                    AttendanceAggregate.combine(studentId, subjectAggregates).getPercentage();
             
             // Get detailed attendance records
             List<Attendance> attendanceRecords;
@@ -538,68 +369,6 @@ public class FixedAttendanceReportController extends HttpServlet {
         }
     }
     
-    /**
-     * Check if the current user is authorized to view a student's report
-     */
-    private boolean isAuthorizedToViewStudentReport(User currentUser, User student) 
-            throws SQLException {
-        
-        if (currentUser == null || student == null) {
-            return false;
-        }
-        
-        // The student can view their own report
-        if (currentUser.getUserId() == student.getUserId()) {
-            return true;
-        }
-        
-        // Principal and Admin can view any student's report
-        String role = currentUser.getRole();
-        if ("Principal".equals(role) || "Admin".equals(role)) {
-            return true;
-        }
-        
-        // HOD can view reports of students in their department
-        if ("HOD".equals(role) && currentUser.getDepartmentId() == student.getDepartmentId()) {
-            return true;
-        }
-        
-        // Teachers can view reports of students they teach
-        if ("Teacher".equals(role) || "Class Teacher".equals(role)) {
-            List<StudentEnrollment> enrollments = 
-                    studentEnrollmentDao.findByStudentId(student.getUserId());
-            
-            if (!enrollments.isEmpty()) {
-                StudentEnrollment enrollment = enrollments.get(0);
-                
-                // Class teacher can view reports of students in their class
-                if ("Class Teacher".equals(role)) {
-                    List<TeacherAssignment> classAssignments = 
-                            teacherAssignmentDao.findByTeacherIdAndType(
-                                    currentUser.getUserId(), "Class Teacher");
-                    
-                    for (TeacherAssignment assignment : classAssignments) {
-                        if (assignment.getClassId() == enrollment.getClassId()) {
-                            return true;
-                        }
-                    }
-                }
-                
-                // Subject teacher can view reports of students they teach
-                List<TeacherAssignment> subjectAssignments = 
-                        teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-                
-                for (TeacherAssignment assignment : subjectAssignments) {
-                    if (assignment.getClassId() == enrollment.getClassId()) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
-    }
-    
     /**
      * Show detailed class attendance report
      */
@@ -622,13 +391,7 @@ public class FixedAttendanceReportController extends HttpServlet {
                     classes = classDao.findByDepartment(currentUser.getDepartmentId());
                 } else if ("Teacher".equals(currentUser.getRole()) || "Class Teacher".equals(currentUser.getRole())) {
                     // Get classes the teacher is assigned to
-                    List<TeacherAssignment> assignments = 
-                            teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-                    
-                    Set<Integer> classIds = new HashSet<>();
-                    for (TeacherAssignment assignment : assignments) {
-                        classIds.add(assignment.getClassId());
-                    }
+                    Set<Integer> classIds = authorizationService.getScope(currentUser).getClassIds();
                     
                     classes = new ArrayList<>();
                     for (Integer classId : classIds) {
@@ -665,7 +428,7 @@ public class FixedAttendanceReportController extends HttpServlet {
             }
             
             // Check authorization
-            if (!isAuthorizedToViewClassReport(currentUser, classObj)) {
+            if (!authorizationService.canViewClass(currentUser, classObj)) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, 
                         "You are not authorized to view this class report");
                 return;
@@ -704,39 +467,33 @@ public class FixedAttendanceReportController extends HttpServlet {
             
             // Get subject-wise attendance if no specific subject is selected
             Map<String, Double> subjectAttendance = new HashMap<>();
+            Map<String, Double> subjectPercentages = attendanceDao.aggregatePercentagesByCode(
+                    AttendanceAggregate.Scope.CLASS, classId,
+                    AttendanceAggregate.GroupBy.SUBJECT,
+                    aggregateFilters(academicYear, semester, null));
             for (Subject subject : subjects) {
-                double percentage = 
-                        attendanceDao.calculateSubjectClassAttendancePercentage(
-                                classId,
-                                subject.getSubjectCode(),
-                                academicYear,
-                                semester
-                        );
-                subjectAttendance.put(subject.getSubjectCode(), percentage);
+                subjectAttendance.put(subject.getSubjectCode(), 
+                        subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
             }
             
             // Get student-wise attendance statistics
+            Map<String, Object> studentFilters;
+            if (subjectCode != null && !subjectCode.isEmpty()) {
+                // Subject-specific attendance
+                studentFilters = aggregateFilters(academicYear, semester, null);
+                studentFilters.put("subjectCode", subjectCode);
+            } else {
+                // Overall attendance
+                studentFilters = aggregateFilters(academicYear, semester, month);
+            }
+            Map<Integer, Double> studentPercentages = attendanceDao.aggregatePercentagesById(
+                    AttendanceAggregate.Scope.CLASS, classId,
+                    AttendanceAggregate.GroupBy.STUDENT, studentFilters);
+            
             Map<Integer, Double> studentAttendance = new HashMap<>();
             for (User student : students) {
-                double percentage;
-                if (subjectCode != null && !subjectCode.isEmpty()) {
-                    // Subject-specific attendance
-                    percentage = attendanceDao.calculateSubjectAttendancePercentage(
-                            student.getUserId(),
-                            subjectCode,
-                            academicYear,
-                            semester
-                    );
-                } else {
-                    // Overall attendance
-                    percentage = attendanceDao.calculateAttendancePercentage(
-                            student.getUserId(),
-                            academicYear,
-                            semester,
-                            month
-                    );
-                }
-                studentAttendance.put(student.getUserId(), percentage);
+                studentAttendance.put(student.getUserId(), 
+                        studentPercentages.getOrDefault(student.getUserId(), 0.0));
             }
             
             // Get daily attendance records for a specific date if provided
@@ -822,43 +579,6 @@ public class FixedAttendanceReportController extends HttpServlet {
         }
     }
     
-    /**
-     * Check if the current user is authorized to view a class report
-     */
-    private boolean isAuthorizedToViewClassReport(User currentUser, com.attendance.models.Class classObj) 
-            throws SQLException {
-        
-        if (currentUser == null || classObj == null) {
-            return false;
-        }
-        
-        String role = currentUser.getRole();
-        
-        // Principal and Admin can view any class report
-        if ("Principal".equals(role) || "Admin".equals(role)) {
-            return true;
-        }
-        
-        // HOD can view reports of classes in their department
-        if ("HOD".equals(role) && currentUser.getDepartmentId() == classObj.getDepartmentId()) {
-            return true;
-        }
-        
-        // Teachers can view reports of classes they teach
-        if ("Teacher".equals(role) || "Class Teacher".equals(role)) {
-            List<TeacherAssignment> assignments = 
-                    teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-            
-            for (TeacherAssignment assignment : assignments) {
-                if (assignment.getClassId() == classObj.getClassId()) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
-    }
-    
     /**
      * Show detailed subject attendance report
      */
@@ -881,13 +601,7 @@ public class FixedAttendanceReportController extends HttpServlet {
                     subjects = subjectDao.findByDepartment(currentUser.getDepartmentId());
                 } else if ("Teacher".equals(currentUser.getRole()) || "Class Teacher".equals(currentUser.getRole())) {
                     // Get subjects the teacher is assigned to
-                    List<TeacherAssignment> assignments = 
-                            teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-                    
-                    Set<String> subjectCodes = new HashSet<>();
-                    for (TeacherAssignment assignment : assignments) {
-                        subjectCodes.add(assignment.getSubjectCode());
-                    }
+                    Set<String> subjectCodes = authorizationService.getScope(currentUser).getSubjectCodes();
                     
                     subjects = new ArrayList<>();
                     for (String code : subjectCodes) {
@@ -922,7 +636,7 @@ public class FixedAttendanceReportController extends HttpServlet {
             }
             
             // Check authorization
-            if (!isAuthorizedToViewSubjectReport(currentUser, subject)) {
+            if (!authorizationService.canViewSubject(currentUser, subject)) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, 
                         "You are not authorized to view this subject report");
                 return;
@@ -987,15 +701,13 @@ public class FixedAttendanceReportController extends HttpServlet {
             
             // Class-wise subject attendance
             Map<Integer, Double> classAttendance = new HashMap<>();
+            Map<Integer, Double> classPercentages = attendanceDao.aggregatePercentagesById(
+                    AttendanceAggregate.Scope.SUBJECT, subjectCode,
+                    AttendanceAggregate.GroupBy.CLASS,
+                    aggregateFilters(academicYear, semester, null));
             for (com.attendance.models.Class classObj : subjectClasses) {
-                double percentage = 
-                        attendanceDao.calculateSubjectClassAttendancePercentage(
-                                classObj.getClassId(),
-                                subjectCode,
-                                academicYear,
-                                semester
-                        );
-                classAttendance.put(classObj.getClassId(), percentage);
+                classAttendance.put(classObj.getClassId(), 
+                        classPercentages.getOrDefault(classObj.getClassId(), 0.0));
             }
             
             // Get student-wise attendance for a specific class if selected
@@ -1005,14 +717,14 @@ public class FixedAttendanceReportController extends HttpServlet {
             if (classId != null) {
                 students = classStudents.get(classId);
                 if (students != null) {
+                    Map<String, Object> studentFilters = aggregateFilters(academicYear, semester, null);
+                    studentFilters.put("subjectCode", subjectCode);
+                    Map<Integer, Double> studentPercentages = attendanceDao.aggregatePercentagesById(
+                            AttendanceAggregate.Scope.CLASS, classId,
+                            AttendanceAggregate.GroupBy.STUDENT, studentFilters);
                     for (User student : students) {
-                        double percentage = attendanceDao.calculateSubjectAttendancePercentage(
-                                student.getUserId(),
-                                subjectCode,
-                                academicYear,
-                                semester
-                        );
-                        studentAttendance.put(student.getUserId(), percentage);
+                        studentAttendance.put(student.getUserId(), 
+                                studentPercentages.getOrDefault(student.getUserId(), 0.0));
                     }
                 }
             }
@@ -1071,43 +783,6 @@ public class FixedAttendanceReportController extends HttpServlet {
         }
     }
     
-    /**
-     * Check if the current user is authorized to view a subject report
-     */
-    private boolean isAuthorizedToViewSubjectReport(User currentUser, Subject subject) 
-            throws SQLException {
-        
-        if (currentUser == null || subject == null) {
-            return false;
-        }
-        
-        String role = currentUser.getRole();
-        
-        // Principal and Admin can view any subject report
-        if ("Principal".equals(role) || "Admin".equals(role)) {
-            return true;
-        }
-        
-        // HOD can view reports of subjects in their department
-        if ("HOD".equals(role) && currentUser.getDepartmentId() == subject.getDepartmentId()) {
-            return true;
-        }
-        
-        // Teachers can view reports of subjects they teach
-        if ("Teacher".equals(role) || "Class Teacher".equals(role)) {
-            List<TeacherAssignment> assignments = 
-                    teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-            
-            for (TeacherAssignment assignment : assignments) {
-                if (assignment.getSubjectCode().equals(subject.getSubjectCode())) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
-    }
-    
     /**
      * Show detailed department attendance report
      */
@@ -1206,15 +881,13 @@ public class FixedAttendanceReportController extends HttpServlet {
             
             // Class-wise attendance
             Map<Integer, Double> classAttendance = new HashMap<>();
+            Map<Integer, Double> classPercentages = attendanceDao.aggregatePercentagesById(
+                    AttendanceAggregate.Scope.DEPARTMENT, departmentId,
+                    AttendanceAggregate.GroupBy.CLASS,
+                    aggregateFilters(academicYear, semester, month));
             for (com.attendance.models.Class classObj : classes) {
-                double percentage = 
-                        attendanceDao.calculateClassAttendancePercentage(
-                                classObj.getClassId(),
-                                academicYear,
-                                semester,
-                                month
-                        );
-                classAttendance.put(classObj.getClassId(), percentage);
+                classAttendance.put(classObj.getClassId(), 
+                        classPercentages.getOrDefault(classObj.getClassId(), 0.0));
             }
             
             // Get subjects in the department
@@ -1222,14 +895,11 @@ public class FixedAttendanceReportController extends HttpServlet {
             
             // Subject-wise attendance
             Map<String, Double> subjectAttendance = new HashMap<>();
+            Map<String, Double> subjectPercentages = 
+                    aggregateSubjectPercentages(subjectCodesOf(subjects), academicYear, semester);
             for (Subject subject : subjects) {
-                double percentage = 
-                        attendanceDao.calculateSubjectOverallAttendancePercentage(
-                                subject.getSubjectCode(),
-                                academicYear,
-                                semester
-                        );
-                subjectAttendance.put(subject.getSubjectCode(), percentage);
+                subjectAttendance.put(subject.getSubjectCode(), 
+                        subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
             }
             
             // Get teachers in the department
@@ -1324,15 +994,11 @@ public class FixedAttendanceReportController extends HttpServlet {
             
             // Department-wise attendance
             Map<Integer, Double> departmentAttendance = new HashMap<>();
+            Map<Integer, Double> departmentPercentages = 
+                    aggregateDepartmentPercentages(academicYear, semester, month);
             for (Department department : departments) {
-                double percentage = 
-                        attendanceDao.calculateDepartmentAttendancePercentage(
-                                department.getDepartmentId(),
-                                academicYear,
-                                semester,
-                                month
-                        );
-                departmentAttendance.put(department.getDepartmentId(), percentage);
+                departmentAttendance.put(department.getDepartmentId(), 
+                        departmentPercentages.getOrDefault(department.getDepartmentId(), 0.0));
             }
             
             // Get all classes
@@ -1340,15 +1006,13 @@ public class FixedAttendanceReportController extends HttpServlet {
             
             // Class-wise attendance (top 10 highest and lowest)
             Map<Integer, Double> classAttendance = new HashMap<>();
+            Map<Integer, Double> classPercentages = attendanceDao.aggregatePercentagesById(
+                    AttendanceAggregate.Scope.INSTITUTION, null,
+                    AttendanceAggregate.GroupBy.CLASS,
+                    aggregateFilters(academicYear, semester, month));
             for (com.attendance.models.Class classObj : classes) {
-                double percentage = 
-                        attendanceDao.calculateClassAttendancePercentage(
-                                classObj.getClassId(),
-                                academicYear,
-                                semester,
-                                month
-                        );
-                classAttendance.put(classObj.getClassId(), percentage);
+                classAttendance.put(classObj.getClassId(), 
+                        classPercentages.getOrDefault(classObj.getClassId(), 0.0));
             }
             
             // Monthly trend across all departments
@@ -1420,13 +1084,7 @@ public class FixedAttendanceReportController extends HttpServlet {
                        .forward(request, response);
             } else if (pathInfo.equals("/classes")) {
                 // Show teacher's classes
-                List<TeacherAssignment> assignments = 
-                        teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-                
-                Set<Integer> classIds = new HashSet<>();
-                for (TeacherAssignment assignment : assignments) {
-                    classIds.add(assignment.getClassId());
-                }
+                Set<Integer> classIds = authorizationService.getScope(currentUser).getClassIds();
                 
                 List<com.attendance.models.Class> classes = new ArrayList<>();
                 for (Integer classId : classIds) {
@@ -1438,13 +1096,7 @@ public class FixedAttendanceReportController extends HttpServlet {
                        .forward(request, response);
             } else if (pathInfo.equals("/subjects")) {
                 // Show teacher's subjects
-                List<TeacherAssignment> assignments = 
-                        teacherAssignmentDao.findByTeacherId(currentUser.getUserId());
-                
-                Set<String> subjectCodes = new HashSet<>();
-                for (TeacherAssignment assignment : assignments) {
-                    subjectCodes.add(assignment.getSubjectCode());
-                }
+                Set<String> subjectCodes = authorizationService.getScope(currentUser).getSubjectCodes();
                 
                 List<Subject> subjects = new ArrayList<>();
                 for (String code : subjectCodes) {
@@ -1566,15 +1218,13 @@ public class FixedAttendanceReportController extends HttpServlet {
                 
                 // Get attendance percentages
                 Map<Integer, Double> classAttendance = new HashMap<>();
+                Map<Integer, Double> classPercentages = attendanceDao.aggregatePercentagesById(
+                        AttendanceAggregate.Scope.DEPARTMENT, departmentId,
+                        AttendanceAggregate.GroupBy.CLASS,
+                        aggregateFilters(getCurrentAcademicYear(), getCurrentSemester(), null));
                 for (com.attendance.models.Class classObj : classes) {
-                    double percentage = 
-                            attendanceDao.calculateClassAttendancePercentage(
-                                    classObj.getClassId(),
-                                    getCurrentAcademicYear(),
-                                    getCurrentSemester(),
-                                    null  // all months
-                            );
-                    classAttendance.put(classObj.getClassId(), percentage);
+                    classAttendance.put(classObj.getClassId(), 
+                            classPercentages.getOrDefault(classObj.getClassId(), 0.0));
                 }
                 
                 request.setAttribute("department", department);
@@ -1607,14 +1257,11 @@ public class FixedAttendanceReportController extends HttpServlet {
                 
                 // Get attendance percentages
                 Map<String, Double> subjectAttendance = new HashMap<>();
+                Map<String, Double> subjectPercentages = aggregateSubjectPercentages(
+                        subjectCodesOf(subjects), getCurrentAcademicYear(), getCurrentSemester());
                 for (Subject subject : subjects) {
-                    double percentage = 
-                            attendanceDao.calculateSubjectOverallAttendancePercentage(
-                                    subject.getSubjectCode(),
-                                    getCurrentAcademicYear(),
-                                    getCurrentSemester()
-                            );
-                    subjectAttendance.put(subject.getSubjectCode(), percentage);
+                    subjectAttendance.put(subject.getSubjectCode(), 
+                            subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
                 }
                 
                 request.setAttribute("department", department);
@@ -1728,15 +1375,11 @@ public class FixedAttendanceReportController extends HttpServlet {
                 
                 // Get attendance percentages
                 Map<Integer, Double> departmentAttendance = new HashMap<>();
+                Map<Integer, Double> departmentPercentages = 
+                        aggregateDepartmentPercentages(getCurrentAcademicYear(), getCurrentSemester(), null);
                 for (Department dept : departments) {
-                    double percentage = 
-                            attendanceDao.calculateDepartmentAttendancePercentage(
-                                    dept.getDepartmentId(),
-                                    getCurrentAcademicYear(),
-                                    getCurrentSemester(),
-                                    null  // all months
-                            );
-                    departmentAttendance.put(dept.getDepartmentId(), percentage);
+                    departmentAttendance.put(dept.getDepartmentId(), 
+                            departmentPercentages.getOrDefault(dept.getDepartmentId(), 0.0));
                 }
                 
                 request.setAttribute("departments", departments);
@@ -1797,16 +1440,14 @@ public class FixedAttendanceReportController extends HttpServlet {
                 // Get top 5 classes by attendance
                 List<com.attendance.models.Class> allClasses = classDao.findAll();
                 Map<Integer, Double> classAttendance = new HashMap<>();
+                Map<Integer, Double> classPercentages = attendanceDao.aggregatePercentagesById(
+                        AttendanceAggregate.Scope.INSTITUTION, null,
+                        AttendanceAggregate.GroupBy.CLASS,
+                        aggregateFilters(academicYear, semester, null));
                 
                 for (com.attendance.models.Class classObj : allClasses) {
-                    double percentage = 
-                            attendanceDao.calculateClassAttendancePercentage(
-                                    classObj.getClassId(),
-                                    academicYear,
-                                    semester,
-                                    null  // all months
-                            );
-                    classAttendance.put(classObj.getClassId(), percentage);
+                    classAttendance.put(classObj.getClassId(), 
+                            classPercentages.getOrDefault(classObj.getClassId(), 0.0));
                 }
                 
                 // Sort classes by attendance percentage (descending)
@@ -1830,15 +1471,14 @@ public class FixedAttendanceReportController extends HttpServlet {
                 // Get top 5 subjects by attendance
                 List<Subject> allSubjects = subjectDao.findAll();
                 Map<String, Double> subjectAttendance = new HashMap<>();
+                Map<String, Double> subjectPercentages = attendanceDao.aggregatePercentagesByCode(
+                        AttendanceAggregate.Scope.INSTITUTION, null,
+                        AttendanceAggregate.GroupBy.SUBJECT,
+                        aggregateFilters(academicYear, semester, null));
                 
                 for (Subject subject : allSubjects) {
-                    double percentage = 
-                            attendanceDao.calculateSubjectOverallAttendancePercentage(
-                                    subject.getSubjectCode(),
-                                    academicYear,
-                                    semester
-                            );
-                    subjectAttendance.put(subject.getSubjectCode(), percentage);
+                    subjectAttendance.put(subject.getSubjectCode(), 
+                            subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
                 }
                 
                 // Sort subjects by attendance percentage (descending)
@@ -1862,16 +1502,12 @@ public class FixedAttendanceReportController extends HttpServlet {
                 // Get top 3 departments by attendance
                 List<Department> allDepartments = departmentDao.findAll();
                 Map<Integer, Double> departmentAttendance = new HashMap<>();
+                Map<Integer, Double> departmentPercentages = 
+                        aggregateDepartmentPercentages(academicYear, semester, null);
                 
                 for (Department dept : allDepartments) {
-                    double percentage = 
-                            attendanceDao.calculateDepartmentAttendancePercentage(
-                                    dept.getDepartmentId(),
-                                    academicYear,
-                                    semester,
-                                    null  // all months
-                            );
-                    departmentAttendance.put(dept.getDepartmentId(), percentage);
+                    departmentAttendance.put(dept.getDepartmentId(), 
+                            departmentPercentages.getOrDefault(dept.getDepartmentId(), 0.0));
                 }
                 
                 // Sort departments by attendance percentage (descending)
@@ -2054,27 +1690,124 @@ public class FixedAttendanceReportController extends HttpServlet {
     }
     
     /**
-     * Export a report as CSV
+     * Export the attendance records behind a report as CSV, streamed from the database
      */
     private void exportReport(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         
-        // Implementation for exporting reports as CSV
-        // This would involve generating CSV data based on the report type and parameters
-        // and setting appropriate response headers for file download
-        
+        User currentUser = SessionUtil.getUser(request);
         String reportType = request.getParameter("reportType");
-        String format = request.getParameter("format"); // CSV, PDF, etc.
+        String format = request.getParameter("format"); // Only CSV is supported
         
-        // Set response headers for file download
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition", 
-                "attachment; filename=\"" + reportType + "_report.csv\"");
+        if (currentUser == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        if (format != null && !format.isEmpty() && !"csv".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unsupported export format: " + format);
+            return;
+        }
         
-        // Generate and write CSV data
-        // This is just a placeholder implementation
-        response.getWriter().println("Report Type: " + reportType);
-        response.getWriter().println("This feature is not yet implemented");
+        // Same parameters as the report pages
+        Map<String, Object> filters = new HashMap<>();
+        putIfPresent(filters, "academicYear", request.getParameter("academicYear"));
+        putIfPresent(filters, "semester", request.getParameter("semester"));
+        putIfPresent(filters, "month", request.getParameter("month"));
+        putIfPresent(filters, "subjectCode", request.getParameter("subjectCode"));
+        putIfPresent(filters, "fromDate", request.getParameter("date"));
+        putIfPresent(filters, "toDate", request.getParameter("date"));
+        
+        try {
+            String fileName;
+            String role = currentUser.getRole();
+            
+            if ("student".equals(reportType)) {
+                int studentId = Integer.parseInt(request.getParameter("studentId"));
+                User student = userDao.findById(studentId);
+                if (student == null) {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Student not found");
+                    return;
+                }
+                if (!authorizationService.canViewStudent(currentUser, student)) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN, 
+                            "You are not authorized to export this student's report");
+                    return;
+                }
+                filters.put("studentId", studentId);
+                fileName = "student_" + studentId + "_attendance.csv";
+            } else if ("class".equals(reportType)) {
+                int classId = Integer.parseInt(request.getParameter("classId"));
+                com.attendance.models.Class classObj = classDao.findById(classId);
+                if (classObj == null) {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Class not found");
+                    return;
+                }
+                if (!authorizationService.canViewClass(currentUser, classObj)) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN, 
+                            "You are not authorized to export this class report");
+                    return;
+                }
+                filters.put("classId", classId);
+                fileName = "class_" + classId + "_attendance.csv";
+            } else if ("subject".equals(reportType)) {
+                String subjectCode = request.getParameter("subjectCode");
+                Subject subject = subjectCode != null ? subjectDao.findByCode(subjectCode) : null;
+                if (subject == null) {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Subject not found");
+                    return;
+                }
+                if (!authorizationService.canViewSubject(currentUser, subject)) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN, 
+                            "You are not authorized to export this subject report");
+                    return;
+                }
+                String classIdParam = request.getParameter("classId");
+                if (classIdParam != null && !classIdParam.isEmpty()) {
+                    filters.put("classId", Integer.parseInt(classIdParam));
+                }
+                fileName = "subject_" + subjectCode + "_attendance.csv";
+            } else if ("department".equals(reportType)) {
+                int departmentId = Integer.parseInt(request.getParameter("departmentId"));
+                boolean authorized = "Principal".equals(role) || "Admin".equals(role)
+                        || ("HOD".equals(role) && Integer.valueOf(departmentId).equals(currentUser.getDepartmentId()));
+                if (!authorized) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN, 
+                            "You are not authorized to export this department report");
+                    return;
+                }
+                filters.put("departmentId", departmentId);
+                fileName = "department_" + departmentId + "_attendance.csv";
+            } else if ("institution".equals(reportType)) {
+                if (!("Principal".equals(role) || "Admin".equals(role))) {
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN, 
+                            "You are not authorized to export institution-wide reports");
+                    return;
+                }
+                fileName = "institution_attendance.csv";
+            } else {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid report type");
+                return;
+            }
+            
+            AttendanceFilterQuery query = new AttendanceFilterQuery(filters);
+            String sql = query.toSql(AttendanceFilterQuery.CSV_COLUMNS, AttendanceFilterQuery.CSV_JOINS, false);
+            csvExporter.export(request, response, fileName, AttendanceFilterQuery.CSV_HEADERS, sql,
+                               stmt -> query.bind(stmt, false));
+            
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid report parameters");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error exporting " + reportType + " report", e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to export report");
+            }
+        }
+    }
+    
+    private void putIfPresent(Map<String, Object> filters, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            filters.put(key, value);
+        }
     }
     
     /**
@@ -2122,21 +1855,57 @@ public class FixedAttendanceReportController extends HttpServlet {
      * Get the current academic year
      */
     private String getCurrentAcademicYear() {
-        return String.valueOf(java.time.Year.now().getValue());
+        return DashboardWidgets.getCurrentAcademicYear();
+    }
+    
+    /**
+     * Build the filter map for an aggregation query; null values are ignored by the DAO
+     */
+    private Map<String, Object> aggregateFilters(String academicYear, String semester, String month) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("academicYear", academicYear);
+        filters.put("semester", semester);
+        filters.put("month", month);
+        return filters;
+    }
+    
+    /**
+     * Overall attendance percentage for each of the given subjects, in one query
+     */
+    private Map<String, Double> aggregateSubjectPercentages(Collection<String> subjectCodes, 
+            String academicYear, String semester) throws SQLException {
+        if (subjectCodes.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, Object> filters = aggregateFilters(academicYear, semester, null);
+        filters.put("subjectCodes", subjectCodes);
+        return attendanceDao.aggregatePercentagesByCode(
+                AttendanceAggregate.Scope.INSTITUTION, null, AttendanceAggregate.GroupBy.SUBJECT, filters);
+    }
+    
+    /**
+     * Attendance percentage for every department, in one query
+     */
+    private Map<Integer, Double> aggregateDepartmentPercentages(String academicYear, String semester, 
+            String month) throws SQLException {
+        return attendanceDao.aggregatePercentagesById(
+                AttendanceAggregate.Scope.INSTITUTION, null, AttendanceAggregate.GroupBy.DEPARTMENT,
+                aggregateFilters(academicYear, semester, month));
+    }
+    
+    private List<String> subjectCodesOf(List<Subject> subjects) {
+        List<String> codes = new ArrayList<>();
+        for (Subject subject : subjects) {
+            codes.add(subject.getSubjectCode());
+        }
+        return codes;
     }
     
     /**
      * Get the current semester based on the current month
      */
     private String getCurrentSemester() {
-        int month = java.time.LocalDate.now().getMonthValue();
-        
-        // This is a simplified logic; adapt to your institution's semester schedule
-        if (month >= 7 && month <= 12) {
-            return "Odd"; // First semester (July-December)
-        } else {
-            return "Even"; // Second semester (January-June)
-        }
+        return DashboardWidgets.getCurrentSemester();
     }
     
     /**
@@ -12,6 +12,9 @@ import jakarta.servlet.http.HttpSession;
 import com.attendance.dao.UserDao;
 import com.attendance.dao.impl.UserDaoImpl;
 import com.attendance.models.User;
+import com.attendance.utils.AuthorizationService;
+import com.attendance.utils.LoginThrottledException;
+import com.attendance.utils.Metrics;
 
 /**
  * Servlet for handling user login
@@ -22,10 +25,12 @@ public class LoginServlet extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(LoginServlet.class.getName());
     
     private UserDao userDAO;
+    private AuthorizationService authorizationService;
     
     @Override
     public void init() {
-        userDAO = new UserDaoImpl();
+        userDAO = Metrics.timed(UserDao.class, new UserDaoImpl());
+        authorizationService = new AuthorizationService();
     }
     
     /**
@@ -76,6 +81,9 @@ public class LoginServlet extends HttpServlet {
                 session.setAttribute("userName", user.getName());
                 session.setAttribute("userRole", user.getRole());
                 
+                // Compute what the user may see once, for the permission checks of later requests
+                authorizationService.getScope(user);
+                
                 // Log successful login
                 LOGGER.info("User logged in: " + email + ", Role: " + user.getRole());
                 
@@ -86,6 +94,12 @@ public class LoginServlet extends HttpServlet {
                 request.setAttribute("errorMessage", "Invalid email or password");
                 request.getRequestDispatcher("/login.jsp").forward(request, response);
             }
+        } catch (LoginThrottledException e) {
+            LOGGER.warning("Login throttled: " + e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "2");
+            request.setAttribute("errorMessage", "Too many sign-ins right now. Please try again in a moment.");
+            request.getRequestDispatcher("/login.jsp").forward(request, response);
         } catch (Exception e) {
             LOGGER.severe("Error during login: " + e.getMessage());
             request.setAttribute("errorMessage", "An error occurred during login. Please try again.");
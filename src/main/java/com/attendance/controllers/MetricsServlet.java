@@ -0,0 +1,124 @@
+package com.attendance.controllers;
+
+import com.attendance.dao.NotificationOutboxDao;
+import com.attendance.dao.impl.NotificationOutboxDaoImpl;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.BiometricUploadStore;
+import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EntityCache;
+import com.attendance.utils.Metrics;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+/**
+ * Serves the application metrics (see Metrics) in the Prometheus text format:
+ * GET /metrics. Besides the request and DAO timings, it reports the connection pool,
+ * the entity caches, the notification outbox and the biometric upload store as gauges,
+ * read at each scrape.
+ *
+ * A scrape must send "Authorization: Bearer &lt;token&gt;" with the METRICS_TOKEN setting.
+ * Without METRICS_TOKEN the endpoint is disabled and answers 404: behind a reverse
+ * proxy every request comes from a local address, so the client address proves nothing.
+ */
+@WebServlet(name = "MetricsServlet", urlPatterns = {"/metrics"})
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(MetricsServlet.class.getName());
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String[] OUTBOX_STATUSES = {"Pending", "Sent", "Failed"};
+
+    private String token;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        token = AppSettings.getString("METRICS_TOKEN", null);
+        if (token == null || token.isEmpty()) {
+            token = null;
+            LOGGER.info("METRICS_TOKEN is not set, /metrics is disabled");
+            return;
+        }
+        registerGauges();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (token == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!isAllowed(request)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        // Written to a buffer first, so a scrape never gets half the metrics
+        StringWriter buffer = new StringWriter(16384);
+        Metrics.writePrometheus(buffer);
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-store");
+        Writer writer = response.getWriter();
+        writer.write(buffer.toString());
+        writer.flush();
+    }
+
+    private boolean isAllowed(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        return header != null && MessageDigest.isEqual(header.getBytes(StandardCharsets.UTF_8),
+                ("Bearer " + token).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void registerGauges() {
+        Metrics.gauge("db_pool_active_connections", "Connections borrowed from the pool",
+                () -> DatabaseConnection.getPool().getActiveConnections());
+        Metrics.gauge("db_pool_idle_connections", "Connections idle in the pool",
+                () -> DatabaseConnection.getPool().getIdleConnections());
+        Metrics.gauge("db_pool_waiting_threads", "Threads waiting for a connection",
+                () -> DatabaseConnection.getPool().getWaitingThreads());
+
+        Metrics.gauge("entity_cache_entries", "Entries in each entity cache",
+                new String[] {"cache"}, () -> cacheValues(EntityCache::size));
+        Metrics.gauge("entity_cache_hits", "Entity cache hits since startup",
+                new String[] {"cache"}, () -> cacheValues(EntityCache::getHitCount));
+        Metrics.gauge("entity_cache_misses", "Entity cache misses since startup",
+                new String[] {"cache"}, () -> cacheValues(EntityCache::getMissCount));
+        Metrics.gauge("entity_cache_evictions", "Entity cache evictions since startup",
+                new String[] {"cache"}, () -> cacheValues(EntityCache::getEvictionCount));
+
+        NotificationOutboxDao outboxDao = new NotificationOutboxDaoImpl();
+        Metrics.gauge("notification_outbox_messages", "Notifications in the outbox by status",
+                new String[] {"status"}, () -> {
+                    Map<List<String>, Integer> counts = new LinkedHashMap<>();
+                    for (String status : OUTBOX_STATUSES) {
+                        counts.put(List.of(status), outboxDao.countByStatus(status));
+                    }
+                    return counts;
+                });
+
+        Metrics.gauge("biometric_upload_reserved_bytes", "Disk space held by biometric uploads in progress",
+                () -> BiometricUploadStore.getInstance().getReservedBytes());
+    }
+
+    private static Map<List<String>, Long> cacheValues(ToLongFunction<EntityCache<?, ?>> value) {
+        Map<List<String>, Long> values = new LinkedHashMap<>();
+        for (Map.Entry<String, EntityCache<?, ?>> cache : EntityCache.all().entrySet()) {
+            values.put(List.of(cache.getKey()), value.applyAsLong(cache.getValue()));
+        }
+        return values;
+    }
+}
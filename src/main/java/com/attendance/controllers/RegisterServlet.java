@@ -6,6 +6,7 @@ import com.attendance.dao.impl.DepartmentDaoImpl;
 import com.attendance.dao.impl.UserDaoImpl;
 import com.attendance.models.Department;
 import com.attendance.models.User;
+import com.attendance.utils.Metrics;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -27,7 +28,7 @@ public class RegisterServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger(RegisterServlet.class.getName());
     
-    private UserDao userDao = new UserDaoImpl();
+    private UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
     private DepartmentDao departmentDao = new DepartmentDaoImpl();
     
     /**
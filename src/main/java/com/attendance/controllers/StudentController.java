@@ -3,7 +3,9 @@ package com.attendance.controllers;
 import com.attendance.dao.*;
 import com.attendance.dao.impl.*;
 import com.attendance.models.*;
+import com.attendance.utils.AuthorizationService;
 import com.attendance.utils.DateUtils;
+import com.attendance.utils.Metrics;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -37,17 +39,19 @@ public class StudentController extends HttpServlet {
     private DepartmentSubjectDao departmentSubjectDao;
     private SubjectDao subjectDao;
     private AttendanceDao attendanceDao;
+    private AuthorizationService authorizationService;
     
     @Override
     public void init() throws ServletException {
         super.init();
-        userDao = new UserDaoImpl();
+        userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
         studentEnrollmentDao = new StudentEnrollmentDaoImpl();
         classDao = new ClassDaoImpl();
         departmentDao = new DepartmentDaoImpl();
         departmentSubjectDao = new DepartmentSubjectDaoImpl();
         subjectDao = new SubjectDaoImpl();
-        attendanceDao = new AttendanceDaoImpl();
+        attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+        authorizationService = new AuthorizationService();
     }
     
     @Override
@@ -469,8 +473,11 @@ public class StudentController extends HttpServlet {
                 // Filter by status
                 students = userDao.findUsersByRoleAndStatus("Student", status);
             } else {
-                // No filters, get all students
-                students = userDao.findUsersByRole("Student");
+                // No filters, list all students a page at a time
+                Page<User> page = userDao.findByRole("Student",
+                        PageRequest.of(request.getParameter("cursor"), request.getParameter("size")));
+                request.setAttribute("listPage", page);
+                students = page.getItems();
             }
             
             // Get current enrollments for each student
@@ -530,7 +537,8 @@ public class StudentController extends HttpServlet {
             LOGGER.log(Level.SEVERE, "Database error while listing students", e);
             request.setAttribute("error", "Failed to retrieve students. Please try again later.");
             request.getRequestDispatcher("/WEB-INF/views/admin/students/list.jsp").forward(request, response);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
+            // Invalid filter parameters (NumberFormatException) or page cursor
             request.setAttribute("error", "Invalid filter parameters.");
             request.getRequestDispatcher("/WEB-INF/views/admin/students/list.jsp").forward(request, response);
         }
@@ -1519,20 +1527,10 @@ public class StudentController extends HttpServlet {
             }
             
             // Check if teacher is assigned to this class
-            TeacherAssignmentDao teacherAssignmentDao = new TeacherAssignmentDaoImpl();
-            List<TeacherAssignment> assignments = teacherAssignmentDao.findByTeacher(user.getUserId());
-            
-            boolean isAssigned = false;
-            Set<String> teacherSubjects = new HashSet<>();
-            
-            for (TeacherAssignment assignment : assignments) {
-                if (assignment.getClassId() == enrollment.getClassId()) {
-                    isAssigned = true;
-                    teacherSubjects.add(assignment.getSubjectCode());
-                }
-            }
+            AccessScope scope = authorizationService.getScope(user);
+            Set<String> teacherSubjects = scope.getSubjectCodes(enrollment.getClassId());
             
-            if (!isAssigned) {
+            if (!scope.hasClass(enrollment.getClassId())) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, "You are not authorized to view details of this student");
                 return;
             }
@@ -1648,20 +1646,10 @@ public class StudentController extends HttpServlet {
             }
             
             // Check if teacher is assigned to this class
-            TeacherAssignmentDao teacherAssignmentDao = new TeacherAssignmentDaoImpl();
-            List<TeacherAssignment> assignments = teacherAssignmentDao.findByTeacher(user.getUserId());
-            
-            boolean isAssigned = false;
-            Set<String> teacherSubjects = new HashSet<>();
-            
-            for (TeacherAssignment assignment : assignments) {
-                if (assignment.getClassId() == enrollment.getClassId()) {
-                    isAssigned = true;
-                    teacherSubjects.add(assignment.getSubjectCode());
-                }
-            }
+            AccessScope scope = authorizationService.getScope(user);
+            Set<String> teacherSubjects = scope.getSubjectCodes(enrollment.getClassId());
             
-            if (!isAssigned) {
+            if (!scope.hasClass(enrollment.getClassId())) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, "You are not authorized to view attendance of this student");
                 return;
             }
@@ -10,6 +10,7 @@ import com.attendance.models.Subject;
 import com.attendance.models.DepartmentSubject;
 import com.attendance.models.TeacherAssignment;
 import com.attendance.models.User;
+import com.attendance.utils.AuthorizationService;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -36,6 +37,7 @@ public class SubjectController extends HttpServlet {
     private SubjectDao subjectDao;
     private DepartmentSubjectDao departmentSubjectDao;
     private TeacherAssignmentDao teacherAssignmentDao;
+    private AuthorizationService authorizationService;
 
     @Override
     public void init() throws ServletException {
@@ -43,6 +45,7 @@ public class SubjectController extends HttpServlet {
         subjectDao = new SubjectDaoImpl();
         departmentSubjectDao = new DepartmentSubjectDaoImpl();
         teacherAssignmentDao = new TeacherAssignmentDaoImpl();
+        authorizationService = new AuthorizationService();
     }
 
     @Override
@@ -430,10 +433,7 @@ public class SubjectController extends HttpServlet {
                 try {
                     int classId = Integer.parseInt(classIdStr);
                     
-                    TeacherAssignment assignment = teacherAssignmentDao.findByTeacherSubjectAndClass(
-                            user.getUserId(), subjectCode, classId);
-                    
-                    if (assignment == null) {
+                    if (!authorizationService.teaches(user, subjectCode, classId)) {
                         response.sendError(HttpServletResponse.SC_FORBIDDEN, "You are not assigned to this subject and class");
                         return;
                     }
@@ -443,17 +443,7 @@ public class SubjectController extends HttpServlet {
                 }
             } else {
                 // Check if teacher is assigned to this subject in any class
-                List<TeacherAssignment> assignments = teacherAssignmentDao.findByTeacher(user.getUserId());
-                boolean isAssigned = false;
-                
-                for (TeacherAssignment assignment : assignments) {
-                    if (assignment.getSubjectCode().equals(subjectCode)) {
-                        isAssigned = true;
-                        break;
-                    }
-                }
-                
-                if (!isAssigned) {
+                if (!authorizationService.teachesSubject(user, subjectCode)) {
                     response.sendError(HttpServletResponse.SC_FORBIDDEN, "You are not assigned to this subject");
                     return;
                 }
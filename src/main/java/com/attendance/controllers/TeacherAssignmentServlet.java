@@ -3,6 +3,7 @@ package com.attendance.controllers;
 import com.attendance.dao.*;
 import com.attendance.dao.impl.*;
 import com.attendance.models.*;
+import com.attendance.utils.Metrics;
 import com.attendance.utils.SessionUtil;
 
 import java.io.IOException;
@@ -26,7 +27,7 @@ public class TeacherAssignmentServlet extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(TeacherAssignmentServlet.class.getName());
     
     private TeacherAssignmentDao teacherAssignmentDao = new TeacherAssignmentDaoImpl();
-    private UserDao userDao = new UserDaoImpl();
+    private UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
     private SubjectDao subjectDao = new SubjectDaoImpl();
     private ClassDao classDao = new ClassDaoImpl();
     private DepartmentDao departmentDao = new DepartmentDaoImpl();
@@ -1,8 +1,11 @@
 package com.attendance.controllers;
 
+import com.attendance.dao.Page;
+import com.attendance.dao.PageRequest;
 import com.attendance.dao.UserDao;
 import com.attendance.dao.impl.UserDaoImpl;
 import com.attendance.models.User;
+import com.attendance.utils.Metrics;
 import com.attendance.utils.PasswordUtils;
 
 import jakarta.servlet.ServletException;
@@ -28,7 +31,7 @@ public class UserController extends HttpServlet {
     @Override
     public void init() throws ServletException {
         super.init();
-        userDao = new UserDaoImpl();
+        userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
     }
 
     @Override
@@ -116,16 +119,21 @@ public class UserController extends HttpServlet {
             String statusFilter = request.getParameter("status");
             String searchQuery = request.getParameter("query");
             
+            PageRequest pageRequest = PageRequest.of(request.getParameter("cursor"), request.getParameter("size"));
             List<User> users;
             
             if (roleFilter != null && !roleFilter.isEmpty()) {
-                users = userDao.findByRole(roleFilter);
+                Page<User> page = userDao.findByRole(roleFilter, pageRequest);
+                request.setAttribute("listPage", page);
+                users = page.getItems();
             } else if (statusFilter != null && !statusFilter.isEmpty()) {
                 users = userDao.findByStatus(statusFilter);
             } else if (searchQuery != null && !searchQuery.isEmpty()) {
                 users = userDao.searchUsers(searchQuery);
             } else {
-                users = userDao.findAll();
+                Page<User> page = userDao.findAll(pageRequest);
+                request.setAttribute("listPage", page);
+                users = page.getItems();
             }
             
             request.setAttribute("users", users);
@@ -135,6 +143,10 @@ public class UserController extends HttpServlet {
             LOGGER.log(Level.SEVERE, "Database error while listing users", e);
             request.setAttribute("error", "Failed to retrieve users. Please try again later.");
             request.getRequestDispatcher("/WEB-INF/views/admin/users/list.jsp").forward(request, response);
+        } catch (IllegalArgumentException e) {
+            // Tampered or stale page cursor
+            request.setAttribute("error", "Invalid page link.");
+            request.getRequestDispatcher("/WEB-INF/views/admin/users/list.jsp").forward(request, response);
         }
     }
 
@@ -1,9 +1,14 @@
 package com.attendance.dao;
 
 import com.attendance.models.Attendance;
+import com.attendance.models.AttendanceAggregate;
+import com.attendance.models.AttendanceImportResult;
+import com.attendance.models.MarkAttendanceResult;
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,7 +23,7 @@ import java.util.Map;
  * core CRUD operations). Both interfaces are maintained for different use cases.
  * AttendanceDao is primarily used by controller classes for main application functions.
  */
-public interface AttendanceDao extends BaseDao<Attendance, Integer> {
+public interface AttendanceDao extends BaseDao<Attendance, Integer>, PagedDao<Attendance> {
     
     /**
      * Find attendance records by student
@@ -47,6 +52,15 @@ public interface AttendanceDao extends BaseDao<Attendance, Integer> {
      */
     List<Attendance> findBySubject(String subjectCode) throws SQLException;
     
+    /**
+     * Find one page of attendance records by subject, newest first
+     * @param subjectCode The subject code
+     * @param pageRequest Page size and the cursor of the previous page
+     * @return The page, with the cursor of the next one
+     * @throws SQLException If a database error occurs
+     */
+    Page<Attendance> findBySubject(String subjectCode, PageRequest pageRequest) throws SQLException;
+    
     /**
      * Find attendance records by date
      * @param date The attendance date
@@ -55,6 +69,15 @@ public interface AttendanceDao extends BaseDao<Attendance, Integer> {
      */
     List<Attendance> findByDate(Date date) throws SQLException;
     
+    /**
+     * Find one page of attendance records by date
+     * @param date The attendance date
+     * @param pageRequest Page size and the cursor of the previous page
+     * @return The page, with the cursor of the next one
+     * @throws SQLException If a database error occurs
+     */
+    Page<Attendance> findByDate(Date date, PageRequest pageRequest) throws SQLException;
+    
     /**
      * Find attendance records by student and subject
      * @param studentId The student ID
@@ -144,6 +167,19 @@ public interface AttendanceDao extends BaseDao<Attendance, Integer> {
      */
     List<Attendance> findByClassAndDate(int classId, Date date) throws SQLException;
     
+    /**
+     * Find the attendance of a class over a date range with the effective status: Absent
+     * records on days the student has approved leave are returned as On Leave. One query
+     * joins Attendance with the approved leave applications; for days without records use
+     * LeaveApplicationDao.findApprovedLeavesByClass.
+     * @param classId The class ID
+     * @param fromDate First day of the range
+     * @param toDate Last day of the range
+     * @return Attendance records ordered by date and student
+     * @throws SQLException If a database error occurs
+     */
+    List<Attendance> findEffectiveByClassAndDateRange(int classId, Date fromDate, Date toDate) throws SQLException;
+    
     /**
      * Calculate attendance percentage for a student in a subject
      * @param studentId The student ID
@@ -273,19 +309,119 @@ public interface AttendanceDao extends BaseDao<Attendance, Integer> {
      * @throws SQLException If a database error occurs
      */
     Map<String, Double> getAttendanceSummary(int studentId, String semester, String academicYear) throws SQLException;
-    
+
+    /**
+     * Aggregate attendance for a whole cohort in a single GROUP BY query.
+     *
+     * Supported filter keys: "academicYear", "semester", "month" (1-12 or month name),
+     * "subjectCode", "subjectCodes" (Collection of codes), "classIds" (Collection of class IDs),
+     * "fromDate" and "toDate" (java.sql.Date or yyyy-MM-dd string). Missing or empty filters are ignored.
+     *
+     * @param scope The cohort to aggregate over
+     * @param scopeId The ID of the cohort (department/class/student ID or subject code); ignored for INSTITUTION
+     * @param groupBy The dimension to group by
+     * @param filters Additional filters (may be null)
+     * @return One aggregate per group that has attendance records
+     * @throws SQLException If a database error occurs
+     */
+    List<AttendanceAggregate> aggregatePercentages(AttendanceAggregate.Scope scope, Object scopeId,
+                                                   AttendanceAggregate.GroupBy groupBy,
+                                                   Map<String, Object> filters) throws SQLException;
+
+    /**
+     * Aggregate attendance percentages keyed by a numeric group (student, class, department or month)
+     * @param scope The cohort to aggregate over
+     * @param scopeId The ID of the cohort; ignored for INSTITUTION
+     * @param groupBy The dimension to group by (STUDENT, CLASS, DEPARTMENT or MONTH)
+     * @param filters Additional filters (may be null)
+     * @return Map of group ID to attendance percentage (0-100)
+     * @throws SQLException If a database error occurs
+     */
+    default Map<Integer, Double> aggregatePercentagesById(AttendanceAggregate.Scope scope, Object scopeId,
+                                                          AttendanceAggregate.GroupBy groupBy,
+                                                          Map<String, Object> filters) throws SQLException {
+        Map<Integer, Double> percentages = new HashMap<>();
+        for (AttendanceAggregate aggregate : aggregatePercentages(scope, scopeId, groupBy, filters)) {
+            percentages.put(aggregate.getGroupId(), aggregate.getPercentage());
+        }
+        return percentages;
+    }
+
     /**
-     * Mark attendance for multiple students in a subject
+     * Aggregate attendance percentages keyed by a textual group (subject code or semester)
+     * @param scope The cohort to aggregate over
+     * @param scopeId The ID of the cohort; ignored for INSTITUTION
+     * @param groupBy The dimension to group by (SUBJECT or SEMESTER)
+     * @param filters Additional filters (may be null)
+     * @return Map of group code to attendance percentage (0-100)
+     * @throws SQLException If a database error occurs
+     */
+    default Map<String, Double> aggregatePercentagesByCode(AttendanceAggregate.Scope scope, Object scopeId,
+                                                           AttendanceAggregate.GroupBy groupBy,
+                                                           Map<String, Object> filters) throws SQLException {
+        Map<String, Double> percentages = new HashMap<>();
+        for (AttendanceAggregate aggregate : aggregatePercentages(scope, scopeId, groupBy, filters)) {
+            percentages.put(aggregate.getGroupCode(), aggregate.getPercentage());
+        }
+        return percentages;
+    }
+
+    /**
+     * Mark attendance for multiple students in a subject; students who already have a
+     * record for the subject and date get their status updated (see {@link #upsertAttendance})
      * @param subjectCode The subject code
      * @param date The attendance date
      * @param semester The semester
      * @param academicYear The academic year
      * @param studentAttendance Map of student ID to attendance status
-     * @return Number of attendance records marked
+     * @param markedByUserId ID of the user marking attendance, or null
+     * @return Number of attendance records inserted or updated
      * @throws SQLException If a database error occurs
      */
     int markAttendance(String subjectCode, Date date, String semester, String academicYear, 
-                       Map<Integer, String> studentAttendance) throws SQLException;
+                       Map<Integer, String> studentAttendance, Integer markedByUserId) throws SQLException;
+    
+    /**
+     * Insert or update the attendance of multiple students in a subject for one date in a
+     * single statement. Re-submitting a sheet or correcting some statuses is idempotent:
+     * existing records with a different status are updated, identical ones are left alone.
+     * @param subjectCode The subject code
+     * @param date The attendance date
+     * @param semester The semester
+     * @param academicYear The academic year
+     * @param studentAttendance Map of student ID to attendance status
+     * @param markedByUserId ID of the user marking attendance (stored as marked_by_user_id), or null
+     * @return The outcome for each student
+     * @throws SQLException If a database error occurs
+     */
+    MarkAttendanceResult upsertAttendance(String subjectCode, Date date, String semester, String academicYear,
+                                          Map<Integer, String> studentAttendance, Integer markedByUserId) throws SQLException;
+    
+    /**
+     * Merge validated rows that were bulk-loaded into a staging table (see AttendanceImporter)
+     * into Attendance with one set-based upsert. When the file has several rows for the same
+     * student, subject and date the last one wins; like upsertAttendance, records whose status
+     * is unchanged are left alone. The rollups of every touched bucket are recomputed in the
+     * same transaction; no per-record notifications are sent.
+     * @param conn The connection of the surrounding transaction, on which the staging table exists
+     * @param stagingTable Staging table with line_no, student_id, subject_code, attendance_date,
+     *                     status, semester and academic_year columns
+     * @param markedByUserId ID of the user running the import, or null
+     * @param result Receives the inserted, updated, unchanged and superseded counts
+     * @throws SQLException If a database error occurs
+     */
+    void mergeStaged(Connection conn, String stagingTable, Integer markedByUserId,
+                     AttendanceImportResult result) throws SQLException;
+    
+    /**
+     * Delete every attendance record of a subject, together with its rollups, e.g. when the
+     * subject itself is deleted
+     * @param conn The connection of the surrounding transaction
+     * @param subjectCode The subject code
+     * @return Number of records deleted
+     * @throws SQLException If a database error occurs
+     */
+    int deleteBySubject(Connection conn, String subjectCode) throws SQLException;
                        
     /**
      * Get attendance percentage for a student (alias for calculateAttendancePercentage)
@@ -381,18 +517,18 @@ public interface AttendanceDao extends BaseDao<Attendance, Integer> {
      * @param subjectCode Subject code
      * @param semester Semester
      * @param academicYear Academic year
-     * @param markedBy ID of the user marking attendance
-     * @return Number of attendance records marked
+     * @param markedByUserId ID of the user marking attendance
+     * @return The outcome for each student
      * @throws SQLException If a database error occurs
      */
-    default int markAttendanceBulk(List<Integer> studentIds, String status, Date date, 
+    default MarkAttendanceResult markAttendanceBulk(List<Integer> studentIds, String status, Date date, 
                                  String subjectCode, String semester, String academicYear, 
-                                 String markedBy) throws SQLException {
-        Map<Integer, String> studentAttendance = new HashMap<>();
+                                 Integer markedByUserId) throws SQLException {
+        Map<Integer, String> studentAttendance = new LinkedHashMap<>();
         for (Integer studentId : studentIds) {
             studentAttendance.put(studentId, status);
         }
         
-        return markAttendance(subjectCode, date, semester, academicYear, studentAttendance);
+        return upsertAttendance(subjectCode, date, semester, academicYear, studentAttendance, markedByUserId);
     }
 }
\ No newline at end of file
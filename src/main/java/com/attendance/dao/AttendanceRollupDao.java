@@ -0,0 +1,118 @@
+package com.attendance.dao;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * DAO interface for the AttendanceRollup table, which keeps present/absent/on-leave
+ * counts per (student, subject, academic year, semester, month).
+ *
+ * The delta methods take the caller's connection so that the rollup is changed in
+ * the same transaction as the Attendance rows it summarises.
+ */
+public interface AttendanceRollupDao {
+
+    /**
+     * Add (or, with a negative delta, remove) one attendance record to the rollups
+     * @param conn The connection of the surrounding transaction
+     * @param studentId The student ID
+     * @param subjectCode The subject code
+     * @param academicYear The academic year
+     * @param semester The semester
+     * @param attendanceDate The attendance date (determines the month bucket)
+     * @param status The attendance status
+     * @param delta +1 for an added record, -1 for a removed one
+     * @throws SQLException If a database error occurs
+     */
+    void applyDelta(Connection conn, int studentId, String subjectCode, String academicYear,
+                    String semester, Date attendanceDate, String status, int delta) throws SQLException;
+
+    /**
+     * Add a batch of newly marked records for one subject and date to the rollups
+     * @param conn The connection of the surrounding transaction
+     * @param subjectCode The subject code
+     * @param attendanceDate The attendance date
+     * @param semester The semester
+     * @param academicYear The academic year
+     * @param studentStatuses Map of student ID to attendance status
+     * @throws SQLException If a database error occurs
+     */
+    void applyMarked(Connection conn, String subjectCode, Date attendanceDate, String semester,
+                     String academicYear, Map<Integer, String> studentStatuses) throws SQLException;
+
+    /**
+     * Move a batch of re-marked records for one subject and date from their previous
+     * status to their new one
+     * @param conn The connection of the surrounding transaction
+     * @param subjectCode The subject code
+     * @param attendanceDate The attendance date
+     * @param semester The semester
+     * @param academicYear The academic year
+     * @param previousStatuses Map of student ID to the status before the change
+     * @param newStatuses Map of student ID to the new status
+     * @throws SQLException If a database error occurs
+     */
+    void applyChanged(Connection conn, String subjectCode, Date attendanceDate, String semester,
+                      String academicYear, Map<Integer, String> previousStatuses,
+                      Map<Integer, String> newStatuses) throws SQLException;
+
+    /**
+     * Recompute, from the Attendance table, the rollup rows of the buckets touched by a
+     * set of records, e.g. after a bulk import wrote them with a single statement
+     * @param conn The connection of the surrounding transaction
+     * @param changedRecordsQuery A query (run on conn) returning student_id, subject_code,
+     *                            academic_year, semester and attendance_date of the records
+     * @return Number of rollup rows written
+     * @throws SQLException If a database error occurs
+     */
+    int recomputeBuckets(Connection conn, String changedRecordsQuery) throws SQLException;
+
+    /**
+     * Remove the rollup rows of a subject whose attendance records are all being deleted
+     * @param conn The connection of the surrounding transaction
+     * @param subjectCode The subject code
+     * @throws SQLException If a database error occurs
+     */
+    void removeSubject(Connection conn, String subjectCode) throws SQLException;
+
+    /**
+     * Recompute every rollup row from the Attendance table
+     * @return Number of rollup rows written
+     * @throws SQLException If a database error occurs
+     */
+    int rebuild() throws SQLException;
+
+    /**
+     * Compare the rollups with the Attendance table and correct any rows that drifted
+     * @return Number of rollup rows that were inserted, corrected or removed
+     * @throws SQLException If a database error occurs
+     */
+    int reconcile() throws SQLException;
+
+    /**
+     * Check whether the rollup table has any rows
+     * @return true if no rollup rows exist
+     * @throws SQLException If a database error occurs
+     */
+    boolean isEmpty() throws SQLException;
+
+    /**
+     * Get the version of the attendance data, which changes whenever attendance or the
+     * rollups change (after markChanged), e.g. to tell whether cached statistics are stale
+     * @return The current version
+     * @throws SQLException If a database error occurs
+     */
+    long getVersion() throws SQLException;
+
+    /**
+     * Advance the version as part of a change to attendance or the rollups, so that the
+     * change fails (and is rolled back) rather than leaving stale statistics behind when the
+     * version cannot be advanced. Sequences are not transactional: the new version becomes
+     * visible before the change commits, so call this as the last statement before the commit.
+     * @param conn The connection of the surrounding transaction
+     * @throws SQLException If a database error occurs
+     */
+    void markChanged(Connection conn) throws SQLException;
+}
@@ -0,0 +1,39 @@
+package com.attendance.dao;
+
+import java.sql.SQLException;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * DAO interface for the BiometricData table, which holds each student's face
+ * registration and the face embedding (see FaceEmbedder) recognition matches against.
+ */
+public interface BiometricDataDao {
+
+    /**
+     * Store a student's face embedding, replacing any earlier one, and mark the face
+     * as registered
+     * @param studentId The student ID
+     * @param embedding The encoded embedding (FaceEmbedder.encode)
+     * @param version The version of the extractor that produced it
+     * @throws SQLException If a database error occurs
+     */
+    void saveFaceEmbedding(int studentId, byte[] embedding, int version) throws SQLException;
+
+    /**
+     * Check whether a student has a registered face
+     * @param studentId The student ID
+     * @return true if a face embedding is stored for the student
+     * @throws SQLException If a database error occurs
+     */
+    boolean isFaceRegistered(int studentId) throws SQLException;
+
+    /**
+     * Stream every registered embedding of one extractor version, without holding
+     * them all in memory at once
+     * @param version The extractor version
+     * @param consumer Called with each encoded embedding and its student ID
+     * @return Number of embeddings read
+     * @throws SQLException If a database error occurs
+     */
+    int forEachFaceEmbedding(int version, ObjIntConsumer<byte[]> consumer) throws SQLException;
+}
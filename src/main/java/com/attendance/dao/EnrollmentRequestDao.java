@@ -7,7 +7,7 @@ import java.util.List;
 /**
  * DAO interface for EnrollmentRequest entities
  */
-public interface EnrollmentRequestDao extends BaseDao<EnrollmentRequest, Integer> {
+public interface EnrollmentRequestDao extends BaseDao<EnrollmentRequest, Integer>, PagedDao<EnrollmentRequest> {
     
     /**
      * Find enrollment requests by user
@@ -41,6 +41,15 @@ public interface EnrollmentRequestDao extends BaseDao<EnrollmentRequest, Integer
      */
     List<EnrollmentRequest> findByStatus(String status) throws SQLException;
     
+    /**
+     * Find one page of enrollment requests by status, newest first
+     * @param status The request status
+     * @param pageRequest Page size and the cursor of the previous page
+     * @return The page, with the cursor of the next one
+     * @throws SQLException If a database error occurs
+     */
+    Page<EnrollmentRequest> findByStatus(String status, PageRequest pageRequest) throws SQLException;
+    
     /**
      * Find enrollment requests by approver
      * @param approverId The approver user ID
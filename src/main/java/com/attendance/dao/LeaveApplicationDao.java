@@ -1,8 +1,10 @@
 package com.attendance.dao;
 
 import com.attendance.models.LeaveApplication;
+import com.attendance.models.LeaveIntervalIndex;
 import java.sql.Date;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -52,7 +54,31 @@ public interface LeaveApplicationDao extends BaseDao<LeaveApplication, Integer>
     List<LeaveApplication> findActiveByStudentAndDate(int studentId, Date date) throws SQLException;
     
     /**
-     * Update leave application status
+     * Load the approved leave of the students actively enrolled in a class that overlaps a
+     * date range, in one query
+     * @param classId The class ID
+     * @param fromDate First day of the range
+     * @param toDate Last day of the range
+     * @return The leave per student, clipped to the range
+     * @throws SQLException If a database error occurs
+     */
+    LeaveIntervalIndex findApprovedLeavesByClass(int classId, Date fromDate, Date toDate) throws SQLException;
+    
+    /**
+     * Load the approved leave of a set of students that overlaps a date range, in one query
+     * @param studentIds The student IDs
+     * @param fromDate First day of the range
+     * @param toDate Last day of the range
+     * @return The leave per student, clipped to the range
+     * @throws SQLException If a database error occurs
+     */
+    LeaveIntervalIndex findApprovedLeavesByStudents(Collection<Integer> studentIds, Date fromDate,
+                                                    Date toDate) throws SQLException;
+    
+    /**
+     * Update leave application status. Approving an application also re-labels the
+     * student's Absent attendance within the leave as On Leave (and moves the counts in
+     * the attendance rollups), in the same transaction.
      * @param applicationId The application ID
      * @param status The new status (APPROVED or REJECTED)
      * @param teacherId The teacher ID
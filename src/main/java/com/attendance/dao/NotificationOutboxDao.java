@@ -0,0 +1,91 @@
+package com.attendance.dao;
+
+import com.attendance.models.Notification;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO interface for the NotificationOutbox table.
+ *
+ * Notifications are enqueued on the caller's connection, so they are committed (or
+ * rolled back) together with the change they describe; NotificationOutboxWorker
+ * claims and delivers them afterwards.
+ */
+public interface NotificationOutboxDao {
+
+    /**
+     * Add notifications to the outbox; they become due after the coalescing delay,
+     * so several changes for one recipient in quick succession go out as one email
+     * @param conn The connection of the surrounding transaction
+     * @param notifications The notifications
+     * @return Number of notifications enqueued
+     * @throws SQLException If a database error occurs
+     */
+    int enqueue(Connection conn, List<Notification> notifications) throws SQLException;
+
+    /**
+     * Enqueue one digest notification per student with attendance in a period, listing
+     * the period's records and, in one set-based pass over the AttendanceRollup table,
+     * the subjects of those records in which the student is now below the threshold.
+     * A period is digested only once.
+     * @param periodStart First attendance date of the period
+     * @param periodEnd Last attendance date of the period
+     * @param threshold Minimum required attendance percentage
+     * @return Number of digests enqueued, or -1 if the period was already digested
+     * @throws SQLException If a database error occurs
+     */
+    int enqueueAttendanceDigests(Date periodStart, Date periodEnd, double threshold) throws SQLException;
+
+    /**
+     * Claim the due notifications of up to maxRecipients recipients (oldest first).
+     * Claimed rows are leased: they are not returned again until leaseSeconds have
+     * passed, after which an undelivered row (e.g. the worker stopped) is retried.
+     * Rows locked by another claim are skipped, so several workers can drain the outbox.
+     * @param maxRecipients Maximum number of distinct recipients
+     * @param leaseSeconds Lease duration
+     * @return The notifications ordered by recipient, with the recipient's email and name
+     * @throws SQLException If a database error occurs
+     */
+    List<Notification> claimDue(int maxRecipients, long leaseSeconds) throws SQLException;
+
+    /**
+     * Mark notifications as delivered
+     * @param notificationIds The notification IDs
+     * @throws SQLException If a database error occurs
+     */
+    void markSent(Collection<Long> notificationIds) throws SQLException;
+
+    /**
+     * Record a failed delivery; a notification is retried after an exponential backoff
+     * (backoffSeconds doubled per attempt, at most maxBackoffSeconds) until it has
+     * been attempted maxAttempts times, then it is marked Failed
+     * @param notificationIds The notification IDs
+     * @param error The error message
+     * @param maxAttempts Maximum number of attempts (0 fails the notifications now)
+     * @param backoffSeconds Delay after the first failed attempt
+     * @param maxBackoffSeconds Maximum delay
+     * @throws SQLException If a database error occurs
+     */
+    void markFailed(Collection<Long> notificationIds, String error, int maxAttempts,
+                    long backoffSeconds, long maxBackoffSeconds) throws SQLException;
+
+    /**
+     * Delete delivered notifications
+     * @param olderThanDays Minimum age in days
+     * @return Number of notifications deleted
+     * @throws SQLException If a database error occurs
+     */
+    int purgeSent(int olderThanDays) throws SQLException;
+
+    /**
+     * Count notifications by status (for monitoring)
+     * @param status Pending, Sent or Failed
+     * @return Number of notifications
+     * @throws SQLException If a database error occurs
+     */
+    int countByStatus(String status) throws SQLException;
+}
@@ -0,0 +1,45 @@
+package com.attendance.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset paginated query
+ * @param <T> Type of entity
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final int size;
+    private final String nextCursor;
+
+    public Page(List<T> items, int size, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return The entities on this page
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The page size that was requested (after capping)
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isLastPage() {
+        return nextCursor == null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.attendance.dao;
+
+import com.attendance.utils.AppSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Parameters for a keyset (seek) paginated query: the page size and the cursor
+ * returned with the previous page.
+ *
+ * The cursor is an opaque token holding the sort key of the last row of that page;
+ * the next page continues after it with a WHERE condition on the key instead of an
+ * OFFSET, so each page costs the same however deep it is. The page size defaults to
+ * PAGE_SIZE (50) and is capped at PAGE_SIZE_MAX (200).
+ */
+public class PageRequest {
+    public static final int DEFAULT_SIZE = AppSettings.getInt("PAGE_SIZE", 50);
+    public static final int MAX_SIZE = AppSettings.getInt("PAGE_SIZE_MAX", 200);
+
+    private static final String SEPARATOR = "\n";
+
+    private final int size;
+    private final String cursor;
+
+    private PageRequest(int size, String cursor) {
+        this.size = Math.max(1, Math.min(size, MAX_SIZE));
+        this.cursor = cursor != null && !cursor.isEmpty() ? cursor : null;
+    }
+
+    /**
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param size Requested page size (capped at MAX_SIZE)
+     */
+    public static PageRequest of(String cursor, int size) {
+        return new PageRequest(size, cursor);
+    }
+
+    /**
+     * Build a request from request parameters
+     * @param cursor The "cursor" parameter, or null
+     * @param size The "size" parameter, or null for the default size
+     */
+    public static PageRequest of(String cursor, String size) {
+        int pageSize = DEFAULT_SIZE;
+        if (size != null && !size.isEmpty()) {
+            try {
+                pageSize = Integer.parseInt(size);
+            } catch (NumberFormatException e) {
+                // Invalid size, use the default
+            }
+        }
+        return new PageRequest(pageSize, cursor);
+    }
+
+    /**
+     * @return The first page with the default size
+     */
+    public static PageRequest first() {
+        return new PageRequest(DEFAULT_SIZE, null);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean isFirstPage() {
+        return cursor == null;
+    }
+
+    /**
+     * Encode the sort key of a row as a cursor
+     * @param keyValues Key values in sort order
+     * @return The cursor token
+     */
+    public static String encodeCursor(Object... keyValues) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < keyValues.length; i++) {
+            if (i > 0) {
+                key.append(SEPARATOR);
+            }
+            key.append(keyValues[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode the cursor of this request
+     * @param keyCount Number of key values expected
+     * @return The key values as strings, or null for the first page
+     * @throws IllegalArgumentException If the cursor is not a valid token for this key
+     */
+    public String[] decodeCursor(int keyCount) {
+        return decodeCursor(cursor, keyCount);
+    }
+
+    /**
+     * Decode a cursor made by {@link #encodeCursor}
+     * @param cursor The cursor token, or null or empty for the first page
+     * @param keyCount Number of key values expected
+     * @return The key values as strings, or null for the first page
+     * @throws IllegalArgumentException If the cursor is not a valid token for this key
+     */
+    public static String[] decodeCursor(String cursor, int keyCount) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String[] values;
+        try {
+            values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+        if (values.length != keyCount) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        return values;
+    }
+}
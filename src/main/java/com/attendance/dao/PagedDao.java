@@ -0,0 +1,19 @@
+package com.attendance.dao;
+
+import java.sql.SQLException;
+
+/**
+ * DAO interface for entities that can be listed a page at a time, using keyset pagination
+ * @param <T> Type of entity
+ */
+public interface PagedDao<T> {
+    
+    /**
+     * Find one page of entities using keyset pagination
+     * @param pageRequest Page size and the cursor of the previous page
+     * @return The page, with the cursor of the next one
+     * @throws SQLException If a database error occurs
+     * @throws IllegalArgumentException If the cursor is not valid for this query
+     */
+    Page<T> findAll(PageRequest pageRequest) throws SQLException;
+}
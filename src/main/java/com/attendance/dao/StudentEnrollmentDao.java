@@ -4,6 +4,7 @@ import com.attendance.models.StudentEnrollment;
 import com.attendance.models.User;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO interface for StudentEnrollment entities
@@ -68,4 +69,12 @@ public interface StudentEnrollmentDao extends BaseDao<StudentEnrollment, Integer
      * @throws SQLException If a database error occurs
      */
     List<StudentEnrollment> findByStudentId(int studentId) throws SQLException;
+    
+    /**
+     * Find all students with an active enrollment in an academic year, in one query
+     * @param academicYear The academic year
+     * @return Map of student ID to the semester of the enrollment
+     * @throws SQLException If a database error occurs
+     */
+    Map<Integer, String> findActiveSemesters(String academicYear) throws SQLException;
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.attendance.utils.DatabaseConnection;
 import com.attendance.dao.impl.UserDaoImpl;
 import com.attendance.dao.impl.SubjectDAOImpl;
 import com.attendance.dao.impl.ClassDAOImpl;
+import com.attendance.utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -18,7 +19,7 @@ import java.util.List;
  */
 public class TeacherAssignmentDAO {
 
-    private UserDao userDAO = new UserDaoImpl();
+    private UserDao userDAO = Metrics.timed(UserDao.class, new UserDaoImpl());
     private SubjectDAO subjectDAO = new SubjectDAOImpl();
     private ClassDAO classDAO = new ClassDAOImpl();
 
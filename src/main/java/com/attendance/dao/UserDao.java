@@ -15,7 +15,7 @@ import java.util.Optional;
  * Note: This is the standard DAO interface for User entities. The UserDAO (uppercase)
  * interface has been consolidated with this interface to maintain consistency.
  */
-public interface UserDao extends BaseDao<User, Integer> {
+public interface UserDao extends BaseDao<User, Integer>, PagedDao<User> {
     
     /**
      * Find a user by email address
@@ -41,6 +41,15 @@ public interface UserDao extends BaseDao<User, Integer> {
      */
     List<User> findByRole(String role) throws SQLException;
     
+    /**
+     * Find one page of users with a role, in user ID order
+     * @param role The role to search for
+     * @param pageRequest Page size and the cursor of the previous page
+     * @return The page, with the cursor of the next one
+     * @throws SQLException If a database error occurs
+     */
+    Page<User> findByRole(String role, PageRequest pageRequest) throws SQLException;
+    
     /**
      * Find users by department
      * @param departmentId The department ID
@@ -64,6 +73,8 @@ public interface UserDao extends BaseDao<User, Integer> {
      * @param password The plain text password
      * @return The authenticated user or null if authentication fails
      * @throws SQLException If a database error occurs
+     * @throws com.attendance.utils.LoginThrottledException If too many logins are being
+     *         verified at once; the login should be retried shortly
      */
     User authenticate(String email, String password) throws SQLException;
     
@@ -1,15 +1,31 @@
 package com.attendance.dao.impl;
 
 import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.AttendanceRollupDao;
 import com.attendance.dao.LeaveApplicationDao;
+import com.attendance.dao.NotificationOutboxDao;
+import com.attendance.dao.Page;
+import com.attendance.dao.PageRequest;
 import com.attendance.models.Attendance;
+import com.attendance.models.AttendanceAggregate;
+import com.attendance.models.AttendanceImportResult;
+import com.attendance.models.MarkAttendanceResult;
+import com.attendance.models.Notification;
+import com.attendance.utils.AppSettings;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EmailNotificationService;
+import com.attendance.utils.NotificationDigestJob;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -20,7 +36,86 @@ import java.util.logging.Logger;
 public class AttendanceDaoImpl implements AttendanceDao {
     private static final Logger LOGGER = Logger.getLogger(AttendanceDaoImpl.class.getName());
     
+    // Pages newest first; attendance_id breaks ties within a day
+    private final KeysetQuery<Attendance> attendancePages = new KeysetQuery<>("SELECT * FROM Attendance",
+            new String[] {"attendance_date", "attendance_id"},
+            new KeysetQuery.KeyType[] {KeysetQuery.KeyType.DATE, KeysetQuery.KeyType.INT}, true,
+            this::mapResultSetToAttendance);
+    
+    // Percentages and trends are read from the AttendanceRollup table, which is kept
+    // up to date by the write methods below (see AttendanceRollupDao)
+    private static final String ROLLUP_SUMS =
+            "COALESCE(SUM(r.total_count), 0) AS total, " +
+            "COALESCE(SUM(r.present_count), 0) AS present, " +
+            "COALESCE(SUM(r.absent_count), 0) AS absent, " +
+            "COALESCE(SUM(r.leave_count), 0) AS on_leave ";
+    
+    private static final String ROLLUP_TOTALS_SQL = "SELECT " + ROLLUP_SUMS + "FROM AttendanceRollup r ";
+    
+    private static final String ROLLUP_ENROLLMENT_JOIN =
+            "JOIN StudentEnrollments se ON se.student_id = r.student_id AND se.academic_year = r.academic_year ";
+    
+    // Upsert of one subject/date batch (see upsertAttendance); "inserted" is null for
+    // unchanged records, true for new ones and false for updated ones. The marking user
+    // is recorded as marked_by_user_id; marked_by only holds names from earlier versions
+    // and is cleared when a record is rewritten
+    private static final String UPSERT_SQL_TEMPLATE =
+            "WITH input AS (" +
+            "    SELECT * FROM unnest(?::int[], ?::varchar[]) AS t(student_id, status)" +
+            "), previous AS (" +
+            "    SELECT a.student_id, a.status, a.semester, a.academic_year FROM Attendance a " +
+            "    JOIN input i ON i.student_id = a.student_id " +
+            "    WHERE a.subject_code = ? AND a.attendance_date = ?%s" +
+            "), written AS (" +
+            "    INSERT INTO Attendance (student_id, subject_code, attendance_date, status, " +
+            "    semester, academic_year, marked_by_user_id) " +
+            "    SELECT i.student_id, ?, ?, i.status, ?, ?, ? FROM input i " +
+            "    ON CONFLICT (%s) DO UPDATE SET status = EXCLUDED.status, " +
+            "    marked_by_user_id = EXCLUDED.marked_by_user_id, marked_by = NULL, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "    WHERE Attendance.status IS DISTINCT FROM EXCLUDED.status " +
+            "    RETURNING student_id, (xmax = 0) AS inserted" +
+            ") " +
+            "SELECT i.student_id, i.status, p.status AS previous_status, p.semester AS previous_semester, " +
+            "p.academic_year AS previous_academic_year, w.inserted " +
+            "FROM input i LEFT JOIN previous p ON p.student_id = i.student_id " +
+            "LEFT JOIN written w ON w.student_id = i.student_id";
+    
+    private static final String UPSERT_SQL = String.format(UPSERT_SQL_TEMPLATE,
+            "", "student_id, subject_code, attendance_date");
+    
+    private static final String UPSERT_PARTITIONED_SQL = String.format(UPSERT_SQL_TEMPLATE,
+            " AND a.academic_year = ?", "student_id, subject_code, attendance_date, academic_year");
+    
+    // Merge of a staged import (see mergeStaged): one row per key, the last line of the
+    // file winning; the written rows are kept for the rollup recompute and the counts
+    private static final String MERGE_STAGED_SQL_TEMPLATE =
+            "WITH latest AS (" +
+            "    SELECT DISTINCT ON (%1$s) student_id, subject_code, attendance_date, status, " +
+            "    semester, academic_year FROM %2$s ORDER BY %1$s, line_no DESC" +
+            "), written AS (" +
+            "    INSERT INTO Attendance (student_id, subject_code, attendance_date, status, " +
+            "    semester, academic_year, marked_by_user_id) " +
+            "    SELECT student_id, subject_code, attendance_date, status, semester, academic_year, ? " +
+            "    FROM latest " +
+            "    ON CONFLICT (%1$s) DO UPDATE SET status = EXCLUDED.status, " +
+            "    marked_by_user_id = EXCLUDED.marked_by_user_id, marked_by = NULL, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "    WHERE Attendance.status IS DISTINCT FROM EXCLUDED.status " +
+            "    RETURNING student_id, subject_code, academic_year, semester, attendance_date, (xmax = 0) AS inserted" +
+            ") " +
+            "INSERT INTO attendance_import_written SELECT * FROM written";
+    
+    private static volatile Boolean attendancePartitioned;
+    
     private LeaveApplicationDao leaveApplicationDao;
+    private final AttendanceRollupDao rollupDao = new AttendanceRollupDaoImpl();
+    private final NotificationOutboxDao outboxDao = new NotificationOutboxDaoImpl();
+    
+    // Students are emailed about marked and corrected attendance through the outbox;
+    // in digest mode newly marked records are only reported in the daily digest
+    private final boolean notifyStudents = AppSettings.getBoolean("NOTIFY_ATTENDANCE_CHANGES", true);
+    private final boolean notifyMarked = notifyStudents && !NotificationDigestJob.isDigestMode();
     
     /**
      * Default constructor
@@ -40,45 +135,17 @@ public class AttendanceDaoImpl implements AttendanceDao {
      */
     @Override
     public double calculateAttendancePercentage(int studentId, String subjectCode, String semester, String academicYear) throws SQLException {
-        String sql = "SELECT COUNT(*) AS total, " +
-                     "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance " +
-                     "WHERE student_id = ? AND subject_code = ? " +
-                     "AND semester = ? AND academic_year = ?";
+        String sql = ROLLUP_TOTALS_SQL +
+                     "WHERE r.student_id = ? AND r.subject_code = ? " +
+                     "AND r.semester = ? AND r.academic_year = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, studentId);
-            stmt.setString(2, subjectCode);
-            stmt.setString(3, semester);
-            stmt.setString(4, academicYear);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, studentId, subjectCode, semester, academicYear);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating attendance percentage for student ID: " + 
                        studentId + ", subject: " + subjectCode, e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     /**
@@ -89,440 +156,331 @@ public class AttendanceDaoImpl implements AttendanceDao {
      * @param semester The semester
      * @param academicYear The academic year
      * @param studentAttendance Map of student ID to attendance status
-     * @return Number of attendance records marked
+     * @param markedByUserId ID of the user marking attendance, or null
+     * @return Number of attendance records inserted or updated
      * @throws SQLException If a database error occurs
      */
     @Override
-    public int markAttendance(String subjectCode, Date date, String semester, 
-                              String academicYear, Map<Integer, String> studentAttendance) throws SQLException {
-        String sql = "INSERT INTO Attendance (student_id, subject_code, attendance_date, status, " +
-                     "semester, academic_year, marked_by, marked_at) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+    public int markAttendance(String subjectCode, Date date, String semester, String academicYear,
+                              Map<Integer, String> studentAttendance, Integer markedByUserId) throws SQLException {
+        return upsertAttendance(subjectCode, date, semester, academicYear, studentAttendance, markedByUserId)
+                .getWrittenCount();
+    }
+    
+    /**
+     * Upsert a batch in one round trip: the students and statuses are sent as two arrays,
+     * the previous status of existing records is read from the same snapshot, and
+     * {@code ON CONFLICT ... DO UPDATE ... WHERE} only rewrites records whose status changes.
+     * The rollups and the notification outbox are updated in the same transaction.
+     */
+    @Override
+    public MarkAttendanceResult upsertAttendance(String subjectCode, Date date, String semester, String academicYear,
+                                                 Map<Integer, String> studentAttendance, Integer markedByUserId) throws SQLException {
+        MarkAttendanceResult result = new MarkAttendanceResult();
+        if (studentAttendance.isEmpty()) {
+            return result;
+        }
+        
+        Integer[] studentIds = studentAttendance.keySet().toArray(new Integer[0]);
+        String[] statuses = new String[studentIds.length];
+        for (int i = 0; i < studentIds.length; i++) {
+            statuses[i] = studentAttendance.get(studentIds[i]);
+        }
         
-        int markedCount = 0;
         Connection conn = null;
-        PreparedStatement pstmt = null;
         
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
-            pstmt = conn.prepareStatement(sql);
-            
-            for (Map.Entry<Integer, String> entry : studentAttendance.entrySet()) {
-                int studentId = entry.getKey();
-                String status = entry.getValue();
-                
-                pstmt.setInt(1, studentId);
-                pstmt.setString(2, subjectCode);
-                pstmt.setDate(3, date);
-                pstmt.setString(4, status);
-                pstmt.setString(5, semester);
-                pstmt.setString(6, academicYear);
-                pstmt.setInt(7, 1); // Assuming marked_by refers to a user ID, using 1 as default
+            boolean partitioned = isAttendancePartitioned(conn);
+            
+            Map<Integer, String> inserted = new LinkedHashMap<>();
+            Map<Integer, String> updated = new LinkedHashMap<>();
+            Map<Integer, String> previous = new LinkedHashMap<>();
+            List<Notification> notifications = new ArrayList<>();
+            
+            try (PreparedStatement stmt = conn.prepareStatement(partitioned ? UPSERT_PARTITIONED_SQL : UPSERT_SQL)) {
+                int index = 1;
+                stmt.setArray(index++, conn.createArrayOf("integer", studentIds));
+                stmt.setArray(index++, conn.createArrayOf("varchar", statuses));
+                stmt.setString(index++, subjectCode);
+                stmt.setDate(index++, date);
+                if (partitioned) {
+                    stmt.setString(index++, academicYear);
+                }
+                stmt.setString(index++, subjectCode);
+                stmt.setDate(index++, date);
+                stmt.setString(index++, semester);
+                stmt.setString(index++, academicYear);
+                stmt.setObject(index, markedByUserId, Types.INTEGER);
                 
-                pstmt.addBatch();
-                markedCount++;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int studentId = rs.getInt("student_id");
+                        String status = rs.getString("status");
+                        String previousStatus = rs.getString("previous_status");
+                        boolean written = rs.getObject("inserted") != null;
+                        
+                        if (written && rs.getBoolean("inserted")) {
+                            result.add(studentId, MarkAttendanceResult.Outcome.INSERTED, null);
+                            inserted.put(studentId, status);
+                            if (notifyMarked) {
+                                notifications.add(EmailNotificationService.attendanceMarked(studentId, subjectCode, date, status));
+                            }
+                        } else if (written) {
+                            result.add(studentId, MarkAttendanceResult.Outcome.UPDATED, previousStatus);
+                            if (previousStatus == null) {
+                                // Inserted by a concurrent transaction after our snapshot, so the
+                                // previous status is unknown; AttendanceRollupJob corrects the rollup
+                                continue;
+                            }
+                            if (notifyStudents) {
+                                notifications.add(EmailNotificationService.attendanceUpdated(
+                                        studentId, subjectCode, date, previousStatus, status));
+                            }
+                            String previousSemester = rs.getString("previous_semester");
+                            String previousYear = rs.getString("previous_academic_year");
+                            if (semester.equals(previousSemester) && academicYear.equals(previousYear)) {
+                                updated.put(studentId, status);
+                                previous.put(studentId, previousStatus);
+                            } else {
+                                // The record keeps the term it was first marked in
+                                rollupDao.applyDelta(conn, studentId, subjectCode, previousYear, previousSemester,
+                                                     date, previousStatus, -1);
+                                rollupDao.applyDelta(conn, studentId, subjectCode, previousYear, previousSemester,
+                                                     date, status, 1);
+                            }
+                        } else {
+                            result.add(studentId, MarkAttendanceResult.Outcome.UNCHANGED, null);
+                        }
+                    }
+                }
             }
             
-            pstmt.executeBatch();
+            rollupDao.applyMarked(conn, subjectCode, date, semester, academicYear, inserted);
+            rollupDao.applyChanged(conn, subjectCode, date, semester, academicYear, previous, updated);
+            outboxDao.enqueue(conn, notifications);
+            rollupDao.markChanged(conn);
             conn.commit();
             
-            return markedCount;
+            LOGGER.fine("Marked attendance for " + subjectCode + " on " + date + ": " + result);
+            return result;
         } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
-                }
-            }
+            rollbackQuietly(conn);
             LOGGER.log(Level.SEVERE, "Error marking attendance", e);
             throw e;
         } finally {
-            if (pstmt != null) {
-                try {
-                    pstmt.close();
-                } catch (SQLException e) {
-                    LOGGER.log(Level.WARNING, "Error closing prepared statement", e);
-                }
+            closeQuietly(conn);
+        }
+    }
+    
+    @Override
+    public void mergeStaged(Connection conn, String stagingTable, Integer markedByUserId,
+                            AttendanceImportResult result) throws SQLException {
+        String key = isAttendancePartitioned(conn)
+                ? "student_id, subject_code, attendance_date, academic_year"
+                : "student_id, subject_code, attendance_date";
+        
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TEMP TABLE attendance_import_written (student_id INTEGER, " +
+                         "subject_code VARCHAR(20), academic_year VARCHAR(20), semester VARCHAR(10), " +
+                         "attendance_date DATE, inserted BOOLEAN) ON COMMIT DROP");
+            
+            long staged;
+            long distinct;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), (SELECT COUNT(*) FROM (SELECT DISTINCT " +
+                                                  key + " FROM " + stagingTable + ") k) FROM " + stagingTable)) {
+                rs.next();
+                staged = rs.getLong(1);
+                distinct = rs.getLong(2);
             }
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    LOGGER.log(Level.WARNING, "Error closing connection", e);
-                }
+            
+            try (PreparedStatement merge = conn.prepareStatement(
+                    String.format(MERGE_STAGED_SQL_TEMPLATE, key, stagingTable))) {
+                merge.setObject(1, markedByUserId, Types.INTEGER);
+                merge.executeUpdate();
+            }
+            
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FILTER (WHERE inserted), " +
+                                                  "COUNT(*) FILTER (WHERE NOT inserted) FROM attendance_import_written")) {
+                rs.next();
+                result.setInsertedCount(rs.getInt(1));
+                result.setUpdatedCount(rs.getInt(2));
             }
+            result.setSupersededCount((int) (staged - distinct));
+            result.setUnchangedCount((int) (distinct - result.getInsertedCount() - result.getUpdatedCount()));
+            
+            // The written rows carry the term each record is counted in, also for updates
+            rollupDao.recomputeBuckets(conn, "SELECT student_id, subject_code, academic_year, semester, " +
+                                             "attendance_date FROM attendance_import_written");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error merging staged attendance from " + stagingTable, e);
+            throw e;
         }
     }
     
     @Override
-    public Map<String, Double> getMonthlyAttendanceTrend(String academicYear) throws SQLException {
-        Map<String, Double> monthlyTrend = new HashMap<>();
-        String sql = "SELECT TO_CHAR(attendance_date, 'Month') AS month, " +
-                     "COUNT(*) AS total, " +
-                     "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance " +
-                     "WHERE academic_year = ? " +
-                     "GROUP BY TO_CHAR(attendance_date, 'Month') " +
-                     "ORDER BY MIN(attendance_date)";
+    public int deleteBySubject(Connection conn, String subjectCode) throws SQLException {
+        String sql = "DELETE FROM Attendance WHERE subject_code = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, academicYear);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String month = rs.getString("month").trim();
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        monthlyTrend.put(month, (double) present / effectiveTotal * 100);
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        monthlyTrend.put(month, 100.0);
-                    } else {
-                        monthlyTrend.put(month, 0.0);
-                    }
-                }
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, subjectCode);
+            int deleted = stmt.executeUpdate();
+            rollupDao.removeSubject(conn, subjectCode);
+            if (deleted > 0) {
+                rollupDao.markChanged(conn);
             }
+            return deleted;
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting monthly attendance trend for academic year: " + academicYear, e);
+            LOGGER.log(Level.SEVERE, "Error deleting attendance for subject: " + subjectCode, e);
             throw e;
         }
+    }
+    
+    /**
+     * Once AttendancePartitionMigration has run, the unique key also contains academic_year
+     * (a partitioned table's unique keys must include the partition key)
+     */
+    private static boolean isAttendancePartitioned(Connection conn) throws SQLException {
+        Boolean partitioned = attendancePartitioned;
+        if (partitioned == null) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT relkind FROM pg_class WHERE oid = to_regclass('attendance')")) {
+                partitioned = rs.next() && "p".equals(rs.getString(1));
+            }
+            attendancePartitioned = partitioned;
+        }
+        return partitioned;
+    }
+    
+    @Override
+    public Map<String, Double> getMonthlyAttendanceTrend(String academicYear) throws SQLException {
+        String sql = "SELECT r.attendance_month AS trend_key, " + ROLLUP_SUMS +
+                     "FROM AttendanceRollup r " +
+                     "WHERE r.academic_year = ? " +
+                     "GROUP BY r.attendance_month";
         
-        return monthlyTrend;
+        try {
+            return queryRollupTrend(sql, true, academicYear);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error getting monthly attendance trend for academic year: " + academicYear, e);
+            throw e;
+        }
     }
     
     @Override
     public Map<String, Double> getSemesterAttendanceTrend(String academicYear) throws SQLException {
-        Map<String, Double> semesterTrend = new HashMap<>();
-        String sql = "SELECT semester, " +
-                     "COUNT(*) AS total, " +
-                     "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance " +
-                     "WHERE academic_year = ? " +
-                     "GROUP BY semester";
+        String sql = "SELECT r.semester AS trend_key, " + ROLLUP_SUMS +
+                     "FROM AttendanceRollup r " +
+                     "WHERE r.academic_year = ? " +
+                     "GROUP BY r.semester";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, academicYear);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String semester = rs.getString("semester");
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        semesterTrend.put(semester, (double) present / effectiveTotal * 100);
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        semesterTrend.put(semester, 100.0);
-                    } else {
-                        semesterTrend.put(semester, 0.0);
-                    }
-                }
-            }
+        try {
+            return queryRollupTrend(sql, false, academicYear);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error getting semester attendance trend for academic year: " + academicYear, e);
             throw e;
         }
-        
-        return semesterTrend;
     }
     
     @Override
     public double calculateInstitutionAttendancePercentage(String academicYear, String semester, String month) throws SQLException {
-        StringBuilder sqlBuilder = new StringBuilder(
-            "SELECT COUNT(*) AS total, " +
-            "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-            "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-            "FROM Attendance " +
-            "WHERE academic_year = ? AND semester = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(academicYear);
+        params.add(semester);
         
-        if (month != null && !month.isEmpty()) {
-            sqlBuilder.append(" AND EXTRACT(MONTH FROM attendance_date) = ?");
-        }
+        String sql = ROLLUP_TOTALS_SQL +
+                     "WHERE r.academic_year = ? AND r.semester = ?" + rollupMonthFilter(month, params);
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
-            
-            int paramIndex = 1;
-            stmt.setString(paramIndex++, academicYear);
-            stmt.setString(paramIndex++, semester);
-            
-            if (month != null && !month.isEmpty()) {
-                stmt.setInt(paramIndex, Integer.parseInt(month));
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, params.toArray());
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating institution attendance percentage", e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     @Override
     public double calculateDepartmentAttendancePercentage(int departmentId, String academicYear, String semester, String month) throws SQLException {
-        StringBuilder sqlBuilder = new StringBuilder(
-            "SELECT COUNT(*) AS total, " +
-            "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-            "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-            "FROM Attendance a " +
-            "JOIN Users u ON a.student_id = u.user_id " +
-            "WHERE u.department_id = ? AND a.academic_year = ? AND a.semester = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(departmentId);
+        params.add(academicYear);
+        params.add(semester);
         
-        if (month != null && !month.isEmpty()) {
-            sqlBuilder.append(" AND EXTRACT(MONTH FROM a.attendance_date) = ?");
-        }
+        String sql = ROLLUP_TOTALS_SQL + ROLLUP_ENROLLMENT_JOIN +
+                     "JOIN Classes c ON c.class_id = se.class_id " +
+                     "WHERE c.department_id = ? AND r.academic_year = ? AND r.semester = ?" +
+                     rollupMonthFilter(month, params);
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
-            
-            int paramIndex = 1;
-            stmt.setInt(paramIndex++, departmentId);
-            stmt.setString(paramIndex++, academicYear);
-            stmt.setString(paramIndex++, semester);
-            
-            if (month != null && !month.isEmpty()) {
-                stmt.setInt(paramIndex, Integer.parseInt(month));
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, params.toArray());
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating department attendance percentage for department ID: " + departmentId, e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     @Override
     public double calculateSubjectClassAttendancePercentage(int classId, String subjectCode, String academicYear, String semester) throws SQLException {
-        String sql = "SELECT COUNT(*) AS total, " +
-                    "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                    "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                    "FROM Attendance a " +
-                    "JOIN Users u ON a.student_id = u.user_id " +
-                    "WHERE u.class_id = ? AND a.subject_code = ? " +
-                    "AND a.academic_year = ? AND a.semester = ?";
+        String sql = ROLLUP_TOTALS_SQL + ROLLUP_ENROLLMENT_JOIN +
+                     "WHERE se.class_id = ? AND r.subject_code = ? " +
+                     "AND r.academic_year = ? AND r.semester = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, classId);
-            stmt.setString(2, subjectCode);
-            stmt.setString(3, academicYear);
-            stmt.setString(4, semester);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, classId, subjectCode, academicYear, semester);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating subject class attendance percentage for class ID: " + 
                        classId + ", subject: " + subjectCode, e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     @Override
     public double calculateClassAttendancePercentage(int classId, String academicYear, String semester, String month) throws SQLException {
-        StringBuilder sqlBuilder = new StringBuilder(
-            "SELECT COUNT(*) AS total, " +
-            "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-            "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-            "FROM Attendance a " +
-            "JOIN Users u ON a.student_id = u.user_id " +
-            "WHERE u.class_id = ? AND a.academic_year = ? AND a.semester = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(classId);
+        params.add(academicYear);
+        params.add(semester);
         
-        if (month != null && !month.isEmpty()) {
-            sqlBuilder.append(" AND EXTRACT(MONTH FROM a.attendance_date) = ?");
-        }
+        String sql = ROLLUP_TOTALS_SQL + ROLLUP_ENROLLMENT_JOIN +
+                     "WHERE se.class_id = ? AND r.academic_year = ? AND r.semester = ?" +
+                     rollupMonthFilter(month, params);
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString())) {
-            
-            int paramIndex = 1;
-            stmt.setInt(paramIndex++, classId);
-            stmt.setString(paramIndex++, academicYear);
-            stmt.setString(paramIndex++, semester);
-            
-            if (month != null && !month.isEmpty()) {
-                stmt.setInt(paramIndex, Integer.parseInt(month));
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, params.toArray());
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating class attendance percentage for class ID: " + 
                        classId + ", academic year: " + academicYear + ", semester: " + semester, e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     @Override
     public double calculateSubjectOverallAttendancePercentage(String subjectCode, String academicYear, String semester) throws SQLException {
-        String sql = "SELECT COUNT(*) AS total, " +
-                     "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance " +
-                     "WHERE subject_code = ? AND academic_year = ? AND semester = ?";
+        String sql = ROLLUP_TOTALS_SQL +
+                     "WHERE r.subject_code = ? AND r.academic_year = ? AND r.semester = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, subjectCode);
-            stmt.setString(2, academicYear);
-            stmt.setString(3, semester);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, subjectCode, academicYear, semester);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating subject overall attendance percentage for subject: " + 
                        subjectCode + ", academic year: " + academicYear + ", semester: " + semester, e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     @Override
     public double calculateSubjectAttendancePercentage(int studentId, String subjectCode, String academicYear, String semester) throws SQLException {
-        String sql = "SELECT COUNT(*) AS total, " +
-                     "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance " +
-                     "WHERE student_id = ? AND subject_code = ? AND academic_year = ? AND semester = ?";
+        String sql = ROLLUP_TOTALS_SQL +
+                     "WHERE r.student_id = ? AND r.subject_code = ? AND r.academic_year = ? AND r.semester = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, studentId);
-            stmt.setString(2, subjectCode);
-            stmt.setString(3, academicYear);
-            stmt.setString(4, semester);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        return (double) present / effectiveTotal * 100;
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        return 100.0;
-                    }
-                }
-            }
+        try {
+            return queryRollupPercentage(sql, studentId, subjectCode, academicYear, semester);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error calculating subject attendance percentage for student: " + 
                        studentId + ", subject: " + subjectCode + ", academic year: " + academicYear + ", semester: " + semester, e);
             throw e;
         }
-        
-        return 0.0;
     }
     
     /**
@@ -543,7 +501,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
             "SUM(CASE WHEN status = 'Absent' THEN 1 ELSE 0 END) AS absent_count, " +
             "SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END) AS leave_count " +
             "FROM Attendance " +
-            "WHERE marked_by = ? AND academic_year = ? AND semester = ?");
+            "WHERE marked_by_user_id = ? AND academic_year = ? AND semester = ?");
         
         if (month != null && !month.isEmpty()) {
             sqlBuilder.append(" AND EXTRACT(MONTH FROM attendance_date) = ?");
@@ -626,79 +584,154 @@ public class AttendanceDaoImpl implements AttendanceDao {
 
     @Override
     public Attendance save(Attendance attendance) throws SQLException {
-        String sql = "INSERT INTO Attendance (attendance_date, subject_code, student_id, semester, academic_year, status) " +
-                     "VALUES (?, ?, ?, ?, ?, ?) RETURNING attendance_id";
+        String sql = "INSERT INTO Attendance (attendance_date, subject_code, student_id, semester, academic_year, " +
+                     "status, marked_by_user_id) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING attendance_id";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            // Fix: Convert LocalDate to java.sql.Date
-            stmt.setDate(1, java.sql.Date.valueOf(attendance.getAttendanceDate()));
-            stmt.setString(2, attendance.getSubjectCode());
-            stmt.setInt(3, attendance.getStudentId());
-            // Fix: Convert int to String for semester
-            stmt.setString(4, String.valueOf(attendance.getSemester()));
-            stmt.setString(5, attendance.getAcademicYear());
-            stmt.setString(6, attendance.getStatus());
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    attendance.setAttendanceId(rs.getInt(1));
-                    return attendance;
+            Attendance saved = null;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                // Fix: Convert LocalDate to java.sql.Date
+                stmt.setDate(1, java.sql.Date.valueOf(attendance.getAttendanceDate()));
+                stmt.setString(2, attendance.getSubjectCode());
+                stmt.setInt(3, attendance.getStudentId());
+                // Fix: Convert int to String for semester
+                stmt.setString(4, String.valueOf(attendance.getSemester()));
+                stmt.setString(5, attendance.getAcademicYear());
+                stmt.setString(6, attendance.getStatus());
+                setMarkedBy(stmt, 7, attendance);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        attendance.setAttendanceId(rs.getInt(1));
+                        saved = attendance;
+                    }
                 }
             }
+            
+            if (saved != null) {
+                rollupDao.applyDelta(conn, attendance.getStudentId(), attendance.getSubjectCode(),
+                        attendance.getAcademicYear(), String.valueOf(attendance.getSemester()),
+                        java.sql.Date.valueOf(attendance.getAttendanceDate()), attendance.getStatus(), 1);
+                rollupDao.markChanged(conn);
+            }
+            conn.commit();
+            
+            return saved;
         } catch (SQLException e) {
+            rollbackQuietly(conn);
             LOGGER.log(Level.SEVERE, "Error saving attendance: " + attendance, e);
             throw e;
+        } finally {
+            closeQuietly(conn);
         }
-        
-        return null;
     }
 
     @Override
     public Attendance update(Attendance attendance) throws SQLException {
+        // The previous values are needed to move the record out of its old rollup bucket
+        String selectSql = "SELECT student_id, subject_code, academic_year, semester, attendance_date, status " +
+                           "FROM Attendance WHERE attendance_id = ? FOR UPDATE";
         String sql = "UPDATE Attendance SET attendance_date = ?, subject_code = ?, student_id = ?, " +
-                     "semester = ?, academic_year = ?, status = ? WHERE attendance_id = ?";
+                     "semester = ?, academic_year = ?, status = ?, marked_by_user_id = ?, marked_by = NULL, " +
+                     "updated_at = CURRENT_TIMESTAMP WHERE attendance_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = null;
+        String previousStatus;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement select = conn.prepareStatement(selectSql)) {
+                select.setInt(1, attendance.getAttendanceId());
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return null;
+                    }
+                    previousStatus = rs.getString("status");
+                    rollupDao.applyDelta(conn, rs.getInt("student_id"), rs.getString("subject_code"),
+                            rs.getString("academic_year"), rs.getString("semester"),
+                            rs.getDate("attendance_date"), rs.getString("status"), -1);
+                }
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                // Fix: Convert LocalDate to java.sql.Date
+                stmt.setDate(1, java.sql.Date.valueOf(attendance.getAttendanceDate()));
+                stmt.setString(2, attendance.getSubjectCode());
+                stmt.setInt(3, attendance.getStudentId());
+                // Fix: Convert int to String for semester
+                stmt.setString(4, String.valueOf(attendance.getSemester()));
+                stmt.setString(5, attendance.getAcademicYear());
+                stmt.setString(6, attendance.getStatus());
+                setMarkedBy(stmt, 7, attendance);
+                stmt.setInt(8, attendance.getAttendanceId());
+                stmt.executeUpdate();
+            }
             
-            // Fix: Convert LocalDate to java.sql.Date
-            stmt.setDate(1, java.sql.Date.valueOf(attendance.getAttendanceDate()));
-            stmt.setString(2, attendance.getSubjectCode());
-            stmt.setInt(3, attendance.getStudentId());
-            // Fix: Convert int to String for semester
-            stmt.setString(4, String.valueOf(attendance.getSemester()));
-            stmt.setString(5, attendance.getAcademicYear());
-            stmt.setString(6, attendance.getStatus());
-            stmt.setInt(7, attendance.getAttendanceId());
-            
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                return attendance;
+            rollupDao.applyDelta(conn, attendance.getStudentId(), attendance.getSubjectCode(),
+                    attendance.getAcademicYear(), String.valueOf(attendance.getSemester()),
+                    java.sql.Date.valueOf(attendance.getAttendanceDate()), attendance.getStatus(), 1);
+            if (notifyStudents && attendance.getStatus() != null && !attendance.getStatus().equals(previousStatus)) {
+                outboxDao.enqueue(conn, List.of(EmailNotificationService.attendanceUpdated(
+                        attendance.getStudentId(), attendance.getSubjectCode(),
+                        java.sql.Date.valueOf(attendance.getAttendanceDate()), previousStatus, attendance.getStatus())));
             }
+            rollupDao.markChanged(conn);
+            conn.commit();
+            
+            return attendance;
         } catch (SQLException e) {
+            rollbackQuietly(conn);
             LOGGER.log(Level.SEVERE, "Error updating attendance: " + attendance, e);
             throw e;
+        } finally {
+            closeQuietly(conn);
         }
-        
-        return null;
     }
 
     @Override
     public boolean delete(Integer id) throws SQLException {
-        String sql = "DELETE FROM Attendance WHERE attendance_id = ?";
+        String sql = "DELETE FROM Attendance WHERE attendance_id = ? " +
+                     "RETURNING student_id, subject_code, academic_year, semester, attendance_date, status";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
             
-            stmt.setInt(1, id);
+            boolean deleted = false;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        rollupDao.applyDelta(conn, rs.getInt("student_id"), rs.getString("subject_code"),
+                                rs.getString("academic_year"), rs.getString("semester"),
+                                rs.getDate("attendance_date"), rs.getString("status"), -1);
+                        deleted = true;
+                    }
+                }
+            }
+            if (deleted) {
+                rollupDao.markChanged(conn);
+            }
+            conn.commit();
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            return deleted;
         } catch (SQLException e) {
+            rollbackQuietly(conn);
             LOGGER.log(Level.SEVERE, "Error deleting attendance with ID: " + id, e);
             throw e;
+        } finally {
+            closeQuietly(conn);
         }
     }
 
@@ -775,6 +808,36 @@ public class AttendanceDaoImpl implements AttendanceDao {
         return attendanceList;
     }
 
+    @Override
+    public Page<Attendance> findAll(PageRequest pageRequest) throws SQLException {
+        try {
+            return attendancePages.fetch(null, pageRequest);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of attendance records", e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Page<Attendance> findBySubject(String subjectCode, PageRequest pageRequest) throws SQLException {
+        try {
+            return attendancePages.fetch("subject_code = ?", pageRequest, subjectCode);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of attendance records by subject: " + subjectCode, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Page<Attendance> findByDate(Date date, PageRequest pageRequest) throws SQLException {
+        try {
+            return attendancePages.fetch("attendance_date = ?", pageRequest, date);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of attendance records by date: " + date, e);
+            throw e;
+        }
+    }
+    
     @Override
     public List<Attendance> findBySubject(String subjectCode) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
@@ -840,10 +903,322 @@ public class AttendanceDaoImpl implements AttendanceDao {
             LOGGER.log(Level.SEVERE, "Error getting attendance summary for student: " + studentId, e);
             throw e;
         }
-        
+
         return summary;
     }
 
+    @Override
+    public List<AttendanceAggregate> aggregatePercentages(AttendanceAggregate.Scope scope, Object scopeId,
+                                                          AttendanceAggregate.GroupBy groupBy,
+                                                          Map<String, Object> filters) throws SQLException {
+        if (scope == null || groupBy == null) {
+            throw new IllegalArgumentException("Aggregation scope and groupBy are required");
+        }
+        if (scope != AttendanceAggregate.Scope.INSTITUTION && scopeId == null) {
+            throw new IllegalArgumentException("A scope ID is required for scope " + scope);
+        }
+
+        // The rollups are kept per month, so only date-range filters need the raw Attendance rows
+        boolean useRollup = filters == null
+                || (toSqlDate(filters.get("fromDate")) == null && toSqlDate(filters.get("toDate")) == null);
+        String monthExpr = useRollup ? "a.attendance_month" : "CAST(EXTRACT(MONTH FROM a.attendance_date) AS INTEGER)";
+
+        String groupExpr;
+        switch (groupBy) {
+            case STUDENT:    groupExpr = "a.student_id"; break;
+            case SUBJECT:    groupExpr = "a.subject_code"; break;
+            case CLASS:      groupExpr = "se.class_id"; break;
+            case DEPARTMENT: groupExpr = "c.department_id"; break;
+            case SEMESTER:   groupExpr = "a.semester"; break;
+            case MONTH:      groupExpr = monthExpr; break;
+            default: throw new IllegalArgumentException("Unsupported groupBy: " + groupBy);
+        }
+
+        // Class and department membership come from the student's enrollment for the same academic year
+        boolean needsDepartment = scope == AttendanceAggregate.Scope.DEPARTMENT
+                || groupBy == AttendanceAggregate.GroupBy.DEPARTMENT;
+        boolean needsEnrollment = needsDepartment || scope == AttendanceAggregate.Scope.CLASS
+                || groupBy == AttendanceAggregate.GroupBy.CLASS
+                || (filters != null && filters.get("classIds") instanceof Collection);
+
+        StringBuilder sql = new StringBuilder("SELECT " + groupExpr + " AS group_key, ");
+        if (useRollup) {
+            sql.append("SUM(a.total_count) AS total, " +
+                       "SUM(a.present_count) AS present, " +
+                       "SUM(a.absent_count) AS absent, " +
+                       "SUM(a.leave_count) AS on_leave " +
+                       "FROM AttendanceRollup a ");
+        } else {
+            sql.append("COUNT(*) AS total, " +
+                       "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present, " +
+                       "SUM(CASE WHEN a.status = 'Absent' THEN 1 ELSE 0 END) AS absent, " +
+                       "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
+                       "FROM Attendance a ");
+        }
+        if (needsEnrollment) {
+            sql.append("JOIN StudentEnrollments se ON se.student_id = a.student_id AND se.academic_year = a.academic_year ");
+        }
+        if (needsDepartment) {
+            sql.append("JOIN Classes c ON c.class_id = se.class_id ");
+        }
+        sql.append("WHERE 1=1 ");
+
+        List<Object> params = new ArrayList<>();
+
+        switch (scope) {
+            case DEPARTMENT:
+                sql.append("AND c.department_id = ? ");
+                params.add(toInt(scopeId));
+                break;
+            case CLASS:
+                sql.append("AND se.class_id = ? ");
+                params.add(toInt(scopeId));
+                break;
+            case SUBJECT:
+                sql.append("AND a.subject_code = ? ");
+                params.add(scopeId.toString());
+                break;
+            case STUDENT:
+                sql.append("AND a.student_id = ? ");
+                params.add(toInt(scopeId));
+                break;
+            default:
+                break;
+        }
+
+        appendAggregateFilters(sql, params, filters, monthExpr);
+        sql.append("GROUP BY ").append(groupExpr);
+
+        List<AttendanceAggregate> aggregates = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                Object param = params.get(i);
+                if (param instanceof String[]) {
+                    stmt.setArray(i + 1, conn.createArrayOf("varchar", (String[]) param));
+                } else if (param instanceof Integer[]) {
+                    stmt.setArray(i + 1, conn.createArrayOf("integer", (Integer[]) param));
+                } else {
+                    stmt.setObject(i + 1, param);
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    aggregates.add(new AttendanceAggregate(
+                            rs.getObject("group_key"),
+                            rs.getInt("total"),
+                            rs.getInt("present"),
+                            rs.getInt("absent"),
+                            rs.getInt("on_leave")));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error aggregating attendance for scope " + scope + " (" + scopeId +
+                       ") grouped by " + groupBy, e);
+            throw e;
+        }
+
+        return aggregates;
+    }
+
+    /**
+     * Append the optional aggregation filters to a query on Attendance a (or AttendanceRollup a)
+     */
+    private void appendAggregateFilters(StringBuilder sql, List<Object> params, Map<String, Object> filters,
+                                        String monthExpr) {
+        if (filters == null) {
+            return;
+        }
+
+        Object academicYear = filters.get("academicYear");
+        if (academicYear != null && !academicYear.toString().isEmpty()) {
+            sql.append("AND a.academic_year = ? ");
+            params.add(academicYear.toString());
+        }
+
+        Object semester = filters.get("semester");
+        if (semester != null && !semester.toString().isEmpty()) {
+            sql.append("AND a.semester = ? ");
+            params.add(semester.toString());
+        }
+
+        Object month = filters.get("month");
+        if (month != null && !month.toString().isEmpty()) {
+            sql.append("AND ").append(monthExpr).append(" = ? ");
+            params.add(toMonthNumber(month));
+        }
+
+        Object subjectCode = filters.get("subjectCode");
+        if (subjectCode != null && !subjectCode.toString().isEmpty()) {
+            sql.append("AND a.subject_code = ? ");
+            params.add(subjectCode.toString());
+        }
+
+        Object subjectCodes = filters.get("subjectCodes");
+        if (subjectCodes instanceof Collection) {
+            Collection<?> codes = (Collection<?>) subjectCodes;
+            String[] codeArray = new String[codes.size()];
+            int i = 0;
+            for (Object code : codes) {
+                codeArray[i++] = String.valueOf(code);
+            }
+            sql.append("AND a.subject_code = ANY(?) ");
+            params.add(codeArray);
+        }
+
+        Object classIds = filters.get("classIds");
+        if (classIds instanceof Collection) {
+            Collection<?> ids = (Collection<?>) classIds;
+            Integer[] idArray = new Integer[ids.size()];
+            int i = 0;
+            for (Object id : ids) {
+                idArray[i++] = toInt(id);
+            }
+            sql.append("AND se.class_id = ANY(?) ");
+            params.add(idArray);
+        }
+
+        Date fromDate = toSqlDate(filters.get("fromDate"));
+        if (fromDate != null) {
+            sql.append("AND a.attendance_date >= ? ");
+            params.add(fromDate);
+        }
+
+        Date toDate = toSqlDate(filters.get("toDate"));
+        if (toDate != null) {
+            sql.append("AND a.attendance_date <= ? ");
+            params.add(toDate);
+        }
+    }
+
+    /**
+     * Run a rollup totals query and turn the sums into a percentage
+     */
+    private double queryRollupPercentage(String sql, Object... params) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return AttendanceAggregate.calculatePercentage(
+                            rs.getLong("total"), rs.getLong("present"), rs.getLong("on_leave"));
+                }
+            }
+        }
+        
+        return 0.0;
+    }
+    
+    /**
+     * Run a grouped rollup query and return the percentage for each trend_key;
+     * month numbers are reported by name ("January", ...) as the trend views expect
+     */
+    private Map<String, Double> queryRollupTrend(String sql, boolean monthKeys, Object... params) throws SQLException {
+        Map<String, Double> trend = new HashMap<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String key = monthKeys
+                            ? Month.of(rs.getInt("trend_key")).getDisplayName(TextStyle.FULL, Locale.ENGLISH)
+                            : rs.getString("trend_key");
+                    trend.put(key, AttendanceAggregate.calculatePercentage(
+                            rs.getLong("total"), rs.getLong("present"), rs.getLong("on_leave")));
+                }
+            }
+        }
+        
+        return trend;
+    }
+    
+    /**
+     * Append an optional month condition on the rollup table
+     */
+    private String rollupMonthFilter(String month, List<Object> params) {
+        if (month == null || month.isEmpty()) {
+            return "";
+        }
+        params.add(toMonthNumber(month));
+        return " AND r.attendance_month = ?";
+    }
+    
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+    
+    private void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing connection", e);
+            }
+        }
+    }
+
+    private static int toInt(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return Integer.parseInt(value.toString().trim());
+    }
+
+    /**
+     * Accept a month as a number (1-12) or a name such as "OCTOBER"
+     */
+    private static int toMonthNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        String text = value.toString().trim();
+        if (!text.isEmpty() && Character.isDigit(text.charAt(0))) {
+            return Integer.parseInt(text);
+        }
+        return java.time.Month.valueOf(text.toUpperCase()).getValue();
+    }
+
+    private static Date toSqlDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof LocalDate) {
+            return Date.valueOf((LocalDate) value);
+        }
+        String text = value.toString().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        try {
+            return Date.valueOf(LocalDate.parse(text));
+        } catch (Exception e) {
+            LOGGER.warning("Ignoring invalid date filter: " + text);
+            return null;
+        }
+    }
+
     @Override
     public List<Attendance> findByDate(Date date) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
@@ -868,6 +1243,17 @@ public class AttendanceDaoImpl implements AttendanceDao {
     }
 
     // Helper method to map ResultSet to Attendance object
+    /**
+     * Bind the marking user of a single record (Attendance.getMarkedById, 0 when unknown)
+     */
+    private static void setMarkedBy(PreparedStatement stmt, int index, Attendance attendance) throws SQLException {
+        if (attendance.getMarkedById() > 0) {
+            stmt.setInt(index, attendance.getMarkedById());
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+    
     private Attendance mapResultSetToAttendance(ResultSet rs) throws SQLException {
         Attendance attendance = new Attendance();
         attendance.setAttendanceId(rs.getInt("attendance_id"));
@@ -878,103 +1264,40 @@ public class AttendanceDaoImpl implements AttendanceDao {
         attendance.setAcademicYear(rs.getString("academic_year"));
         attendance.setAttendanceDate(rs.getDate("attendance_date"));
         attendance.setStatus(rs.getString("status"));
+        attendance.setMarkedById(rs.getInt("marked_by_user_id"));
         return attendance;
     }
     
     @Override
     public Map<String, Double> getMonthlyDepartmentAttendanceTrend(int departmentId, String academicYear) throws SQLException {
-        Map<String, Double> monthlyTrend = new HashMap<>();
-        String sql = "SELECT TO_CHAR(a.attendance_date, 'Month') AS month, " +
-                     "COUNT(*) AS total, " +
-                     "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance a " +
-                     "JOIN Student s ON a.student_id = s.student_id " +
-                     "JOIN Class c ON s.class_id = c.class_id " +
-                     "WHERE c.department_id = ? AND a.academic_year = ? " +
-                     "GROUP BY TO_CHAR(a.attendance_date, 'Month') " +
-                     "ORDER BY MIN(a.attendance_date)";
+        String sql = "SELECT r.attendance_month AS trend_key, " + ROLLUP_SUMS +
+                     "FROM AttendanceRollup r " + ROLLUP_ENROLLMENT_JOIN +
+                     "JOIN Classes c ON c.class_id = se.class_id " +
+                     "WHERE c.department_id = ? AND r.academic_year = ? " +
+                     "GROUP BY r.attendance_month";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, departmentId);
-            stmt.setString(2, academicYear);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String month = rs.getString("month").trim();
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        monthlyTrend.put(month, (double) present / effectiveTotal * 100);
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        monthlyTrend.put(month, 100.0);
-                    } else {
-                        monthlyTrend.put(month, 0.0);
-                    }
-                }
-            }
+        try {
+            return queryRollupTrend(sql, true, departmentId, academicYear);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error getting monthly department attendance trend: " + academicYear, e);
             throw e;
         }
-        
-        return monthlyTrend;
     }
     
     @Override
     public Map<String, Double> getSemesterDepartmentAttendanceTrend(int departmentId, String academicYear) throws SQLException {
-        Map<String, Double> semesterTrend = new HashMap<>();
-        String sql = "SELECT a.semester, " +
-                     "COUNT(*) AS total, " +
-                     "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present, " +
-                     "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS on_leave " +
-                     "FROM Attendance a " +
-                     "JOIN Student s ON a.student_id = s.student_id " +
-                     "JOIN Class c ON s.class_id = c.class_id " +
-                     "WHERE c.department_id = ? AND a.academic_year = ? " +
-                     "GROUP BY a.semester " +
-                     "ORDER BY a.semester";
+        String sql = "SELECT r.semester AS trend_key, " + ROLLUP_SUMS +
+                     "FROM AttendanceRollup r " + ROLLUP_ENROLLMENT_JOIN +
+                     "JOIN Classes c ON c.class_id = se.class_id " +
+                     "WHERE c.department_id = ? AND r.academic_year = ? " +
+                     "GROUP BY r.semester";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, departmentId);
-            stmt.setString(2, academicYear);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String semester = rs.getString("semester");
-                    int total = rs.getInt("total");
-                    int present = rs.getInt("present");
-                    int onLeave = rs.getInt("on_leave");
-                    
-                    // Don't count "On Leave" days in the total when calculating attendance percentage
-                    int effectiveTotal = total - onLeave;
-                    
-                    if (effectiveTotal > 0) {
-                        semesterTrend.put(semester, (double) present / effectiveTotal * 100);
-                    } else if (total > 0 && effectiveTotal == 0) {
-                        // If all days are marked as "On Leave"
-                        semesterTrend.put(semester, 100.0);
-                    } else {
-                        semesterTrend.put(semester, 0.0);
-                    }
-                }
-            }
+        try {
+            return queryRollupTrend(sql, false, departmentId, academicYear);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error getting semester department attendance trend: " + academicYear, e);
             throw e;
         }
-        
-        return semesterTrend;
     }
     
     /**
@@ -988,7 +1311,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
     public List<Attendance> findByClassAndDate(int classId, Date date) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
         String sql = "SELECT a.* FROM Attendance a " +
-                    "JOIN StudentEnrollment se ON a.student_id = se.student_id " +
+                    "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
                     "WHERE se.class_id = ? AND a.attendance_date = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -1010,6 +1333,41 @@ public class AttendanceDaoImpl implements AttendanceDao {
         return attendanceList;
     }
     
+    @Override
+    public List<Attendance> findEffectiveByClassAndDateRange(int classId, Date fromDate, Date toDate) throws SQLException {
+        List<Attendance> attendanceList = new ArrayList<>();
+        String sql = "SELECT a.*, CASE WHEN a.status = 'Absent' AND EXISTS (" +
+                    "SELECT 1 FROM LeaveApplications l WHERE l.student_id = a.student_id " +
+                    "AND l.status = 'APPROVED' AND a.attendance_date BETWEEN l.from_date AND l.to_date" +
+                    ") THEN 'On Leave' ELSE a.status END AS effective_status " +
+                    "FROM Attendance a " +
+                    "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
+                    "WHERE se.class_id = ? AND a.attendance_date BETWEEN ? AND ? " +
+                    "ORDER BY a.attendance_date, a.student_id";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, classId);
+            stmt.setDate(2, fromDate);
+            stmt.setDate(3, toDate);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Attendance attendance = mapResultSetToAttendance(rs);
+                    attendance.setStatus(rs.getString("effective_status"));
+                    attendanceList.add(attendance);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding effective attendance by class: " + classId +
+                       ", " + fromDate + " to " + toDate, e);
+            throw e;
+        }
+        
+        return attendanceList;
+    }
+    
     /**
      * Find attendance records by class, subject, and date
      * @param classId The class ID
@@ -1022,7 +1380,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
     public List<Attendance> findByClassAndSubjectAndDate(int classId, String subjectCode, Date date) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
         String sql = "SELECT a.* FROM Attendance a " +
-                    "JOIN StudentEnrollment se ON a.student_id = se.student_id " +
+                    "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
                     "WHERE se.class_id = ? AND a.subject_code = ? AND a.attendance_date = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -1092,7 +1450,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
                                                            String semester, String academicYear) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
         String sql = "SELECT a.* FROM Attendance a " +
-                    "JOIN StudentEnrollment se ON a.student_id = se.student_id " +
+                    "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
                     "JOIN Class c ON se.class_id = c.class_id " +
                     "WHERE a.student_id = ? AND a.subject_code = ? " +
                     "AND c.semester = ? AND se.academic_year = ?";
@@ -1167,7 +1525,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
         List<Attendance> attendanceList = new ArrayList<>();
         StringBuilder sqlBuilder = new StringBuilder();
         sqlBuilder.append("SELECT a.* FROM Attendance a ")
-                 .append("JOIN StudentEnrollment se ON a.student_id = se.student_id ")
+                 .append("JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year ")
                  .append("JOIN Class c ON se.class_id = c.class_id ")
                  .append("WHERE a.student_id = ? AND a.subject_code = ?");
         
@@ -1225,7 +1583,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
     public List<Attendance> findByStudentSubjectAndSemester(int studentId, String subjectCode, String semester) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
         String sql = "SELECT a.* FROM Attendance a " +
-                    "JOIN StudentEnrollment se ON a.student_id = se.student_id " +
+                    "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
                     "JOIN Class c ON se.class_id = c.class_id " +
                     "WHERE a.student_id = ? AND a.subject_code = ? AND c.semester = ?";
         
@@ -1262,7 +1620,7 @@ public class AttendanceDaoImpl implements AttendanceDao {
     public List<Attendance> findBySubjectDateAndSemester(String subjectCode, Date date, String semester) throws SQLException {
         List<Attendance> attendanceList = new ArrayList<>();
         String sql = "SELECT a.* FROM Attendance a " +
-                    "JOIN StudentEnrollment se ON a.student_id = se.student_id " +
+                    "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
                     "JOIN Class c ON se.class_id = c.class_id " +
                     "WHERE a.subject_code = ? AND a.attendance_date = ? AND c.semester = ?";
         
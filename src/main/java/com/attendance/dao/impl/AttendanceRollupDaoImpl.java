@@ -0,0 +1,310 @@
+package com.attendance.dao.impl;
+
+import com.attendance.dao.AttendanceRollupDao;
+import com.attendance.utils.DatabaseConnection;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of AttendanceRollupDao interface for database operations
+ */
+public class AttendanceRollupDaoImpl implements AttendanceRollupDao {
+    private static final Logger LOGGER = Logger.getLogger(AttendanceRollupDaoImpl.class.getName());
+
+    private static final String INSERT_COLUMNS =
+            "INSERT INTO AttendanceRollup (student_id, subject_code, academic_year, semester, attendance_month, " +
+            "present_count, absent_count, leave_count, total_count) ";
+
+    private static final String ADD_ON_CONFLICT =
+            "ON CONFLICT (student_id, subject_code, academic_year, semester, attendance_month) DO UPDATE SET " +
+            "present_count = AttendanceRollup.present_count + EXCLUDED.present_count, " +
+            "absent_count = AttendanceRollup.absent_count + EXCLUDED.absent_count, " +
+            "leave_count = AttendanceRollup.leave_count + EXCLUDED.leave_count, " +
+            "total_count = AttendanceRollup.total_count + EXCLUDED.total_count, " +
+            "updated_at = CURRENT_TIMESTAMP";
+
+    private static final String UPSERT_DELTA_SQL =
+            INSERT_COLUMNS + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " + ADD_ON_CONFLICT;
+
+    // Counts per bucket, over Attendance a restricted by the %s join (empty for every bucket)
+    private static final String AGGREGATE_ATTENDANCE_TEMPLATE =
+            "SELECT a.student_id, a.subject_code, a.academic_year, a.semester, " +
+            "CAST(EXTRACT(MONTH FROM a.attendance_date) AS INTEGER) AS attendance_month, " +
+            "SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present_count, " +
+            "SUM(CASE WHEN a.status = 'Absent' THEN 1 ELSE 0 END) AS absent_count, " +
+            "SUM(CASE WHEN a.status = 'On Leave' THEN 1 ELSE 0 END) AS leave_count, " +
+            "COUNT(*) AS total_count " +
+            "FROM Attendance a %s" +
+            "WHERE a.academic_year IS NOT NULL AND a.semester IS NOT NULL " +
+            "GROUP BY a.student_id, a.subject_code, a.academic_year, a.semester, " +
+            "CAST(EXTRACT(MONTH FROM a.attendance_date) AS INTEGER)";
+
+    private static final String BUCKET_JOIN =
+            "JOIN attendance_rollup_buckets b ON b.student_id = a.student_id AND b.subject_code = a.subject_code " +
+            "AND b.academic_year = a.academic_year AND b.semester = a.semester " +
+            "AND b.attendance_month = EXTRACT(MONTH FROM a.attendance_date) ";
+
+    // The difference between the counts in Attendance and the rollup rows, per bucket. Both
+    // sides are read by one statement, i.e. from one snapshot, in which every committed
+    // writer has changed Attendance and its rollup delta together.
+    private static final String CREATE_DRIFT_TEMPLATE =
+            "CREATE TEMP TABLE attendance_rollup_drift ON COMMIT DROP AS " +
+            "SELECT student_id, subject_code, academic_year, semester, attendance_month, " +
+            "COALESCE(a.present_count, 0) - COALESCE(r.present_count, 0) AS present_count, " +
+            "COALESCE(a.absent_count, 0) - COALESCE(r.absent_count, 0) AS absent_count, " +
+            "COALESCE(a.leave_count, 0) - COALESCE(r.leave_count, 0) AS leave_count, " +
+            "COALESCE(a.total_count, 0) - COALESCE(r.total_count, 0) AS total_count " +
+            "FROM (" + AGGREGATE_ATTENDANCE_TEMPLATE + ") a " +
+            "FULL JOIN (SELECT r.* FROM AttendanceRollup r %s) r " +
+            "USING (student_id, subject_code, academic_year, semester, attendance_month) " +
+            "WHERE (a.present_count, a.absent_count, a.leave_count, a.total_count) IS DISTINCT FROM " +
+            "(r.present_count, r.absent_count, r.leave_count, r.total_count)";
+
+    // The drift is added like any other delta, so the deltas committed since the snapshot
+    // are kept and no writer has to wait for the (long) aggregation above
+    private static final String APPLY_DRIFT_SQL =
+            INSERT_COLUMNS + "SELECT student_id, subject_code, academic_year, semester, attendance_month, " +
+            "present_count, absent_count, leave_count, total_count FROM attendance_rollup_drift " +
+            ADD_ON_CONFLICT;
+
+    private static final String DELETE_EMPTY_SQL =
+            "DELETE FROM AttendanceRollup r USING attendance_rollup_drift d " +
+            "WHERE r.student_id = d.student_id AND r.subject_code = d.subject_code " +
+            "AND r.academic_year = d.academic_year AND r.semester = d.semester " +
+            "AND r.attendance_month = d.attendance_month " +
+            "AND r.total_count = 0 AND r.present_count = 0 AND r.absent_count = 0 AND r.leave_count = 0";
+
+    // Arbitrary application-wide key for pg_advisory_xact_lock: a drift applied twice (by two
+    // instances reconciling at once) would be counted twice. Delta upserts never take it.
+    private static final long CORRECTION_LOCK_KEY = 7_246_381_002L;
+
+    @Override
+    public void applyDelta(Connection conn, int studentId, String subjectCode, String academicYear,
+                           String semester, Date attendanceDate, String status, int delta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT_DELTA_SQL)) {
+            setDeltaParameters(stmt, studentId, subjectCode, academicYear, semester, attendanceDate, status, delta);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating attendance rollup for student: " + studentId +
+                       ", subject: " + subjectCode, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void applyMarked(Connection conn, String subjectCode, Date attendanceDate, String semester,
+                            String academicYear, Map<Integer, String> studentStatuses) throws SQLException {
+        applyChanged(conn, subjectCode, attendanceDate, semester, academicYear,
+                     Collections.emptyMap(), studentStatuses);
+    }
+
+    @Override
+    public void applyChanged(Connection conn, String subjectCode, Date attendanceDate, String semester,
+                             String academicYear, Map<Integer, String> previousStatuses,
+                             Map<Integer, String> newStatuses) throws SQLException {
+        if (previousStatuses.isEmpty() && newStatuses.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT_DELTA_SQL)) {
+            for (Map.Entry<Integer, String> entry : previousStatuses.entrySet()) {
+                setDeltaParameters(stmt, entry.getKey(), subjectCode, academicYear, semester,
+                                   attendanceDate, entry.getValue(), -1);
+                stmt.addBatch();
+            }
+            for (Map.Entry<Integer, String> entry : newStatuses.entrySet()) {
+                setDeltaParameters(stmt, entry.getKey(), subjectCode, academicYear, semester,
+                                   attendanceDate, entry.getValue(), 1);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating attendance rollups for subject: " + subjectCode +
+                       ", date: " + attendanceDate, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int recomputeBuckets(Connection conn, String changedRecordsQuery) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS pg_temp.attendance_rollup_buckets");
+            stmt.execute("CREATE TEMP TABLE attendance_rollup_buckets ON COMMIT DROP AS " +
+                         "SELECT DISTINCT student_id, subject_code, academic_year, semester, " +
+                         "CAST(EXTRACT(MONTH FROM attendance_date) AS INTEGER) AS attendance_month " +
+                         "FROM (" + changedRecordsQuery + ") changed");
+            return correctDrift(stmt, BUCKET_JOIN, "JOIN attendance_rollup_buckets b " +
+                                "USING (student_id, subject_code, academic_year, semester, attendance_month) ");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error recomputing attendance rollup buckets", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeSubject(Connection conn, String subjectCode) throws SQLException {
+        String sql = "DELETE FROM AttendanceRollup WHERE subject_code = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, subjectCode);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error removing attendance rollups for subject: " + subjectCode, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int rebuild() throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int written;
+            try (Statement stmt = conn.createStatement()) {
+                written = correctDrift(stmt, "", "");
+            }
+
+            markChanged(conn);
+            conn.commit();
+            LOGGER.info("Rebuilt attendance rollups: " + written + " rows");
+            return written;
+        } catch (SQLException e) {
+            rollback(conn);
+            LOGGER.log(Level.SEVERE, "Error rebuilding attendance rollups", e);
+            throw e;
+        } finally {
+            close(conn);
+        }
+    }
+
+    @Override
+    public int reconcile() throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int corrected;
+            try (Statement stmt = conn.createStatement()) {
+                corrected = correctDrift(stmt, "", "");
+            }
+
+            if (corrected > 0) {
+                markChanged(conn);
+            }
+            conn.commit();
+            if (corrected > 0) {
+                LOGGER.warning("Attendance rollup reconciliation corrected " + corrected + " rows");
+            }
+            return corrected;
+        } catch (SQLException e) {
+            rollback(conn);
+            LOGGER.log(Level.SEVERE, "Error reconciling attendance rollups", e);
+            throw e;
+        } finally {
+            close(conn);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() throws SQLException {
+        String sql = "SELECT NOT EXISTS (SELECT 1 FROM AttendanceRollup)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking attendance rollups", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getVersion() throws SQLException {
+        // last_value is 1 before the first nextval as well as after it
+        String sql = "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM attendance_rollup_version";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading attendance rollup version", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void markChanged(Connection conn) throws SQLException {
+        String sql = "SELECT nextval('attendance_rollup_version')";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error advancing attendance rollup version", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Bring the rollup rows of the selected buckets in line with Attendance, in the statement's
+     * transaction: the drift is aggregated into a temp table without locking AttendanceRollup,
+     * then added to the current rows, and rows left without records are removed
+     * @param attendanceJoin Join restricting Attendance a to the buckets, or "" for all
+     * @param rollupJoin Join restricting AttendanceRollup r to the same buckets, or ""
+     * @return Number of rollup rows that were inserted, corrected or removed
+     */
+    private int correctDrift(Statement stmt, String attendanceJoin, String rollupJoin) throws SQLException {
+        stmt.execute("SELECT pg_advisory_xact_lock(" + CORRECTION_LOCK_KEY + ")");
+        stmt.execute("DROP TABLE IF EXISTS pg_temp.attendance_rollup_drift");
+        int drifted = stmt.executeUpdate(String.format(CREATE_DRIFT_TEMPLATE, attendanceJoin, rollupJoin));
+        if (drifted > 0) {
+            stmt.executeUpdate(APPLY_DRIFT_SQL);
+            stmt.executeUpdate(DELETE_EMPTY_SQL);
+        }
+        return drifted;
+    }
+
+    private void setDeltaParameters(PreparedStatement stmt, int studentId, String subjectCode, String academicYear,
+                                    String semester, Date attendanceDate, String status, int delta) throws SQLException {
+        stmt.setInt(1, studentId);
+        stmt.setString(2, subjectCode);
+        stmt.setString(3, academicYear);
+        stmt.setString(4, semester);
+        stmt.setInt(5, attendanceDate.toLocalDate().getMonthValue());
+        stmt.setInt(6, "Present".equals(status) ? delta : 0);
+        stmt.setInt(7, "Absent".equals(status) ? delta : 0);
+        stmt.setInt(8, "On Leave".equals(status) ? delta : 0);
+        stmt.setInt(9, delta);
+    }
+
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+
+    private void close(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing connection", e);
+            }
+        }
+    }
+}
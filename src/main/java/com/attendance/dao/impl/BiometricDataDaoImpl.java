@@ -0,0 +1,118 @@
+package com.attendance.dao.impl;
+
+import com.attendance.dao.BiometricDataDao;
+import com.attendance.utils.DatabaseConnection;
+
+import java.sql.*;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of BiometricDataDao interface for database operations
+ */
+public class BiometricDataDaoImpl implements BiometricDataDao {
+    private static final Logger LOGGER = Logger.getLogger(BiometricDataDaoImpl.class.getName());
+
+    private static final String UPSERT_EMBEDDING_SQL =
+            "INSERT INTO BiometricData (student_id, face_registered, last_registration_date, registration_status, " +
+            "face_embedding, embedding_version) " +
+            "VALUES (?, TRUE, CURRENT_TIMESTAMP, 'Registered', ?, ?) " +
+            "ON CONFLICT (student_id) DO UPDATE SET " +
+            "face_registered = TRUE, " +
+            "last_registration_date = CURRENT_TIMESTAMP, " +
+            "registration_status = 'Registered', " +
+            "face_embedding = EXCLUDED.face_embedding, " +
+            "embedding_version = EXCLUDED.embedding_version, " +
+            "updated_at = CURRENT_TIMESTAMP";
+
+    // Rows per round trip while streaming embeddings (about 1 KB each)
+    private static final int FETCH_SIZE = 1000;
+
+    @Override
+    public void saveFaceEmbedding(int studentId, byte[] embedding, int version) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPSERT_EMBEDDING_SQL)) {
+            stmt.setInt(1, studentId);
+            stmt.setBytes(2, embedding);
+            stmt.setShort(3, (short) version);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving face embedding for student: " + studentId, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isFaceRegistered(int studentId) throws SQLException {
+        String sql = "SELECT EXISTS (SELECT 1 FROM BiometricData " +
+                     "WHERE student_id = ? AND face_registered AND face_embedding IS NOT NULL)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, studentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking face registration for student: " + studentId, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int forEachFaceEmbedding(int version, ObjIntConsumer<byte[]> consumer) throws SQLException {
+        String sql = "SELECT student_id, face_embedding FROM BiometricData " +
+                     "WHERE face_registered AND embedding_version = ? AND face_embedding IS NOT NULL";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int count = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setShort(1, (short) version);
+                // Stream the rows (the driver only uses a cursor inside a transaction)
+                stmt.setFetchSize(FETCH_SIZE);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getBytes("face_embedding"), rs.getInt("student_id"));
+                        count++;
+                    }
+                }
+            }
+            conn.commit();
+
+            return count;
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            LOGGER.log(Level.SEVERE, "Error loading face embeddings of version: " + version, e);
+            throw e;
+        } finally {
+            closeQuietly(conn);
+        }
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+
+    private void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing connection", e);
+            }
+        }
+    }
+}
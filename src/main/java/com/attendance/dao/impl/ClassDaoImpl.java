@@ -6,6 +6,7 @@ import com.attendance.dao.impl.DepartmentDaoImpl;
 import com.attendance.models.Class;
 import com.attendance.models.Department;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EntityCache;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -19,6 +20,10 @@ import java.util.logging.Logger;
 public class ClassDaoImpl implements ClassDao {
     private static final Logger LOGGER = Logger.getLogger(ClassDaoImpl.class.getName());
     
+    // Classes by ID (with their Department), shared by every instance; invalidated by
+    // update and delete, and cleared when a department changes
+    static final EntityCache<Integer, Class> CLASS_CACHE = EntityCache.create("classes", Class.class, Class::new);
+    
     // DepartmentDao for loading department details
     private DepartmentDao departmentDao;
     
@@ -40,6 +45,10 @@ public class ClassDaoImpl implements ClassDao {
 
     @Override
     public Class findById(Integer id) throws SQLException {
+        return CLASS_CACHE.get(id, this::loadById);
+    }
+    
+    private Class loadById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Classes WHERE class_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -139,6 +148,8 @@ public class ClassDaoImpl implements ClassDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating class: " + classObj, e);
             throw e;
+        } finally {
+            CLASS_CACHE.invalidate(classObj.getClassId());
         }
         
         return null;
@@ -158,6 +169,8 @@ public class ClassDaoImpl implements ClassDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting class with ID: " + id, e);
             throw e;
+        } finally {
+            CLASS_CACHE.invalidate(id);
         }
     }
 
@@ -2,7 +2,9 @@ package com.attendance.dao.impl;
 
 import com.attendance.dao.DepartmentDao;
 import com.attendance.models.Department;
+import com.attendance.utils.AuthorizationService;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EntityCache;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -15,9 +17,18 @@ import java.util.logging.Logger;
  */
 public class DepartmentDaoImpl implements DepartmentDao {
     private static final Logger LOGGER = Logger.getLogger(DepartmentDaoImpl.class.getName());
+    
+    // Departments by ID, shared by every instance; invalidated by update and delete, which
+    // also invalidate the access scopes of the old and new HOD
+    static final EntityCache<Integer, Department> DEPARTMENT_CACHE =
+            EntityCache.create("departments", Department.class, Department::new);
 
     @Override
     public Department findById(Integer id) throws SQLException {
+        return DEPARTMENT_CACHE.get(id, this::loadById);
+    }
+    
+    private Department loadById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Departments WHERE department_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -82,6 +93,9 @@ public class DepartmentDaoImpl implements DepartmentDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error saving department: " + department, e);
             throw e;
+        } finally {
+            // The HOD's scope includes the departments they head
+            invalidateHod(department.getHodId());
         }
         
         return null;
@@ -89,28 +103,39 @@ public class DepartmentDaoImpl implements DepartmentDao {
 
     @Override
     public Department update(Department department) throws SQLException {
-        String sql = "UPDATE Departments SET department_name = ?, hod_id = ? WHERE department_id = ?";
+        // Returns the HOD before the update (the row is locked first, so it is the one replaced)
+        String sql = "WITH previous AS (SELECT hod_id FROM Departments WHERE department_id = ? FOR UPDATE) " +
+                     "UPDATE Departments SET department_name = ?, hod_id = ? WHERE department_id = ? " +
+                     "RETURNING (SELECT hod_id FROM previous)";
+        int previousHodId = 0;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, department.getDepartmentName());
+            stmt.setInt(1, department.getDepartmentId());
+            stmt.setString(2, department.getDepartmentName());
             
             if (department.getHodId() > 0) {
-                stmt.setInt(2, department.getHodId());
+                stmt.setInt(3, department.getHodId());
             } else {
-                stmt.setNull(2, Types.INTEGER);
+                stmt.setNull(3, Types.INTEGER);
             }
             
-            stmt.setInt(3, department.getDepartmentId());
+            stmt.setInt(4, department.getDepartmentId());
             
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                return department;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    previousHodId = rs.getInt(1);
+                    return department;
+                }
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating department: " + department, e);
             throw e;
+        } finally {
+            invalidate(department.getDepartmentId());
+            invalidateHod(previousHodId);
+            invalidateHod(department.getHodId());
         }
         
         return null;
@@ -118,18 +143,43 @@ public class DepartmentDaoImpl implements DepartmentDao {
 
     @Override
     public boolean delete(Integer id) throws SQLException {
-        String sql = "DELETE FROM Departments WHERE department_id = ?";
+        String sql = "DELETE FROM Departments WHERE department_id = ? RETURNING hod_id";
+        int previousHodId = 0;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    previousHodId = rs.getInt(1);
+                    return true;
+                }
+                return false;
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting department with ID: " + id, e);
             throw e;
+        } finally {
+            invalidate(id);
+            invalidateHod(previousHodId);
+        }
+    }
+    
+    private static void invalidate(int departmentId) {
+        DEPARTMENT_CACHE.invalidate(departmentId);
+        // Cached classes hold their Department
+        ClassDaoImpl.CLASS_CACHE.invalidateAll();
+    }
+    
+    /**
+     * Drop the cached access scope of a department's HOD (AuthorizationService reads the
+     * departments a HOD heads with findByHod)
+     */
+    private static void invalidateHod(int hodId) {
+        if (hodId > 0) {
+            AuthorizationService.invalidate(hodId);
         }
     }
 
@@ -2,6 +2,8 @@ package com.attendance.dao.impl;
 
 import com.attendance.dao.EnrollmentRequestDao;
 import com.attendance.dao.EnrollmentRequestDAO;
+import com.attendance.dao.Page;
+import com.attendance.dao.PageRequest;
 import com.attendance.models.EnrollmentRequest;
 import com.attendance.utils.DatabaseConnection;
 
@@ -17,6 +19,11 @@ import java.util.logging.Logger;
 public class EnrollmentRequestDaoImpl implements EnrollmentRequestDao, EnrollmentRequestDAO {
     private static final Logger LOGGER = Logger.getLogger(EnrollmentRequestDaoImpl.class.getName());
 
+    // Pages newest first
+    private final KeysetQuery<EnrollmentRequest> requestPages = new KeysetQuery<>("SELECT * FROM EnrollmentRequests",
+            new String[] {"request_id"}, new KeysetQuery.KeyType[] {KeysetQuery.KeyType.INT}, true,
+            this::mapResultSetToEnrollmentRequest);
+
     @Override
     public EnrollmentRequest findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM EnrollmentRequests WHERE request_id = ?";
@@ -59,6 +66,26 @@ public class EnrollmentRequestDaoImpl implements EnrollmentRequestDao, Enrollmen
         return requests;
     }
 
+    @Override
+    public Page<EnrollmentRequest> findAll(PageRequest pageRequest) throws SQLException {
+        try {
+            return requestPages.fetch(null, pageRequest);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of enrollment requests", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<EnrollmentRequest> findByStatus(String status, PageRequest pageRequest) throws SQLException {
+        try {
+            return requestPages.fetch("status = ?", pageRequest, status);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of enrollment requests by status: " + status, e);
+            throw e;
+        }
+    }
+
     @Override
     public EnrollmentRequest save(EnrollmentRequest request) throws SQLException {
         String sql = "INSERT INTO EnrollmentRequests (user_id, class_id, academic_year, department_id, request_date, " +
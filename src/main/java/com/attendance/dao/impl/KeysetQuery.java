@@ -0,0 +1,147 @@
+package com.attendance.dao.impl;
+
+import com.attendance.dao.Page;
+import com.attendance.dao.PageRequest;
+import com.attendance.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a keyset paginated query for the DAOs.
+ *
+ * The rows are ordered by the key columns (all ascending or all descending, the last
+ * one unique); a page after the first starts with a row-value comparison against the
+ * key of the previous page's last row, so an index on the key columns (after any
+ * equality filters) serves every page with a short range scan. One extra row is read
+ * to tell whether there is a next page.
+ *
+ * @param <T> Type of entity
+ */
+class KeysetQuery<T> {
+
+    /**
+     * Maps the current row of a result set to an entity
+     */
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Type of a key column, for binding cursor values
+     */
+    enum KeyType {
+        INT,
+        DATE
+    }
+
+    private final String select;
+    private final String[] keyColumns;
+    private final KeyType[] keyTypes;
+    private final boolean descending;
+    private final RowMapper<T> mapper;
+
+    /**
+     * @param select SELECT ... FROM ... without WHERE or ORDER BY
+     * @param keyColumns Sort key columns, as named in the result set
+     * @param keyTypes Type of each key column
+     * @param descending Newest (highest key) first
+     * @param mapper Row mapper
+     */
+    KeysetQuery(String select, String[] keyColumns, KeyType[] keyTypes, boolean descending, RowMapper<T> mapper) {
+        this.select = select;
+        this.keyColumns = keyColumns;
+        this.keyTypes = keyTypes;
+        this.descending = descending;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Fetch one page
+     * @param condition Filter condition with ? placeholders, or null
+     * @param pageRequest Page size and cursor
+     * @param params Values for the condition's placeholders
+     * @return The page
+     * @throws SQLException If a database error occurs
+     * @throws IllegalArgumentException If the cursor is not valid for this query
+     */
+    Page<T> fetch(String condition, PageRequest pageRequest, Object... params) throws SQLException {
+        String[] after = pageRequest.decodeCursor(keyColumns.length);
+        String keyList = String.join(", ", keyColumns);
+
+        StringBuilder sql = new StringBuilder(select).append(" WHERE 1=1");
+        if (condition != null) {
+            sql.append(" AND ").append(condition);
+        }
+        if (after != null) {
+            sql.append(" AND (").append(keyList).append(descending ? ") < (" : ") > (");
+            for (int i = 0; i < keyColumns.length; i++) {
+                sql.append(i > 0 ? ", ?" : "?");
+            }
+            sql.append(')');
+        }
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < keyColumns.length; i++) {
+            sql.append(i > 0 ? ", " : "").append(keyColumns[i]).append(descending ? " DESC" : "");
+        }
+        sql.append(" LIMIT ?");
+
+        int size = pageRequest.getSize();
+        List<T> items = new ArrayList<>(size);
+        String[] lastKey = new String[keyColumns.length];
+        boolean hasMore = false;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            for (Object param : params) {
+                stmt.setObject(index++, param);
+            }
+            if (after != null) {
+                for (int i = 0; i < keyColumns.length; i++) {
+                    setKey(stmt, index++, keyTypes[i], after[i]);
+                }
+            }
+            stmt.setInt(index, size + 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == size) {
+                        hasMore = true;
+                        break;
+                    }
+                    items.add(mapper.map(rs));
+                    for (int i = 0; i < keyColumns.length; i++) {
+                        lastKey[i] = rs.getString(keyColumns[i]);
+                    }
+                }
+            }
+        }
+
+        return new Page<>(items, size, hasMore ? PageRequest.encodeCursor((Object[]) lastKey) : null);
+    }
+
+    private static void setKey(PreparedStatement stmt, int index, KeyType type, String value) throws SQLException {
+        try {
+            switch (type) {
+                case INT:
+                    stmt.setInt(index, Integer.parseInt(value));
+                    break;
+                case DATE:
+                    stmt.setDate(index, Date.valueOf(value));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown key type: " + type);
+            }
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.attendance.dao.impl;
 
+import com.attendance.dao.AttendanceRollupDao;
 import com.attendance.dao.LeaveApplicationDao;
 import com.attendance.models.LeaveApplication;
+import com.attendance.models.LeaveIntervalIndex;
 import com.attendance.utils.DatabaseConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,6 +19,35 @@ import java.util.logging.Logger;
 public class LeaveApplicationDaoImpl implements LeaveApplicationDao {
     private static final Logger LOGGER = Logger.getLogger(LeaveApplicationDaoImpl.class.getName());
 
+    private final AttendanceRollupDao rollupDao = new AttendanceRollupDaoImpl();
+    
+    // Approved leave overlapping a range, clipped to it; %s restricts the students
+    private static final String APPROVED_LEAVES_SQL_TEMPLATE =
+            "SELECT l.student_id, GREATEST(l.from_date, ?) AS leave_from, LEAST(l.to_date, ?) AS leave_to " +
+            "FROM LeaveApplications l " +
+            "WHERE l.status = 'APPROVED' AND l.from_date <= ? AND l.to_date >= ? AND %s " +
+            "ORDER BY l.student_id, leave_from";
+    
+    // Re-labels a student's Absent records within an approved leave and moves their counts
+    // from absent to leave in the rollups, in one statement
+    private static final String RELABEL_ABSENT_AS_LEAVE_SQL =
+            "WITH relabeled AS (" +
+            "    UPDATE Attendance SET status = 'On Leave', updated_at = CURRENT_TIMESTAMP " +
+            "    WHERE student_id = ? AND attendance_date BETWEEN ? AND ? AND status = 'Absent' " +
+            "    RETURNING student_id, subject_code, academic_year, semester, attendance_date" +
+            "), rolled AS (" +
+            "    INSERT INTO AttendanceRollup (student_id, subject_code, academic_year, semester, " +
+            "    attendance_month, present_count, absent_count, leave_count, total_count, updated_at) " +
+            "    SELECT student_id, subject_code, academic_year, semester, " +
+            "    CAST(EXTRACT(MONTH FROM attendance_date) AS INTEGER), 0, -COUNT(*), COUNT(*), 0, CURRENT_TIMESTAMP " +
+            "    FROM relabeled GROUP BY 1, 2, 3, 4, 5 " +
+            "    ON CONFLICT (student_id, subject_code, academic_year, semester, attendance_month) DO UPDATE SET " +
+            "    absent_count = AttendanceRollup.absent_count + EXCLUDED.absent_count, " +
+            "    leave_count = AttendanceRollup.leave_count + EXCLUDED.leave_count, " +
+            "    updated_at = CURRENT_TIMESTAMP" +
+            ") " +
+            "SELECT COUNT(*) FROM relabeled";
+
     @Override
     public LeaveApplication findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM LeaveApplications WHERE application_id = ?";
@@ -282,24 +314,102 @@ public class LeaveApplicationDaoImpl implements LeaveApplicationDao {
         return applications;
     }
 
+    @Override
+    public LeaveIntervalIndex findApprovedLeavesByClass(int classId, Date fromDate, Date toDate) throws SQLException {
+        String sql = String.format(APPROVED_LEAVES_SQL_TEMPLATE,
+                "EXISTS (SELECT 1 FROM StudentEnrollments se WHERE se.student_id = l.student_id " +
+                "AND se.class_id = ? AND se.status = 'Active')");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setRangeParameters(stmt, fromDate, toDate);
+            stmt.setInt(5, classId);
+            return loadLeaveIndex(stmt);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading approved leave for class: " + classId, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public LeaveIntervalIndex findApprovedLeavesByStudents(Collection<Integer> studentIds, Date fromDate,
+                                                           Date toDate) throws SQLException {
+        if (studentIds.isEmpty()) {
+            return new LeaveIntervalIndex();
+        }
+        String sql = String.format(APPROVED_LEAVES_SQL_TEMPLATE, "l.student_id = ANY(?)");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setRangeParameters(stmt, fromDate, toDate);
+            stmt.setArray(5, conn.createArrayOf("integer", studentIds.toArray()));
+            return loadLeaveIndex(stmt);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading approved leave for " + studentIds.size() + " students", e);
+            throw e;
+        }
+    }
+
     @Override
     public boolean updateStatus(int applicationId, String status, int teacherId, String teacherComments) throws SQLException {
+        String selectSql = "SELECT student_id, from_date, to_date, status FROM LeaveApplications " +
+                           "WHERE application_id = ? FOR UPDATE";
         String sql = "UPDATE LeaveApplications SET status = ?, teacher_id = ?, review_date = CURRENT_DATE, " +
                      "teacher_comments = ? WHERE application_id = ?";
+        Connection conn = null;
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
             
-            stmt.setString(1, status);
-            stmt.setInt(2, teacherId);
-            stmt.setString(3, teacherComments);
-            stmt.setInt(4, applicationId);
+            int studentId;
+            Date fromDate;
+            Date toDate;
+            String previousStatus;
+            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                stmt.setInt(1, applicationId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return false;
+                    }
+                    studentId = rs.getInt("student_id");
+                    fromDate = rs.getDate("from_date");
+                    toDate = rs.getDate("to_date");
+                    previousStatus = rs.getString("status");
+                }
+            }
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, status);
+                stmt.setInt(2, teacherId);
+                stmt.setString(3, teacherComments);
+                stmt.setInt(4, applicationId);
+                stmt.executeUpdate();
+            }
+            
+            int relabeled = 0;
+            if ("APPROVED".equalsIgnoreCase(status) && !"APPROVED".equalsIgnoreCase(previousStatus)) {
+                relabeled = relabelAbsentAsLeave(conn, studentId, fromDate, toDate);
+                if (relabeled > 0) {
+                    LOGGER.info("Leave application " + applicationId + " approved: " + relabeled +
+                                " absent records of student " + studentId + " re-labelled as On Leave");
+                }
+            }
+            
+            if (relabeled > 0) {
+                rollupDao.markChanged(conn);
+            }
+            conn.commit();
+            return true;
         } catch (SQLException e) {
+            rollbackQuietly(conn);
             LOGGER.log(Level.SEVERE, "Error updating leave application status: " + applicationId, e);
             throw e;
+        } finally {
+            closeQuietly(conn);
         }
     }
 
@@ -327,6 +437,56 @@ public class LeaveApplicationDaoImpl implements LeaveApplicationDao {
         return false;
     }
     
+    private int relabelAbsentAsLeave(Connection conn, int studentId, Date fromDate, Date toDate) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(RELABEL_ABSENT_AS_LEAVE_SQL)) {
+            stmt.setInt(1, studentId);
+            stmt.setDate(2, fromDate);
+            stmt.setDate(3, toDate);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    private void setRangeParameters(PreparedStatement stmt, Date fromDate, Date toDate) throws SQLException {
+        stmt.setDate(1, fromDate);
+        stmt.setDate(2, toDate);
+        stmt.setDate(3, toDate);
+        stmt.setDate(4, fromDate);
+    }
+    
+    private LeaveIntervalIndex loadLeaveIndex(PreparedStatement stmt) throws SQLException {
+        LeaveIntervalIndex index = new LeaveIntervalIndex();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                index.add(rs.getInt("student_id"), rs.getDate("leave_from").toLocalDate(),
+                          rs.getDate("leave_to").toLocalDate());
+            }
+        }
+        return index;
+    }
+    
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+    
+    private void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing connection", e);
+            }
+        }
+    }
+    
     /**
      * Maps a database result set to a LeaveApplication object
      * @param rs The result set positioned at the current row
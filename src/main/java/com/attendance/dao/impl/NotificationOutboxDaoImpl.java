@@ -0,0 +1,322 @@
+package com.attendance.dao.impl;
+
+import com.attendance.dao.NotificationOutboxDao;
+import com.attendance.models.Attendance;
+import com.attendance.models.Notification;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EmailNotificationService;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of NotificationOutboxDao interface for database operations
+ */
+public class NotificationOutboxDaoImpl implements NotificationOutboxDao {
+    private static final Logger LOGGER = Logger.getLogger(NotificationOutboxDaoImpl.class.getName());
+
+    private static final String INSERT_SQL =
+            "INSERT INTO NotificationOutbox (recipient_id, notification_type, subject, message, next_attempt_at) " +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP + ? * INTERVAL '1 second')";
+
+    private static final String DUE = "status = 'Pending' AND next_attempt_at <= CURRENT_TIMESTAMP";
+
+    // Lock every due row of the oldest recipients, lease them by moving next_attempt_at,
+    // and return them with the recipient's address
+    private static final String CLAIM_SQL =
+            "WITH due AS (" +
+            "    SELECT notification_id FROM NotificationOutbox " +
+            "    WHERE " + DUE + " AND recipient_id IN (" +
+            "        SELECT recipient_id FROM NotificationOutbox WHERE " + DUE +
+            "        GROUP BY recipient_id ORDER BY MIN(next_attempt_at) LIMIT ?) " +
+            "    FOR UPDATE SKIP LOCKED" +
+            "), claimed AS (" +
+            "    UPDATE NotificationOutbox o SET attempts = o.attempts + 1, " +
+            "    next_attempt_at = CURRENT_TIMESTAMP + ? * INTERVAL '1 second' " +
+            "    FROM due WHERE o.notification_id = due.notification_id " +
+            "    RETURNING o.notification_id, o.recipient_id, o.notification_type, o.subject, o.message, " +
+            "    o.attempts, o.created_at" +
+            ") " +
+            "SELECT c.*, u.email, u.name FROM claimed c LEFT JOIN Users u ON u.user_id = c.recipient_id " +
+            "ORDER BY c.recipient_id, c.notification_id";
+
+    private static final String MARK_SENT_SQL =
+            "UPDATE NotificationOutbox SET status = 'Sent', sent_at = CURRENT_TIMESTAMP, last_error = NULL " +
+            "WHERE notification_id = ANY(?)";
+
+    private static final String MARK_FAILED_SQL =
+            "UPDATE NotificationOutbox SET " +
+            "status = CASE WHEN attempts >= ? THEN 'Failed' ELSE 'Pending' END, " +
+            "last_error = ?, " +
+            "next_attempt_at = CURRENT_TIMESTAMP + LEAST(?, ? * power(2, GREATEST(attempts - 1, 0))) * INTERVAL '1 second' " +
+            "WHERE notification_id = ANY(?)";
+
+    private static final String CLAIM_DIGEST_PERIOD_SQL =
+            "INSERT INTO NotificationDigestRun (period_start, period_end) VALUES (?, ?) " +
+            "ON CONFLICT (period_start, period_end) DO NOTHING";
+
+    // The period's records with, per (student, subject, term) touched in the period,
+    // the term percentage from the rollups ("On Leave" does not count, as in
+    // AttendanceAggregate.calculatePercentage)
+    private static final String DIGEST_SQL =
+            "WITH events AS (" +
+            "    SELECT student_id, subject_code, academic_year, semester, attendance_date, status " +
+            "    FROM Attendance WHERE attendance_date BETWEEN ? AND ?" +
+            "), term_percentages AS (" +
+            "    SELECT r.student_id, r.subject_code, r.academic_year, r.semester, " +
+            "    SUM(r.present_count) * 100.0 / NULLIF(SUM(r.total_count) - SUM(r.leave_count), 0) AS percentage " +
+            "    FROM AttendanceRollup r " +
+            "    JOIN (SELECT DISTINCT student_id, subject_code, academic_year, semester FROM events) e " +
+            "    USING (student_id, subject_code, academic_year, semester) " +
+            "    GROUP BY r.student_id, r.subject_code, r.academic_year, r.semester" +
+            ") " +
+            "SELECT e.student_id, e.subject_code, e.attendance_date, e.status, p.percentage " +
+            "FROM events e LEFT JOIN term_percentages p ON p.student_id = e.student_id " +
+            "AND p.subject_code = e.subject_code AND p.academic_year = e.academic_year AND p.semester = e.semester " +
+            "ORDER BY e.student_id, e.attendance_date, e.subject_code";
+
+    private static final String UPDATE_DIGEST_COUNT_SQL =
+            "UPDATE NotificationDigestRun SET digest_count = ? WHERE period_start = ? AND period_end = ?";
+
+    private static final int DIGEST_BATCH_SIZE = 500;
+
+    private final long coalesceSeconds;
+
+    public NotificationOutboxDaoImpl() {
+        this(AppSettings.getLong("NOTIFICATION_COALESCE_SECONDS", 60));
+    }
+
+    /**
+     * @param coalesceSeconds Delay before an enqueued notification becomes due
+     */
+    public NotificationOutboxDaoImpl(long coalesceSeconds) {
+        this.coalesceSeconds = Math.max(0, coalesceSeconds);
+    }
+
+    @Override
+    public int enqueue(Connection conn, List<Notification> notifications) throws SQLException {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Notification notification : notifications) {
+                stmt.setInt(1, notification.getRecipientId());
+                stmt.setString(2, notification.getNotificationType());
+                stmt.setString(3, notification.getSubject());
+                stmt.setString(4, notification.getMessage());
+                stmt.setLong(5, coalesceSeconds);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            return notifications.size();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error enqueuing " + notifications.size() + " notifications", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int enqueueAttendanceDigests(Date periodStart, Date periodEnd, double threshold) throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Concurrent runs for the same period wait here until the first one commits
+            try (PreparedStatement claim = conn.prepareStatement(CLAIM_DIGEST_PERIOD_SQL)) {
+                claim.setDate(1, periodStart);
+                claim.setDate(2, periodEnd);
+                if (claim.executeUpdate() == 0) {
+                    conn.rollback();
+                    return -1;
+                }
+            }
+
+            int digests = 0;
+            List<Notification> batch = new ArrayList<>(DIGEST_BATCH_SIZE);
+            try (PreparedStatement stmt = conn.prepareStatement(DIGEST_SQL)) {
+                stmt.setDate(1, periodStart);
+                stmt.setDate(2, periodEnd);
+                // Stream the rows (the driver only uses a cursor inside a transaction)
+                stmt.setFetchSize(1000);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int studentId = -1;
+                    List<Attendance> events = new ArrayList<>();
+                    Map<String, Double> lowAttendance = new LinkedHashMap<>();
+
+                    while (true) {
+                        boolean more = rs.next();
+                        if (!events.isEmpty() && (!more || rs.getInt("student_id") != studentId)) {
+                            batch.add(EmailNotificationService.attendanceDigest(studentId, periodStart, periodEnd,
+                                    events, lowAttendance, threshold));
+                            digests++;
+                            events = new ArrayList<>();
+                            lowAttendance = new LinkedHashMap<>();
+                            if (batch.size() == DIGEST_BATCH_SIZE) {
+                                enqueue(conn, batch);
+                                batch.clear();
+                            }
+                        }
+                        if (!more) {
+                            break;
+                        }
+
+                        studentId = rs.getInt("student_id");
+                        Attendance attendance = new Attendance();
+                        attendance.setStudentId(studentId);
+                        attendance.setSubjectCode(rs.getString("subject_code"));
+                        attendance.setAttendanceDate(rs.getDate("attendance_date"));
+                        attendance.setStatus(rs.getString("status"));
+                        events.add(attendance);
+
+                        double percentage = rs.getDouble("percentage");
+                        if (!rs.wasNull() && percentage < threshold) {
+                            lowAttendance.put(attendance.getSubjectCode(), percentage);
+                        }
+                    }
+                }
+            }
+            enqueue(conn, batch);
+
+            try (PreparedStatement update = conn.prepareStatement(UPDATE_DIGEST_COUNT_SQL)) {
+                update.setInt(1, digests);
+                update.setDate(2, periodStart);
+                update.setDate(3, periodEnd);
+                update.executeUpdate();
+            }
+            conn.commit();
+
+            return digests;
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            LOGGER.log(Level.SEVERE, "Error enqueuing attendance digests for " + periodStart + " to " + periodEnd, e);
+            throw e;
+        } finally {
+            closeQuietly(conn);
+        }
+    }
+
+    @Override
+    public List<Notification> claimDue(int maxRecipients, long leaseSeconds) throws SQLException {
+        List<Notification> notifications = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CLAIM_SQL)) {
+
+            stmt.setInt(1, maxRecipients);
+            stmt.setLong(2, leaseSeconds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Notification notification = new Notification(rs.getInt("recipient_id"),
+                            rs.getString("notification_type"), rs.getString("subject"), rs.getString("message"));
+                    notification.setNotificationId(rs.getLong("notification_id"));
+                    notification.setAttempts(rs.getInt("attempts"));
+                    notification.setCreatedAt(rs.getTimestamp("created_at"));
+                    notification.setRecipientEmail(rs.getString("email"));
+                    notification.setRecipientName(rs.getString("name"));
+                    notifications.add(notification);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error claiming due notifications", e);
+            throw e;
+        }
+
+        return notifications;
+    }
+
+    @Override
+    public void markSent(Collection<Long> notificationIds) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(MARK_SENT_SQL)) {
+
+            stmt.setArray(1, conn.createArrayOf("bigint", notificationIds.toArray()));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error marking notifications as sent: " + notificationIds, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void markFailed(Collection<Long> notificationIds, String error, int maxAttempts,
+                           long backoffSeconds, long maxBackoffSeconds) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(MARK_FAILED_SQL)) {
+
+            stmt.setInt(1, maxAttempts);
+            stmt.setString(2, error);
+            stmt.setLong(3, maxBackoffSeconds);
+            stmt.setLong(4, backoffSeconds);
+            stmt.setArray(5, conn.createArrayOf("bigint", notificationIds.toArray()));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error recording failed notifications: " + notificationIds, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int purgeSent(int olderThanDays) throws SQLException {
+        String sql = "DELETE FROM NotificationOutbox WHERE status = 'Sent' " +
+                     "AND sent_at < CURRENT_TIMESTAMP - ? * INTERVAL '1 day'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, olderThanDays);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error purging sent notifications", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int countByStatus(String status) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM NotificationOutbox WHERE status = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, status);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting notifications with status: " + status, e);
+            throw e;
+        }
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back transaction", ex);
+            }
+        }
+    }
+
+    private void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing connection", e);
+            }
+        }
+    }
+}
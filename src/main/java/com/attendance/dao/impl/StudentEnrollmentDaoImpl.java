@@ -8,7 +8,9 @@ import com.attendance.utils.DatabaseConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -288,6 +290,29 @@ public class StudentEnrollmentDaoImpl implements StudentEnrollmentDao {
         return findByStudent(studentId);
     }
     
+    @Override
+    public Map<Integer, String> findActiveSemesters(String academicYear) throws SQLException {
+        Map<Integer, String> semesters = new HashMap<>();
+        String sql = "SELECT student_id, semester FROM StudentEnrollments WHERE academic_year = ? AND status = 'Active'";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, academicYear);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    semesters.put(rs.getInt("student_id"), rs.getString("semester"));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding active students for academic year: " + academicYear, e);
+            throw e;
+        }
+        
+        return semesters;
+    }
+    
     /**
      * Maps a database result set to a StudentEnrollment object
      * @param rs The result set positioned at the current row
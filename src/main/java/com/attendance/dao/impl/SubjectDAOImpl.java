@@ -1,5 +1,6 @@
 package com.attendance.dao.impl;
 
+import com.attendance.dao.AttendanceDao;
 import com.attendance.dao.SubjectDAO;
 import com.attendance.models.Subject;
 import com.attendance.utils.DatabaseConnection;
@@ -23,6 +24,8 @@ public class SubjectDAOImpl implements SubjectDAO {
     
     private static final Logger LOGGER = Logger.getLogger(SubjectDAOImpl.class.getName());
     
+    private final AttendanceDao attendanceDao = new AttendanceDaoImpl();
+    
     /**
      * Create a new subject in the database
      */
@@ -241,7 +244,6 @@ public class SubjectDAOImpl implements SubjectDAO {
         String findCodeSql = "SELECT subject_code FROM Subject WHERE subject_code = ?";
         String deleteRelationsSql = "DELETE FROM Department_Subject WHERE subject_code = ?";
         String deleteTeacherSql = "DELETE FROM TeacherAssignment WHERE subject_code = ?";
-        String deleteAttendanceSql = "DELETE FROM Attendance WHERE subject_code = ?";
         String deleteSubjectSql = "DELETE FROM Subject WHERE subject_code = ?";
         
         Connection conn = null;
@@ -272,11 +274,8 @@ public class SubjectDAOImpl implements SubjectDAO {
                 pstmt.executeUpdate();
             }
             
-            // Delete attendance records
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteAttendanceSql)) {
-                pstmt.setString(1, subjectCode);
-                pstmt.executeUpdate();
-            }
+            // Delete attendance records (and their rollups)
+            attendanceDao.deleteBySubject(conn, subjectCode);
             
             // Finally delete the subject
             try (PreparedStatement pstmt = conn.prepareStatement(deleteSubjectSql)) {
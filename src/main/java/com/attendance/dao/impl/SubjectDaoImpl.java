@@ -3,6 +3,7 @@ package com.attendance.dao.impl;
 import com.attendance.dao.SubjectDao;
 import com.attendance.models.Subject;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EntityCache;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -15,9 +16,16 @@ import java.util.logging.Logger;
  */
 public class SubjectDaoImpl implements SubjectDao {
     private static final Logger LOGGER = Logger.getLogger(SubjectDaoImpl.class.getName());
+    
+    // Subjects by code, shared by every instance; invalidated by update and delete
+    static final EntityCache<String, Subject> SUBJECT_CACHE = EntityCache.create("subjects", Subject.class, Subject::new);
 
     @Override
     public Subject findById(String id) throws SQLException {
+        return SUBJECT_CACHE.get(id, this::loadById);
+    }
+    
+    private Subject loadById(String id) throws SQLException {
         String sql = "SELECT * FROM Subjects WHERE subject_code = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -146,6 +154,8 @@ public class SubjectDaoImpl implements SubjectDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating subject: " + subject, e);
             throw e;
+        } finally {
+            SUBJECT_CACHE.invalidate(subject.getSubjectCode());
         }
         
         return null;
@@ -165,6 +175,8 @@ public class SubjectDaoImpl implements SubjectDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting subject with code: " + id, e);
             throw e;
+        } finally {
+            SUBJECT_CACHE.invalidate(id);
         }
     }
 
@@ -4,7 +4,9 @@ import com.attendance.dao.TeacherAssignmentDao;
 import com.attendance.dao.UserDao;
 import com.attendance.models.TeacherAssignment;
 import com.attendance.models.User;
+import com.attendance.utils.AuthorizationService;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -17,7 +19,7 @@ import java.util.logging.Logger;
  */
 public class TeacherAssignmentDaoImpl implements TeacherAssignmentDao {
     private static final Logger LOGGER = Logger.getLogger(TeacherAssignmentDaoImpl.class.getName());
-    private UserDao userDao = new UserDaoImpl();
+    private UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
 
     @Override
     public TeacherAssignment findByTeacherSubjectAndClass(int teacherId, String subjectCode, int classId) throws SQLException {
@@ -177,6 +179,7 @@ public class TeacherAssignmentDaoImpl implements TeacherAssignmentDao {
             
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                AuthorizationService.invalidate(teacherAssignment.getTeacherId());
                 return teacherAssignment;
             }
         } catch (SQLException e) {
@@ -202,6 +205,7 @@ public class TeacherAssignmentDaoImpl implements TeacherAssignmentDao {
             
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                AuthorizationService.invalidate(teacherAssignment.getTeacherId());
                 return teacherAssignment;
             }
         } catch (SQLException e) {
@@ -224,6 +228,9 @@ public class TeacherAssignmentDaoImpl implements TeacherAssignmentDao {
             stmt.setInt(3, classId);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                AuthorizationService.invalidate(teacherId);
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting teacher assignment", e);
@@ -1,9 +1,14 @@
 package com.attendance.dao.impl;
 
+import com.attendance.dao.Page;
+import com.attendance.dao.PageRequest;
 import com.attendance.dao.UserDao;
 import com.attendance.models.User;
+import com.attendance.utils.AuthorizationService;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.EntityCache;
 import com.attendance.utils.PasswordUtils;
+import com.attendance.utils.PasswordVerifier;
 import com.attendance.dao.StudentEnrollmentDao;
 import com.attendance.dao.impl.StudentEnrollmentDaoImpl;
 
@@ -19,6 +24,14 @@ import java.util.logging.Logger;
 public class UserDaoImpl implements UserDao {
     private static final Logger LOGGER = Logger.getLogger(UserDaoImpl.class.getName());
     
+    // Users by ID, shared by every instance; invalidated by update, updatePassword and delete
+    static final EntityCache<Integer, User> USER_CACHE = EntityCache.create("users", User.class, User::new);
+    
+    // Pages in user ID order
+    private final KeysetQuery<User> userPages = new KeysetQuery<>("SELECT * FROM Users",
+            new String[] {"user_id"}, new KeysetQuery.KeyType[] {KeysetQuery.KeyType.INT}, false,
+            this::mapResultSetToUser);
+    
     @Override
     public User registerUser(User user) throws SQLException {
         String sql = "INSERT INTO Users (username, password, full_name, email, phone_number, role, " +
@@ -67,6 +80,10 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public User findById(Integer id) throws SQLException {
+        return USER_CACHE.get(id, this::loadById);
+    }
+    
+    private User loadById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Users WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -173,6 +190,10 @@ public class UserDaoImpl implements UserDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating user: " + user, e);
             throw e;
+        } finally {
+            // Also on failure, as the caller may have changed a cached copy before the update
+            USER_CACHE.invalidate(user.getUserId());
+            AuthorizationService.invalidate(user.getUserId());
         }
         
         return null;
@@ -201,6 +222,8 @@ public class UserDaoImpl implements UserDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating password for user ID: " + userId, e);
             throw e;
+        } finally {
+            USER_CACHE.invalidate(userId);
         }
     }
 
@@ -218,6 +241,9 @@ public class UserDaoImpl implements UserDao {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting user with ID: " + id, e);
             throw e;
+        } finally {
+            USER_CACHE.invalidate(id);
+            AuthorizationService.invalidate(id);
         }
     }
 
@@ -287,6 +313,26 @@ public class UserDaoImpl implements UserDao {
         return null;
     }
 
+    @Override
+    public Page<User> findAll(PageRequest pageRequest) throws SQLException {
+        try {
+            return userPages.fetch(null, pageRequest);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of users", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<User> findByRole(String role, PageRequest pageRequest) throws SQLException {
+        try {
+            return userPages.fetch("role = ?", pageRequest, role);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding page of users by role: " + role, e);
+            throw e;
+        }
+    }
+
     @Override
     public List<User> findByRole(String role) throws SQLException {
         List<User> users = new ArrayList<>();
@@ -360,6 +406,7 @@ public class UserDaoImpl implements UserDao {
     @Override
     public User authenticate(String email, String password) throws SQLException {
         String sql = "SELECT * FROM Users WHERE email = ?";
+        User user = null;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -368,15 +415,7 @@ public class UserDaoImpl implements UserDao {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    User user = mapResultSetToUser(rs);
-                    String storedSecurePassword = user.getPassword();
-                    
-                    // Verify password matches
-                    if (PasswordUtils.verifySecurePassword(password, storedSecurePassword)) {
-                        // Don't return the password in the user object for security reasons
-                        user.setPassword(null);
-                        return user;
-                    }
+                    user = mapResultSetToUser(rs);
                 }
             }
         } catch (SQLException e) {
@@ -384,7 +423,47 @@ public class UserDaoImpl implements UserDao {
             throw e;
         }
         
-        return null;
+        // Verify on the bounded verifier pool, after the connection is back in the pool
+        if (user == null) {
+            PasswordVerifier.verifyDummy(password);
+            return null;
+        }
+        String storedSecurePassword = user.getPassword();
+        PasswordVerifier.Result result = PasswordVerifier.verify(password, storedSecurePassword);
+        if (!result.matches()) {
+            return null;
+        }
+        if (result.getUpgradedHash() != null) {
+            upgradePasswordHash(user.getUserId(), storedSecurePassword, result.getUpgradedHash());
+        }
+        
+        // Don't return the password in the user object for security reasons
+        user.setPassword(null);
+        return user;
+    }
+    
+    /**
+     * Replace a legacy or outdated password hash after a successful login. Only replaces
+     * the hash that was verified, so a concurrent password change wins; failures are
+     * logged and the login proceeds with the old hash.
+     */
+    private void upgradePasswordHash(int userId, String oldHash, String newHash) {
+        String sql = "UPDATE Users SET password = ? WHERE user_id = ? AND password = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, newHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, oldHash);
+            
+            if (stmt.executeUpdate() > 0) {
+                USER_CACHE.invalidate(userId);
+                LOGGER.fine("Upgraded password hash for user ID: " + userId);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error upgrading password hash for user ID: " + userId, e);
+        }
     }
     
     @Override
@@ -16,6 +16,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
+import com.attendance.utils.AuthorizationService;
+
 /**
  * Filter for authentication and authorization
  */
@@ -27,16 +29,10 @@ public class AuthenticationFilter implements Filter {
     private static final List<String> PUBLIC_URLS = Arrays.asList(
             "/login", "/logout", "/register", 
             "/assets", "/css", "/js", "/images", 
-            "/error", "/favicon.ico"
+            "/error", "/favicon.ico",
+            "/metrics"  // Requires METRICS_TOKEN (see MetricsServlet)
     );
     
-    // Role-specific URL prefixes
-    private static final List<String> ADMIN_URLS = Arrays.asList("/admin");
-    private static final List<String> PRINCIPAL_URLS = Arrays.asList("/principal");
-    private static final List<String> HOD_URLS = Arrays.asList("/hod");
-    private static final List<String> TEACHER_URLS = Arrays.asList("/teacher");
-    private static final List<String> STUDENT_URLS = Arrays.asList("/student");
-    
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         LOGGER.info("AuthenticationFilter initialized");
@@ -94,39 +90,6 @@ public class AuthenticationFilter implements Filter {
      * Check if the user has access to the requested URL based on their role
      */
     private boolean hasAccess(String path, String role) {
-        if (role == null) {
-            return false;
-        }
-        
-        switch (role) {
-            case "Admin":
-                // Admin has access to all URLs
-                return true;
-                
-            case "Principal":
-                // Principal can access principal, HOD, teacher, and student URLs
-                return PRINCIPAL_URLS.stream().anyMatch(path::startsWith) || 
-                       HOD_URLS.stream().anyMatch(path::startsWith) || 
-                       TEACHER_URLS.stream().anyMatch(path::startsWith) || 
-                       STUDENT_URLS.stream().anyMatch(path::startsWith);
-                
-            case "HOD":
-                // HOD can access HOD, teacher, and student URLs
-                return HOD_URLS.stream().anyMatch(path::startsWith) || 
-                       TEACHER_URLS.stream().anyMatch(path::startsWith) || 
-                       STUDENT_URLS.stream().anyMatch(path::startsWith);
-                
-            case "Teacher":
-                // Teacher can access teacher and student URLs
-                return TEACHER_URLS.stream().anyMatch(path::startsWith) || 
-                       STUDENT_URLS.stream().anyMatch(path::startsWith);
-                
-            case "Student":
-                // Student can only access student URLs
-                return STUDENT_URLS.stream().anyMatch(path::startsWith);
-                
-            default:
-                return false;
-        }
+        return AuthorizationService.canAccessPath(role, path);
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.attendance.filters;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.attendance.utils.Metrics;
+
+/**
+ * Filter timing every request in http_server_request_duration_seconds, by route (the
+ * servlet's URL pattern, e.g. "/attendance/*", so the number of series stays bounded),
+ * HTTP method and status class ("2xx", "3xx", ...). Mapped first in web.xml, so the time
+ * includes the authentication filter; requests that throw are counted as 5xx.
+ */
+@WebFilter(filterName = "MetricsFilter", urlPatterns = {"/*"})
+public class MetricsFilter implements Filter {
+    private static final Logger LOGGER = Logger.getLogger(MetricsFilter.class.getName());
+
+    private static final Metrics.Timer REQUESTS = Metrics.timer("http_server_request_duration_seconds",
+            "Duration of HTTP requests", "route", "method", "status");
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        LOGGER.info("MetricsFilter initialized");
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            REQUESTS.labels(route(request), request.getMethod(), status / 100 + "xx").record(elapsed);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        LOGGER.info("MetricsFilter destroyed");
+    }
+
+    /**
+     * The URL pattern the request was mapped by, rather than its path, which may hold IDs
+     */
+    private String route(HttpServletRequest request) {
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        if (mapping == null || mapping.getPattern() == null) {
+            return "unmapped";
+        }
+        // The context root is mapped by the empty pattern
+        return mapping.getPattern().isEmpty() ? "/" : mapping.getPattern();
+    }
+}
@@ -1,11 +1,22 @@
 package com.attendance.listeners;
 
 import com.attendance.dao.impl.*;
+import com.attendance.utils.AppSettings;
+import com.attendance.utils.AttendanceRollupJob;
+import com.attendance.utils.BiometricUploadStore;
+import com.attendance.utils.DashboardWidgets;
 import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.LocalSmtpServer;
+import com.attendance.utils.MigrationRunner;
+import com.attendance.utils.NotificationDigestJob;
+import com.attendance.utils.NotificationOutboxWorker;
+import com.attendance.utils.PasswordVerifier;
+import com.attendance.utils.QueryPlanCheck;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -21,18 +32,49 @@ public class DatabaseInitializationListener implements ServletContextListener {
     
     private static final Logger LOGGER = Logger.getLogger(DatabaseInitializationListener.class.getName());
     
+    private AttendanceRollupJob rollupJob;
+    private NotificationOutboxWorker notificationWorker;
+    private NotificationDigestJob digestJob;
+    private LocalSmtpServer localSmtpServer;
+    
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         LOGGER.info("Initializing database on application startup");
         
+        // Delete biometric uploads that were abandoned or left by an earlier run
+        BiometricUploadStore.getInstance().startReaper();
+        
         try {
             // Initialize database schema
             initializeDatabase();
             
+            // Apply versioned migrations (indexes, optional partitioning)
+            new MigrationRunner().migrate();
+            if (AppSettings.getBoolean("DB_EXPLAIN_CHECK", false)) {
+                QueryPlanCheck.logRegressions();
+            }
+            
             // Initialize default data if needed
             // initializeDefaultData();
             
             LOGGER.info("Database initialization completed successfully");
+            
+            // Keep the attendance rollups (used by the reports) in sync
+            rollupJob = new AttendanceRollupJob();
+            rollupJob.start();
+            
+            // Deliver the email notifications queued in NotificationOutbox
+            if (AppSettings.getBoolean("SMTP_LOCAL_SERVER", false)) {
+                startLocalSmtpServer();
+            }
+            if (AppSettings.getBoolean("NOTIFICATION_OUTBOX_ENABLED", true)) {
+                notificationWorker = new NotificationOutboxWorker();
+                notificationWorker.start();
+            }
+            if (NotificationDigestJob.isDigestMode()) {
+                digestJob = new NotificationDigestJob();
+                digestJob.start();
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize database", e);
         }
@@ -41,10 +83,38 @@ public class DatabaseInitializationListener implements ServletContextListener {
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         LOGGER.info("Application shutting down - cleaning up database connections");
+        if (rollupJob != null) {
+            rollupJob.stop();
+        }
+        if (digestJob != null) {
+            digestJob.stop();
+        }
+        if (notificationWorker != null) {
+            notificationWorker.stop();
+        }
+        if (localSmtpServer != null) {
+            localSmtpServer.stop();
+        }
+        PasswordVerifier.shutdown();
+        DashboardWidgets.shutdown();
+        BiometricUploadStore.getInstance().stopReaper();
         // Clean up any remaining connections
         DatabaseConnection.closeAllConnections();
     }
     
+    /**
+     * Start the SMTP stand-in that EmailNotificationService uses with SMTP_LOCAL_SERVER=true
+     */
+    private void startLocalSmtpServer() {
+        localSmtpServer = new LocalSmtpServer(AppSettings.getInt("SMTP_PORT", 2525));
+        try {
+            localSmtpServer.start();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not start the local SMTP server", e);
+            localSmtpServer = null;
+        }
+    }
+    
     /**
      * Initialize the database schema if it doesn't exist
      */
@@ -179,6 +249,26 @@ public class DatabaseInitializationListener implements ServletContextListener {
             LOGGER.info("Executing SQL: " + createLeaveApplicationTable);
             stmt.execute(createLeaveApplicationTable);
             
+            // Create AttendanceRollup table (per student/subject/month counts for reports)
+            String createAttendanceRollupTable = 
+                "CREATE TABLE IF NOT EXISTS AttendanceRollup (" +
+                "    student_id INT NOT NULL," +
+                "    subject_code VARCHAR(50) NOT NULL," +
+                "    academic_year VARCHAR(20) NOT NULL," +
+                "    semester VARCHAR(10) NOT NULL," +
+                "    attendance_month SMALLINT NOT NULL," +
+                "    present_count INT NOT NULL DEFAULT 0," +
+                "    absent_count INT NOT NULL DEFAULT 0," +
+                "    leave_count INT NOT NULL DEFAULT 0," +
+                "    total_count INT NOT NULL DEFAULT 0," +
+                "    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+                "    PRIMARY KEY (student_id, subject_code, academic_year, semester, attendance_month)" +
+                ")";
+            LOGGER.info("Executing SQL: " + createAttendanceRollupTable);
+            stmt.execute(createAttendanceRollupTable);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_attendance_rollup_year_semester " +
+                         "ON AttendanceRollup (academic_year, semester)");
+            
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating database tables", e);
             throw e;
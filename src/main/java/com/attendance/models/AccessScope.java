@@ -0,0 +1,172 @@
+package com.attendance.models;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What a user may see, computed once from their role, department and teacher
+ * assignments (see AuthorizationService) so that permission checks are set lookups
+ * instead of assignment scans. Immutable.
+ */
+public class AccessScope {
+
+    private final int userId;
+    private final String role;
+    private final Set<Integer> departmentIds;
+    private final Set<Integer> classIds;
+    private final Set<Integer> classTeacherClassIds;
+    private final Set<String> subjectCodes;
+    private final Map<Integer, Set<String>> subjectsByClass;
+
+    private AccessScope(Builder builder) {
+        this.userId = builder.userId;
+        this.role = builder.role;
+        this.departmentIds = Collections.unmodifiableSet(builder.departmentIds);
+        this.classIds = Collections.unmodifiableSet(builder.classIds);
+        this.classTeacherClassIds = Collections.unmodifiableSet(builder.classTeacherClassIds);
+        this.subjectCodes = Collections.unmodifiableSet(builder.subjectCodes);
+        Map<Integer, Set<String>> subjectsByClass = new HashMap<>();
+        for (Map.Entry<Integer, Set<String>> entry : builder.subjectsByClass.entrySet()) {
+            subjectsByClass.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+        }
+        this.subjectsByClass = Collections.unmodifiableMap(subjectsByClass);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * @return True for roles that may see everything (Admin, Principal)
+     */
+    public boolean isInstitutionWide() {
+        return "Admin".equals(role) || "Principal".equals(role);
+    }
+
+    public boolean isHod() {
+        return "HOD".equals(role);
+    }
+
+    public boolean isTeacher() {
+        return "Teacher".equals(role) || "Class Teacher".equals(role);
+    }
+
+    public boolean isStudent() {
+        return "Student".equals(role);
+    }
+
+    /**
+     * @return The user's own department and, for an HOD, the departments they head
+     */
+    public Set<Integer> getDepartmentIds() {
+        return departmentIds;
+    }
+
+    public boolean hasDepartment(Integer departmentId) {
+        return departmentId != null && departmentIds.contains(departmentId);
+    }
+
+    /**
+     * @return Classes the user is assigned to teach (any subject, or as class teacher)
+     */
+    public Set<Integer> getClassIds() {
+        return classIds;
+    }
+
+    public boolean hasClass(int classId) {
+        return classIds.contains(classId);
+    }
+
+    public boolean isClassTeacherOf(int classId) {
+        return classTeacherClassIds.contains(classId);
+    }
+
+    /**
+     * @return Subjects the user is assigned to teach, in any class
+     */
+    public Set<String> getSubjectCodes() {
+        return subjectCodes;
+    }
+
+    public boolean hasSubject(String subjectCode) {
+        return subjectCode != null && subjectCodes.contains(subjectCode);
+    }
+
+    /**
+     * @return True if the user is assigned to teach the subject in the class
+     */
+    public boolean teaches(String subjectCode, int classId) {
+        return subjectCode != null && getSubjectCodes(classId).contains(subjectCode);
+    }
+
+    /**
+     * @return Subjects the user is assigned to teach in the class
+     */
+    public Set<String> getSubjectCodes(int classId) {
+        return subjectsByClass.getOrDefault(classId, Collections.emptySet());
+    }
+
+    /**
+     * @return A hash of what the scope allows, which changes when the user's role,
+     *         departments or assignments do; the same on every server
+     */
+    public int contentHash() {
+        return Objects.hash(role, departmentIds, classIds, classTeacherClassIds, subjectsByClass);
+    }
+
+    @Override
+    public String toString() {
+        return "AccessScope{userId=" + userId + ", role=" + role + ", departments=" + departmentIds
+                + ", classes=" + classIds.size() + ", subjects=" + subjectCodes.size() + "}";
+    }
+
+    /**
+     * Collects the parts of a scope
+     */
+    public static class Builder {
+        private final int userId;
+        private final String role;
+        private final Set<Integer> departmentIds = new HashSet<>();
+        private final Set<Integer> classIds = new HashSet<>();
+        private final Set<Integer> classTeacherClassIds = new HashSet<>();
+        private final Set<String> subjectCodes = new HashSet<>();
+        private final Map<Integer, Set<String>> subjectsByClass = new HashMap<>();
+
+        public Builder(int userId, String role) {
+            this.userId = userId;
+            this.role = role;
+        }
+
+        public Builder department(Integer departmentId) {
+            if (departmentId != null && departmentId > 0) {
+                departmentIds.add(departmentId);
+            }
+            return this;
+        }
+
+        public Builder assignment(TeacherAssignment assignment) {
+            classIds.add(assignment.getClassId());
+            if ("Class Teacher".equals(assignment.getAssignmentType())) {
+                classTeacherClassIds.add(assignment.getClassId());
+            }
+            if (assignment.getSubjectCode() != null) {
+                subjectCodes.add(assignment.getSubjectCode());
+                subjectsByClass.computeIfAbsent(assignment.getClassId(), id -> new HashSet<>())
+                               .add(assignment.getSubjectCode());
+            }
+            return this;
+        }
+
+        public AccessScope build() {
+            return new AccessScope(this);
+        }
+    }
+}
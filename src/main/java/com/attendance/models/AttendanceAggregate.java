@@ -0,0 +1,163 @@
+package com.attendance.models;
+
+/**
+ * Aggregated attendance counts for one group (student, subject, class, department, ...)
+ * produced by a single GROUP BY query over the Attendance table
+ */
+public class AttendanceAggregate {
+
+    /**
+     * The cohort the aggregation is restricted to
+     */
+    public enum Scope {
+        INSTITUTION,
+        DEPARTMENT,
+        CLASS,
+        SUBJECT,
+        STUDENT
+    }
+
+    /**
+     * The dimension the aggregation is grouped by
+     */
+    public enum GroupBy {
+        STUDENT,
+        SUBJECT,
+        CLASS,
+        DEPARTMENT,
+        SEMESTER,
+        MONTH
+    }
+
+    private Object groupKey;
+    private int totalCount;
+    private int presentCount;
+    private int absentCount;
+    private int leaveCount;
+
+    // Constructors
+    public AttendanceAggregate() {
+    }
+
+    public AttendanceAggregate(Object groupKey, int totalCount, int presentCount, int absentCount, int leaveCount) {
+        this.groupKey = groupKey;
+        this.totalCount = totalCount;
+        this.presentCount = presentCount;
+        this.absentCount = absentCount;
+        this.leaveCount = leaveCount;
+    }
+
+    /**
+     * Calculate the attendance percentage for this group.
+     * "On Leave" days are not counted in the total; if every day is
+     * "On Leave" the percentage is 100.
+     * @return Attendance percentage (0-100)
+     */
+    public double getPercentage() {
+        return calculatePercentage(totalCount, presentCount, leaveCount);
+    }
+
+    /**
+     * Calculate an attendance percentage from raw counts
+     * @param total Total number of records
+     * @param present Number of "Present" records
+     * @param onLeave Number of "On Leave" records
+     * @return Attendance percentage (0-100)
+     */
+    public static double calculatePercentage(long total, long present, long onLeave) {
+        long effectiveTotal = total - onLeave;
+        if (effectiveTotal > 0) {
+            return (double) present / effectiveTotal * 100;
+        } else if (total > 0) {
+            return 100.0;
+        }
+        return 0.0;
+    }
+
+    /**
+     * Combine several aggregates into one, e.g. to roll per-subject counts up to an overall figure
+     * @param groupKey The key of the combined aggregate
+     * @param parts The aggregates to combine
+     * @return The combined aggregate
+     */
+    public static AttendanceAggregate combine(Object groupKey, Iterable<AttendanceAggregate> parts) {
+        AttendanceAggregate combined = new AttendanceAggregate(groupKey, 0, 0, 0, 0);
+        for (AttendanceAggregate part : parts) {
+            combined.totalCount += part.totalCount;
+            combined.presentCount += part.presentCount;
+            combined.absentCount += part.absentCount;
+            combined.leaveCount += part.leaveCount;
+        }
+        return combined;
+    }
+
+    /**
+     * @return The group key as an integer (student, class or department ID, or month number)
+     */
+    public int getGroupId() {
+        if (groupKey instanceof Number) {
+            return ((Number) groupKey).intValue();
+        }
+        return groupKey != null ? Integer.parseInt(groupKey.toString().trim()) : 0;
+    }
+
+    /**
+     * @return The group key as a string (subject code or semester)
+     */
+    public String getGroupCode() {
+        return groupKey != null ? groupKey.toString() : null;
+    }
+
+    // Getters and setters
+    public Object getGroupKey() {
+        return groupKey;
+    }
+
+    public void setGroupKey(Object groupKey) {
+        this.groupKey = groupKey;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public int getPresentCount() {
+        return presentCount;
+    }
+
+    public void setPresentCount(int presentCount) {
+        this.presentCount = presentCount;
+    }
+
+    public int getAbsentCount() {
+        return absentCount;
+    }
+
+    public void setAbsentCount(int absentCount) {
+        this.absentCount = absentCount;
+    }
+
+    public int getLeaveCount() {
+        return leaveCount;
+    }
+
+    public void setLeaveCount(int leaveCount) {
+        this.leaveCount = leaveCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AttendanceAggregate{" +
+                "groupKey=" + groupKey +
+                ", totalCount=" + totalCount +
+                ", presentCount=" + presentCount +
+                ", absentCount=" + absentCount +
+                ", leaveCount=" + leaveCount +
+                ", percentage=" + getPercentage() +
+                '}';
+    }
+}
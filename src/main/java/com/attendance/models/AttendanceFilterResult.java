@@ -0,0 +1,302 @@
+package com.attendance.models;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attendance rows returned by the attendance filter, stored column by column.
+ *
+ * Ids and dates (as epoch days) are kept in int arrays; subject codes, semesters and
+ * academic years are dictionary-encoded (each distinct value is stored once and rows hold
+ * its index), and the status is a byte index into its own dictionary. Views iterate it as
+ * a list of {@link Row}s, which are created on access and read from the columns, so
+ * ${row.studentId}, ${row.subjectCode}, ... work as they did for the old per-row maps.
+ */
+public class AttendanceFilterResult extends AbstractList<AttendanceFilterResult.Row> {
+
+    private int size;
+    private int[] attendanceIds;
+    private int[] dates;
+    private int[] studentIds;
+    private int[] classIds;
+    private short[] subjects;
+    private byte[] semesters;
+    private byte[] academicYears;
+    private byte[] statuses;
+
+    private final Dictionary subjectCodes;
+    private final Dictionary semesterValues;
+    private final Dictionary academicYearValues;
+    private final Dictionary statusValues;
+
+    public AttendanceFilterResult() {
+        this(256);
+    }
+
+    public AttendanceFilterResult(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        attendanceIds = new int[capacity];
+        dates = new int[capacity];
+        studentIds = new int[capacity];
+        classIds = new int[capacity];
+        subjects = new short[capacity];
+        semesters = new byte[capacity];
+        academicYears = new byte[capacity];
+        statuses = new byte[capacity];
+
+        subjectCodes = new Dictionary(Short.MAX_VALUE);
+        semesterValues = new Dictionary(Byte.MAX_VALUE);
+        academicYearValues = new Dictionary(Byte.MAX_VALUE);
+        statusValues = new Dictionary(Byte.MAX_VALUE);
+    }
+
+    /**
+     * Append a row
+     */
+    public void addRow(int attendanceId, LocalDate attendanceDate, int studentId, String subjectCode,
+                       String semester, String academicYear, String status, int classId) {
+        if (size == attendanceIds.length) {
+            grow();
+        }
+        attendanceIds[size] = attendanceId;
+        dates[size] = attendanceDate != null ? (int) attendanceDate.toEpochDay() : Integer.MIN_VALUE;
+        studentIds[size] = studentId;
+        classIds[size] = classId;
+        subjects[size] = (short) subjectCodes.indexOf(subjectCode);
+        semesters[size] = (byte) semesterValues.indexOf(semester);
+        academicYears[size] = (byte) academicYearValues.indexOf(academicYear);
+        statuses[size] = (byte) statusValues.indexOf(status);
+        size++;
+    }
+
+    private void grow() {
+        int capacity = attendanceIds.length * 2;
+        attendanceIds = Arrays.copyOf(attendanceIds, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        studentIds = Arrays.copyOf(studentIds, capacity);
+        classIds = Arrays.copyOf(classIds, capacity);
+        subjects = Arrays.copyOf(subjects, capacity);
+        semesters = Arrays.copyOf(semesters, capacity);
+        academicYears = Arrays.copyOf(academicYears, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+
+    /**
+     * Keep only the first rows
+     * @param newSize Number of rows to keep
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Negative size: " + newSize);
+        }
+        size = Math.min(size, newSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Row get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Row(index);
+    }
+
+    // Column access
+
+    public int getAttendanceId(int row) {
+        return attendanceIds[row];
+    }
+
+    public LocalDate getAttendanceDate(int row) {
+        return dates[row] == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(dates[row]);
+    }
+
+    public int getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public int getClassId(int row) {
+        return classIds[row];
+    }
+
+    public String getSubjectCode(int row) {
+        return subjectCodes.valueOf(subjects[row]);
+    }
+
+    public String getSemester(int row) {
+        return semesterValues.valueOf(semesters[row]);
+    }
+
+    public String getAcademicYear(int row) {
+        return academicYearValues.valueOf(academicYears[row]);
+    }
+
+    public String getStatus(int row) {
+        return statusValues.valueOf(statuses[row]);
+    }
+
+    /**
+     * @return The distinct subject codes of the rows
+     */
+    public List<String> getSubjectCodes() {
+        boolean[] seen = new boolean[subjectCodes.size()];
+        for (int i = 0; i < size; i++) {
+            seen[subjects[i]] = true;
+        }
+        List<String> codes = new ArrayList<>();
+        for (int s = 0; s < seen.length; s++) {
+            if (seen[s]) {
+                codes.add(subjectCodes.valueOf(s));
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * @return The distinct student ids, ascending
+     */
+    public int[] getDistinctStudentIds() {
+        return distinct(studentIds);
+    }
+
+    /**
+     * @return The distinct class ids, ascending
+     */
+    public int[] getDistinctClassIds() {
+        return distinct(classIds);
+    }
+
+    private int[] distinct(int[] column) {
+        int[] values = Arrays.copyOf(column, size);
+        Arrays.sort(values);
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (count == 0 || values[count - 1] != values[i]) {
+                values[count++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Count rows per subject code
+     * @param status Status to count separately (e.g. "Present")
+     * @return Map of subject code to {rows with that status, all rows}
+     */
+    public Map<String, int[]> countBySubject(String status) {
+        int statusIndex = statusValues.find(status);
+        int[] matching = new int[subjectCodes.size()];
+        int[] total = new int[subjectCodes.size()];
+        for (int i = 0; i < size; i++) {
+            total[subjects[i]]++;
+            if (statuses[i] == statusIndex) {
+                matching[subjects[i]]++;
+            }
+        }
+
+        Map<String, int[]> counts = new HashMap<>();
+        for (int s = 0; s < total.length; s++) {
+            if (total[s] == 0) {
+                continue;
+            }
+            counts.put(subjectCodes.valueOf(s), new int[] {matching[s], total[s]});
+        }
+        return counts;
+    }
+
+    /**
+     * One row of the result, read from the columns on access
+     */
+    public class Row {
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        public int getAttendanceId() {
+            return attendanceIds[index];
+        }
+
+        public Date getAttendanceDate() {
+            LocalDate date = AttendanceFilterResult.this.getAttendanceDate(index);
+            return date != null ? Date.valueOf(date) : null;
+        }
+
+        public int getStudentId() {
+            return studentIds[index];
+        }
+
+        public int getClassId() {
+            return classIds[index];
+        }
+
+        public String getSubjectCode() {
+            return AttendanceFilterResult.this.getSubjectCode(index);
+        }
+
+        public String getSemester() {
+            return AttendanceFilterResult.this.getSemester(index);
+        }
+
+        public String getAcademicYear() {
+            return AttendanceFilterResult.this.getAcademicYear(index);
+        }
+
+        public String getStatus() {
+            return AttendanceFilterResult.this.getStatus(index);
+        }
+    }
+
+    /**
+     * Distinct values of a low-cardinality column, indexed in order of first appearance
+     */
+    private static class Dictionary {
+        private final int maxSize;
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        Dictionary(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                if (values.size() == maxSize) {
+                    throw new IllegalStateException("Too many distinct values (" + maxSize + ")");
+                }
+                index = values.size();
+                values.add(value);
+                indexes.put(value, index);
+            }
+            return index;
+        }
+
+        /**
+         * @return The index of value, or -1 if it does not occur
+         */
+        int find(String value) {
+            Integer index = indexes.get(value);
+            return index != null ? index : -1;
+        }
+
+        String valueOf(int index) {
+            return values.get(index);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.attendance.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress and outcome of a bulk attendance import (see AttendanceImporter).
+ *
+ * Written by the importing thread only; the counters are volatile so that a status
+ * page or console can poll them while the import runs.
+ */
+public class AttendanceImportResult {
+
+    /**
+     * Stage of the import
+     */
+    public enum Phase {
+        /** Waiting for an import slot */
+        QUEUED,
+        /** Reading, validating and staging rows */
+        STAGING,
+        /** Merging the staged rows into Attendance */
+        MERGING,
+        /** Finished; written rows are committed (unless dry run) */
+        COMPLETED,
+        /** Aborted; nothing was written */
+        FAILED
+    }
+
+    /**
+     * A row that was not imported
+     */
+    public static class RejectedRow {
+        private final long lineNumber;
+        private final String reason;
+        private final String line;
+
+        public RejectedRow(long lineNumber, String reason, String line) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.line = line;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * @return The row's fields joined with commas
+         */
+        public String getLine() {
+            return line;
+        }
+    }
+
+    private final String source;
+    private final boolean dryRun;
+    private final int maxReportedRejects;
+    private final List<RejectedRow> rejectedRows = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile Phase phase = Phase.QUEUED;
+    private volatile long rowsRead;
+    private volatile long rowsStaged;
+    private volatile long rowsRejected;
+    private volatile int insertedCount;
+    private volatile int updatedCount;
+    private volatile int unchangedCount;
+    private volatile int supersededCount;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String errorMessage;
+
+    /**
+     * @param source Name of the imported file
+     * @param dryRun True if the import is rolled back after merging
+     * @param maxReportedRejects Maximum number of rejected rows kept for the report
+     */
+    public AttendanceImportResult(String source, boolean dryRun, int maxReportedRejects) {
+        this.source = source;
+        this.dryRun = dryRun;
+        this.maxReportedRejects = maxReportedRejects;
+    }
+
+    /**
+     * Record a rejected row; only the first maxReportedRejects are kept, the rest are counted
+     * @param lineNumber Line number in the file
+     * @param reason Why the row was rejected
+     * @param line The row's fields joined with commas
+     */
+    public void reject(long lineNumber, String reason, String line) {
+        rowsRejected++;
+        if (rejectedRows.size() < maxReportedRejects) {
+            rejectedRows.add(new RejectedRow(lineNumber, reason, line));
+        }
+    }
+
+    /**
+     * @return Copy of the reported rejected rows
+     */
+    public List<RejectedRow> getRejectedRows() {
+        synchronized (rejectedRows) {
+            return new ArrayList<>(rejectedRows);
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * @return True once the import has completed or failed
+     */
+    public boolean isFinished() {
+        return phase == Phase.COMPLETED || phase == Phase.FAILED;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsStaged() {
+        return rowsStaged;
+    }
+
+    public void setRowsStaged(long rowsStaged) {
+        this.rowsStaged = rowsStaged;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public void setInsertedCount(int insertedCount) {
+        this.insertedCount = insertedCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public void setUpdatedCount(int updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public void setUnchangedCount(int unchangedCount) {
+        this.unchangedCount = unchangedCount;
+    }
+
+    /**
+     * @return Number of staged rows overridden by a later row for the same student, subject and date
+     */
+    public int getSupersededCount() {
+        return supersededCount;
+    }
+
+    public void setSupersededCount(int supersededCount) {
+        this.supersededCount = supersededCount;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * @return Milliseconds since the import started (until it finished), or 0 if not started
+     */
+    public long getElapsedMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(phase).append(": ")
+          .append(rowsRead).append(" read, ")
+          .append(rowsStaged).append(" staged, ")
+          .append(rowsRejected).append(" rejected");
+        if (phase == Phase.COMPLETED) {
+            sb.append("; ").append(insertedCount).append(" inserted, ")
+              .append(updatedCount).append(" updated, ")
+              .append(unchangedCount).append(" unchanged, ")
+              .append(supersededCount).append(" superseded");
+            if (dryRun) {
+                sb.append(" (dry run, rolled back)");
+            }
+        }
+        if (errorMessage != null) {
+            sb.append("; ").append(errorMessage);
+        }
+        return sb.toString();
+    }
+}
@@ -61,6 +61,18 @@ public class Class {
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
     }
+    
+    /**
+     * Copy constructor (for copies handed out by the entity cache); the department is copied too
+     */
+    public Class(Class other) {
+        this(other.id, other.name, other.year, other.semester, other.departmentId,
+             other.classTeacherId, other.academicYear, other.createdAt, other.updatedAt);
+        this.description = other.description;
+        this.startDate = other.startDate;
+        this.endDate = other.endDate;
+        this.department = other.department != null ? new Department(other.department) : null;
+    }
 
     // Getters and Setters
     
@@ -42,6 +42,14 @@ public class Department {
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
     }
+    
+    /**
+     * Copy constructor (for copies handed out by the entity cache)
+     */
+    public Department(Department other) {
+        this(other.id, other.name, other.hodId, other.description, other.createdAt, other.updatedAt);
+        this.code = other.code;
+    }
 
     // Getters and Setters
     
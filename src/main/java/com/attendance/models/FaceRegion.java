@@ -0,0 +1,61 @@
+package com.attendance.models;
+
+/**
+ * A face found in an image by HaarFaceDetector: its bounding box in image pixels and
+ * how many overlapping detections were merged into it (more is more certain)
+ */
+public class FaceRegion {
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final int neighbors;
+
+    public FaceRegion(int x, int y, int width, int height, int neighbors) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.neighbors = neighbors;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNeighbors() {
+        return neighbors;
+    }
+
+    public int getArea() {
+        return width * height;
+    }
+
+    /**
+     * @return True if the other region lies entirely inside this one
+     */
+    public boolean contains(FaceRegion other) {
+        return other.x >= x && other.y >= y
+                && other.x + other.width <= x + width
+                && other.y + other.height <= y + height;
+    }
+
+    @Override
+    public String toString() {
+        return "FaceRegion{x=" + x + ", y=" + y + ", width=" + width + ", height=" + height
+                + ", neighbors=" + neighbors + "}";
+    }
+}
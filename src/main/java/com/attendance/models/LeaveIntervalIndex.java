@@ -0,0 +1,158 @@
+package com.attendance.models;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approved leave of a set of students as sorted, non-overlapping day intervals per
+ * student, loaded in one query (see LeaveApplicationDao.findApprovedLeavesByClass).
+ * Answers "is this student on leave on this day" with a binary search instead of a
+ * query per student and day.
+ */
+public class LeaveIntervalIndex {
+
+    /**
+     * Intervals of one student as parallel arrays of epoch days, sorted by start
+     */
+    private static class Intervals {
+        long[] starts = new long[2];
+        long[] ends = new long[2];
+        int size;
+
+        void add(long start, long end) {
+            if (size > 0) {
+                if (start < starts[size - 1]) {
+                    throw new IllegalArgumentException("Leave intervals must be added in order of their start date");
+                }
+                // Merge with the previous interval when overlapping or adjacent
+                if (start <= ends[size - 1] + 1) {
+                    ends[size - 1] = Math.max(ends[size - 1], end);
+                    return;
+                }
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        /**
+         * @return Index of the last interval starting on or before day, or -1
+         */
+        int floor(long day) {
+            int index = Arrays.binarySearch(starts, 0, size, day);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        boolean contains(long day) {
+            int index = floor(day);
+            return index >= 0 && ends[index] >= day;
+        }
+
+        long countDays(long from, long to) {
+            long days = 0;
+            for (int i = Math.max(0, floor(from)); i < size && starts[i] <= to; i++) {
+                long start = Math.max(starts[i], from);
+                long end = Math.min(ends[i], to);
+                if (end >= start) {
+                    days += end - start + 1;
+                }
+            }
+            return days;
+        }
+    }
+
+    private final Map<Integer, Intervals> intervals = new HashMap<>();
+
+    /**
+     * Add a leave; the leaves of a student must be added in order of their start date
+     * @param studentId The student ID
+     * @param fromDate First day of the leave
+     * @param toDate Last day of the leave
+     */
+    public void add(int studentId, LocalDate fromDate, LocalDate toDate) {
+        if (toDate.isBefore(fromDate)) {
+            return;
+        }
+        intervals.computeIfAbsent(studentId, id -> new Intervals())
+                 .add(fromDate.toEpochDay(), toDate.toEpochDay());
+    }
+
+    /**
+     * @param studentId The student ID
+     * @param date The day
+     * @return True if the student has approved leave on the day
+     */
+    public boolean isOnLeave(int studentId, LocalDate date) {
+        Intervals studentIntervals = intervals.get(studentId);
+        return studentIntervals != null && studentIntervals.contains(date.toEpochDay());
+    }
+
+    public boolean isOnLeave(int studentId, Date date) {
+        return isOnLeave(studentId, date.toLocalDate());
+    }
+
+    /**
+     * Resolve the status to show for a student on a day: Absent becomes On Leave when the
+     * student has approved leave on the day
+     * @param studentId The student ID
+     * @param date The day
+     * @param status The recorded status, or null if nothing was recorded
+     * @return The effective status (null stays null unless the student is on leave)
+     */
+    public String resolveStatus(int studentId, LocalDate date, String status) {
+        if ((status == null || "Absent".equals(status)) && isOnLeave(studentId, date)) {
+            return "On Leave";
+        }
+        return status;
+    }
+
+    /**
+     * @param date The day
+     * @return IDs of the students with approved leave on the day
+     */
+    public Set<Integer> getStudentsOnLeave(LocalDate date) {
+        long day = date.toEpochDay();
+        Set<Integer> studentIds = new HashSet<>();
+        for (Map.Entry<Integer, Intervals> entry : intervals.entrySet()) {
+            if (entry.getValue().contains(day)) {
+                studentIds.add(entry.getKey());
+            }
+        }
+        return studentIds;
+    }
+
+    /**
+     * @param studentId The student ID
+     * @param fromDate First day of the range
+     * @param toDate Last day of the range
+     * @return Number of days in the range on which the student has approved leave
+     */
+    public long countLeaveDays(int studentId, LocalDate fromDate, LocalDate toDate) {
+        Intervals studentIntervals = intervals.get(studentId);
+        if (studentIntervals == null) {
+            return 0;
+        }
+        return studentIntervals.countDays(fromDate.toEpochDay(), toDate.toEpochDay());
+    }
+
+    /**
+     * @return IDs of the students with any leave in the index
+     */
+    public Set<Integer> getStudentIds() {
+        return Collections.unmodifiableSet(intervals.keySet());
+    }
+
+    public boolean isEmpty() {
+        return intervals.isEmpty();
+    }
+}
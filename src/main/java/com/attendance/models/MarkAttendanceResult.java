@@ -0,0 +1,100 @@
+package com.attendance.models;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of marking attendance for a batch of students (see AttendanceDao.upsertAttendance):
+ * what happened to each student's record
+ */
+public class MarkAttendanceResult {
+
+    /**
+     * What the upsert did with one student's record
+     */
+    public enum Outcome {
+        /** No record existed for the student, subject and date; one was added */
+        INSERTED,
+        /** A record with a different status existed and was changed */
+        UPDATED,
+        /** A record with the same status existed; nothing was written */
+        UNCHANGED
+    }
+
+    private final Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+    private final Map<Integer, String> previousStatuses = new LinkedHashMap<>();
+    private int insertedCount;
+    private int updatedCount;
+    private int unchangedCount;
+
+    /**
+     * Record the outcome for a student
+     * @param studentId The student ID
+     * @param outcome The outcome
+     * @param previousStatus The status before an update, or null
+     */
+    public void add(int studentId, Outcome outcome, String previousStatus) {
+        outcomes.put(studentId, outcome);
+        switch (outcome) {
+            case INSERTED:
+                insertedCount++;
+                break;
+            case UPDATED:
+                updatedCount++;
+                if (previousStatus != null) {
+                    previousStatuses.put(studentId, previousStatus);
+                }
+                break;
+            default:
+                unchangedCount++;
+                break;
+        }
+    }
+
+    /**
+     * @return Outcome per student ID, in the order the students were marked
+     */
+    public Map<Integer, Outcome> getOutcomes() {
+        return Collections.unmodifiableMap(outcomes);
+    }
+
+    /**
+     * @param studentId The student ID
+     * @return The outcome, or null if the student was not in the batch
+     */
+    public Outcome getOutcome(int studentId) {
+        return outcomes.get(studentId);
+    }
+
+    /**
+     * @return Status before the change, per updated student ID
+     */
+    public Map<Integer, String> getPreviousStatuses() {
+        return Collections.unmodifiableMap(previousStatuses);
+    }
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * @return Number of records inserted or updated
+     */
+    public int getWrittenCount() {
+        return insertedCount + updatedCount;
+    }
+
+    @Override
+    public String toString() {
+        return insertedCount + " inserted, " + updatedCount + " updated, " + unchangedCount + " unchanged";
+    }
+}
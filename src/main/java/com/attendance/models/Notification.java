@@ -0,0 +1,126 @@
+package com.attendance.models;
+
+import java.sql.Timestamp;
+
+/**
+ * Model class representing an email notification in the NotificationOutbox table
+ */
+public class Notification {
+    public static final String TYPE_ATTENDANCE_MARKED = "ATTENDANCE_MARKED";
+    public static final String TYPE_ATTENDANCE_UPDATED = "ATTENDANCE_UPDATED";
+    public static final String TYPE_ATTENDANCE_DIGEST = "ATTENDANCE_DIGEST";
+
+    private long notificationId;     // Primary key
+    private int recipientId;         // User the notification is for
+    private String notificationType; // One of the TYPE_ constants
+    private String subject;          // Email subject when sent on its own
+    private String message;          // One self-contained paragraph of the email body
+    private int attempts;            // Delivery attempts so far
+    private Timestamp createdAt;
+
+    // Read from Users when the notification is claimed for delivery
+    private String recipientEmail;
+    private String recipientName;
+
+    /**
+     * Default constructor
+     */
+    public Notification() {
+    }
+
+    /**
+     * Constructor for a new notification
+     * @param recipientId The recipient's user ID
+     * @param notificationType The notification type
+     * @param subject The email subject
+     * @param message The message text
+     */
+    public Notification(int recipientId, String notificationType, String subject, String message) {
+        this.recipientId = recipientId;
+        this.notificationType = notificationType;
+        this.subject = subject;
+        this.message = message;
+    }
+
+    public long getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(long notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public int getRecipientId() {
+        return recipientId;
+    }
+
+    public void setRecipientId(int recipientId) {
+        this.recipientId = recipientId;
+    }
+
+    public String getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(String notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getRecipientEmail() {
+        return recipientEmail;
+    }
+
+    public void setRecipientEmail(String recipientEmail) {
+        this.recipientEmail = recipientEmail;
+    }
+
+    public String getRecipientName() {
+        return recipientName;
+    }
+
+    public void setRecipientName(String recipientName) {
+        this.recipientName = recipientName;
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{" +
+                "notificationId=" + notificationId +
+                ", recipientId=" + recipientId +
+                ", notificationType='" + notificationType + '\'' +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -70,6 +70,15 @@ public class Subject {
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
     }
+    
+    /**
+     * Copy constructor (for copies handed out by the entity cache)
+     */
+    public Subject(Subject other) {
+        this(other.id, other.name, other.code, other.description, other.departmentId,
+             other.classId, other.teacherId, other.semester, other.credits, other.academicYear,
+             other.createdAt, other.updatedAt);
+    }
 
     // Getters and Setters
     
@@ -83,6 +83,17 @@ public class User {
         this.department = department;
         this.departmentId = departmentId;
     }
+    
+    /**
+     * Copy constructor (for copies handed out by the entity cache)
+     */
+    public User(User other) {
+        this(other.id, other.username, other.password, other.firstName, other.lastName,
+             other.email, other.phoneNumber, other.role, other.active, other.status,
+             other.createdAt, other.updatedAt, other.profilePicture,
+             other.department, other.departmentId);
+        this.address = other.address;
+    }
 
     // Getters and Setters
     
@@ -0,0 +1,87 @@
+package com.attendance.utils;
+
+import java.util.logging.Logger;
+
+/**
+ * Utility class for reading tunable settings.
+ * A JVM system property takes precedence over an environment variable of the same name.
+ */
+public class AppSettings {
+    private static final Logger LOGGER = Logger.getLogger(AppSettings.class.getName());
+
+    private AppSettings() {
+    }
+
+    /**
+     * Get a string setting
+     * @param name The property / environment variable name
+     * @param defaultValue Value used when the setting is missing or empty
+     * @return The setting value
+     */
+    public static String getString(String name, String defaultValue) {
+        String value = System.getProperty(name, System.getenv(name));
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    /**
+     * Get an integer setting
+     * @param name The property / environment variable name
+     * @param defaultValue Value used when the setting is missing or invalid
+     * @return The setting value
+     */
+    public static int getInt(String name, int defaultValue) {
+        return (int) getLong(name, defaultValue);
+    }
+
+    /**
+     * Get a long setting
+     * @param name The property / environment variable name
+     * @param defaultValue Value used when the setting is missing or invalid
+     * @return The setting value
+     */
+    public static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid value for " + name + ": " + value + ", using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a decimal setting
+     * @param name The property / environment variable name
+     * @param defaultValue Value used when the setting is missing or invalid
+     * @return The setting value
+     */
+    public static double getDouble(String name, double defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid value for " + name + ": " + value + ", using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get a boolean setting ("true"/"false")
+     * @param name The property / environment variable name
+     * @param defaultValue Value used when the setting is missing
+     * @return The setting value
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
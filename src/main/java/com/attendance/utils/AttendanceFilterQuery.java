@@ -0,0 +1,339 @@
+package com.attendance.utils;
+
+import com.attendance.dao.PageRequest;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL for the attendance filter engine, built from the filter parameters kept in the
+ * session by AttendanceFilterController (and the report parameters of the exports).
+ *
+ * Attendance is aliased a and the student's enrollment for that academic year se, so
+ * callers can select a.* / se.class_id and add joins on them.
+ *
+ * Supported keys: studentId, subjectCode, classId, semester, academicYear, fromDate and
+ * toDate (yyyy-MM-dd), month (1-12 or a month name), status, departmentId, teacherId,
+ * and threshold (Double) with comparisonType ("below", "above" or "equal").
+ *
+ * The threshold is evaluated in the database: each filtered row carries the percentage of
+ * Present rows in its (student, subject) group, computed with a window over the same
+ * rows, and only rows of qualifying groups are returned. Results can be fetched a page at
+ * a time with {@link #page}: keyset paging on the sort key (date, subject, class, student,
+ * unique per row), so a later page seeks past the previous page's last row instead of
+ * reading and skipping every row before it. With a threshold the window still reads all
+ * filtered rows, but only one page of them is sorted and returned. Figures that must cover
+ * every filtered row rather than one page come from {@link #toAggregateSql}.
+ */
+public class AttendanceFilterQuery {
+
+    private static final String FROM =
+            "FROM Attendance a " +
+            "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year ";
+
+    public static final String ORDER_BY = "ORDER BY a.attendance_date DESC, a.subject_code, se.class_id, a.student_id";
+
+    // Columns of the filter results page
+    public static final String RESULT_COLUMNS =
+            "a.attendance_id, a.attendance_date, a.student_id, a.subject_code, " +
+            "a.semester, a.academic_year, a.status, se.class_id";
+
+    // CSV export layout; names are joined in SQL rather than looked up per id
+    public static final String[] CSV_HEADERS = {
+        "Date", "Student ID", "Student Name", "Subject Code", "Subject Name", "Class", "Semester", "Status"
+    };
+    public static final String CSV_COLUMNS =
+            "a.attendance_date, a.student_id, u.name, a.subject_code, s.subject_name, cl.class_name, a.semester, a.status";
+    public static final String CSV_JOINS =
+            "LEFT JOIN Users u ON u.user_id = a.student_id " +
+            "LEFT JOIN Subjects s ON s.subject_code = a.subject_code " +
+            "LEFT JOIN Classes cl ON cl.class_id = se.class_id ";
+
+    // Status counts for toAggregateSql
+    public static final String COUNT_COLUMNS =
+            "COUNT(*) AS total_count, " +
+            "COUNT(*) FILTER (WHERE a.status = 'Present') AS present_count, " +
+            "COUNT(*) FILTER (WHERE a.status = 'Absent') AS absent_count, " +
+            "COUNT(*) FILTER (WHERE a.status = 'On Leave') AS leave_count";
+
+    // Percentage of Present rows in the row's (student, subject) group, over the filtered rows
+    private static final String GROUP_PERCENTAGE =
+            "COUNT(*) FILTER (WHERE a.status = 'Present') OVER w * 100.0 / COUNT(*) OVER w";
+
+    private final StringBuilder conditions = new StringBuilder();
+    private final List<Object> params = new ArrayList<>();
+    private final Double threshold;
+    private final String comparisonType;
+    private int limit;
+
+    // Sort key of the previous page's last row, null for the first page
+    private Date afterDate;
+    private String afterSubjectCode;
+    private int afterClassId;
+    private int afterStudentId;
+
+    public AttendanceFilterQuery(Map<String, Object> filterParams) {
+        if (filterParams.containsKey("studentId")) {
+            addCondition("AND a.student_id = ? ", filterParams.get("studentId"));
+        }
+        if (filterParams.containsKey("subjectCode")) {
+            addCondition("AND a.subject_code = ? ", filterParams.get("subjectCode"));
+        }
+        if (filterParams.containsKey("classId")) {
+            addCondition("AND se.class_id = ? ", filterParams.get("classId"));
+        }
+        if (filterParams.containsKey("semester")) {
+            addCondition("AND a.semester = ? ", filterParams.get("semester"));
+        }
+        if (filterParams.containsKey("academicYear")) {
+            addCondition("AND a.academic_year = ? ", filterParams.get("academicYear"));
+        }
+        Date fromDate = toDate(filterParams.get("fromDate"));
+        if (fromDate != null) {
+            addCondition("AND a.attendance_date >= ? ", fromDate);
+        }
+        Date toDate = toDate(filterParams.get("toDate"));
+        if (toDate != null) {
+            addCondition("AND a.attendance_date <= ? ", toDate);
+        }
+        Integer month = toMonth(filterParams.get("month"));
+        if (month != null) {
+            addCondition("AND EXTRACT(MONTH FROM a.attendance_date) = ? ", month);
+        }
+        if (filterParams.containsKey("status")) {
+            addCondition("AND a.status = ? ", filterParams.get("status"));
+        }
+        if (filterParams.containsKey("departmentId")) {
+            addCondition("AND EXISTS (SELECT 1 FROM Classes c WHERE c.class_id = se.class_id AND c.department_id = ?) ",
+                         filterParams.get("departmentId"));
+        }
+        if (filterParams.containsKey("teacherId")) {
+            addCondition("AND EXISTS (SELECT 1 FROM TeacherAssignments ta WHERE ta.subject_code = a.subject_code " +
+                         "AND ta.class_id = se.class_id AND ta.teacher_id = ?) ", filterParams.get("teacherId"));
+        }
+
+        Object thresholdValue = filterParams.get("threshold");
+        Object comparisonValue = filterParams.get("comparisonType");
+        if (thresholdValue instanceof Number && comparisonValue != null
+                && thresholdComparison((String) comparisonValue) != null) {
+            threshold = ((Number) thresholdValue).doubleValue();
+            comparisonType = (String) comparisonValue;
+        } else {
+            threshold = null;
+            comparisonType = null;
+        }
+    }
+
+    private void addCondition(String condition, Object value) {
+        conditions.append(condition);
+        params.add(value);
+    }
+
+    /**
+     * @return true if a percentage threshold restricts the rows to qualifying (student, subject) groups
+     */
+    public boolean hasThreshold() {
+        return threshold != null;
+    }
+
+    /**
+     * Return only one page of rows from queries built after this call
+     * @param limit Maximum number of rows
+     * @param cursor The previous page's cursor (see {@link #cursorOf}), or null for the first page
+     * @return this
+     * @throws IllegalArgumentException If the cursor is not valid
+     */
+    public AttendanceFilterQuery page(int limit, String cursor) {
+        String[] after = PageRequest.decodeCursor(cursor, 4);
+        Date date = null;
+        int classId = 0;
+        int studentId = 0;
+        if (after != null) {
+            try {
+                date = Date.valueOf(after[0]);
+                classId = Integer.parseInt(after[2]);
+                studentId = Integer.parseInt(after[3]);
+            } catch (IllegalArgumentException e) {
+                // Also covers NumberFormatException
+                throw new IllegalArgumentException("Invalid page cursor", e);
+            }
+        }
+        this.afterDate = date;
+        this.afterSubjectCode = after != null ? after[1] : null;
+        this.afterClassId = classId;
+        this.afterStudentId = studentId;
+        this.limit = Math.max(1, limit);
+        return this;
+    }
+
+    /**
+     * Cursor for the page after a row
+     * @return The cursor to pass to {@link #page} for the rows after this one
+     */
+    public static String cursorOf(LocalDate attendanceDate, String subjectCode, int classId, int studentId) {
+        return PageRequest.encodeCursor(attendanceDate, subjectCode, classId, studentId);
+    }
+
+    /**
+     * Build the full query
+     * @param columns Select list (using aliases a and se, plus any joined tables)
+     * @param joins Extra joins for lookups (e.g. "LEFT JOIN Users u ON u.user_id = a.student_id "), or ""
+     * @param applyThreshold Restrict to (student, subject) groups that meet the threshold, if one is set
+     * @return SQL ordered by date (newest first), subject, class and student
+     */
+    public String toSql(String columns, String joins, boolean applyThreshold) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(' ');
+        appendFromWhere(sql, joins, applyThreshold);
+
+        if (limit > 0 && afterDate != null) {
+            // After the last row in ORDER_BY order (date descending, the rest ascending);
+            // the plain date bound lets the planner use a date index range
+            sql.append("AND a.attendance_date <= ? AND (a.attendance_date < ? OR (a.attendance_date = ? ")
+               .append("AND (a.subject_code, se.class_id, a.student_id) > (?, ?, ?))) ");
+        }
+        sql.append(ORDER_BY);
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Build a query aggregating every filtered row, whatever page was requested
+     * @param columns Select list of aggregates (e.g. {@link #COUNT_COLUMNS}) and grouping columns
+     * @param groupBy Grouping columns (e.g. "a.student_id, a.subject_code"), or "" for one row
+     * @param applyThreshold Restrict to (student, subject) groups that meet the threshold, if one is set
+     * @return SQL to bind with {@link #bindConditions}
+     */
+    public String toAggregateSql(String columns, String groupBy, boolean applyThreshold) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(' ');
+        appendFromWhere(sql, "", applyThreshold);
+        if (!groupBy.isEmpty()) {
+            sql.append("GROUP BY ").append(groupBy);
+        }
+        return sql.toString();
+    }
+
+    private void appendFromWhere(StringBuilder sql, String joins, boolean applyThreshold) {
+        if (applyThreshold && hasThreshold()) {
+            // The filtered rows are read once; the window adds their group's percentage.
+            // Outside the subquery se only needs class_id, so it is taken from the row
+            // instead of joining StudentEnrollments again.
+            sql.append("FROM (SELECT a.*, se.class_id AS enrolled_class_id, ")
+               .append(GROUP_PERCENTAGE).append(" AS group_percentage ")
+               .append(FROM).append("WHERE 1=1 ").append(conditions)
+               .append("WINDOW w AS (PARTITION BY a.student_id, a.subject_code)) a ")
+               .append("CROSS JOIN LATERAL (SELECT a.enrolled_class_id AS class_id) se ")
+               .append(joins)
+               .append("WHERE ").append(thresholdComparison(comparisonType)).append(' ');
+        } else {
+            sql.append(FROM).append(joins)
+               .append("WHERE 1=1 ").append(conditions);
+        }
+    }
+
+    /**
+     * Bind the parameters of a query built with {@link #toSql}
+     */
+    public void bind(PreparedStatement stmt, boolean applyThreshold) throws SQLException {
+        int index = bindConditions(stmt, applyThreshold);
+        if (limit > 0) {
+            if (afterDate != null) {
+                stmt.setDate(index++, afterDate);
+                stmt.setDate(index++, afterDate);
+                stmt.setDate(index++, afterDate);
+                stmt.setString(index++, afterSubjectCode);
+                stmt.setInt(index++, afterClassId);
+                stmt.setInt(index++, afterStudentId);
+            }
+            stmt.setInt(index, limit);
+        }
+    }
+
+    /**
+     * Bind the filter (and threshold) parameters, e.g. of a query built with {@link #toAggregateSql}
+     * @return The index of the next parameter
+     */
+    public int bindConditions(PreparedStatement stmt, boolean applyThreshold) throws SQLException {
+        int index = 1;
+        for (Object param : params) {
+            setParameter(stmt, index++, param);
+        }
+        if (applyThreshold && hasThreshold()) {
+            stmt.setDouble(index++, threshold);
+        }
+        return index;
+    }
+
+    private static String thresholdComparison(String comparisonType) {
+        switch (comparisonType) {
+            case "below":
+                return "a.group_percentage < ?";
+            case "above":
+                return "a.group_percentage > ?";
+            case "equal":
+                // Allow small margin due to floating point
+                return "ABS(a.group_percentage - ?) < 0.01";
+            default:
+                return null;
+        }
+    }
+
+    private static void setParameter(PreparedStatement stmt, int index, Object param) throws SQLException {
+        if (param instanceof String) {
+            stmt.setString(index, (String) param);
+        } else if (param instanceof Integer) {
+            stmt.setInt(index, (Integer) param);
+        } else if (param instanceof Date) {
+            stmt.setDate(index, (Date) param);
+        } else if (param instanceof Double) {
+            stmt.setDouble(index, (Double) param);
+        } else if (param instanceof Boolean) {
+            stmt.setBoolean(index, (Boolean) param);
+        } else if (param == null) {
+            stmt.setNull(index, Types.VARCHAR);
+        } else {
+            stmt.setObject(index, param);
+        }
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Date.valueOf(LocalDate.parse((String) value));
+            } catch (Exception e) {
+                // Invalid date format, ignore
+            }
+        }
+        return null;
+    }
+
+    private static Integer toMonth(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            String month = ((String) value).trim();
+            try {
+                return Integer.parseInt(month);
+            } catch (NumberFormatException e) {
+                try {
+                    return Month.valueOf(month.toUpperCase()).getValue();
+                } catch (IllegalArgumentException ex) {
+                    // Unknown month name, ignore
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,517 @@
+package com.attendance.utils;
+
+import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.AttendanceRollupDao;
+import com.attendance.dao.StudentEnrollmentDao;
+import com.attendance.dao.SubjectDao;
+import com.attendance.dao.UserDao;
+import com.attendance.dao.impl.AttendanceDaoImpl;
+import com.attendance.dao.impl.AttendanceRollupDaoImpl;
+import com.attendance.dao.impl.StudentEnrollmentDaoImpl;
+import com.attendance.dao.impl.SubjectDaoImpl;
+import com.attendance.dao.impl.UserDaoImpl;
+import com.attendance.models.AttendanceImportResult;
+import com.attendance.models.User;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk attendance import from a CSV file or a biometric device log.
+ *
+ * The file is streamed: each row is validated against the (cached) users, subjects and
+ * active enrollments and written in COPY text format to a temporary staging table, so
+ * memory use does not depend on the file size. The staged rows are then merged into
+ * Attendance with one set-based upsert (AttendanceDao.mergeStaged) and the affected
+ * rollups are recomputed, all in a single transaction; a failed import writes nothing.
+ *
+ * The first row is a header; columns are matched by name (case-insensitive):
+ * <ul>
+ *   <li>student_id (or user_id) - required</li>
+ *   <li>subject_code (or subject) - required</li>
+ *   <li>attendance_date (or date, timestamp, punch_time) - required; yyyy-MM-dd, or an ISO
+ *       timestamp whose date part is used</li>
+ *   <li>status - optional; Present/Absent/On Leave (or P/A/L), default Present, so a
+ *       biometric punch log needs no status column</li>
+ *   <li>semester, academic_year - optional; default to the import options, then to the
+ *       student's active enrollment and the date's academic year</li>
+ * </ul>
+ * Rows that fail validation are rejected with their line number and reason; the rest
+ * are imported. An importer keeps per-import lookups, so create one for every import.
+ */
+public class AttendanceImporter {
+    private static final Logger LOGGER = Logger.getLogger(AttendanceImporter.class.getName());
+
+    private static final String STAGING_TABLE = "attendance_import_staging";
+    private static final String COPY_SQL = "COPY " + STAGING_TABLE +
+            " (line_no, student_id, subject_code, attendance_date, status, semester, academic_year) FROM STDIN";
+    private static final int COPY_CHUNK_BYTES = 256 * 1024;
+
+    /**
+     * Receives progress updates while an import runs
+     */
+    public interface ProgressListener {
+        void onProgress(AttendanceImportResult result);
+    }
+
+    private final AttendanceDao attendanceDao;
+    private final UserDao userDao;
+    private final SubjectDao subjectDao;
+    private final StudentEnrollmentDao enrollmentDao;
+    private final AttendanceRollupDao rollupDao = new AttendanceRollupDaoImpl();
+
+    private String semester;
+    private String academicYear;
+    private Integer markedBy;
+    private boolean dryRun;
+    private long maxRejects = AppSettings.getLong("IMPORT_MAX_REJECTS", -1);
+    private int progressInterval = AppSettings.getInt("IMPORT_PROGRESS_ROWS", 10000);
+    private ProgressListener progressListener;
+
+    // Per-import lookups, so that repeated (or unknown) keys do not hit the database again
+    private final Map<Integer, String> studentErrors = new HashMap<>();
+    private final Map<String, String> subjectErrors = new HashMap<>();
+    private final Map<String, Map<Integer, String>> activeSemesters = new HashMap<>();
+
+    public AttendanceImporter() {
+        this(Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl()), Metrics.timed(UserDao.class, new UserDaoImpl()),
+             new SubjectDaoImpl(), new StudentEnrollmentDaoImpl());
+    }
+
+    public AttendanceImporter(AttendanceDao attendanceDao, UserDao userDao, SubjectDao subjectDao,
+                              StudentEnrollmentDao enrollmentDao) {
+        this.attendanceDao = attendanceDao;
+        this.userDao = userDao;
+        this.subjectDao = subjectDao;
+        this.enrollmentDao = enrollmentDao;
+    }
+
+    /**
+     * @param semester Semester for rows without a semester column, or null to use the enrollment's
+     */
+    public void setSemester(String semester) {
+        this.semester = blankToNull(semester);
+    }
+
+    /**
+     * @param academicYear Academic year for rows without an academic_year column, or null to
+     *                     derive it from the attendance date
+     */
+    public void setAcademicYear(String academicYear) {
+        this.academicYear = blankToNull(academicYear);
+    }
+
+    /**
+     * @param markedBy ID of the user running the import, stored as marked_by_user_id on
+     *                 written records (null if unknown)
+     */
+    public void setMarkedBy(Integer markedBy) {
+        this.markedBy = markedBy;
+    }
+
+    /**
+     * @param dryRun Validate and merge, then roll back, to see what an import would do
+     */
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * @param maxRejects Abort the import once more rows than this are rejected (-1: no limit)
+     */
+    public void setMaxRejects(long maxRejects) {
+        this.maxRejects = maxRejects;
+    }
+
+    /**
+     * @param progressInterval Number of rows between progress updates
+     */
+    public void setProgressInterval(int progressInterval) {
+        this.progressInterval = Math.max(1, progressInterval);
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @return True if imports are rolled back after merging
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Import a file
+     * @param input The file contents; closed when the import ends
+     * @param result Created by the caller (see AttendanceImportResult), which may poll it
+     *               from another thread; the import's outcome, including a failure, is
+     *               recorded there
+     */
+    public void importCsv(Reader input, AttendanceImportResult result) {
+        result.setStartedAt(System.currentTimeMillis());
+        setPhase(result, AttendanceImportResult.Phase.STAGING);
+        Connection conn = null;
+
+        try (CsvReader csv = new CsvReader(input)) {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TEMP TABLE " + STAGING_TABLE + " (line_no BIGINT, student_id INTEGER, " +
+                             "subject_code VARCHAR(20), attendance_date DATE, status VARCHAR(20), " +
+                             "semester VARCHAR(10), academic_year VARCHAR(20)) ON COMMIT DROP");
+            }
+
+            stage(conn, csv, result);
+
+            setPhase(result, AttendanceImportResult.Phase.MERGING);
+            attendanceDao.mergeStaged(conn, STAGING_TABLE, markedBy, result);
+
+            if (dryRun) {
+                conn.rollback();
+            } else {
+                rollupDao.markChanged(conn);
+                conn.commit();
+            }
+            result.setFinishedAt(System.currentTimeMillis());
+            setPhase(result, AttendanceImportResult.Phase.COMPLETED);
+            LOGGER.info("Attendance import of " + result.getSource() + " finished in " +
+                        result.getElapsedMillis() + " ms: " + result);
+        } catch (SQLException | IOException e) {
+            rollbackQuietly(conn);
+            LOGGER.log(Level.SEVERE, "Attendance import of " + result.getSource() + " failed", e);
+            result.setErrorMessage(e.getMessage());
+            result.setFinishedAt(System.currentTimeMillis());
+            setPhase(result, AttendanceImportResult.Phase.FAILED);
+        } finally {
+            closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Validate the rows and stream the accepted ones into the staging table with COPY
+     */
+    private void stage(Connection conn, CsvReader csv, AttendanceImportResult result)
+            throws SQLException, IOException {
+        String[] header = csv.next();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        Columns columns = new Columns(header);
+
+        CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(COPY_CHUNK_BYTES + 1024);
+            StringBuilder row = new StringBuilder(128);
+            long read = 0;
+            long staged = 0;
+            String[] fields;
+
+            while ((fields = csv.next()) != null) {
+                read++;
+                long lineNumber = csv.getLineNumber();
+                row.setLength(0);
+                String error = toCopyRow(columns, fields, lineNumber, row);
+
+                if (error != null) {
+                    result.reject(lineNumber, error, String.join(",", fields));
+                    if (maxRejects >= 0 && result.getRowsRejected() > maxRejects) {
+                        throw new IOException("Aborted after " + result.getRowsRejected() + " rejected rows");
+                    }
+                } else {
+                    staged++;
+                    chunk.write(row.toString().getBytes(StandardCharsets.UTF_8));
+                    if (chunk.size() >= COPY_CHUNK_BYTES) {
+                        copyIn.writeToCopy(chunk.toByteArray(), 0, chunk.size());
+                        chunk.reset();
+                    }
+                }
+
+                if (read % progressInterval == 0) {
+                    result.setRowsRead(read);
+                    result.setRowsStaged(staged);
+                    notifyProgress(result);
+                }
+            }
+
+            if (chunk.size() > 0) {
+                copyIn.writeToCopy(chunk.toByteArray(), 0, chunk.size());
+            }
+            copyIn.endCopy();
+            result.setRowsRead(read);
+            result.setRowsStaged(staged);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Validate one row and append it to row in COPY text format
+     * @return The reason the row is rejected, or null if it was appended
+     */
+    private String toCopyRow(Columns columns, String[] fields, long lineNumber, StringBuilder row)
+            throws SQLException {
+        String studentValue = columns.get(fields, columns.studentId);
+        String subjectCode = columns.get(fields, columns.subjectCode);
+        String dateValue = columns.get(fields, columns.date);
+        if (studentValue == null || subjectCode == null || dateValue == null) {
+            return "Missing student ID, subject code or date";
+        }
+
+        int studentId;
+        try {
+            studentId = Integer.parseInt(studentValue);
+        } catch (NumberFormatException e) {
+            return "Invalid student ID: " + studentValue;
+        }
+        String error = validateStudent(studentId);
+        if (error != null) {
+            return error;
+        }
+        error = validateSubject(subjectCode);
+        if (error != null) {
+            return error;
+        }
+
+        LocalDate date = parseDate(dateValue);
+        if (date == null) {
+            return "Invalid date: " + dateValue;
+        }
+        if (date.isAfter(LocalDate.now())) {
+            return "Date is in the future: " + date;
+        }
+
+        String statusValue = columns.get(fields, columns.status);
+        String status = statusValue == null ? "Present" : normalizeStatus(statusValue);
+        if (status == null) {
+            return "Invalid status: " + statusValue;
+        }
+
+        String year = columns.get(fields, columns.academicYear);
+        if (year == null) {
+            year = academicYear != null ? academicYear : DateUtils.getAcademicYear(date);
+        }
+        Map<Integer, String> enrolled = activeSemesters.get(year);
+        if (enrolled == null) {
+            enrolled = enrollmentDao.findActiveSemesters(year);
+            activeSemesters.put(year, enrolled);
+        }
+        if (!enrolled.containsKey(studentId)) {
+            return "Student " + studentId + " has no active enrollment in " + year;
+        }
+
+        String rowSemester = columns.get(fields, columns.semester);
+        if (rowSemester == null) {
+            rowSemester = semester != null ? semester : enrolled.get(studentId);
+        }
+        if (rowSemester == null || rowSemester.length() > 10 || year.length() > 20) {
+            return "Invalid semester or academic year";
+        }
+
+        row.append(lineNumber).append('\t')
+           .append(studentId).append('\t');
+        appendCopyValue(row, subjectCode).append('\t')
+           .append(date).append('\t')
+           .append(status).append('\t');
+        appendCopyValue(row, rowSemester).append('\t');
+        appendCopyValue(row, year).append('\n');
+        return null;
+    }
+
+    private String validateStudent(int studentId) throws SQLException {
+        String error = studentErrors.get(studentId);
+        if (error == null) {
+            User user = userDao.findById(studentId);
+            if (user == null) {
+                error = "Unknown student: " + studentId;
+            } else if (!user.isStudent()) {
+                error = "User " + studentId + " is not a student";
+            } else {
+                error = "";
+            }
+            studentErrors.put(studentId, error);
+        }
+        return error.isEmpty() ? null : error;
+    }
+
+    private String validateSubject(String subjectCode) throws SQLException {
+        String error = subjectErrors.get(subjectCode);
+        if (error == null) {
+            error = subjectDao.findById(subjectCode) == null ? "Unknown subject: " + subjectCode : "";
+            subjectErrors.put(subjectCode, error);
+        }
+        return error.isEmpty() ? null : error;
+    }
+
+    /**
+     * Parse yyyy-MM-dd, or the date part of an ISO timestamp (yyyy-MM-ddTHH:mm:ss or
+     * yyyy-MM-dd HH:mm:ss) as written by biometric devices
+     */
+    private static LocalDate parseDate(String value) {
+        String datePart = value.length() > 10 && (value.charAt(10) == 'T' || value.charAt(10) == ' ')
+                ? value.substring(0, 10) : value;
+        try {
+            return LocalDate.parse(datePart);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String normalizeStatus(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "present":
+            case "p":
+                return "Present";
+            case "absent":
+            case "a":
+                return "Absent";
+            case "on leave":
+            case "leave":
+            case "l":
+                return "On Leave";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Append a value escaped for COPY text format
+     */
+    private static StringBuilder appendCopyValue(StringBuilder row, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+        return row;
+    }
+
+    private void setPhase(AttendanceImportResult result, AttendanceImportResult.Phase phase) {
+        result.setPhase(phase);
+        notifyProgress(result);
+    }
+
+    private void notifyProgress(AttendanceImportResult result) {
+        if (progressListener != null) {
+            progressListener.onProgress(result);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error rolling back attendance import", e);
+            }
+        }
+    }
+
+    private void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error closing connection", e);
+            }
+        }
+    }
+
+    /**
+     * Positions of the known columns in the header (-1 if absent)
+     */
+    private static class Columns {
+        int studentId = -1;
+        int subjectCode = -1;
+        int date = -1;
+        int status = -1;
+        int semester = -1;
+        int academicYear = -1;
+
+        Columns(String[] header) throws IOException {
+            for (int i = 0; i < header.length; i++) {
+                String name = header[i].trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+                // A UTF-8 byte order mark ends up in the first header name
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    name = name.substring(1);
+                }
+                switch (name) {
+                    case "student_id":
+                    case "user_id":
+                        studentId = i;
+                        break;
+                    case "subject_code":
+                    case "subject":
+                        subjectCode = i;
+                        break;
+                    case "attendance_date":
+                    case "date":
+                    case "timestamp":
+                    case "punch_time":
+                        date = i;
+                        break;
+                    case "status":
+                        status = i;
+                        break;
+                    case "semester":
+                        semester = i;
+                        break;
+                    case "academic_year":
+                        academicYear = i;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (studentId < 0 || subjectCode < 0 || date < 0) {
+                throw new IOException("The header must name student_id, subject_code and attendance_date columns");
+            }
+        }
+
+        /**
+         * @return The trimmed value, or null if the column is absent or the value blank
+         */
+        String get(String[] fields, int index) {
+            if (index < 0 || index >= fields.length) {
+                return null;
+            }
+            return blankToNull(fields[index]);
+        }
+    }
+}
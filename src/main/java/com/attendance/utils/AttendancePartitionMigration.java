@@ -0,0 +1,192 @@
+package com.attendance.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Optional migration that turns Attendance into a table range-partitioned by academic_year.
+ *
+ * Each partition holds one starting year: academic years such as "2024", "2024-25" and
+ * "2024-2025" all fall in [ '2024', '2025' ). Anything else goes to attendance_default.
+ * Primary and unique keys gain academic_year, as PostgreSQL requires the partition key
+ * in every unique constraint: the table is always unique on (student_id, subject_code,
+ * attendance_date, academic_year), and other unique indexes are not carried over.
+ *
+ * Enabled with DB_PARTITION_ATTENDANCE=true. Once applied, partitions for the current
+ * and next year are created on every startup.
+ */
+public class AttendancePartitionMigration implements MigrationRunner.Migration {
+    private static final Logger LOGGER = Logger.getLogger(AttendancePartitionMigration.class.getName());
+
+    private static final String OLD_TABLE = "attendance_unpartitioned";
+    private static final String DEFAULT_PARTITION = "attendance_default";
+
+    // The ON CONFLICT target of AttendanceDaoImpl on the partitioned table
+    static final String UPSERT_KEY = "student_id, subject_code, attendance_date, academic_year";
+    static final String UPSERT_KEY_NAME = "attendance_partitioned_student_subject_date_key";
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public String getDescription() {
+        return "partition attendance by academic year";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return AppSettings.getBoolean("DB_PARTITION_ATTENDANCE", false);
+    }
+
+    @Override
+    public void migrate(Connection conn) throws SQLException {
+        if (isPartitioned(conn)) {
+            LOGGER.info("Attendance is already partitioned");
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            // The upsert key is created up front, so duplicates would only fail the copy
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM (SELECT 1 FROM Attendance " +
+                    "GROUP BY " + UPSERT_KEY + " HAVING COUNT(*) > 1) d")) {
+                if (rs.next() && rs.getLong(1) > 0) {
+                    throw new SQLException("Attendance has " + rs.getLong(1) + " duplicated (" + UPSERT_KEY +
+                                           ") keys; remove them before partitioning");
+                }
+            }
+
+            // Remember what has to be recreated on the new table. Unique indexes cannot be:
+            // a partitioned table's unique keys must contain academic_year
+            List<String> indexDefinitions = queryStrings(conn,
+                    "SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i " +
+                    "WHERE i.indrelid = 'attendance'::regclass AND NOT i.indisunique " +
+                    "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)");
+            List<String> uniqueIndexes = queryStrings(conn,
+                    "SELECT i.indexrelid::regclass::text FROM pg_index i " +
+                    "WHERE i.indrelid = 'attendance'::regclass AND i.indisunique AND NOT i.indisprimary");
+            List<String> foreignKeys = queryStrings(conn,
+                    "SELECT pg_get_constraintdef(oid) FROM pg_constraint " +
+                    "WHERE conrelid = 'attendance'::regclass AND contype = 'f'");
+            List<String> sequences = queryStrings(conn,
+                    "SELECT pg_get_serial_sequence('attendance', 'attendance_id')");
+
+            stmt.execute("ALTER TABLE Attendance RENAME TO " + OLD_TABLE);
+            stmt.execute("CREATE TABLE Attendance (LIKE " + OLD_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+                         "PARTITION BY RANGE (academic_year)");
+            // Named explicitly: the old table still owns attendance_pkey until it is dropped
+            stmt.execute("ALTER TABLE Attendance ADD CONSTRAINT attendance_partitioned_pkey " +
+                         "PRIMARY KEY (attendance_id, academic_year)");
+            // Always created: AttendanceDaoImpl upserts with ON CONFLICT on this key, whether the
+            // old table had a unique constraint, a unique index (V6) or no key at all
+            stmt.execute("ALTER TABLE Attendance ADD CONSTRAINT " + UPSERT_KEY_NAME + " UNIQUE (" + UPSERT_KEY + ")");
+            for (String foreignKey : foreignKeys) {
+                stmt.execute("ALTER TABLE Attendance ADD " + foreignKey);
+            }
+            stmt.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF Attendance DEFAULT");
+
+            TreeSet<Integer> years = new TreeSet<>();
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT DISTINCT CAST(SUBSTRING(academic_year FROM '^[0-9]{4}') AS INTEGER) AS start_year " +
+                    "FROM " + OLD_TABLE + " WHERE academic_year ~ '^[0-9]{4}'")) {
+                while (rs.next()) {
+                    years.add(rs.getInt("start_year"));
+                }
+            }
+            int currentYear = Year.now().getValue();
+            years.add(currentYear);
+            years.add(currentYear + 1);
+            for (int year : years) {
+                createYearPartition(stmt, year);
+            }
+
+            int copied = stmt.executeUpdate("INSERT INTO Attendance SELECT * FROM " + OLD_TABLE);
+
+            // Keep the id sequence when the old table (its owner) is dropped
+            for (String sequence : sequences) {
+                if (sequence != null) {
+                    stmt.execute("ALTER SEQUENCE " + sequence + " OWNED BY Attendance.attendance_id");
+                }
+            }
+            stmt.execute("DROP TABLE " + OLD_TABLE);
+
+            for (String definition : indexDefinitions) {
+                stmt.execute(definition.replaceFirst(" ON (\\S+\\.)?attendance ", " ON Attendance "));
+            }
+            if (!uniqueIndexes.isEmpty()) {
+                LOGGER.info("Unique indexes " + uniqueIndexes + " were replaced by " + UPSERT_KEY_NAME);
+            }
+
+            LOGGER.info("Partitioned Attendance into " + years.size() + " yearly partitions (" + copied + " rows)");
+        }
+    }
+
+    @Override
+    public void afterStartup(Connection conn) throws SQLException {
+        if (!isPartitioned(conn)) {
+            return;
+        }
+        int currentYear = Year.now().getValue();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            createYearPartition(stmt, currentYear);
+            createYearPartition(stmt, currentYear + 1);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Create the partition for one starting year if it is missing, moving any matching
+     * rows out of the default partition first (attaching would fail otherwise)
+     */
+    private void createYearPartition(Statement stmt, int year) throws SQLException {
+        String partition = "attendance_" + year;
+        String from = "'" + year + "'";
+        String to = "'" + (year + 1) + "'";
+
+        try (ResultSet rs = stmt.executeQuery("SELECT to_regclass('" + partition + "') IS NOT NULL")) {
+            if (rs.next() && rs.getBoolean(1)) {
+                return;
+            }
+        }
+
+        String range = "academic_year >= " + from + " AND academic_year < " + to;
+        stmt.execute("CREATE TABLE " + partition + " (LIKE Attendance INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        stmt.executeUpdate("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range);
+        stmt.executeUpdate("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+        stmt.execute("ALTER TABLE Attendance ATTACH PARTITION " + partition +
+                     " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+        LOGGER.info("Created attendance partition " + partition);
+    }
+
+    private boolean isPartitioned(Connection conn) throws SQLException {
+        return !queryStrings(conn,
+                "SELECT c.relname FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+                "WHERE c.relname = 'attendance' AND c.relnamespace = current_schema()::regnamespace").isEmpty();
+    }
+
+    private List<String> queryStrings(Connection conn, String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                values.add(rs.getString(1));
+            }
+        }
+        return values;
+    }
+}
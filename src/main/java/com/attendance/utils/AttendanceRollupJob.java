@@ -0,0 +1,91 @@
+package com.attendance.utils;
+
+import com.attendance.dao.AttendanceRollupDao;
+import com.attendance.dao.impl.AttendanceRollupDaoImpl;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job that keeps the AttendanceRollup table consistent with Attendance.
+ *
+ * The rollups of existing attendance are built by migration V13; should the table be empty
+ * again (e.g. truncated by hand), the first run rebuilds it. Later runs reconcile any drift caused by
+ * writes that bypassed AttendanceDao. The interval is configured with
+ * ROLLUP_RECONCILE_INTERVAL_MINUTES (default 360).
+ */
+public class AttendanceRollupJob {
+    private static final Logger LOGGER = Logger.getLogger(AttendanceRollupJob.class.getName());
+
+    private final AttendanceRollupDao rollupDao;
+    private final long intervalMinutes;
+    private ScheduledExecutorService scheduler;
+
+    public AttendanceRollupJob() {
+        this(new AttendanceRollupDaoImpl(), AppSettings.getLong("ROLLUP_RECONCILE_INTERVAL_MINUTES", 360));
+    }
+
+    public AttendanceRollupJob(AttendanceRollupDao rollupDao, long intervalMinutes) {
+        this.rollupDao = rollupDao;
+        this.intervalMinutes = Math.max(1, intervalMinutes);
+    }
+
+    /**
+     * Start the job; the first run happens immediately
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "attendance-rollup-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, intervalMinutes, TimeUnit.MINUTES);
+        LOGGER.info("Attendance rollup job scheduled every " + intervalMinutes + " minutes");
+    }
+
+    /**
+     * Stop the job, waiting briefly for a running pass to finish
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Rebuild the rollups if they are empty, otherwise reconcile them
+     */
+    public void runOnce() {
+        try {
+            long start = System.currentTimeMillis();
+            if (rollupDao.isEmpty()) {
+                int rows = rollupDao.rebuild();
+                LOGGER.info("Attendance rollups rebuilt (" + rows + " rows) in " +
+                            (System.currentTimeMillis() - start) + " ms");
+            } else {
+                int corrected = rollupDao.reconcile();
+                LOGGER.info("Attendance rollups reconciled (" + corrected + " rows corrected) in " +
+                            (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Attendance rollup maintenance failed", e);
+        } catch (RuntimeException e) {
+            // Never let an unexpected failure cancel the scheduled task
+            LOGGER.log(Level.SEVERE, "Unexpected error in attendance rollup job", e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.attendance.utils;
+
+import com.attendance.dao.DepartmentDao;
+import com.attendance.dao.StudentEnrollmentDao;
+import com.attendance.dao.TeacherAssignmentDao;
+import com.attendance.dao.UserDao;
+import com.attendance.dao.impl.DepartmentDaoImpl;
+import com.attendance.dao.impl.StudentEnrollmentDaoImpl;
+import com.attendance.dao.impl.TeacherAssignmentDaoImpl;
+import com.attendance.dao.impl.UserDaoImpl;
+import com.attendance.models.AccessScope;
+import com.attendance.models.Department;
+import com.attendance.models.StudentEnrollment;
+import com.attendance.models.Subject;
+import com.attendance.models.TeacherAssignment;
+import com.attendance.models.User;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Permission checks for controllers and AuthenticationFilter, answered from each user's
+ * AccessScope. Scopes are loaded at login (or on first use) and cached in the "scopes"
+ * EntityCache; TeacherAssignmentDaoImpl, UserDaoImpl and DepartmentDaoImpl invalidate a
+ * user's scope when their assignments, role or department, or the departments they head,
+ * change.
+ */
+public class AuthorizationService {
+
+    // Scopes are immutable, so the cache need not copy them
+    static final EntityCache<Integer, AccessScope> SCOPE_CACHE =
+            EntityCache.create("scopes", AccessScope.class, UnaryOperator.identity());
+
+    // First path segment each role may open, e.g. "/hod" for "/hod/reports"; Admin may open all.
+    // "/api" serves the user's own data only, so the API servlets check the user themselves
+    private static final Map<String, Set<String>> ROLE_PATHS = new HashMap<>();
+
+    static {
+        ROLE_PATHS.put("Principal", paths("/principal", "/hod", "/teacher", "/student", "/api"));
+        ROLE_PATHS.put("HOD", paths("/hod", "/teacher", "/student", "/api"));
+        ROLE_PATHS.put("Teacher", paths("/teacher", "/student", "/api"));
+        ROLE_PATHS.put("Student", paths("/student", "/api"));
+    }
+
+    private final UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
+    private final TeacherAssignmentDao teacherAssignmentDao = new TeacherAssignmentDaoImpl();
+    private final DepartmentDao departmentDao = new DepartmentDaoImpl();
+    private final StudentEnrollmentDao studentEnrollmentDao = new StudentEnrollmentDaoImpl();
+
+    private static Set<String> paths(String... paths) {
+        Set<String> set = new HashSet<>();
+        Collections.addAll(set, paths);
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Drop a user's cached scope, after their assignments, role or department changed
+     * @param userId The user ID
+     */
+    public static void invalidate(int userId) {
+        SCOPE_CACHE.invalidate(userId);
+    }
+
+    /**
+     * Check if a role may open a URL, by the first segment of its path
+     * @param role The user's role
+     * @param path The servlet path, e.g. "/hod/reports"
+     * @return True if the role may open the path
+     */
+    public static boolean canAccessPath(String role, String path) {
+        if (role == null) {
+            return false;
+        }
+        if ("Admin".equals(role)) {
+            return true;
+        }
+        Set<String> allowed = ROLE_PATHS.get(role);
+        if (allowed == null || path == null) {
+            return false;
+        }
+        int end = path.indexOf('/', 1);
+        return allowed.contains(end < 0 ? path : path.substring(0, end));
+    }
+
+    /**
+     * Get a user's scope, loading it on first use
+     * @param user The user
+     * @return The scope
+     * @throws SQLException If a database error occurs
+     */
+    public AccessScope getScope(User user) throws SQLException {
+        return SCOPE_CACHE.get(user.getUserId(), id -> loadScope(user));
+    }
+
+    /**
+     * Get a user's scope by ID, loading it on first use
+     * @param userId The user ID
+     * @return The scope, or null if there is no such user
+     * @throws SQLException If a database error occurs
+     */
+    public AccessScope getScope(int userId) throws SQLException {
+        return SCOPE_CACHE.get(userId, id -> {
+            User user = userDao.findById(id);
+            return user != null ? loadScope(user) : null;
+        });
+    }
+
+    private AccessScope loadScope(User user) throws SQLException {
+        AccessScope.Builder builder = new AccessScope.Builder(user.getUserId(), user.getRole());
+        builder.department(user.getDepartmentId());
+
+        if ("HOD".equals(user.getRole())) {
+            for (Department department : departmentDao.findByHod(user.getUserId())) {
+                builder.department(department.getDepartmentId());
+            }
+        }
+        if ("Teacher".equals(user.getRole()) || "Class Teacher".equals(user.getRole())
+                || "HOD".equals(user.getRole())) {
+            for (TeacherAssignment assignment : teacherAssignmentDao.findByTeacherId(user.getUserId())) {
+                builder.assignment(assignment);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Check if a user may view a student's records: their own, anyone's for Admin and
+     * Principal, their department's for an HOD, and their classes' for a teacher
+     * @param viewer The signed-in user
+     * @param student The student
+     * @return True if allowed
+     * @throws SQLException If a database error occurs
+     */
+    public boolean canViewStudent(User viewer, User student) throws SQLException {
+        if (viewer == null || student == null) {
+            return false;
+        }
+        if (viewer.getUserId() == student.getUserId()) {
+            return true;
+        }
+        AccessScope scope = getScope(viewer);
+        if (scope.isInstitutionWide()) {
+            return true;
+        }
+        if (scope.isHod() && scope.hasDepartment(student.getDepartmentId())) {
+            return true;
+        }
+        if (scope.isTeacher() && !scope.getClassIds().isEmpty()) {
+            StudentEnrollment enrollment = studentEnrollmentDao.findCurrentEnrollment(student.getUserId());
+            return enrollment != null && scope.hasClass(enrollment.getClassId());
+        }
+        return false;
+    }
+
+    /**
+     * Check if a user may view a class: any for Admin and Principal, their department's
+     * for an HOD, and the ones they teach for a teacher
+     * @param viewer The signed-in user
+     * @param classObj The class
+     * @return True if allowed
+     * @throws SQLException If a database error occurs
+     */
+    public boolean canViewClass(User viewer, com.attendance.models.Class classObj) throws SQLException {
+        if (viewer == null || classObj == null) {
+            return false;
+        }
+        AccessScope scope = getScope(viewer);
+        return scope.isInstitutionWide()
+                || (scope.isHod() && scope.hasDepartment(classObj.getDepartmentId()))
+                || (scope.isTeacher() && scope.hasClass(classObj.getClassId()));
+    }
+
+    /**
+     * Check if a user may view a subject: any for Admin and Principal, their department's
+     * for an HOD, and the ones they teach for a teacher
+     * @param viewer The signed-in user
+     * @param subject The subject
+     * @return True if allowed
+     * @throws SQLException If a database error occurs
+     */
+    public boolean canViewSubject(User viewer, Subject subject) throws SQLException {
+        if (viewer == null || subject == null) {
+            return false;
+        }
+        AccessScope scope = getScope(viewer);
+        return scope.isInstitutionWide()
+                || (scope.isHod() && scope.hasDepartment(subject.getDepartmentId()))
+                || (scope.isTeacher() && scope.hasSubject(subject.getSubjectCode()));
+    }
+
+    /**
+     * Check if a teacher is assigned to teach a subject in a class
+     * @param teacher The signed-in user
+     * @param subjectCode The subject code
+     * @param classId The class ID
+     * @return True if assigned
+     * @throws SQLException If a database error occurs
+     */
+    public boolean teaches(User teacher, String subjectCode, int classId) throws SQLException {
+        return teacher != null && getScope(teacher).teaches(subjectCode, classId);
+    }
+
+    /**
+     * Check if a teacher is assigned to a subject in any class
+     * @param teacher The signed-in user
+     * @param subjectCode The subject code
+     * @return True if assigned
+     * @throws SQLException If a database error occurs
+     */
+    public boolean teachesSubject(User teacher, String subjectCode) throws SQLException {
+        return teacher != null && getScope(teacher).hasSubject(subjectCode);
+    }
+
+    /**
+     * Check if a teacher is assigned to a class (any subject, or as class teacher)
+     * @param teacher The signed-in user
+     * @param classId The class ID
+     * @return True if assigned
+     * @throws SQLException If a database error occurs
+     */
+    public boolean teachesClass(User teacher, int classId) throws SQLException {
+        return teacher != null && getScope(teacher).hasClass(classId);
+    }
+}
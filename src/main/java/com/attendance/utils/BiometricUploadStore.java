@@ -0,0 +1,338 @@
+package com.attendance.utils;
+
+import jakarta.servlet.http.Part;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Temporary disk storage for the camera images posted to the biometric pages, so that
+ * many uploads at once (say, a whole class at the start of a lecture) are held on disk
+ * rather than on the heap.
+ *
+ * A file part is moved into BIOMETRIC_UPLOAD_DIR with Part.write, which renames the
+ * container's own temporary file when the part was spooled to disk (so set the servlet's
+ * fileSizeThreshold to 0); a base64 form field (the data URL the pages post) is decoded
+ * while it streams into a FileChannel. Images are decoded from a read-only memory
+ * mapping of the file, at most BIOMETRIC_DECODE_CONCURRENCY at a time, and only if their
+ * header shows no more than FACE_MAX_IMAGE_PIXELS pixels.
+ *
+ * Each upload may take BIOMETRIC_UPLOAD_MAX_BYTES and all of them together
+ * BIOMETRIC_UPLOAD_MAX_TOTAL_BYTES; beyond that uploads are rejected until others are
+ * closed. Closing an upload deletes its file; uploads left open longer than
+ * BIOMETRIC_UPLOAD_TTL_SECONDS, and files left by an earlier run, are deleted by a
+ * background reaper (startReaper).
+ */
+public class BiometricUploadStore {
+    private static final Logger LOGGER = Logger.getLogger(BiometricUploadStore.class.getName());
+
+    private static final String FILE_PREFIX = "upload-";
+
+    // A data URL header ("data:image/jpeg;base64,") is looked for in this many leading bytes
+    private static final int MAX_DATA_URL_HEADER = 128;
+
+    private static BiometricUploadStore instance;
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final long maxTotalBytes;
+    private final long maxPixels;
+    private final long ttlMillis;
+    private final Semaphore decodePermits;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final Map<Path, Upload> uploads = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reaper;
+
+    /**
+     * Get the singleton instance
+     * @return The BiometricUploadStore instance
+     */
+    public static synchronized BiometricUploadStore getInstance() {
+        if (instance == null) {
+            instance = new BiometricUploadStore();
+        }
+        return instance;
+    }
+
+    private BiometricUploadStore() {
+        this(Paths.get(AppSettings.getString("BIOMETRIC_UPLOAD_DIR",
+                        Paths.get(System.getProperty("java.io.tmpdir"), "biometric-uploads").toString())),
+                AppSettings.getLong("BIOMETRIC_UPLOAD_MAX_BYTES", 10L * 1024 * 1024),
+                AppSettings.getLong("BIOMETRIC_UPLOAD_MAX_TOTAL_BYTES", 256L * 1024 * 1024),
+                AppSettings.getLong("FACE_MAX_IMAGE_PIXELS", 16_000_000L),
+                AppSettings.getLong("BIOMETRIC_UPLOAD_TTL_SECONDS", 600) * 1000,
+                AppSettings.getInt("BIOMETRIC_DECODE_CONCURRENCY", Runtime.getRuntime().availableProcessors()));
+    }
+
+    BiometricUploadStore(Path directory, long maxFileBytes, long maxTotalBytes, long maxPixels,
+                         long ttlMillis, int decodeConcurrency) {
+        this.directory = directory;
+        this.maxFileBytes = Math.max(1, maxFileBytes);
+        this.maxTotalBytes = Math.max(this.maxFileBytes, maxTotalBytes);
+        this.maxPixels = Math.max(1, maxPixels);
+        this.ttlMillis = Math.max(1000, ttlMillis);
+        this.decodePermits = new Semaphore(Math.max(1, decodeConcurrency), true);
+    }
+
+    /**
+     * An image held in the store until closed
+     */
+    public final class Upload implements AutoCloseable {
+        private final Path file;
+        private final long reserved;
+        private final long createdAt = System.currentTimeMillis();
+        private boolean closed;
+
+        private Upload(Path file, long reserved) {
+            this.file = file;
+            this.reserved = reserved;
+        }
+
+        public Path getPath() {
+            return file;
+        }
+
+        /**
+         * @return The size of the stored image in bytes
+         */
+        public long getSize() throws IOException {
+            return Files.size(file);
+        }
+
+        /**
+         * Decode the image
+         * @return The image in grayscale
+         * @throws IOException If it is not a supported image or is too large
+         */
+        public GrayImage decode() throws IOException {
+            return BiometricUploadStore.this.decode(file);
+        }
+
+        /**
+         * Delete the file and give its space back to the store
+         */
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            uploads.remove(file);
+            reservedBytes.addAndGet(-reserved);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error deleting upload " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Store an uploaded image: a file part as it is, or a form field holding the image
+     * in base64 (with or without a data URL header)
+     * @param part The part
+     * @return The upload; close it when done
+     * @throws UploadRejectedException If the image is too large or the store is full
+     * @throws IOException If the part cannot be read or stored
+     */
+    public Upload receive(Part part) throws IOException {
+        boolean isFile = part.getSubmittedFileName() != null;
+        // base64 takes 4 characters for every 3 bytes
+        long size = isFile ? part.getSize() : part.getSize() / 4 * 3 + 3;
+        Upload upload = reserve(size);
+        try {
+            if (isFile) {
+                // Moves the container's temporary file when the part is on disk
+                part.write(upload.file.toString());
+            } else {
+                try (InputStream in = part.getInputStream()) {
+                    writeBase64(in, upload.file, size);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            upload.close();
+            throw e;
+        } finally {
+            part.delete();
+        }
+        return upload;
+    }
+
+    /**
+     * Decode an image file, e.g. one received by this store
+     * @param file The image file
+     * @return The image in grayscale
+     * @throws IOException If the file cannot be read, is not a supported image or is too large
+     */
+    public GrayImage decode(Path file) throws IOException {
+        try {
+            decodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to decode an image", e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping outlives the channel until it is garbage collected; its pages are
+            // the file's page cache, not heap
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return GrayImage.read(buffer, maxPixels);
+        } finally {
+            decodePermits.release();
+        }
+    }
+
+    /**
+     * @return Bytes taken by the uploads not yet closed
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * Start deleting expired uploads in the background; files left in the directory by
+     * an earlier run are deleted on the first pass
+     */
+    public synchronized void startReaper() {
+        if (reaper != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Cannot create biometric upload directory " + directory, e);
+        }
+        long intervalMillis = Math.max(1000, ttlMillis / 4);
+        reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "biometric-upload-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleWithFixedDelay(this::reap, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Biometric upload reaper scheduled every " + intervalMillis / 1000 + " seconds for " + directory);
+    }
+
+    public synchronized void stopReaper() {
+        if (reaper == null) {
+            return;
+        }
+        reaper.shutdownNow();
+        reaper = null;
+    }
+
+    /**
+     * Close the uploads that outlived the TTL and delete files no upload owns
+     * @return Number of files deleted
+     */
+    public int reap() {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        int deleted = 0;
+        for (Upload upload : uploads.values()) {
+            if (upload.createdAt < cutoff) {
+                upload.close();
+                deleted++;
+            }
+        }
+        if (!Files.isDirectory(directory)) {
+            return deleted;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                try {
+                    if (!uploads.containsKey(file) && Files.getLastModifiedTime(file).toMillis() < cutoff
+                            && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Error deleting stale upload " + file, e);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error scanning biometric upload directory " + directory, e);
+        }
+        if (deleted > 0) {
+            LOGGER.info("Deleted " + deleted + " expired biometric uploads");
+        }
+        return deleted;
+    }
+
+    /**
+     * Reserve space for an upload and name its file
+     */
+    private Upload reserve(long size) throws IOException {
+        if (size > maxFileBytes) {
+            throw new UploadRejectedException("The image is too large (at most " + maxFileBytes / 1024 + " KB)", false);
+        }
+        long total;
+        do {
+            total = reservedBytes.get();
+            if (total + size > maxTotalBytes) {
+                throw new UploadRejectedException("Too many images are being processed; please try again shortly",
+                        true);
+            }
+        } while (!reservedBytes.compareAndSet(total, total + size));
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(FILE_PREFIX + UUID.randomUUID() + ".img");
+        Upload upload = new Upload(file, size);
+        uploads.put(file, upload);
+        return upload;
+    }
+
+    /**
+     * Decode base64 while it streams into the file, through the channel's own buffer
+     */
+    private void writeBase64(InputStream in, Path file, long maxBytes) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, MAX_DATA_URL_HEADER);
+        byte[] head = new byte[MAX_DATA_URL_HEADER];
+        int length = pushback.readNBytes(head, 0, head.length);
+        int start = 0;
+        if (new String(head, 0, Math.min(length, 5), StandardCharsets.US_ASCII).equals("data:")) {
+            for (int i = 0; i < length; i++) {
+                if (head[i] == ',') {
+                    start = i + 1;
+                    break;
+                }
+            }
+        }
+        pushback.unread(head, start, length - start);
+
+        try (ReadableByteChannel source = Channels.newChannel(Base64.getMimeDecoder().wrap(pushback));
+             FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (true) {
+                long written = target.transferFrom(source, position, maxBytes - position + 1);
+                if (written == 0) {
+                    break;
+                }
+                position += written;
+                if (position > maxBytes) {
+                    throw new UploadRejectedException("The image is larger than it claimed", false);
+                }
+            }
+        }
+    }
+}
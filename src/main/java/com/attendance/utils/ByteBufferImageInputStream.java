@@ -0,0 +1,48 @@
+package com.attendance.utils;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An ImageInputStream over a ByteBuffer, e.g. a memory-mapped upload, so an image
+ * reader decodes straight from the buffer instead of from a copy of it on the heap
+ */
+final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferImageInputStream(ByteBuffer buffer) {
+        // Absolute reads only, so the caller's position and limit are left alone
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        bitOffset = 0;
+        return buffer.get((int) streamPos++) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        bitOffset = 0;
+        int count = (int) Math.min(len, buffer.limit() - streamPos);
+        buffer.get((int) streamPos, b, off, count);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return buffer.limit();
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.attendance.utils;
+
+import com.attendance.models.FaceRegion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Recognizes the students of one class in classroom photos, one frame at a time
+ * (see FaceRecognitionService.newClassroomRecognizer). Each frame's faces are embedded
+ * and compared with the registered faces of the class only, in parallel on the face
+ * detection pool; then, within the frame, faces and students are paired greedily from
+ * the most similar pair down, so no face counts for two students nor two faces for one.
+ * A student is recognized once paired at FACE_MATCH_MIN_SIMILARITY or above in any
+ * frame. Only the best similarities are kept between frames, so memory does not grow
+ * with the number of frames. Not thread-safe: one per photo set.
+ */
+public final class ClassroomRecognizer {
+
+    private final HaarFaceDetector detector;
+    private final FaceIndex roster;
+    private final int[] rosterIds;
+    private final Map<Integer, Integer> indexOfStudent = new HashMap<>();
+    private final float minSimilarity;
+
+    // Best similarity of any face to each registered student, and of the faces paired with them
+    private final float[] bestSimilarity;
+    private final float[] pairedSimilarity;
+
+    private int frameCount;
+    private int faceCount;
+    private int unmatchedFaceCount;
+
+    ClassroomRecognizer(HaarFaceDetector detector, FaceIndex roster, float minSimilarity) {
+        this.detector = detector;
+        this.roster = roster;
+        this.rosterIds = roster.userIds();
+        for (int i = 0; i < rosterIds.length; i++) {
+            indexOfStudent.put(rosterIds[i], i);
+        }
+        this.minSimilarity = minSimilarity;
+        this.bestSimilarity = new float[rosterIds.length];
+        this.pairedSimilarity = new float[rosterIds.length];
+        Arrays.fill(bestSimilarity, -1);
+        Arrays.fill(pairedSimilarity, -1);
+    }
+
+    /**
+     * Recognize the faces in one frame
+     * @param frame The frame; not kept
+     * @return Number of faces found in the frame
+     */
+    public int addFrame(GrayImage frame) {
+        frameCount++;
+        List<FaceRegion> faces = detector.detect(frame);
+        faceCount += faces.size();
+        if (faces.isEmpty()) {
+            return 0;
+        }
+        if (rosterIds.length == 0) {
+            unmatchedFaceCount += faces.size();
+            return faces.size();
+        }
+
+        float[][] similarities = score(frame, faces);
+
+        // Every (face, student) pair at or above the threshold, most similar first
+        List<long[]> pairs = new ArrayList<>();
+        for (int face = 0; face < similarities.length; face++) {
+            for (int student = 0; student < rosterIds.length; student++) {
+                float similarity = similarities[face][student];
+                bestSimilarity[student] = Math.max(bestSimilarity[student], similarity);
+                if (similarity >= minSimilarity) {
+                    pairs.add(new long[] {Float.floatToRawIntBits(similarity), face, student});
+                }
+            }
+        }
+        // Similarities are non-negative, so their float bits sort like the values
+        pairs.sort((a, b) -> Long.compare(b[0], a[0]));
+
+        boolean[] faceTaken = new boolean[faces.size()];
+        boolean[] studentTaken = new boolean[rosterIds.length];
+        int paired = 0;
+        for (long[] pair : pairs) {
+            int face = (int) pair[1];
+            int student = (int) pair[2];
+            if (faceTaken[face] || studentTaken[student]) {
+                continue;
+            }
+            faceTaken[face] = true;
+            studentTaken[student] = true;
+            paired++;
+            pairedSimilarity[student] = Math.max(pairedSimilarity[student], Float.intBitsToFloat((int) pair[0]));
+        }
+        unmatchedFaceCount += faces.size() - paired;
+        return faces.size();
+    }
+
+    /**
+     * @return The similarity of each face to each registered student of the class
+     */
+    private float[][] score(GrayImage frame, List<FaceRegion> faces) {
+        List<Callable<float[]>> tasks = new ArrayList<>(faces.size());
+        for (FaceRegion face : faces) {
+            tasks.add(() -> roster.similarities(FaceEmbedder.embed(
+                    frame.crop(face.getX(), face.getY(), face.getWidth(), face.getHeight()))));
+        }
+        float[][] similarities = new float[faces.size()][];
+        List<Future<float[]>> results = HaarFaceDetector.POOL.invokeAll(tasks);
+        try {
+            for (int i = 0; i < similarities.length; i++) {
+                similarities[i] = results.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while matching faces", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error matching faces", e.getCause());
+        }
+        return similarities;
+    }
+
+    /**
+     * @param studentId The student ID
+     * @return True if the student has a registered face, so could be recognized
+     */
+    public boolean isRegistered(int studentId) {
+        return indexOf(studentId) >= 0;
+    }
+
+    /**
+     * @param studentId The student ID
+     * @return True if the student was recognized in any frame
+     */
+    public boolean isRecognized(int studentId) {
+        int index = indexOf(studentId);
+        return index >= 0 && pairedSimilarity[index] >= minSimilarity;
+    }
+
+    /**
+     * @param studentId The student ID
+     * @return How confident the recognition is, from 0 to 1: the similarity of the face
+     *         paired with the student, or if none, of the face most like the student's;
+     *         -1 for a student without a registered face
+     */
+    public float getConfidence(int studentId) {
+        int index = indexOf(studentId);
+        if (index < 0) {
+            return -1;
+        }
+        return pairedSimilarity[index] >= 0 ? pairedSimilarity[index] : Math.max(0, bestSimilarity[index]);
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getFaceCount() {
+        return faceCount;
+    }
+
+    /**
+     * @return Faces not paired with any student, e.g. visitors or unregistered students
+     */
+    public int getUnmatchedFaceCount() {
+        return unmatchedFaceCount;
+    }
+
+    private int indexOf(int studentId) {
+        return indexOfStudent.getOrDefault(studentId, -1);
+    }
+}
@@ -0,0 +1,630 @@
+package com.attendance.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool used behind {@link DatabaseConnection}.
+ *
+ * Connections handed out by the pool are proxies: calling close() on them
+ * returns the underlying physical connection to the pool instead of closing
+ * the socket, so existing try-with-resources code keeps working unchanged.
+ *
+ * The pool supports a minimum and maximum size, validation on borrow,
+ * eviction of idle connections, leak detection for connections held too long
+ * and simple metrics (wait time, active and idle counts).
+ */
+public class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Opens new physical connections for the pool
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+    private final long leakThresholdMillis;
+    private final boolean captureBorrowTrace;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+
+    // Idle connections, most recently returned first (keeps warm connections in use)
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    // Connections currently handed out to callers
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+
+    private int totalConnections = 0;
+    private int pendingCreates = 0;
+    private volatile boolean closed = false;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    /**
+     * Create a new connection pool
+     * @param name Pool name used in logs and metrics
+     * @param factory Factory used to open physical connections
+     * @param minSize Minimum number of connections kept open
+     * @param maxSize Maximum number of connections (idle + borrowed)
+     * @param borrowTimeoutMillis Maximum time to wait for a free connection
+     * @param idleTimeoutMillis Idle time after which surplus connections are closed
+     * @param validationIntervalMillis Connections idle longer than this are validated on borrow
+     * @param leakThresholdMillis Borrow time after which a connection is reported as leaked (0 disables)
+     */
+    public ConnectionPool(String name, ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis,
+                          long validationIntervalMillis, long leakThresholdMillis) {
+        this(name, factory, minSize, maxSize, borrowTimeoutMillis, idleTimeoutMillis,
+             validationIntervalMillis, leakThresholdMillis, false);
+    }
+
+    /**
+     * Create a new connection pool
+     * @param name Pool name used in logs and metrics
+     * @param factory Factory used to open physical connections
+     * @param minSize Minimum number of connections kept open
+     * @param maxSize Maximum number of connections (idle + borrowed)
+     * @param borrowTimeoutMillis Maximum time to wait for a free connection
+     * @param idleTimeoutMillis Idle time after which surplus connections are closed
+     * @param validationIntervalMillis Connections idle longer than this are validated on borrow
+     * @param leakThresholdMillis Borrow time after which a connection is reported as leaked (0 disables)
+     * @param captureBorrowTrace Record the borrower's stack on every borrow so leak reports show
+     *                           where the connection was taken (costly, meant for debugging)
+     */
+    public ConnectionPool(String name, ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis,
+                          long validationIntervalMillis, long leakThresholdMillis,
+                          boolean captureBorrowTrace) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool max size must be at least 1");
+        }
+        this.name = name;
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.validationTimeoutSeconds = 5;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.captureBorrowTrace = captureBorrowTrace && leakThresholdMillis > 0;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-" + name + "-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, Math.min(30000L, idleTimeoutMillis / 2));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        LOGGER.info("Connection pool '" + name + "' created (min=" + this.minSize + ", max=" + maxSize + ")");
+    }
+
+    /**
+     * Borrow a connection from the pool, waiting up to the borrow timeout if the pool is exhausted
+     * @return A pooled connection; closing it returns it to the pool
+     * @throws SQLException If no connection could be obtained
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledEntry entry = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool '" + name + "' is closed");
+                    }
+                    entry = idle.pollFirst();
+                    if (entry != null) {
+                        break;
+                    }
+                    if (totalConnections + pendingCreates < maxSize) {
+                        pendingCreates++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                                               " ms waiting for a connection from pool '" + name +
+                                               "' (active=" + borrowed.size() + ", max=" + maxSize + ")");
+                    }
+                    try {
+                        connectionAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                entry = createEntry();
+            } else if (!validate(entry)) {
+                destroy(entry);
+                continue;
+            }
+
+            recordWait(System.nanoTime() - start);
+            return checkOut(entry);
+        }
+    }
+
+    /**
+     * Close every connection and stop the housekeeping thread.
+     * Connections still borrowed are closed as well.
+     */
+    public void shutdown() {
+        List<PooledEntry> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose.addAll(idle);
+            idle.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+
+        List<PooledEntry> stillBorrowed = new ArrayList<>(borrowed);
+        LOGGER.info("Shutting down connection pool '" + name + "': " +
+                    (toClose.size() + stillBorrowed.size()) + " connections to close");
+        for (PooledEntry entry : toClose) {
+            destroy(entry);
+        }
+        // Whoever removes a borrowed entry owns it: a caller closing its proxy
+        // concurrently either destroys it itself or finds it already gone
+        for (PooledEntry entry : stillBorrowed) {
+            if (borrowed.remove(entry)) {
+                destroy(entry);
+            }
+        }
+    }
+
+    /**
+     * @return true if the pool has been shut down
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return Pool name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Number of connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return Number of idle connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of physical connections currently open
+     */
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of threads waiting for a connection
+     */
+    public int getWaitingThreads() {
+        lock.lock();
+        try {
+            return lock.getWaitQueueLength(connectionAvailable);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Total number of successful borrows
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * @return Average time spent waiting for a connection in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0.0 : totalWaitNanos.get() / (double) count / 1_000_000.0;
+    }
+
+    /**
+     * @return Longest time spent waiting for a connection in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Get a snapshot of the pool metrics
+     * @return Map of metric name to value
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("minSize", minSize);
+        stats.put("maxSize", maxSize);
+        stats.put("activeConnections", getActiveConnections());
+        stats.put("idleConnections", getIdleConnections());
+        stats.put("totalConnections", getTotalConnections());
+        stats.put("waitingThreads", getWaitingThreads());
+        stats.put("borrowCount", borrowCount.get());
+        stats.put("averageWaitMillis", getAverageWaitMillis());
+        stats.put("maxWaitMillis", getMaxWaitMillis());
+        stats.put("timeouts", timeoutCount.get());
+        stats.put("connectionsCreated", createdCount.get());
+        stats.put("connectionsDestroyed", destroyedCount.get());
+        stats.put("validationFailures", validationFailures.get());
+        stats.put("leaksDetected", leaksDetected.get());
+        return stats;
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        Connection physical;
+        try {
+            physical = factory.create();
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                pendingCreates--;
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            pendingCreates--;
+            totalConnections++;
+        } finally {
+            lock.unlock();
+        }
+        createdCount.incrementAndGet();
+        LOGGER.fine("Opened new physical connection for pool '" + name + "'");
+        return new PooledEntry(physical);
+    }
+
+    private boolean validate(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsedAt < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            if (entry.physical.isValid(validationTimeoutSeconds)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Connection validation failed", e);
+        }
+        validationFailures.incrementAndGet();
+        LOGGER.warning("Discarding invalid connection from pool '" + name + "'");
+        return false;
+    }
+
+    private Connection checkOut(PooledEntry entry) {
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.borrowThread = Thread.currentThread().getName();
+        entry.borrowTrace = captureBorrowTrace ? new Throwable("Connection borrowed here") : null;
+        entry.leakReported = false;
+        borrowed.add(entry);
+        borrowCount.incrementAndGet();
+
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PooledConnectionHandler(entry));
+    }
+
+    private void checkIn(PooledEntry entry) {
+        if (!borrowed.remove(entry)) {
+            // Already closed by shutdown()
+            return;
+        }
+        entry.borrowTrace = null;
+
+        boolean reusable = !closed && resetState(entry);
+        if (entry.leakReported) {
+            LOGGER.info("Previously reported leaked connection was returned to pool '" + name + "' after " +
+                        (System.currentTimeMillis() - entry.borrowedAt) + " ms");
+        }
+
+        if (reusable) {
+            entry.lastUsedAt = System.currentTimeMillis();
+            lock.lock();
+            try {
+                if (!closed) {
+                    idle.addFirst(entry);
+                    connectionAvailable.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        destroy(entry);
+    }
+
+    // Undo per-borrow state changes so the next borrower sees a clean connection
+    private boolean resetState(PooledEntry entry) {
+        try {
+            Connection conn = entry.physical;
+            if (conn.isClosed()) {
+                return false;
+            }
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            if (conn.isReadOnly()) {
+                conn.setReadOnly(false);
+            }
+            conn.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error resetting pooled connection, discarding it", e);
+            return false;
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing physical connection", e);
+        }
+        destroyedCount.incrementAndGet();
+
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Periodic maintenance: evict surplus idle connections, top the pool up to
+     * its minimum size and report connections that have been borrowed too long.
+     */
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillToMinimum();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error during connection pool housekeeping", e);
+        }
+    }
+
+    private void evictIdle() {
+        List<PooledEntry> evicted = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            int surplus = totalConnections - minSize;
+            // Oldest idle connections are at the tail of the deque
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && surplus > 0) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastUsedAt > idleTimeoutMillis) {
+                    it.remove();
+                    evicted.add(entry);
+                    surplus--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledEntry entry : evicted) {
+            destroy(entry);
+        }
+        if (!evicted.isEmpty()) {
+            LOGGER.fine("Evicted " + evicted.size() + " idle connections from pool '" + name + "'");
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed) {
+            lock.lock();
+            try {
+                if (totalConnections + pendingCreates >= minSize) {
+                    return;
+                }
+                pendingCreates++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledEntry entry;
+            try {
+                entry = createEntry();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Could not open connection to maintain minimum size of pool '" + name + "'", e);
+                return;
+            }
+
+            entry.lastUsedAt = System.currentTimeMillis();
+            lock.lock();
+            try {
+                if (!closed) {
+                    idle.addLast(entry);
+                    connectionAvailable.signal();
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+            destroy(entry);
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakThresholdMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledEntry entry : borrowed) {
+            if (!entry.leakReported && now - entry.borrowedAt > leakThresholdMillis) {
+                entry.leakReported = true;
+                leaksDetected.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Possible connection leak in pool '" + name + "': connection borrowed by thread '" +
+                           entry.borrowThread + "' has not been returned after " + (now - entry.borrowedAt) + " ms",
+                           entry.borrowTrace);
+            }
+        }
+    }
+
+    /**
+     * A physical connection together with its pool bookkeeping
+     */
+    private static final class PooledEntry {
+        final Connection physical;
+        volatile long lastUsedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile String borrowThread;
+        volatile Throwable borrowTrace;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+    }
+
+    /**
+     * Proxy handler for borrowed connections; close() hands the connection back to the pool
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean logicallyClosed = false;
+
+        PooledConnectionHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+
+            switch (methodName) {
+                case "close":
+                    synchronized (this) {
+                        if (logicallyClosed) {
+                            return null;
+                        }
+                        logicallyClosed = true;
+                    }
+                    checkIn(entry);
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + "]" + (logicallyClosed ? " (closed)" : "");
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                default:
+                    if (logicallyClosed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
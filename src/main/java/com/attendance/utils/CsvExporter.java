@@ -0,0 +1,174 @@
+package com.attendance.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a query result to the client as CSV.
+ *
+ * Rows are read through a forward-only cursor (EXPORT_FETCH_SIZE rows per round trip,
+ * default 1000) and written straight to the response, which is flushed every
+ * EXPORT_FLUSH_ROWS rows (default 5000) so the container sends it in chunks; memory use
+ * does not depend on the number of rows. The body is gzip-compressed when the client
+ * accepts it, unless EXPORT_GZIP=false.
+ */
+public class CsvExporter {
+    private static final Logger LOGGER = Logger.getLogger(CsvExporter.class.getName());
+
+    /**
+     * Binds the parameters of the export query
+     */
+    public interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private final int fetchSize;
+    private final int flushRows;
+    private final boolean gzipEnabled;
+
+    public CsvExporter() {
+        this(AppSettings.getInt("EXPORT_FETCH_SIZE", 1000),
+             AppSettings.getInt("EXPORT_FLUSH_ROWS", 5000),
+             AppSettings.getBoolean("EXPORT_GZIP", true));
+    }
+
+    public CsvExporter(int fetchSize, int flushRows, boolean gzipEnabled) {
+        this.fetchSize = Math.max(1, fetchSize);
+        this.flushRows = Math.max(1, flushRows);
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    /**
+     * Run a query and stream every row as a CSV line, columns in select-list order
+     * @param request The request (for Accept-Encoding)
+     * @param response The response to write to
+     * @param fileName Download file name
+     * @param headers CSV header row
+     * @param sql The query
+     * @param binder Sets the query parameters
+     * @return Number of rows written
+     * @throws SQLException If the query fails; when thrown before any output the response
+     *         is still uncommitted, so the caller can redirect or send an error
+     * @throws IOException If writing to the client fails (e.g. the download was cancelled)
+     */
+    public long export(HttpServletRequest request, HttpServletResponse response, String fileName,
+                       String[] headers, String sql, ParameterBinder binder) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // The driver only uses a cursor (fetchSize) inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(fetchSize);
+                binder.bind(stmt);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    boolean gzip = gzipEnabled && acceptsGzip(request);
+                    response.setContentType("text/csv; charset=UTF-8");
+                    response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+                    response.setHeader("Cache-Control", "no-store");
+                    if (gzip) {
+                        response.setHeader("Content-Encoding", "gzip");
+                        response.setHeader("Vary", "Accept-Encoding");
+                    }
+
+                    OutputStream out = response.getOutputStream();
+                    GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 8192, true) : null;
+                    Writer writer = new BufferedWriter(
+                            new OutputStreamWriter(gzip ? gzipOut : out, StandardCharsets.UTF_8), 16384);
+
+                    writeRow(writer, headers);
+                    int columns = rs.getMetaData().getColumnCount();
+                    String[] values = new String[columns];
+                    while (rs.next()) {
+                        for (int i = 0; i < columns; i++) {
+                            values[i] = rs.getString(i + 1);
+                        }
+                        writeRow(writer, values);
+                        if (++rows % flushRows == 0) {
+                            writer.flush();
+                        }
+                    }
+
+                    writer.flush();
+                    if (gzipOut != null) {
+                        gzipOut.finish();
+                    }
+                    out.flush();
+                }
+            } finally {
+                try {
+                    conn.rollback();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error ending export transaction", e);
+                }
+            }
+        }
+
+        LOGGER.info("Exported " + rows + " rows to " + fileName + " in " + (System.currentTimeMillis() - start) + " ms");
+        return rows;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static void writeRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(writer, values[i]);
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Write a value, quoting it if it contains a comma, quote or line break
+     */
+    private static void writeValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        boolean needsQuoting = false;
+        for (int i = 0; i < value.length() && !needsQuoting; i++) {
+            char c = value.charAt(i);
+            needsQuoting = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!needsQuoting) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
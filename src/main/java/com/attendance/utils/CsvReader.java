@@ -0,0 +1,126 @@
+package com.attendance.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV parser (RFC 4180: comma separated, fields optionally quoted with
+ * doubled quotes inside, CRLF or LF line ends). Records are read one at a time, so
+ * memory use does not depend on the size of the input.
+ */
+public class CsvReader implements Closeable {
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long lineNumber = 1;
+    private long recordLine;
+
+    /**
+     * @param reader The input; wrap it in a BufferedReader only if it is not buffered already
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next record
+     * @return The fields, or null at the end of the input
+     * @throws IOException If reading fails or a quoted field is not terminated
+     */
+    public String[] next() throws IOException {
+        int c = read();
+        // Skip blank lines
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                lineNumber++;
+            }
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+
+        recordLine = lineNumber;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                fields.add(field.toString());
+                if (c == '\r') {
+                    c = read();
+                    if (c != '\n') {
+                        unread();
+                    }
+                }
+                if (c == '\n') {
+                    lineNumber++;
+                }
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * @return Line number (1-based) on which the last record returned by {@link #next} starts
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread() {
+        // Only called right after a successful read(), so the character is still in the buffer
+        if (limit > 0) {
+            position--;
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package com.attendance.utils;
+
+import com.attendance.dao.AttendanceDao;
+import com.attendance.dao.ClassDao;
+import com.attendance.dao.DepartmentDao;
+import com.attendance.dao.StudentEnrollmentDao;
+import com.attendance.dao.SubjectDao;
+import com.attendance.dao.TeacherAssignmentDao;
+import com.attendance.dao.UserDao;
+import com.attendance.dao.impl.AttendanceDaoImpl;
+import com.attendance.dao.impl.ClassDaoImpl;
+import com.attendance.dao.impl.DepartmentDaoImpl;
+import com.attendance.dao.impl.StudentEnrollmentDaoImpl;
+import com.attendance.dao.impl.SubjectDaoImpl;
+import com.attendance.dao.impl.TeacherAssignmentDaoImpl;
+import com.attendance.dao.impl.UserDaoImpl;
+import com.attendance.models.Attendance;
+import com.attendance.models.AttendanceAggregate;
+import com.attendance.models.Department;
+import com.attendance.models.StudentEnrollment;
+import com.attendance.models.Subject;
+import com.attendance.models.TeacherAssignment;
+import com.attendance.models.User;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The parts of the reports dashboard, each loadable on its own: the dashboard page
+ * (FixedAttendanceReportController) loads all the widgets of the user's role into
+ * request attributes, and the JSON API (DashboardApiServlet) serves them one at a time.
+ * A widget's attributes keep the names the dashboard page has always used.
+ *
+ * The widgets of a dashboard are independent, so loadAll loads them concurrently on a
+ * small shared pool (DASHBOARD_LOADER_THREADS, kept well below DB_POOL_MAX_SIZE as each
+ * widget holds a connection while it runs) and waits at most DASHBOARD_DEADLINE_MS:
+ * the page then takes about as long as its slowest widget, and a widget that fails or
+ * is late is left out instead of failing the page. When the pool's queue
+ * (DASHBOARD_LOADER_QUEUE) is full, widgets are loaded on the request thread.
+ */
+public class DashboardWidgets {
+    private static final Logger LOGGER = Logger.getLogger(DashboardWidgets.class.getName());
+
+    private static final long DEADLINE_MILLIS = AppSettings.getLong("DASHBOARD_DEADLINE_MS", 5000L);
+
+    private static final ThreadPoolExecutor LOADER = createLoader();
+
+    /**
+     * A dashboard widget, with the roles whose dashboard shows it
+     */
+    public enum Widget {
+        USER_COUNTS("user-counts", true,
+                "Student", "Teacher", "Class Teacher", "HOD", "Principal", "Admin"),
+
+        STUDENT_SUMMARY("student-summary", false, "Student"),
+        STUDENT_SUBJECTS("student-subjects", false, "Student"),
+        STUDENT_CLASS("student-class", true, "Student"),
+        RECENT_ATTENDANCE("recent-attendance", false, "Student"),
+
+        TEACHER_ASSIGNMENTS("teacher-assignments", true, "Teacher", "Class Teacher"),
+        CLASS_ATTENDANCE("class-attendance", false, "Teacher", "Class Teacher"),
+        SUBJECT_ATTENDANCE("subject-attendance", false, "Teacher", "Class Teacher"),
+        WEEKLY_SUMMARY("weekly-summary", false, "Teacher", "Class Teacher"),
+
+        DEPARTMENT_SUMMARY("department-summary", true, "HOD"),
+        DEPARTMENT_CLASSES("department-classes", false, "HOD"),
+        DEPARTMENT_SUBJECTS("department-subjects", false, "HOD"),
+
+        INSTITUTION_SUMMARY("institution-summary", true, "Principal", "Admin"),
+        DEPARTMENT_ATTENDANCE("department-attendance", false, "Principal", "Admin"),
+        MONTHLY_TREND("monthly-trend", false, "Principal", "Admin");
+
+        private final String name;
+        private final boolean referenceData;
+        private final Set<String> roles;
+
+        Widget(String name, boolean referenceData, String... roles) {
+            this.name = name;
+            this.referenceData = referenceData;
+            this.roles = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(roles)));
+        }
+
+        /**
+         * @return The name used in API URLs, e.g. "student-summary"
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return True if the widget also shows data that does not change with attendance
+         *         (user counts, classes, assignments), so the attendance data version alone
+         *         does not tell whether it is current
+         */
+        public boolean isReferenceData() {
+            return referenceData;
+        }
+
+        public boolean isShownTo(String role) {
+            return roles.contains(role);
+        }
+
+        /**
+         * @param name The widget name
+         * @return The widget, or null if there is none by that name
+         */
+        public static Widget fromName(String name) {
+            for (Widget widget : values()) {
+                if (widget.name.equals(name)) {
+                    return widget;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param role The user's role
+         * @return The widgets of the role's dashboard, in display order
+         */
+        public static List<Widget> forRole(String role) {
+            List<Widget> widgets = new ArrayList<>();
+            for (Widget widget : values()) {
+                if (widget.isShownTo(role)) {
+                    widgets.add(widget);
+                }
+            }
+            return widgets;
+        }
+    }
+
+    /**
+     * Data shared by the widgets of one user's dashboard, loaded on first use, so that
+     * loading several widgets reads the enrollment or assignments once. Safe to share
+     * between threads loading widgets of the same dashboard.
+     */
+    public final class Context {
+        private final User user;
+        private StudentEnrollment enrollment;
+        private boolean enrollmentLoaded;
+        private List<TeacherAssignment> assignments;
+
+        private Context(User user) {
+            this.user = user;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        /**
+         * @return The student's most recent enrollment, or null if they have none
+         * @throws SQLException If a database error occurs
+         */
+        public synchronized StudentEnrollment getEnrollment() throws SQLException {
+            if (!enrollmentLoaded) {
+                List<StudentEnrollment> enrollments = studentEnrollmentDao.findByStudentId(user.getUserId());
+                enrollment = enrollments.isEmpty() ? null : enrollments.get(0);
+                enrollmentLoaded = true;
+            }
+            return enrollment;
+        }
+
+        /**
+         * @return The teacher's assignments
+         * @throws SQLException If a database error occurs
+         */
+        public synchronized List<TeacherAssignment> getAssignments() throws SQLException {
+            if (assignments == null) {
+                assignments = teacherAssignmentDao.findByTeacherId(user.getUserId());
+            }
+            return assignments;
+        }
+    }
+
+    /**
+     * The widgets of a dashboard that loaded in time, and the ones that did not
+     */
+    public static final class Loaded {
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private final List<Widget> unavailable = new ArrayList<>();
+
+        /**
+         * @return The attributes of every widget that loaded
+         */
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * @return The widgets that failed or missed the deadline
+         */
+        public List<Widget> getUnavailable() {
+            return unavailable;
+        }
+    }
+
+    private final AttendanceDao attendanceDao = Metrics.timed(AttendanceDao.class, new AttendanceDaoImpl());
+    private final UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
+    private final ClassDao classDao = new ClassDaoImpl();
+    private final SubjectDao subjectDao = new SubjectDaoImpl();
+    private final DepartmentDao departmentDao = new DepartmentDaoImpl();
+    private final TeacherAssignmentDao teacherAssignmentDao = new TeacherAssignmentDaoImpl();
+    private final StudentEnrollmentDao studentEnrollmentDao = new StudentEnrollmentDaoImpl();
+
+    private static ThreadPoolExecutor createLoader() {
+        int threads = Math.max(1, AppSettings.getInt("DASHBOARD_LOADER_THREADS", 8));
+        int queueSize = Math.max(1, AppSettings.getInt("DASHBOARD_LOADER_QUEUE", 64));
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "dashboard-loader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static void shutdown() {
+        LOADER.shutdownNow();
+    }
+
+    /**
+     * Get the current academic year
+     */
+    public static String getCurrentAcademicYear() {
+        return String.valueOf(java.time.Year.now().getValue());
+    }
+
+    /**
+     * Get the current semester based on the current month
+     */
+    public static String getCurrentSemester() {
+        int month = LocalDate.now().getMonthValue();
+
+        // This is a simplified logic; adapt to your institution's semester schedule
+        if (month >= 7 && month <= 12) {
+            return "Odd"; // First semester (July-December)
+        } else {
+            return "Even"; // Second semester (January-June)
+        }
+    }
+
+    /**
+     * Start loading the dashboard of a user
+     * @param user The signed-in user
+     * @return The context to load the user's widgets with
+     */
+    public Context newContext(User user) {
+        return new Context(user);
+    }
+
+    /**
+     * Load a widget
+     * @param widget The widget
+     * @param context The dashboard being loaded
+     * @return The widget's data by attribute name; empty if there is nothing to show
+     *         (e.g. a student without an enrollment)
+     * @throws SQLException If a database error occurs
+     */
+    public Map<String, Object> load(Widget widget, Context context) throws SQLException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        User user = context.getUser();
+
+        switch (widget) {
+            case USER_COUNTS:
+                data.put("userCount", userDao.countUsers());
+                data.put("activeUserCount", userDao.countUsersByStatus("Active"));
+                break;
+            case STUDENT_SUMMARY:
+                loadStudentSummary(context, data);
+                break;
+            case STUDENT_SUBJECTS:
+                loadStudentSubjects(context, data);
+                break;
+            case STUDENT_CLASS:
+                if (context.getEnrollment() != null) {
+                    data.put("studentClass", classDao.findById(context.getEnrollment().getClassId()));
+                }
+                break;
+            case RECENT_ATTENDANCE:
+                if (context.getEnrollment() != null) {
+                    List<Attendance> recentAttendance = attendanceDao.findRecentByStudent(user.getUserId(), 10);
+                    data.put("recentAttendance", recentAttendance);
+                }
+                break;
+            case TEACHER_ASSIGNMENTS:
+                data.put("assignments", context.getAssignments());
+                break;
+            case CLASS_ATTENDANCE:
+                loadClassAttendance(context, data);
+                break;
+            case SUBJECT_ATTENDANCE:
+                loadSubjectAttendance(context, data);
+                break;
+            case WEEKLY_SUMMARY:
+                // Attendance statistics for the last seven days
+                data.put("weeklySummary", attendanceDao.getWeeklyAttendanceSummary(user.getUserId()));
+                break;
+            case DEPARTMENT_SUMMARY:
+                loadDepartmentSummary(user, data);
+                break;
+            case DEPARTMENT_CLASSES:
+                loadDepartmentClasses(user, data);
+                break;
+            case DEPARTMENT_SUBJECTS:
+                loadDepartmentSubjects(user, data);
+                break;
+            case INSTITUTION_SUMMARY:
+                loadInstitutionSummary(data);
+                break;
+            case DEPARTMENT_ATTENDANCE:
+                loadDepartmentAttendance(data);
+                break;
+            case MONTHLY_TREND:
+                data.put("monthlyTrend", attendanceDao.getMonthlyAttendanceTrend(getCurrentAcademicYear()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown widget: " + widget);
+        }
+        return data;
+    }
+
+    /**
+     * Load several widgets of a dashboard concurrently, waiting at most DASHBOARD_DEADLINE_MS
+     * for all of them
+     * @param widgets The widgets
+     * @param context The dashboard being loaded
+     * @return The attributes of the widgets that loaded, in the order of the widgets
+     * @throws SQLException If no widget loaded because of a database error
+     */
+    public Loaded loadAll(List<Widget> widgets, Context context) throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEADLINE_MILLIS);
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        for (Widget widget : widgets) {
+            futures.add(LOADER.submit(() -> load(widget, context)));
+        }
+
+        Loaded loaded = new Loaded();
+        SQLException failure = null;
+        for (int i = 0; i < widgets.size(); i++) {
+            Widget widget = widgets.get(i);
+            Future<Map<String, Object>> future = futures.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                loaded.attributes.putAll(future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                LOGGER.warning("Dashboard widget " + widget.getName() + " missed the " +
+                               DEADLINE_MILLIS + " ms deadline for user " + context.getUser().getUserId());
+                loaded.unavailable.add(widget);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<Map<String, Object>> pending : futures) {
+                    pending.cancel(true);
+                }
+                loaded.unavailable.addAll(widgets.subList(i, widgets.size()));
+                break;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                LOGGER.log(Level.WARNING, "Error loading dashboard widget " + widget.getName(), cause);
+                if (cause instanceof SQLException && failure == null) {
+                    failure = (SQLException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                loaded.unavailable.add(widget);
+            }
+        }
+
+        if (failure != null && loaded.unavailable.size() == widgets.size()) {
+            throw failure;
+        }
+        return loaded;
+    }
+
+    private void loadStudentSummary(Context context, Map<String, Object> data) throws SQLException {
+        StudentEnrollment enrollment = context.getEnrollment();
+        if (enrollment == null) {
+            return;
+        }
+        int studentId = context.getUser().getUserId();
+
+        // Overall and current semester attendance from one grouped query
+        String currentSemester = getCurrentSemester();
+        List<AttendanceAggregate> semesterAggregates = attendanceDao.aggregatePercentages(
+                AttendanceAggregate.Scope.STUDENT, studentId,
+                AttendanceAggregate.GroupBy.SEMESTER,
+                aggregateFilters(enrollment.getAcademicYear(), null, null));
+
+        double overallAttendance =
+                AttendanceAggregate.combine(enrollment.getAcademicYear(), semesterAggregates).getPercentage();
+        double semesterAttendance = 0.0;
+        for (AttendanceAggregate aggregate : semesterAggregates) {
+            if (currentSemester.equals(aggregate.getGroupCode())) {
+                semesterAttendance = aggregate.getPercentage();
+            }
+        }
+
+        // Current month attendance
+        Map<Integer, Double> monthlyPercentages = attendanceDao.aggregatePercentagesById(
+                AttendanceAggregate.Scope.STUDENT, studentId,
+                AttendanceAggregate.GroupBy.MONTH,
+                aggregateFilters(enrollment.getAcademicYear(), currentSemester, null));
+        double monthlyAttendance = monthlyPercentages.getOrDefault(LocalDate.now().getMonthValue(), 0.0);
+
+        data.put("enrollment", enrollment);
+        data.put("overallAttendance", overallAttendance);
+        data.put("semesterAttendance", semesterAttendance);
+        data.put("monthlyAttendance", monthlyAttendance);
+    }
+
+    private void loadStudentSubjects(Context context, Map<String, Object> data) throws SQLException {
+        StudentEnrollment enrollment = context.getEnrollment();
+        if (enrollment == null) {
+            return;
+        }
+
+        // Subject-wise attendance in the current semester
+        Map<String, Double> subjectAttendance = new HashMap<>();
+        List<Subject> subjects = subjectDao.findByClassId(enrollment.getClassId());
+        Map<String, Double> subjectPercentages = attendanceDao.aggregatePercentagesByCode(
+                AttendanceAggregate.Scope.STUDENT, context.getUser().getUserId(),
+                AttendanceAggregate.GroupBy.SUBJECT,
+                aggregateFilters(enrollment.getAcademicYear(), getCurrentSemester(), null));
+
+        for (Subject subject : subjects) {
+            subjectAttendance.put(subject.getSubjectName(),
+                    subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
+        }
+
+        data.put("subjectAttendance", subjectAttendance);
+        data.put("subjects", subjects);
+    }
+
+    private void loadClassAttendance(Context context, Map<String, Object> data) throws SQLException {
+        Map<Integer, Double> classAttendance = new HashMap<>();
+
+        // Class attendance for class teacher
+        if ("Class Teacher".equals(context.getUser().getRole())) {
+            Set<Integer> classIds = new HashSet<>();
+            for (TeacherAssignment assignment : context.getAssignments()) {
+                if ("Class Teacher".equals(assignment.getAssignmentType())) {
+                    classIds.add(assignment.getClassId());
+                }
+            }
+
+            if (!classIds.isEmpty()) {
+                Map<String, Object> filters = aggregateFilters(getCurrentAcademicYear(), getCurrentSemester(), null);
+                filters.put("classIds", classIds);
+                Map<Integer, Double> percentages = attendanceDao.aggregatePercentagesById(
+                        AttendanceAggregate.Scope.INSTITUTION, null,
+                        AttendanceAggregate.GroupBy.CLASS, filters);
+                for (Integer classId : classIds) {
+                    classAttendance.put(classId, percentages.getOrDefault(classId, 0.0));
+                }
+            }
+        }
+
+        List<com.attendance.models.Class> classes = new ArrayList<>();
+        for (Integer classId : classAttendance.keySet()) {
+            classes.add(classDao.findById(classId));
+        }
+
+        data.put("classAttendance", classAttendance);
+        data.put("classes", classes);
+    }
+
+    private void loadSubjectAttendance(Context context, Map<String, Object> data) throws SQLException {
+        Map<String, Double> subjectAttendance = new HashMap<>();
+
+        Set<String> subjectCodes = new HashSet<>();
+        for (TeacherAssignment assignment : context.getAssignments()) {
+            subjectCodes.add(assignment.getSubjectCode());
+        }
+
+        if (!subjectCodes.isEmpty()) {
+            Map<String, Double> percentages =
+                    aggregateSubjectPercentages(subjectCodes, getCurrentAcademicYear(), getCurrentSemester());
+            for (String subjectCode : subjectCodes) {
+                subjectAttendance.put(subjectCode, percentages.getOrDefault(subjectCode, 0.0));
+            }
+        }
+
+        List<Subject> subjects = new ArrayList<>();
+        for (String subjectCode : subjectAttendance.keySet()) {
+            subjects.add(subjectDao.findByCode(subjectCode));
+        }
+
+        data.put("subjectAttendance", subjectAttendance);
+        data.put("subjects", subjects);
+    }
+
+    private void loadDepartmentSummary(User hod, Map<String, Object> data) throws SQLException {
+        int departmentId = hod.getDepartmentId();
+        Department department = departmentDao.findById(departmentId);
+
+        // Department statistics
+        int totalStudents = userDao.findByRoleAndDepartment("Student", departmentId).size();
+        int totalTeachers = userDao.findByRoleAndDepartment("Teacher", departmentId).size();
+        int totalClasses = classDao.findByDepartment(departmentId).size();
+
+        // Department attendance overview
+        double departmentAttendance =
+                attendanceDao.calculateDepartmentAttendancePercentage(
+                        departmentId,
+                        getCurrentAcademicYear(),
+                        getCurrentSemester(),
+                        null  // all months
+                );
+
+        data.put("department", department);
+        data.put("totalStudents", totalStudents);
+        data.put("totalTeachers", totalTeachers);
+        data.put("totalClasses", totalClasses);
+        data.put("departmentAttendance", departmentAttendance);
+    }
+
+    private void loadDepartmentClasses(User hod, Map<String, Object> data) throws SQLException {
+        int departmentId = hod.getDepartmentId();
+
+        // Class-wise attendance in the department
+        Map<Integer, Double> classAttendance = new HashMap<>();
+        List<com.attendance.models.Class> departmentClasses = classDao.findByDepartment(departmentId);
+        Map<Integer, Double> classPercentages = attendanceDao.aggregatePercentagesById(
+                AttendanceAggregate.Scope.DEPARTMENT, departmentId,
+                AttendanceAggregate.GroupBy.CLASS,
+                aggregateFilters(getCurrentAcademicYear(), getCurrentSemester(), null));
+
+        for (com.attendance.models.Class cls : departmentClasses) {
+            classAttendance.put(cls.getClassId(), classPercentages.getOrDefault(cls.getClassId(), 0.0));
+        }
+
+        data.put("classAttendance", classAttendance);
+        data.put("classes", departmentClasses);
+    }
+
+    private void loadDepartmentSubjects(User hod, Map<String, Object> data) throws SQLException {
+        int departmentId = hod.getDepartmentId();
+
+        // Subject-wise attendance in the department
+        Map<String, Double> subjectAttendance = new HashMap<>();
+        List<Subject> departmentSubjects = subjectDao.findByDepartment(departmentId);
+        List<String> subjectCodes = new ArrayList<>();
+        for (Subject subject : departmentSubjects) {
+            subjectCodes.add(subject.getSubjectCode());
+        }
+        Map<String, Double> subjectPercentages = aggregateSubjectPercentages(
+                subjectCodes, getCurrentAcademicYear(), getCurrentSemester());
+
+        for (Subject subject : departmentSubjects) {
+            subjectAttendance.put(subject.getSubjectCode(),
+                    subjectPercentages.getOrDefault(subject.getSubjectCode(), 0.0));
+        }
+
+        data.put("subjectAttendance", subjectAttendance);
+        data.put("subjects", departmentSubjects);
+    }
+
+    private void loadInstitutionSummary(Map<String, Object> data) throws SQLException {
+        // Institution-wide statistics
+        int totalStudents = userDao.findByRole("Student").size();
+        int totalTeachers = userDao.findByRole("Teacher").size();
+        int totalHods = userDao.findByRole("HOD").size();
+        int totalDepartments = departmentDao.findAll().size();
+
+        // Overall attendance statistics
+        double institutionAttendance =
+                attendanceDao.calculateInstitutionAttendancePercentage(
+                        getCurrentAcademicYear(),
+                        getCurrentSemester(),
+                        null  // all months
+                );
+
+        data.put("totalStudents", totalStudents);
+        data.put("totalTeachers", totalTeachers);
+        data.put("totalHods", totalHods);
+        data.put("totalDepartments", totalDepartments);
+        data.put("institutionAttendance", institutionAttendance);
+    }
+
+    private void loadDepartmentAttendance(Map<String, Object> data) throws SQLException {
+        // Department-wise attendance, in one query
+        Map<Integer, Double> departmentAttendance = new HashMap<>();
+        List<Department> allDepartments = departmentDao.findAll();
+        Map<Integer, Double> departmentPercentages = attendanceDao.aggregatePercentagesById(
+                AttendanceAggregate.Scope.INSTITUTION, null, AttendanceAggregate.GroupBy.DEPARTMENT,
+                aggregateFilters(getCurrentAcademicYear(), getCurrentSemester(), null));
+
+        for (Department dept : allDepartments) {
+            departmentAttendance.put(dept.getDepartmentId(),
+                    departmentPercentages.getOrDefault(dept.getDepartmentId(), 0.0));
+        }
+
+        data.put("departmentAttendance", departmentAttendance);
+        data.put("departments", allDepartments);
+    }
+
+    /**
+     * Build the filter map for an aggregation query; null values are ignored by the DAO
+     */
+    private Map<String, Object> aggregateFilters(String academicYear, String semester, String month) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("academicYear", academicYear);
+        filters.put("semester", semester);
+        filters.put("month", month);
+        return filters;
+    }
+
+    /**
+     * Overall attendance percentage for each of the given subjects, in one query
+     */
+    private Map<String, Double> aggregateSubjectPercentages(Collection<String> subjectCodes,
+            String academicYear, String semester) throws SQLException {
+        if (subjectCodes.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, Object> filters = aggregateFilters(academicYear, semester, null);
+        filters.put("subjectCodes", subjectCodes);
+        return attendanceDao.aggregatePercentagesByCode(
+                AttendanceAggregate.Scope.INSTITUTION, null, AttendanceAggregate.GroupBy.SUBJECT, filters);
+    }
+}
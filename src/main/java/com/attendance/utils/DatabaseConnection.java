@@ -3,28 +3,31 @@ package com.attendance.utils;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Utility class for obtaining database connections
+ * Utility class for obtaining database connections.
+ * Connections are served from a bounded {@link ConnectionPool}.
  */
 public class DatabaseConnection {
     
     private static final Logger LOGGER = Logger.getLogger(DatabaseConnection.class.getName());
     
-    // Environment variables for database connection
-    private static final String DB_URL = System.getenv("DATABASE_URL");
-    private static final String DB_HOST = System.getenv("PGHOST");
-    private static final String DB_PORT = System.getenv("PGPORT");
-    private static final String DB_NAME = System.getenv("PGDATABASE");
-    private static final String DB_USER = System.getenv("PGUSER");
-    private static final String DB_PASSWORD = System.getenv("PGPASSWORD");
+    // Database connection settings (environment variables, overridable by system properties)
+    private static final String DB_URL = AppSettings.getString("DATABASE_URL", null);
+    private static final String DB_HOST = AppSettings.getString("PGHOST", null);
+    private static final String DB_PORT = AppSettings.getString("PGPORT", null);
+    private static final String DB_NAME = AppSettings.getString("PGDATABASE", null);
+    private static final String DB_USER = AppSettings.getString("PGUSER", null);
+    private static final String DB_PASSWORD = AppSettings.getString("PGPASSWORD", null);
     
-    // Keep track of open connections for cleanup
-    private static final List<Connection> OPEN_CONNECTIONS = new ArrayList<>();
+    // Shared connection pool, created lazily on first use
+    private static volatile ConnectionPool pool;
+    
+    // Time to borrow a connection, including any wait for the pool
+    private static final LatencyHistogram ACQUIRE_TIMES = Metrics.timer("db_connection_acquire_duration_seconds",
+            "Time to get a connection from the pool").labels();
     
     static {
         try {
@@ -45,11 +48,52 @@ public class DatabaseConnection {
     }
     
     /**
-     * Get a database connection
+     * Get a database connection from the shared pool.
+     * Closing the returned connection hands it back to the pool.
      * @return A database connection
      * @throws SQLException If there's an error connecting to the database
      */
     public static Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return getPool().getConnection();
+        } finally {
+            ACQUIRE_TIMES.record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Get the shared connection pool, creating it on first use
+     * @return The connection pool
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null || current.isClosed()) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null || current.isClosed()) {
+                    current = new ConnectionPool("attendance",
+                            DatabaseConnection::openPhysicalConnection,
+                            AppSettings.getInt("DB_POOL_MIN_SIZE", 2),
+                            AppSettings.getInt("DB_POOL_MAX_SIZE", 20),
+                            AppSettings.getInt("DB_POOL_BORROW_TIMEOUT_MS", 30000),
+                            AppSettings.getInt("DB_POOL_IDLE_TIMEOUT_MS", 300000),
+                            AppSettings.getInt("DB_POOL_VALIDATION_INTERVAL_MS", 5000),
+                            AppSettings.getInt("DB_POOL_LEAK_THRESHOLD_MS", 60000),
+                            AppSettings.getBoolean("DB_POOL_LEAK_TRACE", false));
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Open a new physical connection (used by the pool only)
+     * @return A new physical database connection
+     * @throws SQLException If there's an error connecting to the database
+     */
+    private static Connection openPhysicalConnection() throws SQLException {
         Connection conn = null;
         
         // First, try using the full DATABASE_URL if available
@@ -88,7 +132,7 @@ public class DatabaseConnection {
                         
                         // Build JDBC URL without embedding credentials
                         jdbcUrl = "jdbc:postgresql://" + hostPart;
-                        LOGGER.info("Successfully parsed DATABASE_URL into JDBC format");
+                        LOGGER.fine("Successfully parsed DATABASE_URL into JDBC format");
                     } catch (Exception e) {
                         LOGGER.log(Level.WARNING, "Error parsing DATABASE_URL, will use as-is", e);
                         // Fall back to simple replacement if parsing fails
@@ -105,7 +149,7 @@ public class DatabaseConnection {
                 
                 // Log URL (without credentials)
                 String logUrl = jdbcUrl.replaceAll(":[^:@/]+@", ":****@");
-                LOGGER.info("Attempting to connect using DATABASE_URL: " + logUrl);
+                LOGGER.fine("Attempting to connect using DATABASE_URL: " + logUrl);
                 
                 // Connect with or without credentials
                 if (username != null && password != null) {
@@ -139,26 +183,17 @@ public class DatabaseConnection {
             throw new SQLException("No valid database connection information available");
         }
         
-        // Track this connection for cleanup
-        synchronized (OPEN_CONNECTIONS) {
-            OPEN_CONNECTIONS.add(conn);
-        }
-        
         return conn;
     }
     
     /**
-     * Close a database connection
+     * Close a database connection (returns pooled connections to the pool)
      * @param conn The connection to close
      */
     public static void closeConnection(Connection conn) {
         if (conn != null) {
             try {
                 conn.close();
-                // Remove from tracked connections
-                synchronized (OPEN_CONNECTIONS) {
-                    OPEN_CONNECTIONS.remove(conn);
-                }
                 LOGGER.fine("Database connection closed successfully");
             } catch (SQLException e) {
                 LOGGER.log(Level.WARNING, "Error closing database connection", e);
@@ -167,22 +202,16 @@ public class DatabaseConnection {
     }
     
     /**
-     * Close all open database connections
+     * Close all open database connections and shut down the pool
      * Used during application shutdown
      */
     public static void closeAllConnections() {
-        synchronized (OPEN_CONNECTIONS) {
-            LOGGER.info("Closing all open database connections: " + OPEN_CONNECTIONS.size() + " connections to close");
-            
-            // Create a copy to avoid concurrent modification
-            List<Connection> connectionsCopy = new ArrayList<>(OPEN_CONNECTIONS);
-            for (Connection conn : connectionsCopy) {
-                closeConnection(conn);
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
             }
-            
-            // Clear the list even if some failed to close
-            OPEN_CONNECTIONS.clear();
             LOGGER.info("All database connections have been closed");
         }
     }
-}
\ No newline at end of file
+}
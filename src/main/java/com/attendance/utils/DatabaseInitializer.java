@@ -108,6 +108,25 @@ public class DatabaseInitializer {
             "processed_on TIMESTAMP" +
             ")";
     
+    private static final String CREATE_ATTENDANCE_ROLLUP_TABLE = 
+            "CREATE TABLE IF NOT EXISTS AttendanceRollup (" +
+            "student_id INT NOT NULL," +
+            "subject_code VARCHAR(50) NOT NULL," +
+            "academic_year VARCHAR(20) NOT NULL," +
+            "semester VARCHAR(10) NOT NULL," +
+            "attendance_month SMALLINT NOT NULL," +
+            "present_count INT NOT NULL DEFAULT 0," +
+            "absent_count INT NOT NULL DEFAULT 0," +
+            "leave_count INT NOT NULL DEFAULT 0," +
+            "total_count INT NOT NULL DEFAULT 0," +
+            "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+            "PRIMARY KEY (student_id, subject_code, academic_year, semester, attendance_month)" +
+            ")";
+    
+    private static final String CREATE_ATTENDANCE_ROLLUP_INDEX = 
+            "CREATE INDEX IF NOT EXISTS idx_attendance_rollup_year_semester " +
+            "ON AttendanceRollup (academic_year, semester)";
+    
     /**
      * Initialize the database schema
      * 
@@ -154,6 +173,10 @@ public class DatabaseInitializer {
             LOGGER.info("Creating LeaveApplication table");
             stmt.executeUpdate(CREATE_LEAVE_APPLICATION_TABLE);
             
+            LOGGER.info("Creating AttendanceRollup table");
+            stmt.executeUpdate(CREATE_ATTENDANCE_ROLLUP_TABLE);
+            stmt.executeUpdate(CREATE_ATTENDANCE_ROLLUP_INDEX);
+            
             LOGGER.info("Database initialization completed successfully");
             return true;
             
@@ -177,11 +200,26 @@ public class DatabaseInitializer {
      * Initialize the database schema and create admin user
      */
     public static void initialize() {
-        if (initializeDatabase()) {
+        if (initializeDatabase() && runMigrations()) {
             createAdminUser();
         }
     }
     
+    /**
+     * Apply pending versioned migrations (see MigrationRunner)
+     * 
+     * @return true if successful, false otherwise
+     */
+    public static boolean runMigrations() {
+        try {
+            new MigrationRunner().migrate();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error applying database migrations", e);
+            return false;
+        }
+    }
+    
     /**
      * Create an admin user in the database
      * 
@@ -1,13 +1,25 @@
 package com.attendance.utils;
 
+import com.attendance.models.Attendance;
+import com.attendance.models.Notification;
 import com.attendance.models.User;
-import java.util.Properties;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Service for sending email notifications
- * Note: This is a placeholder implementation since JavaMail integration is not available
+ * Service for sending email notifications over SMTP (see {@link SmtpClient}).
+ *
+ * When SMTP_HOST is not configured messages are only logged. With SMTP_LOCAL_SERVER=true
+ * they go to the in-process {@link LocalSmtpServer} on localhost. Attendance notifications
+ * are not sent from here directly: they are enqueued in the NotificationOutbox and
+ * delivered by {@link NotificationOutboxWorker} through {@link #sendNotifications}.
  */
 public class EmailNotificationService {
     private static final Logger LOGGER = Logger.getLogger(EmailNotificationService.class.getName());
@@ -19,13 +31,13 @@ public class EmailNotificationService {
     private String smtpHost;
     private int smtpPort;
     private String senderEmail;
-    private String senderPassword;
+    private SmtpClient smtpClient;
     
     /**
      * Get the singleton instance
      * @return The EmailNotificationService instance
      */
-    public static EmailNotificationService getInstance() {
+    public static synchronized EmailNotificationService getInstance() {
         if (instance == null) {
             instance = new EmailNotificationService();
         }
@@ -36,21 +48,56 @@ public class EmailNotificationService {
      * Private constructor for singleton pattern
      */
     private EmailNotificationService() {
-        LOGGER.info("Initializing Email Notification Service (Placeholder)");
+        LOGGER.info("Initializing Email Notification Service");
         loadConfiguration();
     }
     
     /**
-     * Load email configuration
+     * Load email configuration from SMTP_HOST, SMTP_PORT, SMTP_FROM, SMTP_USERNAME,
+     * SMTP_PASSWORD, SMTP_SSL, SMTP_STARTTLS and SMTP_TIMEOUT_MS
      */
     private void loadConfiguration() {
-        // In a real implementation, these would be loaded from config or environment variables
-        smtpHost = "smtp.example.com";
-        smtpPort = 587;
-        senderEmail = "noreply@example.com";
-        senderPassword = "password";
+        boolean localServer = AppSettings.getBoolean("SMTP_LOCAL_SERVER", false);
+        smtpHost = AppSettings.getString("SMTP_HOST", localServer ? "localhost" : null);
+        smtpPort = AppSettings.getInt("SMTP_PORT", localServer ? 2525 : 25);
+        senderEmail = AppSettings.getString("SMTP_FROM", "noreply@example.com");
+        
+        if (smtpHost == null || smtpHost.isEmpty()) {
+            LOGGER.info("SMTP_HOST is not set; emails will only be logged");
+            return;
+        }
+        smtpClient = new SmtpClient(smtpHost, smtpPort,
+                AppSettings.getString("SMTP_USERNAME", null),
+                AppSettings.getString("SMTP_PASSWORD", null),
+                AppSettings.getBoolean("SMTP_SSL", false),
+                AppSettings.getBoolean("SMTP_STARTTLS", false),
+                AppSettings.getInt("SMTP_TIMEOUT_MS", 10000));
         
-        LOGGER.info("Email configuration loaded (Placeholder)");
+        LOGGER.info("Email configuration loaded: " + smtpHost + ":" + smtpPort);
+    }
+    
+    /**
+     * Deliver an email, reporting failures to the caller
+     * @param recipient The recipient email address (several may be separated by commas)
+     * @param subject The email subject
+     * @param body The email body
+     * @throws SmtpClient.SmtpException If the server rejects the message
+     * @throws IOException If the SMTP server cannot be reached
+     */
+    public void deliver(String recipient, String subject, String body) throws IOException {
+        List<String> recipients = new ArrayList<>();
+        for (String address : recipient.split(",")) {
+            if (!address.trim().isEmpty()) {
+                recipients.add(address.trim());
+            }
+        }
+        
+        if (smtpClient == null) {
+            LOGGER.info("Email to: " + recipients + " (not sent, SMTP_HOST is not set)");
+            LOGGER.info("Subject: " + subject);
+            return;
+        }
+        smtpClient.send(senderEmail, recipients, subject, body);
     }
     
     /**
@@ -61,12 +108,112 @@ public class EmailNotificationService {
      * @return True if email sent successfully, false otherwise
      */
     public boolean sendEmail(String recipient, String subject, String body) {
-        LOGGER.info("Sending email notification to: " + recipient + " (Placeholder)");
-        LOGGER.info("Subject: " + subject);
+        try {
+            deliver(recipient, subject, body);
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error sending email to: " + recipient, e);
+            return false;
+        }
+    }
+    
+    /**
+     * Send outbox notifications for one recipient as a single email; several
+     * notifications are combined into one message listing each of them
+     * @param email The recipient's email address
+     * @param name The recipient's name
+     * @param notifications The notifications, oldest first
+     * @throws IOException If the email cannot be sent
+     */
+    public void sendNotifications(String email, String name, List<Notification> notifications) throws IOException {
+        String subject;
+        StringBuilder body = new StringBuilder("Dear ").append(name).append(",\n\n");
         
-        // In a real implementation, this would create and send an actual email
+        if (notifications.size() == 1) {
+            subject = notifications.get(0).getSubject();
+            body.append(notifications.get(0).getMessage()).append("\n\n");
+        } else {
+            subject = "Attendance Updates (" + notifications.size() + ")";
+            body.append("The following attendance updates were recorded for you:\n\n");
+            for (Notification notification : notifications) {
+                body.append(notification.getMessage()).append("\n\n");
+            }
+        }
+        body.append("If you believe there is an error, please contact your teacher or administrator.\n\n")
+            .append("Regards,\nStudent Attendance Management System");
         
-        return true;
+        deliver(email, subject, body.toString());
+    }
+    
+    /**
+     * Build the outbox notification for newly marked attendance
+     * @param studentId The student ID
+     * @param subjectCode The subject code
+     * @param date The attendance date
+     * @param status The attendance status
+     * @return The notification
+     */
+    public static Notification attendanceMarked(int studentId, String subjectCode, Date date, String status) {
+        return new Notification(studentId, Notification.TYPE_ATTENDANCE_MARKED,
+                "Attendance Marked - " + status,
+                "Your attendance for " + subjectCode + " on " + date + " has been marked as '" + status + "'.");
+    }
+    
+    /**
+     * Build the daily digest notification for one student
+     * @param studentId The student ID
+     * @param periodStart First date of the period
+     * @param periodEnd Last date of the period
+     * @param records The student's attendance records in the period, by date
+     * @param lowAttendance Subjects (of those records) below the threshold, with the term percentage
+     * @param threshold The minimum required attendance percentage
+     * @return The notification
+     */
+    public static Notification attendanceDigest(int studentId, Date periodStart, Date periodEnd,
+                                                List<Attendance> records, Map<String, Double> lowAttendance,
+                                                double threshold) {
+        String period = periodStart.equals(periodEnd) ? periodStart.toString() : periodStart + " to " + periodEnd;
+        StringBuilder message = new StringBuilder("Your attendance for ").append(period).append(":\n");
+        
+        LocalDate currentDate = null;
+        for (Attendance record : records) {
+            if (!periodStart.equals(periodEnd) && !record.getAttendanceDate().equals(currentDate)) {
+                currentDate = record.getAttendanceDate();
+                message.append("\n").append(currentDate).append("\n");
+            }
+            message.append("  ").append(record.getSubjectCode()).append(": ").append(record.getStatus()).append("\n");
+        }
+        
+        String subject = "Attendance Summary - " + period;
+        if (!lowAttendance.isEmpty()) {
+            subject = "Low Attendance Warning - " + period;
+            message.append("\nYour attendance is below the required minimum of ")
+                   .append(String.format("%.0f", threshold)).append("% in:\n");
+            for (Map.Entry<String, Double> entry : lowAttendance.entrySet()) {
+                message.append("  ").append(entry.getKey()).append(": ")
+                       .append(String.format("%.1f", entry.getValue())).append("%\n");
+            }
+            message.append("Please ensure you attend classes regularly to avoid academic penalties.");
+        }
+        
+        return new Notification(studentId, Notification.TYPE_ATTENDANCE_DIGEST, subject, message.toString().trim());
+    }
+    
+    /**
+     * Build the outbox notification for a corrected attendance record
+     * @param studentId The student ID
+     * @param subjectCode The subject code
+     * @param date The attendance date
+     * @param previousStatus The status before the change
+     * @param status The new status
+     * @return The notification
+     */
+    public static Notification attendanceUpdated(int studentId, String subjectCode, Date date,
+                                                 String previousStatus, String status) {
+        return new Notification(studentId, Notification.TYPE_ATTENDANCE_UPDATED,
+                "Attendance Updated - " + status,
+                "Your attendance for " + subjectCode + " on " + date + " has been changed from '" +
+                previousStatus + "' to '" + status + "'.");
     }
     
     /**
@@ -0,0 +1,122 @@
+package com.attendance.utils;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache for reference data loaded by the DAOs (subjects, classes,
+ * departments, users).
+ *
+ * Caches are created by name with {@link #create}; the implementation comes from the
+ * installed {@link Factory} (by default a size-bounded LRU with a TTL, see
+ * {@link LruEntityCache}, or a pass-through when ENTITY_CACHE_ENABLED=false). The cache
+ * keeps its own copy of each entity and hands out copies (made by the copier given to
+ * create), so a caller may change an entity it got without affecting other callers;
+ * the DAO invalidates the entry when a change is written, whether or not it succeeds.
+ *
+ * @param <K> Type of key
+ * @param <V> Type of entity
+ */
+public interface EntityCache<K, V> {
+
+    /**
+     * Loads an entity that is not cached
+     */
+    interface Loader<K, V> {
+        /**
+         * @return The entity, or null if it does not exist (null is not cached)
+         */
+        V load(K key) throws SQLException;
+    }
+
+    /**
+     * Creates the cache for a name (e.g. "subjects")
+     */
+    interface Factory {
+        EntityCache<?, ?> create(String name, Class<?> entityType, UnaryOperator<?> copier);
+    }
+
+    /**
+     * Get an entity, loading and caching it on a miss
+     * @param key The key
+     * @param loader Loads the entity on a miss
+     * @return The entity, or null if the loader found none
+     * @throws SQLException If the loader fails
+     */
+    V get(K key, Loader<K, V> loader) throws SQLException;
+
+    /**
+     * Remove one entry (after it was changed or deleted)
+     */
+    void invalidate(K key);
+
+    /**
+     * Remove every entry
+     */
+    void invalidateAll();
+
+    String getName();
+
+    int size();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * @return Entries removed because the cache was full or they expired
+     */
+    long getEvictionCount();
+
+    /**
+     * Create and register a cache
+     * @param name Cache name; settings are read as ENTITY_CACHE_&lt;NAME&gt;_MAX_ENTRIES etc.
+     * @param entityType Type of entity (for the factory)
+     * @param copier Copies an entity, e.g. its copy constructor
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> EntityCache<K, V> create(String name, Class<V> entityType, UnaryOperator<V> copier) {
+        EntityCache<K, V> cache = (EntityCache<K, V>) Registry.factory.create(name, entityType, copier);
+        Registry.caches.put(name, cache);
+        return cache;
+    }
+
+    /**
+     * Replace the cache implementation for caches created afterwards (DAO caches are
+     * created when the DAO class is loaded, so install it at startup)
+     */
+    static void setFactory(Factory factory) {
+        Registry.factory = factory;
+    }
+
+    /**
+     * @return Every cache created so far, by name (for statistics)
+     */
+    static Map<String, EntityCache<?, ?>> all() {
+        return Collections.unmodifiableMap(Registry.caches);
+    }
+
+    /**
+     * Clear every cache (e.g. after data was changed outside the DAOs)
+     */
+    static void invalidateAllCaches() {
+        for (EntityCache<?, ?> cache : Registry.caches.values()) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Holder for the factory and the created caches
+     */
+    final class Registry {
+        private static final Map<String, EntityCache<?, ?>> caches = new ConcurrentHashMap<>();
+        private static volatile Factory factory =
+                (name, entityType, copier) -> LruEntityCache.fromSettings(name, copier);
+
+        private Registry() {
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.attendance.utils;
+
+import com.attendance.dao.UserDao;
+import com.attendance.dao.impl.UserDaoImpl;
+import com.attendance.models.User;
+import org.apache.catalina.Session;
+import org.apache.catalina.session.ManagerBase;
+import org.apache.catalina.session.StandardSession;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tomcat session manager that keeps sessions in a SessionStore instead of the JVM heap.
+ * A session is loaded from the store when a request needs it and written back as a
+ * compact SessionRecord when the last request using it ends, then dropped from memory.
+ * With a shared store (SESSION_STORE=jdbc) several instances can serve the same
+ * sessions without sticky load balancing.
+ *
+ * Only the attributes a SessionRecord can hold survive between requests: the signed-in
+ * user (by ID), role, department, attendance filter parameters and scalar attributes
+ * such as messages. Other attributes are dropped when the request ends.
+ */
+public class ExternalSessionManager extends ManagerBase {
+
+    private static final Logger LOGGER = Logger.getLogger(ExternalSessionManager.class.getName());
+
+    private static final String NAME = "ExternalSessionManager";
+
+    private static final String ATTR_USER = "user";
+    private static final String ATTR_USER_ID = "userId";
+    private static final String ATTR_USER_ROLE = "userRole";
+    private static final String ATTR_DEPARTMENT_ID = "departmentId";
+    private static final String ATTR_FILTER_PARAMS = "attendanceFilterParams";
+
+    private static final long PURGE_INTERVAL_MILLIS = 60_000L;
+
+    private final SessionStore store;
+    private final long touchIntervalMillis;
+    private final UserDao userDao = Metrics.timed(UserDao.class, new UserDaoImpl());
+    private long lastPurge;
+
+    /**
+     * @param store Where sessions are kept
+     * @param touchIntervalSeconds How long an unchanged session may go without its
+     *        last access time being written back
+     */
+    public ExternalSessionManager(SessionStore store, int touchIntervalSeconds) {
+        this.store = store;
+        this.touchIntervalMillis = touchIntervalSeconds * 1000L;
+    }
+
+    /**
+     * Create the manager configured by SESSION_STORE: "memory" or "jdbc", or "tomcat"
+     * (the default) to keep Tomcat's own in-memory sessions
+     * @return The manager, or null to keep Tomcat's default
+     */
+    public static ExternalSessionManager fromSettings() {
+        String type = AppSettings.getString("SESSION_STORE", "tomcat").trim().toLowerCase();
+        int touchInterval = AppSettings.getInt("SESSION_TOUCH_SECONDS", 60);
+        switch (type) {
+            case "memory":
+                LOGGER.info("Using in-memory session store");
+                return new ExternalSessionManager(new InMemorySessionStore(), touchInterval);
+            case "jdbc":
+                LOGGER.info("Using database session store");
+                return new ExternalSessionManager(new JdbcSessionStore(), touchInterval);
+            case "tomcat":
+                return null;
+            default:
+                LOGGER.warning("Unknown SESSION_STORE '" + type + "', using Tomcat sessions");
+                return null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected StandardSession getNewSession() {
+        return new ExternalSession(this);
+    }
+
+    @Override
+    public Session findSession(String id) throws IOException {
+        if (id == null) {
+            return null;
+        }
+        Session session = sessions.get(id);
+        if (session != null) {
+            return session;
+        }
+
+        byte[] data = store.load(id);
+        if (data == null) {
+            return null;
+        }
+        ExternalSession loaded = (ExternalSession) getNewSession();
+        loaded.restore(id, SessionRecord.decode(data));
+        Session existing = sessions.putIfAbsent(id, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    @Override
+    public void remove(Session session, boolean update) {
+        super.remove(session, update);
+        try {
+            store.remove(session.getIdInternal());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error removing session from store", e);
+        }
+    }
+
+    /**
+     * Sessions live in the store between requests, so instead of expiring local copies
+     * (another instance may have used the session since) drop the idle ones and let
+     * the store discard expired records
+     */
+    @Override
+    public void processExpires() {
+        for (Session session : findSessions()) {
+            ExternalSession externalSession = (ExternalSession) session;
+            if (!externalSession.isInUse()) {
+                sessions.remove(externalSession.getIdInternal(), externalSession);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastPurge >= PURGE_INTERVAL_MILLIS) {
+            lastPurge = now;
+            try {
+                int purged = store.purgeExpired();
+                if (purged > 0) {
+                    LOGGER.fine("Purged " + purged + " expired sessions");
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error purging expired sessions", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean willAttributeDistribute(String name, Object value) {
+        return true;
+    }
+
+    @Override
+    public void load() {
+        // Sessions are read from the store on demand
+    }
+
+    @Override
+    public void unload() {
+        // Sessions are written to the store at the end of each request
+    }
+
+    /**
+     * Write a session back to the store once no request is using it and drop it from
+     * memory. Unchanged sessions are only written when their stored expiry is due to
+     * be extended.
+     */
+    void release(ExternalSession session) {
+        String id = session.getIdInternal();
+        try {
+            if (!session.isValidInternal() || id == null) {
+                return;
+            }
+            SessionRecord record = session.toRecord();
+            long now = System.currentTimeMillis();
+            if (!record.sameContent(session.savedRecord)
+                    || now - session.savedRecord.getLastAccessedTime() >= touchIntervalMillis) {
+                store.save(id, record.encode(), expiresAt(record));
+                session.savedRecord = record;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error saving session to store", e);
+        } finally {
+            if (id != null && !session.isInUse()) {
+                sessions.remove(id, session);
+            }
+        }
+    }
+
+    private long expiresAt(SessionRecord record) {
+        if (record.getMaxInactiveInterval() <= 0) {
+            return Long.MAX_VALUE;
+        }
+        // Unchanged sessions are only rewritten every touch interval, so keep the record
+        // that much longer
+        return record.getLastAccessedTime() + record.getMaxInactiveInterval() * 1000L + touchIntervalMillis;
+    }
+
+    private User findUser(int userId) {
+        try {
+            return userDao.findById(userId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error loading user " + userId + " for session", e);
+            return null;
+        }
+    }
+
+    /**
+     * Session that tracks the requests using it, so it is written back when the last
+     * one ends
+     */
+    static class ExternalSession extends StandardSession {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient AtomicInteger inUse = new AtomicInteger();
+        private transient SessionRecord savedRecord;
+
+        ExternalSession(ExternalSessionManager manager) {
+            super(manager);
+        }
+
+        boolean isInUse() {
+            return inUse.get() > 0;
+        }
+
+        @Override
+        public void access() {
+            super.access();
+            inUse.incrementAndGet();
+        }
+
+        @Override
+        public void endAccess() {
+            super.endAccess();
+            if (inUse.decrementAndGet() <= 0) {
+                inUse.set(0);
+                ((ExternalSessionManager) manager).release(this);
+            }
+        }
+
+        @Override
+        protected boolean isValidInternal() {
+            return super.isValidInternal();
+        }
+
+        /**
+         * Set up the session from a stored record without firing session or attribute
+         * listeners (the session already exists, it was only out of memory)
+         */
+        void restore(String sessionId, SessionRecord record) {
+            this.id = sessionId;
+            this.creationTime = record.getCreationTime();
+            this.lastAccessedTime = record.getLastAccessedTime();
+            this.thisAccessedTime = record.getLastAccessedTime();
+            this.maxInactiveInterval = record.getMaxInactiveInterval();
+            this.isNew = false;
+            this.isValid = true;
+            this.savedRecord = record;
+
+            attributes.putAll(record.getAttributes());
+            if (record.getUserId() != null) {
+                attributes.put(ATTR_USER_ID, record.getUserId());
+                User user = ((ExternalSessionManager) manager).findUser(record.getUserId());
+                if (user != null) {
+                    attributes.put(ATTR_USER, user);
+                }
+            }
+            if (record.getRole() != null) {
+                attributes.put(ATTR_USER_ROLE, record.getRole());
+            }
+            if (record.getDepartmentId() != null) {
+                attributes.put(ATTR_DEPARTMENT_ID, record.getDepartmentId());
+            }
+            if (!record.getFilterParams().isEmpty()) {
+                attributes.put(ATTR_FILTER_PARAMS, new HashMap<>(record.getFilterParams()));
+            }
+        }
+
+        SessionRecord toRecord() {
+            SessionRecord record = new SessionRecord();
+            record.setCreationTime(creationTime);
+            record.setLastAccessedTime(lastAccessedTime);
+            record.setMaxInactiveInterval(maxInactiveInterval);
+
+            Object user = attributes.get(ATTR_USER);
+            Object userId = attributes.get(ATTR_USER_ID);
+            if (userId instanceof Integer) {
+                record.setUserId((Integer) userId);
+            } else if (user instanceof User) {
+                record.setUserId(((User) user).getUserId());
+            }
+            Object role = attributes.get(ATTR_USER_ROLE);
+            if (role instanceof String) {
+                record.setRole((String) role);
+            }
+            Object departmentId = attributes.get(ATTR_DEPARTMENT_ID);
+            if (departmentId instanceof Integer) {
+                record.setDepartmentId((Integer) departmentId);
+            }
+            Object filterParams = attributes.get(ATTR_FILTER_PARAMS);
+            if (filterParams instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) filterParams).entrySet()) {
+                    if (entry.getKey() instanceof String) {
+                        record.putFilterParam((String) entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            for (Enumeration<String> names = getAttributeNames(); names.hasMoreElements(); ) {
+                String name = names.nextElement();
+                if (ATTR_USER.equals(name) || ATTR_USER_ID.equals(name) || ATTR_USER_ROLE.equals(name)
+                        || ATTR_DEPARTMENT_ID.equals(name) || ATTR_FILTER_PARAMS.equals(name)) {
+                    continue;
+                }
+                if (!record.putAttribute(name, attributes.get(name))) {
+                    LOGGER.fine("Session attribute " + name + " is not kept in the session store");
+                }
+            }
+            return record;
+        }
+    }
+}
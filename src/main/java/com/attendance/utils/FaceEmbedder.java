@@ -0,0 +1,185 @@
+package com.attendance.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns a face, as cut out by HaarFaceDetector, into a fixed-length feature vector for
+ * FaceIndex: the face is scaled to FACE_SIZE pixels square and histogram-equalized, each
+ * pixel is coded by its local binary pattern (the signs of its 8 neighbours, with the
+ * 58 "uniform" patterns kept apart and the rest pooled), and the codes are counted per
+ * cell of a GRID x GRID grid. The concatenated histograms are square-rooted and scaled
+ * to unit length, so the dot product of two embeddings is their (Hellinger) similarity,
+ * 1 for identical faces.
+ *
+ * Embeddings are stored quantized to one byte per dimension; VERSION changes whenever
+ * the extractor does, since vectors of different versions cannot be compared.
+ */
+public final class FaceEmbedder {
+
+    public static final int VERSION = 1;
+
+    private static final int FACE_SIZE = 64;
+    private static final int GRID = 4;
+    private static final int CELL = FACE_SIZE / GRID;
+    private static final int BINS = 59;
+
+    public static final int DIMENSIONS = GRID * GRID * BINS;
+
+    // Version byte, float scale, then one byte per dimension
+    private static final int ENCODED_LENGTH = 1 + Float.BYTES + DIMENSIONS;
+
+    // LBP code (0-255) -> histogram bin: 0-57 for the uniform patterns, 58 for the rest
+    private static final byte[] UNIFORM_BIN = new byte[256];
+
+    static {
+        int next = 0;
+        for (int code = 0; code < 256; code++) {
+            // Bit transitions around the circle
+            int transitions = Integer.bitCount((code ^ ((code >> 1) | ((code & 1) << 7))) & 0xff);
+            UNIFORM_BIN[code] = (byte) (transitions <= 2 ? next++ : BINS - 1);
+        }
+    }
+
+    private FaceEmbedder() {
+    }
+
+    /**
+     * Compute the embedding of a face
+     * @param face The face, cropped to (roughly) its bounding box
+     * @return The unit-length embedding, DIMENSIONS long
+     */
+    public static float[] embed(GrayImage face) {
+        // One pixel of border, so every coded pixel has all its neighbours
+        int size = FACE_SIZE + 2;
+        byte[] pixels = equalize(face.resize(size, size).getPixels());
+
+        float[] histogram = new float[DIMENSIONS];
+        for (int y = 1; y <= FACE_SIZE; y++) {
+            int row = y * size;
+            int cellRow = (y - 1) / CELL * GRID;
+            for (int x = 1; x <= FACE_SIZE; x++) {
+                int at = row + x;
+                int center = pixels[at] & 0xff;
+                int code = 0;
+                if ((pixels[at - size - 1] & 0xff) >= center) code |= 1;
+                if ((pixels[at - size] & 0xff) >= center) code |= 2;
+                if ((pixels[at - size + 1] & 0xff) >= center) code |= 4;
+                if ((pixels[at + 1] & 0xff) >= center) code |= 8;
+                if ((pixels[at + size + 1] & 0xff) >= center) code |= 16;
+                if ((pixels[at + size] & 0xff) >= center) code |= 32;
+                if ((pixels[at + size - 1] & 0xff) >= center) code |= 64;
+                if ((pixels[at - 1] & 0xff) >= center) code |= 128;
+                int cell = cellRow + (x - 1) / CELL;
+                histogram[cell * BINS + UNIFORM_BIN[code]]++;
+            }
+        }
+
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            histogram[i] = (float) Math.sqrt(histogram[i]);
+            norm += histogram[i] * histogram[i];
+        }
+        return normalize(histogram, norm);
+    }
+
+    /**
+     * Quantize an embedding for storage (about 1 KB)
+     * @param embedding The embedding
+     * @return The encoded embedding
+     */
+    public static byte[] encode(float[] embedding) {
+        checkLength(embedding.length);
+        float max = 0;
+        for (float value : embedding) {
+            max = Math.max(max, value);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_LENGTH);
+        buffer.put((byte) VERSION);
+        buffer.putFloat(max);
+        float scale = max > 0 ? 255f / max : 0;
+        for (float value : embedding) {
+            buffer.put((byte) Math.round(Math.max(0, value) * scale));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Restore an embedding stored by encode
+     * @param encoded The encoded embedding
+     * @return The unit-length embedding
+     * @throws IllegalArgumentException If it was not encoded by this version
+     */
+    public static float[] decode(byte[] encoded) {
+        if (encoded.length != ENCODED_LENGTH || encoded[0] != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " face embedding ("
+                    + encoded.length + " bytes)");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(encoded, 1, ENCODED_LENGTH - 1);
+        float step = buffer.getFloat() / 255f;
+        float[] embedding = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            embedding[i] = (buffer.get() & 0xff) * step;
+            norm += embedding[i] * embedding[i];
+        }
+        // Rounding shifts the length slightly
+        return normalize(embedding, norm);
+    }
+
+    /**
+     * @return The similarity (dot product) of two embeddings, from 0 to 1
+     */
+    public static float similarity(float[] a, float[] b) {
+        checkLength(a.length);
+        checkLength(b.length);
+        float sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static byte[] equalize(byte[] pixels) {
+        int[] cumulative = new int[256];
+        for (byte pixel : pixels) {
+            cumulative[pixel & 0xff]++;
+        }
+        int first = 0;
+        for (int i = 0; i < 256; i++) {
+            if (first == 0) {
+                first = cumulative[i];
+            }
+            if (i > 0) {
+                cumulative[i] += cumulative[i - 1];
+            }
+        }
+        int range = pixels.length - first;
+        byte[] equalized = new byte[pixels.length];
+        if (range <= 0) {
+            // A flat image has nothing to stretch
+            System.arraycopy(pixels, 0, equalized, 0, pixels.length);
+            return equalized;
+        }
+        for (int i = 0; i < pixels.length; i++) {
+            int value = cumulative[pixels[i] & 0xff] - first;
+            equalized[i] = (byte) Math.max(0, Math.round(value * 255f / range));
+        }
+        return equalized;
+    }
+
+    private static float[] normalize(float[] vector, double squaredNorm) {
+        if (squaredNorm > 0) {
+            float scale = (float) (1 / Math.sqrt(squaredNorm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private static void checkLength(int length) {
+        if (length != DIMENSIONS) {
+            throw new IllegalArgumentException("Embedding has " + length + " dimensions, expected " + DIMENSIONS);
+        }
+    }
+}
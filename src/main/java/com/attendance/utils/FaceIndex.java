@@ -0,0 +1,293 @@
+package com.attendance.utils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory nearest-neighbour index over the registered face embeddings (FaceEmbedder).
+ *
+ * The embeddings are kept in one contiguous float array, row after row, and searched by
+ * brute force: one dot product per face, with four independent accumulators so the loop
+ * pipelines, and the rows split across the face detection fork-join pool once there are
+ * enough of them to pay for it. 20,000 faces of 944 dimensions take 75 MB and about
+ * 14 ms per search on one core, divided among the pool's threads. A user's row is
+ * replaced in place when they register again. Safe for concurrent use: searches share
+ * a read lock.
+ */
+public final class FaceIndex {
+
+    // Rows per fork-join task; below twice this a search runs on the caller's thread
+    private static final int ROWS_PER_TASK = 2048;
+
+    private final int dimensions;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> rowOfUser = new HashMap<>();
+
+    private float[] vectors;
+    private int[] userIds;
+    private int size;
+
+    public FaceIndex() {
+        this(FaceEmbedder.DIMENSIONS, 1024);
+    }
+
+    /**
+     * @param dimensions Length of every embedding
+     * @param capacity Faces to make room for up front
+     */
+    public FaceIndex(int dimensions, int capacity) {
+        this.dimensions = dimensions;
+        int rows = Math.max(1, capacity);
+        this.vectors = new float[rows * dimensions];
+        this.userIds = new int[rows];
+    }
+
+    /**
+     * A user's face and how similar it is to the face searched for
+     */
+    public static final class Match {
+        private final int userId;
+        private final float similarity;
+
+        Match(int userId, float similarity) {
+            this.userId = userId;
+            this.similarity = similarity;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public float getSimilarity() {
+            return similarity;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{userId=" + userId + ", similarity=" + similarity + "}";
+        }
+    }
+
+    /**
+     * Add a user's face, or replace it
+     * @param userId The user ID
+     * @param embedding The embedding
+     */
+    public void put(int userId, float[] embedding) {
+        checkLength(embedding);
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOfUser.get(userId);
+            if (row == null) {
+                if (size == userIds.length) {
+                    grow();
+                }
+                row = size++;
+                rowOfUser.put(userId, row);
+                userIds[row] = userId;
+            }
+            System.arraycopy(embedding, 0, vectors, row * dimensions, dimensions);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(int userId) {
+        lock.readLock().lock();
+        try {
+            return rowOfUser.containsKey(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compare a face with one user's
+     * @param userId The user ID
+     * @param query The embedding of the face
+     * @return The similarity, or -1 if the user has no face in the index
+     */
+    public float similarity(int userId, float[] query) {
+        checkLength(query);
+        lock.readLock().lock();
+        try {
+            Integer row = rowOfUser.get(userId);
+            return row != null ? dot(vectors, row * dimensions, query, dimensions) : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the most similar face
+     * @param query The embedding of the face
+     * @return The best match, or null if the index is empty
+     */
+    public Match nearest(float[] query) {
+        checkLength(query);
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return null;
+            }
+            long best = size < 2 * ROWS_PER_TASK
+                    ? new SearchTask(vectors, dimensions, query, 0, size).compute()
+                    : HaarFaceDetector.POOL.invoke(new SearchTask(vectors, dimensions, query, 0, size));
+            int row = (int) best;
+            return new Match(userIds[row], Float.intBitsToFloat((int) (best >>> 32)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compare a face with every face in the index
+     * @param query The embedding of the face
+     * @return The similarity to each face, in the order of userIds()
+     */
+    public float[] similarities(float[] query) {
+        checkLength(query);
+        lock.readLock().lock();
+        try {
+            float[] similarities = new float[size];
+            for (int row = 0; row < size; row++) {
+                similarities[row] = dot(vectors, row * dimensions, query, dimensions);
+            }
+            return similarities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The user IDs of the faces, in row order
+     */
+    public int[] userIds() {
+        lock.readLock().lock();
+        try {
+            int[] ids = new int[size];
+            System.arraycopy(userIds, 0, ids, 0, size);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy out the faces of some users, e.g. the students of one class, into an index
+     * of their own that is searched without touching this one
+     * @param users The user IDs; users without a face are skipped
+     * @return The new index
+     */
+    public FaceIndex subset(Collection<Integer> users) {
+        lock.readLock().lock();
+        try {
+            FaceIndex subset = new FaceIndex(dimensions, users.size());
+            for (Integer userId : users) {
+                Integer row = rowOfUser.get(userId);
+                if (row != null && !subset.rowOfUser.containsKey(userId)) {
+                    int to = subset.size++;
+                    System.arraycopy(vectors, row * dimensions, subset.vectors, to * dimensions, dimensions);
+                    subset.userIds[to] = userId;
+                    subset.rowOfUser.put(userId, to);
+                }
+            }
+            return subset;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans rows from to to - 1 and returns the best one packed into a long: the
+     * similarity's float bits above, the row below
+     */
+    private static final class SearchTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] vectors;
+        private final int dimensions;
+        private final float[] query;
+        private final int from;
+        private final int to;
+
+        SearchTask(float[] vectors, int dimensions, float[] query, int from, int to) {
+            this.vectors = vectors;
+            this.dimensions = dimensions;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                SearchTask right = new SearchTask(vectors, dimensions, query, middle, to);
+                right.fork();
+                long left = new SearchTask(vectors, dimensions, query, from, middle).compute();
+                long other = right.join();
+                return similarityOf(other) > similarityOf(left) ? other : left;
+            }
+            int bestRow = from;
+            float best = Float.NEGATIVE_INFINITY;
+            for (int row = from; row < to; row++) {
+                float similarity = dot(vectors, row * dimensions, query, dimensions);
+                if (similarity > best) {
+                    best = similarity;
+                    bestRow = row;
+                }
+            }
+            return ((long) Float.floatToRawIntBits(best) << 32) | bestRow;
+        }
+
+        private static float similarityOf(long packed) {
+            return Float.intBitsToFloat((int) (packed >>> 32));
+        }
+    }
+
+    private static float dot(float[] vectors, int offset, float[] query, int dimensions) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimensions; i += 4) {
+            s0 += vectors[offset + i] * query[i];
+            s1 += vectors[offset + i + 1] * query[i + 1];
+            s2 += vectors[offset + i + 2] * query[i + 2];
+            s3 += vectors[offset + i + 3] * query[i + 3];
+        }
+        for (; i < dimensions; i++) {
+            s0 += vectors[offset + i] * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private void grow() {
+        int rows = userIds.length * 2;
+        float[] grownVectors = new float[rows * dimensions];
+        System.arraycopy(vectors, 0, grownVectors, 0, size * dimensions);
+        int[] grownUserIds = new int[rows];
+        System.arraycopy(userIds, 0, grownUserIds, 0, size);
+        vectors = grownVectors;
+        userIds = grownUserIds;
+    }
+
+    private void checkLength(float[] embedding) {
+        if (embedding.length != dimensions) {
+            throw new IllegalArgumentException("Embedding has " + embedding.length
+                    + " dimensions, expected " + dimensions);
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package com.attendance.utils;
 
+import com.attendance.dao.BiometricDataDao;
+import com.attendance.dao.impl.BiometricDataDaoImpl;
+import com.attendance.models.FaceRegion;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Service for face recognition functionality
- * Note: This is a placeholder implementation since OpenCV integration is not available
+ * Faces are detected with the Haar cascade in FACE_CASCADE_PATH (see HaarFaceDetector)
+ * and recognized by their embeddings (see FaceEmbedder): registration stores a face's
+ * embedding in BiometricData, and all stored embeddings are loaded once into a FaceIndex
+ * that recognition searches. A face matches when its similarity is at least
+ * FACE_MATCH_MIN_SIMILARITY.
  */
 public class FaceRecognitionService {
     private static final Logger LOGGER = Logger.getLogger(FaceRecognitionService.class.getName());
@@ -13,11 +28,21 @@ public class FaceRecognitionService {
     // Singleton instance
     private static FaceRecognitionService instance;
     
+    // Null if the cascade could not be loaded
+    private HaarFaceDetector detector;
+    
+    private final BiometricDataDao biometricDataDao = new BiometricDataDaoImpl();
+    
+    private final float minSimilarity = (float) AppSettings.getDouble("FACE_MATCH_MIN_SIMILARITY", 0.9);
+    
+    // Loaded on first use; null until then
+    private volatile FaceIndex index;
+    
     /**
      * Get the singleton instance
      * @return The FaceRecognitionService instance
      */
-    public static FaceRecognitionService getInstance() {
+    public static synchronized FaceRecognitionService getInstance() {
         if (instance == null) {
             instance = new FaceRecognitionService();
         }
@@ -28,34 +53,69 @@ public class FaceRecognitionService {
      * Private constructor for singleton pattern
      */
     private FaceRecognitionService() {
-        LOGGER.info("Initializing Face Recognition Service (Placeholder)");
+        LOGGER.info("Initializing Face Recognition Service");
         initializeFaceDetection();
     }
     
     /**
-     * Initialize face detection
+     * Initialize face detection: parse the cascade once, for all detections
      */
     private void initializeFaceDetection() {
-        LOGGER.info("Face detection module initialized (Placeholder)");
+        String cascadePath = AppSettings.getString("FACE_CASCADE_PATH", "data/haarcascade_frontalface_default.xml");
+        long start = System.currentTimeMillis();
+        try {
+            HaarCascade cascade = HaarCascade.load(Paths.get(cascadePath));
+            detector = new HaarFaceDetector(cascade);
+            LOGGER.info("Face detection module initialized from " + cascadePath + " (" +
+                        cascade.getStageCount() + " stages, " + cascade.getWeakClassifierCount() +
+                        " classifiers) in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Face detection is unavailable: cannot load cascade " + cascadePath, e);
+        }
+    }
+    
+    /**
+     * Find the faces in an image
+     * @param image The image
+     * @return The faces, largest first; none if detection is unavailable
+     */
+    public List<FaceRegion> detectFaces(GrayImage image) {
+        if (detector == null) {
+            LOGGER.warning("Face detection requested but the cascade is not loaded");
+            return Collections.emptyList();
+        }
+        return detector.detect(image);
     }
     
     /**
      * Capture face image for a user
      * @param userId The user ID
-     * @return True if successful, false otherwise
+     * @param image The camera capture
+     * @return The face cut out of the capture, or null unless it shows exactly one face
      */
-    public boolean captureFace(int userId) {
-        LOGGER.info("Capturing face for user: " + userId + " (Placeholder)");
-        return true;
+    public GrayImage captureFace(int userId, GrayImage image) {
+        List<FaceRegion> faces = detectFaces(image);
+        if (faces.size() != 1) {
+            LOGGER.info("Capture for user " + userId + " shows " + faces.size() + " faces; expected one");
+            return null;
+        }
+        FaceRegion face = faces.get(0);
+        LOGGER.fine("Captured face for user " + userId + ": " + face);
+        return crop(image, face);
     }
     
     /**
-     * Train the face recognition model
+     * Train the face recognition model: reload the index from the stored embeddings
      * @return True if successful, false otherwise
      */
     public boolean trainModel() {
-        LOGGER.info("Training face recognition model (Placeholder)");
-        return true;
+        try {
+            index = loadIndex();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading face embeddings", e);
+            return false;
+        }
     }
     
     /**
@@ -64,8 +124,48 @@ public class FaceRecognitionService {
      * @return User ID if recognized, -1 otherwise
      */
     public int recognizeFace(File imageFile) {
-        LOGGER.info("Recognizing face from image: " + imageFile.getName() + " (Placeholder)");
-        return -1;
+        try {
+            return recognizeFace(BiometricUploadStore.getInstance().decode(imageFile.toPath()));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot read image: " + imageFile.getName(), e);
+            return -1;
+        }
+    }
+    
+    /**
+     * Recognize the largest face in an image
+     * @param image The image
+     * @return User ID if recognized, -1 otherwise
+     */
+    public int recognizeFace(GrayImage image) {
+        List<FaceRegion> faces = detectFaces(image);
+        if (faces.isEmpty()) {
+            return -1;
+        }
+        FaceIndex faceIndex = index();
+        if (faceIndex == null) {
+            return -1;
+        }
+        FaceIndex.Match match = faceIndex.nearest(FaceEmbedder.embed(crop(image, faces.get(0))));
+        if (match == null || match.getSimilarity() < minSimilarity) {
+            LOGGER.fine("No registered face matches (best: " + match + ")");
+            return -1;
+        }
+        return match.getUserId();
+    }
+    
+    /**
+     * Start recognizing the students of a class in classroom photos
+     * @param studentIds The students of the class
+     * @return The recognizer, to be fed the photos one at a time; null if face
+     *         detection or the registered faces are unavailable
+     */
+    public ClassroomRecognizer newClassroomRecognizer(Collection<Integer> studentIds) {
+        FaceIndex faceIndex = index();
+        if (detector == null || faceIndex == null) {
+            return null;
+        }
+        return new ClassroomRecognizer(detector, faceIndex.subset(studentIds), minSimilarity);
     }
     
     /**
@@ -74,30 +174,98 @@ public class FaceRecognitionService {
      * @return True if registered, false otherwise
      */
     public boolean isFaceRegistered(int userId) {
-        LOGGER.info("Checking if face is registered for user: " + userId + " (Placeholder)");
-        // In a real implementation, this would check if the user's face data exists
-        return true;
+        FaceIndex faceIndex = index();
+        if (faceIndex != null) {
+            return faceIndex.contains(userId);
+        }
+        try {
+            return biometricDataDao.isFaceRegistered(userId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking face registration for user: " + userId, e);
+            return false;
+        }
     }
     
     /**
      * Register a user's face
      * @param userId The user ID
+     * @param image The camera capture, which must show exactly one face
      * @return True if successful, false otherwise
      */
-    public boolean registerFace(int userId) {
-        LOGGER.info("Registering face for user: " + userId + " (Placeholder)");
-        // In a real implementation, this would capture facial data and store it
+    public boolean registerFace(int userId, GrayImage image) {
+        GrayImage face = captureFace(userId, image);
+        if (face == null) {
+            return false;
+        }
+        LOGGER.info("Registering face for user: " + userId + " (" + face.getWidth() + "x" + face.getHeight() + ")");
+        float[] embedding = FaceEmbedder.embed(face);
+        try {
+            biometricDataDao.saveFaceEmbedding(userId, FaceEmbedder.encode(embedding), FaceEmbedder.VERSION);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving face for user: " + userId, e);
+            return false;
+        }
+        FaceIndex faceIndex = index();
+        if (faceIndex != null) {
+            faceIndex.put(userId, embedding);
+        }
         return true;
     }
     
     /**
      * Verify a user's face for authentication
      * @param userId The user ID
-     * @return True if verified, false otherwise
+     * @param image The camera capture, which must show exactly one face
+     * @return True if the face matches the user's registered face, false otherwise
      */
-    public boolean verifyFace(int userId) {
-        LOGGER.info("Verifying face for user: " + userId + " (Placeholder)");
-        // In a real implementation, this would capture a face and compare it to stored data
-        return true;
+    public boolean verifyFace(int userId, GrayImage image) {
+        GrayImage face = captureFace(userId, image);
+        if (face == null) {
+            return false;
+        }
+        FaceIndex faceIndex = index();
+        if (faceIndex == null) {
+            return false;
+        }
+        float similarity = faceIndex.similarity(userId, FaceEmbedder.embed(face));
+        LOGGER.fine("Face of user " + userId + " has similarity " + similarity);
+        return similarity >= minSimilarity;
+    }
+    
+    /**
+     * @return The index, loaded on first use; null if it cannot be loaded
+     */
+    private FaceIndex index() {
+        FaceIndex faceIndex = index;
+        if (faceIndex == null) {
+            synchronized (this) {
+                faceIndex = index;
+                if (faceIndex == null && !trainModel()) {
+                    return null;
+                }
+                faceIndex = index;
+            }
+        }
+        return faceIndex;
+    }
+    
+    private FaceIndex loadIndex() throws SQLException {
+        long start = System.currentTimeMillis();
+        FaceIndex faceIndex = new FaceIndex();
+        int[] skipped = new int[1];
+        int count = biometricDataDao.forEachFaceEmbedding(FaceEmbedder.VERSION, (embedding, userId) -> {
+            try {
+                faceIndex.put(userId, FaceEmbedder.decode(embedding));
+            } catch (IllegalArgumentException e) {
+                skipped[0]++;
+            }
+        });
+        LOGGER.info("Loaded " + faceIndex.size() + " face embeddings in " + (System.currentTimeMillis() - start) +
+                    " ms" + (skipped[0] > 0 ? " (" + skipped[0] + " of " + count + " unreadable)" : ""));
+        return faceIndex;
+    }
+    
+    private static GrayImage crop(GrayImage image, FaceRegion face) {
+        return image.crop(face.getX(), face.getY(), face.getWidth(), face.getHeight());
     }
-}
\ No newline at end of file
+}
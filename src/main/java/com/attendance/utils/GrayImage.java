@@ -0,0 +1,147 @@
+package com.attendance.utils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * An 8-bit grayscale image in one row-major array, the input of face detection and
+ * recognition. Decoded images are converted once with the usual luma weights.
+ */
+public final class GrayImage {
+
+    private final int width;
+    private final int height;
+    private final byte[] pixels;
+
+    public GrayImage(int width, int height, byte[] pixels) {
+        if (width <= 0 || height <= 0 || pixels.length != width * height) {
+            throw new IllegalArgumentException("Bad image size " + width + "x" + height
+                    + " for " + pixels.length + " pixels");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Decode an image from a buffer, e.g. a memory-mapped file, without copying it
+     * @param buffer The encoded image, from its position to its limit
+     * @param maxPixels Largest width x height accepted
+     * @return The image in grayscale
+     * @throws IOException If the image cannot be read, its format is not supported or it is too large
+     */
+    public static GrayImage read(ByteBuffer buffer, long maxPixels) throws IOException {
+        try (ImageInputStream stream = new ByteBufferImageInputStream(buffer)) {
+            return read(stream, maxPixels);
+        }
+    }
+
+    private static GrayImage read(ImageInputStream stream, long maxPixels) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            throw new IOException("Unsupported image format");
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(stream, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > maxPixels) {
+                throw new IOException("Image is too large: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+            }
+            return fromBufferedImage(reader.read(0));
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    public static GrayImage fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] pixels = new byte[width * height];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int r = (rgb >> 16) & 0xff;
+                int g = (rgb >> 8) & 0xff;
+                int b = rgb & 0xff;
+                // ITU-R BT.601 luma in fixed point
+                pixels[offset + x] = (byte) ((r * 19595 + g * 38470 + b * 7471 + 32768) >> 16);
+            }
+        }
+        return new GrayImage(width, height, pixels);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The pixels, row by row; not copied, so do not modify
+     */
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return The value (0-255) of a pixel
+     */
+    public int get(int x, int y) {
+        return pixels[y * width + x] & 0xff;
+    }
+
+    /**
+     * Copy out a rectangle, clipped to the image
+     */
+    public GrayImage crop(int x, int y, int cropWidth, int cropHeight) {
+        int x0 = Math.max(0, x);
+        int y0 = Math.max(0, y);
+        int x1 = Math.min(width, x + cropWidth);
+        int y1 = Math.min(height, y + cropHeight);
+        if (x1 <= x0 || y1 <= y0) {
+            throw new IllegalArgumentException("Crop is outside the image");
+        }
+        int w = x1 - x0;
+        byte[] cropped = new byte[w * (y1 - y0)];
+        for (int row = y0; row < y1; row++) {
+            System.arraycopy(pixels, row * width + x0, cropped, (row - y0) * w, w);
+        }
+        return new GrayImage(w, y1 - y0, cropped);
+    }
+
+    /**
+     * Resize with bilinear interpolation
+     */
+    public GrayImage resize(int newWidth, int newHeight) {
+        byte[] resized = new byte[newWidth * newHeight];
+        float xRatio = newWidth > 1 ? (float) (width - 1) / (newWidth - 1) : 0;
+        float yRatio = newHeight > 1 ? (float) (height - 1) / (newHeight - 1) : 0;
+        for (int y = 0; y < newHeight; y++) {
+            float sy = y * yRatio;
+            int y0 = (int) sy;
+            int y1 = Math.min(y0 + 1, height - 1);
+            float fy = sy - y0;
+            for (int x = 0; x < newWidth; x++) {
+                float sx = x * xRatio;
+                int x0 = (int) sx;
+                int x1 = Math.min(x0 + 1, width - 1);
+                float fx = sx - x0;
+                float top = get(x0, y0) + (get(x1, y0) - get(x0, y0)) * fx;
+                float bottom = get(x0, y1) + (get(x1, y1) - get(x0, y1)) * fx;
+                resized[y * newWidth + x] = (byte) Math.round(top + (bottom - top) * fy);
+            }
+        }
+        return new GrayImage(newWidth, newHeight, resized);
+    }
+}
@@ -0,0 +1,235 @@
+package com.attendance.utils;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A boosted Haar cascade in OpenCV's XML format (e.g. data/haarcascade_frontalface_default.xml),
+ * parsed once into flat arrays that HaarFaceDetector walks without object lookups:
+ * stage s owns weak classifiers stageStart[s] to stageStart[s + 1] - 1, and feature f owns
+ * rectangles featureStart[f] to featureStart[f + 1] - 1, stored as x, y, width, height in
+ * rects[4 * r ...] with weight rectWeights[r]. Only upright Haar features and depth-one
+ * trees (stumps), as in the stock frontal face cascades, are supported. Immutable.
+ */
+public final class HaarCascade {
+
+    final int windowWidth;
+    final int windowHeight;
+
+    final float[] stageThresholds;
+    final int[] stageStart;
+
+    final int[] weakFeature;
+    final float[] weakThreshold;
+    final float[] weakLeft;
+    final float[] weakRight;
+
+    final int[] featureStart;
+    final int[] rects;
+    final float[] rectWeights;
+
+    private HaarCascade(int windowWidth, int windowHeight, float[] stageThresholds, int[] stageStart,
+                        int[] weakFeature, float[] weakThreshold, float[] weakLeft, float[] weakRight,
+                        int[] featureStart, int[] rects, float[] rectWeights) {
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.stageThresholds = stageThresholds;
+        this.stageStart = stageStart;
+        this.weakFeature = weakFeature;
+        this.weakThreshold = weakThreshold;
+        this.weakLeft = weakLeft;
+        this.weakRight = weakRight;
+        this.featureStart = featureStart;
+        this.rects = rects;
+        this.rectWeights = rectWeights;
+    }
+
+    /**
+     * Load a cascade file
+     * @param path The XML file
+     * @return The cascade
+     * @throws IOException If the file cannot be read or is not a supported cascade
+     */
+    public static HaarCascade load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return parse(in);
+        }
+    }
+
+    /**
+     * Parse a cascade
+     * @param in The XML
+     * @return The cascade
+     * @throws IOException If the XML cannot be read or is not a supported cascade
+     */
+    public static HaarCascade parse(InputStream in) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            document = builder.parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Cannot parse cascade: " + e.getMessage(), e);
+        }
+
+        Element cascade = child(document.getDocumentElement(), "cascade");
+        if (cascade == null) {
+            throw new IOException("Not a cascade in the current OpenCV format (no <cascade> element)");
+        }
+        String featureType = text(cascade, "featureType");
+        if (!"HAAR".equalsIgnoreCase(featureType)) {
+            throw new IOException("Unsupported feature type: " + featureType);
+        }
+        int windowWidth = Integer.parseInt(text(cascade, "width"));
+        int windowHeight = Integer.parseInt(text(cascade, "height"));
+
+        List<Element> stages = children(required(cascade, "stages"));
+        float[] stageThresholds = new float[stages.size()];
+        int[] stageStart = new int[stages.size() + 1];
+        List<float[]> weak = new ArrayList<>();
+
+        for (int s = 0; s < stages.size(); s++) {
+            Element stage = stages.get(s);
+            stageThresholds[s] = Float.parseFloat(text(stage, "stageThreshold"));
+            stageStart[s] = weak.size();
+            for (Element classifier : children(required(stage, "weakClassifiers"))) {
+                String[] nodes = tokens(text(classifier, "internalNodes"));
+                String[] leaves = tokens(text(classifier, "leafValues"));
+                if (nodes.length != 4 || leaves.length != 2) {
+                    throw new IOException("Only cascades of stumps are supported (stage " + s + ")");
+                }
+                // left child, right child, feature index, threshold; both children are leaves
+                weak.add(new float[] {
+                        Integer.parseInt(nodes[2]), Float.parseFloat(nodes[3]),
+                        Float.parseFloat(leaves[0]), Float.parseFloat(leaves[1])
+                });
+            }
+        }
+        stageStart[stages.size()] = weak.size();
+
+        int[] weakFeature = new int[weak.size()];
+        float[] weakThreshold = new float[weak.size()];
+        float[] weakLeft = new float[weak.size()];
+        float[] weakRight = new float[weak.size()];
+        for (int i = 0; i < weak.size(); i++) {
+            float[] w = weak.get(i);
+            weakFeature[i] = (int) w[0];
+            weakThreshold[i] = w[1];
+            weakLeft[i] = w[2];
+            weakRight[i] = w[3];
+        }
+
+        List<Element> features = children(required(cascade, "features"));
+        int[] featureStart = new int[features.size() + 1];
+        List<int[]> rectList = new ArrayList<>();
+        List<Float> weightList = new ArrayList<>();
+        for (int f = 0; f < features.size(); f++) {
+            Element feature = features.get(f);
+            String tilted = text(feature, "tilted");
+            if (tilted != null && !"0".equals(tilted.trim())) {
+                throw new IOException("Tilted features are not supported (feature " + f + ")");
+            }
+            featureStart[f] = rectList.size();
+            for (Element rect : children(required(feature, "rects"))) {
+                String[] values = tokens(rect.getTextContent());
+                rectList.add(new int[] {
+                        Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+                        Integer.parseInt(values[2]), Integer.parseInt(values[3])
+                });
+                weightList.add(Float.parseFloat(values[4]));
+            }
+        }
+        featureStart[features.size()] = rectList.size();
+
+        int[] rects = new int[rectList.size() * 4];
+        float[] rectWeights = new float[rectList.size()];
+        for (int r = 0; r < rectList.size(); r++) {
+            System.arraycopy(rectList.get(r), 0, rects, r * 4, 4);
+            rectWeights[r] = weightList.get(r);
+        }
+
+        for (int feature : weakFeature) {
+            if (feature < 0 || feature >= features.size()) {
+                throw new IOException("Weak classifier refers to missing feature " + feature);
+            }
+        }
+
+        return new HaarCascade(windowWidth, windowHeight, stageThresholds, stageStart,
+                weakFeature, weakThreshold, weakLeft, weakRight, featureStart, rects, rectWeights);
+    }
+
+    public int getWindowWidth() {
+        return windowWidth;
+    }
+
+    public int getWindowHeight() {
+        return windowHeight;
+    }
+
+    public int getStageCount() {
+        return stageThresholds.length;
+    }
+
+    public int getWeakClassifierCount() {
+        return weakFeature.length;
+    }
+
+    public int getFeatureCount() {
+        return featureStart.length - 1;
+    }
+
+    private static Element child(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && name.equals(node.getNodeName())) {
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+
+    private static Element required(Element parent, String name) throws IOException {
+        Element element = child(parent, name);
+        if (element == null) {
+            throw new IOException("Cascade has no <" + name + "> in <" + parent.getNodeName() + ">");
+        }
+        return element;
+    }
+
+    private static List<Element> children(Element parent) {
+        List<Element> elements = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element) {
+                elements.add((Element) node);
+            }
+        }
+        return elements;
+    }
+
+    private static String text(Element parent, String name) {
+        Element element = child(parent, name);
+        return element != null ? element.getTextContent().trim() : null;
+    }
+
+    private static String[] tokens(String text) throws IOException {
+        if (text == null) {
+            throw new IOException("Cascade is missing a classifier value");
+        }
+        return text.trim().split("\\s+");
+    }
+}
@@ -0,0 +1,408 @@
+package com.attendance.utils;
+
+import com.attendance.models.FaceRegion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Viola-Jones face detection with a HaarCascade, on the CPU.
+ *
+ * The image's integral and squared-integral images are built once; the cascade window is
+ * then scaled (by FACE_DETECT_SCALE_FACTOR per step) instead of the image, and slid over
+ * it, each window normalised by its standard deviation and rejected at the first stage
+ * it fails. The windows of every scale are split into bands of rows and scanned in
+ * parallel on a fork-join pool of FACE_DETECT_THREADS. Overlapping hits are merged into
+ * one face when at least FACE_DETECT_MIN_NEIGHBORS + 1 agree. Safe for concurrent use.
+ */
+public class HaarFaceDetector {
+
+    // Also runs FaceIndex searches
+    static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1,
+            AppSettings.getInt("FACE_DETECT_THREADS", Runtime.getRuntime().availableProcessors())));
+
+    // Window rows per fork-join task; smaller bands balance better, larger ones fork less
+    private static final int ROWS_PER_TASK = 8;
+
+    // Rectangles are merged when their sides are within this fraction of their size
+    private static final double GROUP_EPS = 0.2;
+
+    private final HaarCascade cascade;
+    private final double scaleFactor;
+    private final int minNeighbors;
+    private final int minSize;
+
+    public HaarFaceDetector(HaarCascade cascade) {
+        this(cascade,
+                AppSettings.getDouble("FACE_DETECT_SCALE_FACTOR", 1.1),
+                AppSettings.getInt("FACE_DETECT_MIN_NEIGHBORS", 3),
+                AppSettings.getInt("FACE_DETECT_MIN_SIZE", 24));
+    }
+
+    /**
+     * @param cascade The cascade
+     * @param scaleFactor Growth of the window between scales, above 1
+     * @param minNeighbors Overlapping hits, besides itself, a face needs to be reported
+     * @param minSize Smallest face width in pixels
+     */
+    public HaarFaceDetector(HaarCascade cascade, double scaleFactor, int minNeighbors, int minSize) {
+        if (scaleFactor <= 1.0) {
+            throw new IllegalArgumentException("Scale factor must be above 1: " + scaleFactor);
+        }
+        this.cascade = cascade;
+        this.scaleFactor = scaleFactor;
+        this.minNeighbors = Math.max(0, minNeighbors);
+        this.minSize = Math.max(cascade.windowWidth, minSize);
+    }
+
+    /**
+     * Find the faces in an image
+     * @param image The image
+     * @return The faces, largest first
+     */
+    public List<FaceRegion> detect(GrayImage image) {
+        return group(detectRaw(image));
+    }
+
+    /**
+     * Scan an image at every scale
+     * @return The windows that pass every stage, as x, y, width, height
+     */
+    List<int[]> detectRaw(GrayImage image) {
+        IntegralImage integral = new IntegralImage(image);
+        List<ScanTask> tasks = new ArrayList<>();
+        for (double scale = 1.0; ; scale *= scaleFactor) {
+            int windowWidth = (int) Math.round(cascade.windowWidth * scale);
+            int windowHeight = (int) Math.round(cascade.windowHeight * scale);
+            if (windowWidth > image.getWidth() || windowHeight > image.getHeight()) {
+                break;
+            }
+            if (windowWidth < minSize) {
+                continue;
+            }
+            ScaledCascade scaled = new ScaledCascade(cascade, scale, integral.stride);
+            int maxX = image.getWidth() - scaled.extentWidth;
+            int maxY = image.getHeight() - scaled.extentHeight;
+            if (maxX >= 0 && maxY >= 0) {
+                tasks.add(new ScanTask(integral, scaled, maxX, 0, maxY + 1));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return POOL.invoke(new RecursiveTask<List<int[]>>() {
+            @Override
+            protected List<int[]> compute() {
+                invokeAll(tasks);
+                List<int[]> hits = new ArrayList<>();
+                for (ScanTask task : tasks) {
+                    hits.addAll(task.join());
+                }
+                return hits;
+            }
+        });
+    }
+
+    /**
+     * Sums and sums of squares of the pixels above and left of each point, with a zero
+     * first row and column. The plain sums are ints and may wrap around on large images:
+     * a rectangle's sum is a difference of four of them, which is still exact in int
+     * arithmetic as long as the rectangle's own sum fits.
+     */
+    static final class IntegralImage {
+        final int stride;
+        final int[] sum;
+        final long[] squareSum;
+
+        IntegralImage(GrayImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            byte[] pixels = image.getPixels();
+            stride = width + 1;
+            sum = new int[stride * (height + 1)];
+            squareSum = new long[stride * (height + 1)];
+            for (int y = 0; y < height; y++) {
+                int rowSum = 0;
+                long rowSquareSum = 0;
+                int in = y * width;
+                int out = (y + 1) * stride + 1;
+                for (int x = 0; x < width; x++) {
+                    int value = pixels[in + x] & 0xff;
+                    rowSum += value;
+                    rowSquareSum += value * value;
+                    sum[out + x] = sum[out + x - stride] + rowSum;
+                    squareSum[out + x] = squareSum[out + x - stride] + rowSquareSum;
+                }
+            }
+        }
+    }
+
+    /**
+     * The cascade's rectangles at one scale, as offsets of their corners in the integral
+     * image from the window's top-left corner, with weights that include the 1/area
+     * normalisation and make each feature sum to zero on a flat window. They are laid out
+     * in the order of the weak classifiers that use them, so the scan reads them in
+     * sequence: weak classifier w owns rectangles weakStart[w] to weakStart[w + 1] - 1.
+     */
+    static final class ScaledCascade {
+        final HaarCascade cascade;
+        final int windowWidth;
+        final int windowHeight;
+        final int step;
+        // Rounding can push a rectangle a pixel past the window; windows are placed so none leave the image
+        final int extentWidth;
+        final int extentHeight;
+        final int[] weakStart;
+        final int[] corners;
+        final float[] weights;
+        final int[] normCorners = new int[4];
+        final double invNormArea;
+
+        ScaledCascade(HaarCascade cascade, double scale, int stride) {
+            this.cascade = cascade;
+            windowWidth = (int) Math.round(cascade.windowWidth * scale);
+            windowHeight = (int) Math.round(cascade.windowHeight * scale);
+            // Two window pixels apart while the window is small, one (of the scaled window) after
+            step = (int) Math.round(scale <= 2.0 ? 2 * scale : scale);
+
+            // Variance is taken over the window less a border of one cascade pixel
+            int border = (int) Math.round(scale);
+            int normWidth = (int) Math.round((cascade.windowWidth - 2) * scale);
+            int normHeight = (int) Math.round((cascade.windowHeight - 2) * scale);
+            setCorners(normCorners, 0, border, border, normWidth, normHeight, stride);
+            invNormArea = 1.0 / ((double) normWidth * normHeight);
+            int maxRight = Math.max(windowWidth, border + normWidth);
+            int maxBottom = Math.max(windowHeight, border + normHeight);
+
+            int weakCount = cascade.weakFeature.length;
+            weakStart = new int[weakCount + 1];
+            int rectCount = 0;
+            for (int w = 0; w < weakCount; w++) {
+                int feature = cascade.weakFeature[w];
+                weakStart[w] = rectCount;
+                rectCount += cascade.featureStart[feature + 1] - cascade.featureStart[feature];
+            }
+            weakStart[weakCount] = rectCount;
+
+            corners = new int[rectCount * 4];
+            weights = new float[rectCount];
+            for (int w = 0; w < weakCount; w++) {
+                int feature = cascade.weakFeature[w];
+                int first = weakStart[w];
+                double firstArea = 0;
+                double weightedArea = 0;
+                for (int r = cascade.featureStart[feature], out = first; r < cascade.featureStart[feature + 1]; r++, out++) {
+                    int x = (int) Math.round(cascade.rects[r * 4] * scale);
+                    int y = (int) Math.round(cascade.rects[r * 4 + 1] * scale);
+                    int width = (int) Math.round(cascade.rects[r * 4 + 2] * scale);
+                    int height = (int) Math.round(cascade.rects[r * 4 + 3] * scale);
+                    setCorners(corners, out * 4, x, y, width, height, stride);
+                    maxRight = Math.max(maxRight, x + width);
+                    maxBottom = Math.max(maxBottom, y + height);
+                    weights[out] = (float) (cascade.rectWeights[r] * invNormArea);
+                    if (out == first) {
+                        firstArea = (double) width * height;
+                    } else {
+                        weightedArea += weights[out] * (double) width * height;
+                    }
+                }
+                // Rounding changes the areas; rebalance the first rectangle against the others
+                weights[first] = (float) (-weightedArea / firstArea);
+            }
+            extentWidth = maxRight;
+            extentHeight = maxBottom;
+        }
+
+        private static void setCorners(int[] corners, int at, int x, int y, int w, int h, int stride) {
+            corners[at] = y * stride + x;
+            corners[at + 1] = y * stride + x + w;
+            corners[at + 2] = (y + h) * stride + x;
+            corners[at + 3] = (y + h) * stride + x + w;
+        }
+    }
+
+    /**
+     * Scans the windows of one scale whose top row is in [fromY, toY)
+     */
+    static final class ScanTask extends RecursiveTask<List<int[]>> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntegralImage integral;
+        private final ScaledCascade scaled;
+        private final int maxX;
+        private final int fromY;
+        private final int toY;
+
+        ScanTask(IntegralImage integral, ScaledCascade scaled, int maxX, int fromY, int toY) {
+            this.integral = integral;
+            this.scaled = scaled;
+            this.maxX = maxX;
+            this.fromY = fromY;
+            this.toY = toY;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            int step = scaled.step;
+            int rows = (toY - fromY + step - 1) / step;
+            if (rows > ROWS_PER_TASK) {
+                int middle = fromY + (rows / 2) * step;
+                ScanTask top = new ScanTask(integral, scaled, maxX, fromY, middle);
+                ScanTask bottom = new ScanTask(integral, scaled, maxX, middle, toY);
+                top.fork();
+                List<int[]> hits = bottom.compute();
+                hits.addAll(top.join());
+                return hits;
+            }
+
+            List<int[]> hits = new ArrayList<>();
+            for (int y = fromY; y < toY; y += step) {
+                for (int x = 0; x <= maxX; x += step) {
+                    int stages = stagesPassed(y * integral.stride + x);
+                    if (stages == scaled.cascade.stageThresholds.length) {
+                        hits.add(new int[] {x, y, scaled.windowWidth, scaled.windowHeight});
+                    } else if (stages == 0) {
+                        // Nothing face-like here; the next window mostly overlaps this one
+                        x += step;
+                    }
+                }
+            }
+            return hits;
+        }
+
+        /**
+         * @return How many stages the window at an offset in the integral image passes
+         */
+        private int stagesPassed(int origin) {
+            int[] sum = integral.sum;
+            long[] squareSum = integral.squareSum;
+            int[] norm = scaled.normCorners;
+
+            int windowSum = sum[origin + norm[0]] - sum[origin + norm[1]]
+                    - sum[origin + norm[2]] + sum[origin + norm[3]];
+            long windowSquareSum = squareSum[origin + norm[0]] - squareSum[origin + norm[1]]
+                    - squareSum[origin + norm[2]] + squareSum[origin + norm[3]];
+            double mean = windowSum * scaled.invNormArea;
+            double variance = windowSquareSum * scaled.invNormArea - mean * mean;
+            double deviation = variance > 0 ? Math.sqrt(variance) : 1.0;
+
+            HaarCascade cascade = scaled.cascade;
+            int[] weakStart = scaled.weakStart;
+            int[] corners = scaled.corners;
+            float[] weights = scaled.weights;
+            float[] weakThreshold = cascade.weakThreshold;
+            float[] weakLeft = cascade.weakLeft;
+            float[] weakRight = cascade.weakRight;
+            int[] stageStart = cascade.stageStart;
+            float[] stageThresholds = cascade.stageThresholds;
+
+            for (int stage = 0; stage < stageThresholds.length; stage++) {
+                float stageSum = 0;
+                for (int weak = stageStart[stage]; weak < stageStart[stage + 1]; weak++) {
+                    float value = 0;
+                    for (int r = weakStart[weak]; r < weakStart[weak + 1]; r++) {
+                        int c = r * 4;
+                        int rectSum = sum[origin + corners[c]] - sum[origin + corners[c + 1]]
+                                - sum[origin + corners[c + 2]] + sum[origin + corners[c + 3]];
+                        value += rectSum * weights[r];
+                    }
+                    stageSum += value < weakThreshold[weak] * deviation ? weakLeft[weak] : weakRight[weak];
+                }
+                if (stageSum < stageThresholds[stage]) {
+                    return stage;
+                }
+            }
+            return cascade.stageThresholds.length;
+        }
+    }
+
+    /**
+     * Merge overlapping hits into faces, drop clusters with too few hits and faces inside
+     * a more certain larger one
+     */
+    List<FaceRegion> group(List<int[]> hits) {
+        int n = hits.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (similar(hits.get(i), hits.get(j))) {
+                    int a = root(parent, i);
+                    int b = root(parent, j);
+                    if (a != b) {
+                        parent[b] = a;
+                    }
+                }
+            }
+        }
+
+        long[] totals = new long[n * 4];
+        int[] counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            int cluster = root(parent, i);
+            int[] hit = hits.get(i);
+            for (int k = 0; k < 4; k++) {
+                totals[cluster * 4 + k] += hit[k];
+            }
+            counts[cluster]++;
+        }
+
+        List<FaceRegion> clusters = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int count = counts[i];
+            if (count > minNeighbors) {
+                clusters.add(new FaceRegion(
+                        (int) Math.round((double) totals[i * 4] / count),
+                        (int) Math.round((double) totals[i * 4 + 1] / count),
+                        (int) Math.round((double) totals[i * 4 + 2] / count),
+                        (int) Math.round((double) totals[i * 4 + 3] / count),
+                        count));
+            }
+        }
+
+        List<FaceRegion> faces = new ArrayList<>();
+        for (FaceRegion face : clusters) {
+            boolean inner = false;
+            for (FaceRegion other : clusters) {
+                if (other != face && other.getNeighbors() >= Math.max(3, face.getNeighbors())
+                        && enlarged(other).contains(face)) {
+                    inner = true;
+                    break;
+                }
+            }
+            if (!inner) {
+                faces.add(face);
+            }
+        }
+        faces.sort((a, b) -> Integer.compare(b.getArea(), a.getArea()));
+        return faces;
+    }
+
+    private static boolean similar(int[] a, int[] b) {
+        double delta = GROUP_EPS * (Math.min(a[2], b[2]) + Math.min(a[3], b[3])) * 0.5;
+        return Math.abs(a[0] - b[0]) <= delta
+                && Math.abs(a[1] - b[1]) <= delta
+                && Math.abs(a[0] + a[2] - b[0] - b[2]) <= delta
+                && Math.abs(a[1] + a[3] - b[1] - b[3]) <= delta;
+    }
+
+    private static FaceRegion enlarged(FaceRegion face) {
+        int dx = (int) Math.round(face.getWidth() * GROUP_EPS);
+        int dy = (int) Math.round(face.getHeight() * GROUP_EPS);
+        return new FaceRegion(face.getX() - dx, face.getY() - dy,
+                face.getWidth() + 2 * dx, face.getHeight() + 2 * dy, face.getNeighbors());
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,68 @@
+package com.attendance.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session store local to this application instance (SESSION_STORE=memory): a stand-in
+ * for a shared store on a single instance or in development. Sessions are still kept
+ * as compact records rather than as live objects.
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    private static class Entry {
+        final byte[] record;
+        final long expiresAt;
+
+        Entry(byte[] record, long expiresAt) {
+            this.record = record;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] load(String sessionId) {
+        Entry entry = entries.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(sessionId, entry);
+            return null;
+        }
+        return entry.record;
+    }
+
+    @Override
+    public void save(String sessionId, byte[] record, long expiresAt) {
+        entries.put(sessionId, new Entry(record, expiresAt));
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        entries.remove(sessionId);
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().expiresAt <= now) {
+                it.remove();
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * @return Number of stored sessions, including expired ones not yet purged
+     */
+    public int size() {
+        return entries.size();
+    }
+}
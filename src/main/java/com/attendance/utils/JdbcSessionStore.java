@@ -0,0 +1,72 @@
+package com.attendance.utils;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Session store in the shared PostgreSQL database (SESSION_STORE=jdbc), in the
+ * HttpSessions table created by migration V8. Expiry times are epoch milliseconds
+ * of the application instances' clocks.
+ */
+public class JdbcSessionStore implements SessionStore {
+
+    private static final String LOAD_SQL =
+            "SELECT record FROM HttpSessions WHERE session_id = ? AND expires_at > ?";
+    private static final String SAVE_SQL =
+            "INSERT INTO HttpSessions (session_id, record, expires_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (session_id) DO UPDATE SET record = EXCLUDED.record, expires_at = EXCLUDED.expires_at";
+    private static final String REMOVE_SQL = "DELETE FROM HttpSessions WHERE session_id = ?";
+    private static final String PURGE_SQL = "DELETE FROM HttpSessions WHERE expires_at <= ?";
+
+    @Override
+    public byte[] load(String sessionId) throws IOException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(LOAD_SQL)) {
+            stmt.setString(1, sessionId);
+            stmt.setLong(2, System.currentTimeMillis());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getBytes(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error loading session", e);
+        }
+    }
+
+    @Override
+    public void save(String sessionId, byte[] record, long expiresAt) throws IOException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
+            stmt.setString(1, sessionId);
+            stmt.setBytes(2, record);
+            stmt.setLong(3, expiresAt);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Error saving session", e);
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) throws IOException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(REMOVE_SQL)) {
+            stmt.setString(1, sessionId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Error removing session", e);
+        }
+    }
+
+    @Override
+    public int purgeExpired() throws IOException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(PURGE_SQL)) {
+            stmt.setLong(1, System.currentTimeMillis());
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Error purging expired sessions", e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.attendance.utils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes maps, lists, strings, numbers and booleans as JSON. Map keys are written as
+ * strings; non-finite numbers as null; anything else (dates, enums) as its toString().
+ * Convert model objects to maps first.
+ */
+public final class JsonWriter {
+
+    private JsonWriter() {
+    }
+
+    /**
+     * @param value The value
+     * @return The value as JSON
+     */
+    public static String toJson(Object value) {
+        StringBuilder json = new StringBuilder();
+        try {
+            write(json, value);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Write a value as JSON
+     * @param out Where to write
+     * @param value The value
+     * @throws IOException If writing fails
+     */
+    public static void write(Appendable out, Object value) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeString(out, String.valueOf(entry.getKey()));
+                out.append(':');
+                write(out, entry.getValue());
+            }
+            out.append('}');
+        } else if (value instanceof Iterable) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : (Iterable<?>) value) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                write(out, element);
+            }
+            out.append(']');
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            out.append(Double.isNaN(number) || Double.isInfinite(number) ? "null" : String.valueOf(number));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(String.valueOf(value));
+        } else {
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeString(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,116 @@
+package com.attendance.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram: durations are counted in
+ * log-linear buckets (each power of two of microseconds split into SUB_BUCKETS equal
+ * buckets, so about 3% resolution from 1 microsecond to over 9 hours). Recording is a
+ * few shifts and one atomic increment, cheap enough to do on every request and every
+ * DAO call; the counts are cumulative since startup, as Prometheus expects.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Bucket ranges: [0, 32) us one per microsecond, then 32 buckets per power of two up to 2^45 us
+    private static final int MAX_EXPONENT = 45;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record one duration
+     * @param nanos The duration in nanoseconds, e.g. a difference of System.nanoTime()
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.increment();
+        sumMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Total of the recorded durations, in seconds
+     */
+    public double getSumSeconds() {
+        return sumMicros.sum() / 1e6;
+    }
+
+    public double getMaxSeconds() {
+        return maxMicros.get() / 1e6;
+    }
+
+    /**
+     * @param seconds Upper bound
+     * @return Number of recorded durations no longer than the bound (to bucket resolution)
+     */
+    public long countAtOrBelow(double seconds) {
+        long micros = (long) (seconds * 1e6);
+        int last = bucketOf(micros);
+        long total = 0;
+        for (int i = 0; i <= last; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile From 0 to 100
+     * @return The duration at the percentile in seconds (the upper edge of its bucket), 0 if empty
+     */
+    public double getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperEdgeOf(i), maxMicros.get()) / 1e6;
+            }
+        }
+        return getMaxSeconds();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        // Position of the highest bit, at least SUB_BUCKET_BITS
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && micros >= (1L << (MAX_EXPONENT + 1))) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (micros >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperEdgeOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (((long) (SUB_BUCKETS + sub + 1)) << shift) - 1;
+    }
+}
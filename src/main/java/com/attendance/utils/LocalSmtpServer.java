@@ -0,0 +1,252 @@
+package com.attendance.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process SMTP stand-in for development and tests: accepts every message on
+ * localhost and keeps it in memory instead of delivering it.
+ *
+ * Enable it for the web application with SMTP_LOCAL_SERVER=true (the port is
+ * SMTP_PORT, default 2525), or run it on its own with
+ * {@code java com.attendance.utils.LocalSmtpServer [port]} and point SMTP_HOST/SMTP_PORT at it.
+ * {@link #failNext} makes it reject messages with a transient error to exercise retries.
+ */
+public class LocalSmtpServer {
+    private static final Logger LOGGER = Logger.getLogger(LocalSmtpServer.class.getName());
+
+    /**
+     * A message accepted by the server
+     */
+    public static class ReceivedMessage {
+        private final String from;
+        private final List<String> recipients;
+        private final String data;
+
+        ReceivedMessage(String from, List<String> recipients, String data) {
+            this.from = from;
+            this.recipients = Collections.unmodifiableList(recipients);
+            this.data = data;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public List<String> getRecipients() {
+            return recipients;
+        }
+
+        /**
+         * @return Headers and body as sent by the client
+         */
+        public String getData() {
+            return data;
+        }
+
+        /**
+         * @return The Subject header, or null
+         */
+        public String getSubject() {
+            for (String line : data.split("\r\n")) {
+                if (line.isEmpty()) {
+                    break;
+                }
+                if (line.regionMatches(true, 0, "Subject: ", 0, 9)) {
+                    return line.substring(9);
+                }
+            }
+            return null;
+        }
+    }
+
+    private final int port;
+    private final List<ReceivedMessage> messages = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+    private ServerSocket serverSocket;
+
+    /**
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public LocalSmtpServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Start accepting connections on localhost
+     * @throws IOException If the port cannot be opened
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "local-smtp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.info("Local SMTP server listening on port " + getPort());
+    }
+
+    /**
+     * Stop accepting connections
+     */
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing local SMTP server", e);
+        }
+        serverSocket = null;
+    }
+
+    /**
+     * @return The port the server listens on (useful when started with port 0)
+     */
+    public synchronized int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+    /**
+     * @return A copy of the messages received so far
+     */
+    public List<ReceivedMessage> getMessages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public void clear() {
+        messages.clear();
+    }
+
+    /**
+     * Reject the next messages with "451" (a transient failure the sender should retry)
+     * @param count Number of messages to reject
+     */
+    public void failNext(int count) {
+        failuresRemaining.set(count);
+    }
+
+    private void acceptLoop() {
+        ServerSocket server;
+        synchronized (this) {
+            server = serverSocket;
+        }
+        while (server != null && !server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> handle(socket), "local-smtp-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    LOGGER.log(Level.WARNING, "Error accepting SMTP connection", e);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream out = s.getOutputStream();
+            reply(out, "220 localhost SMTP stand-in");
+
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO":
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "MAIL":
+                        from = address(line);
+                        recipients = new ArrayList<>();
+                        reply(out, "250 OK");
+                        break;
+                    case "RCPT":
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        if (failuresRemaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            reply(out, "451 Requested action aborted: simulated failure");
+                        } else {
+                            ReceivedMessage message = new ReceivedMessage(from, recipients, data);
+                            messages.add(message);
+                            LOGGER.info("Local SMTP server received \"" + message.getSubject() + "\" for " + recipients);
+                            reply(out, "250 OK");
+                        }
+                        break;
+                    case "RSET":
+                        from = null;
+                        recipients = new ArrayList<>();
+                        reply(out, "250 OK");
+                        break;
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "502 Command not implemented");
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "SMTP connection ended", e);
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // Undo dot-stuffing
+            data.append(line.startsWith(".") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Run the stand-in on its own until the process is stopped
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : AppSettings.getInt("SMTP_PORT", 2525);
+        LocalSmtpServer server = new LocalSmtpServer(port);
+        server.start();
+        Thread.currentThread().join();
+    }
+}
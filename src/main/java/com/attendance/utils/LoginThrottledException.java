@@ -0,0 +1,18 @@
+package com.attendance.utils;
+
+/**
+ * Thrown when a password cannot be verified because PasswordVerifier is saturated;
+ * the login should be retried shortly rather than treated as failed
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+
+    public LoginThrottledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
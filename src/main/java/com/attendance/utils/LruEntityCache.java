@@ -0,0 +1,151 @@
+package com.attendance.utils;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process {@link EntityCache}: least-recently-used eviction once maxEntries is
+ * reached, and entries expire ttlMillis after they were loaded. The cache stores a copy
+ * of each loaded entity and returns a copy on every hit, so callers never share one.
+ *
+ * Loads run outside the lock, so concurrent misses on one key may both query the
+ * database; a load that overlaps an invalidation is not cached, so a stale row read
+ * just before a write cannot replace the invalidated entry.
+ */
+public class LruEntityCache<K, V> implements EntityCache<K, V> {
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final UnaryOperator<V> copier;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // Incremented by every invalidation
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruEntityCache(String name, int maxEntries, long ttlMillis, UnaryOperator<V> copier) {
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruEntityCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Create a cache configured by ENTITY_CACHE_&lt;NAME&gt;_MAX_ENTRIES and
+     * ENTITY_CACHE_&lt;NAME&gt;_TTL_SECONDS, falling back to ENTITY_CACHE_MAX_ENTRIES (10000)
+     * and ENTITY_CACHE_TTL_SECONDS (300); with ENTITY_CACHE_ENABLED=false every lookup goes
+     * to the database
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> EntityCache<K, V> fromSettings(String name, UnaryOperator<?> copier) {
+        String prefix = "ENTITY_CACHE_" + name.toUpperCase(Locale.ROOT) + "_";
+        int maxEntries = AppSettings.getInt(prefix + "MAX_ENTRIES", AppSettings.getInt("ENTITY_CACHE_MAX_ENTRIES", 10000));
+        long ttlSeconds = AppSettings.getLong(prefix + "TTL_SECONDS", AppSettings.getLong("ENTITY_CACHE_TTL_SECONDS", 300));
+
+        if (!AppSettings.getBoolean("ENTITY_CACHE_ENABLED", true) || maxEntries <= 0 || ttlSeconds <= 0) {
+            return new LruEntityCache<>(name, 1, 0, (UnaryOperator<V>) copier);
+        }
+        return new LruEntityCache<>(name, maxEntries, ttlSeconds * 1000, (UnaryOperator<V>) copier);
+    }
+
+    @Override
+    public V get(K key, Loader<K, V> loader) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return copier.apply(entry.value);
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        V value = loader.load(key);
+
+        if (value != null && ttlMillis > 0) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    // The caller keeps the loaded instance, the cache a copy
+                    entries.put(key, new Entry<>(copier.apply(value), System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + " cache: " + size() + " entries, " + getHitCount() + " hits, " +
+               getMissCount() + " misses, " + getEvictionCount() + " evictions";
+    }
+}
@@ -0,0 +1,233 @@
+package com.attendance.utils;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Application metrics, served in the Prometheus text format by MetricsServlet.
+ *
+ * Timings are kept in LatencyHistograms, one per label combination of a Timer (e.g. per
+ * route, per DAO method); gauges are read when the metrics are written. Timers and
+ * gauges are registered once, usually in a static field, and live for the application's
+ * lifetime. {@link #timed} wraps a DAO so that every call of its interface is timed.
+ */
+public final class Metrics {
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    // Histogram bucket bounds in seconds, from sub-millisecond queries to slow reports
+    private static final double[] BUCKET_BOUNDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+    };
+    private static final String[] BUCKET_LABELS = new String[BUCKET_BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            BUCKET_LABELS[i] = BigDecimal.valueOf(BUCKET_BOUNDS[i]).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, GaugeFamily> GAUGES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * A latency histogram per combination of label values
+     */
+    public static final class Timer {
+        private final String name;
+        private final String help;
+        private final String[] labelNames;
+        private final Map<List<String>, LatencyHistogram> series = new ConcurrentHashMap<>();
+
+        private Timer(String name, String help, String[] labelNames) {
+            this.name = name;
+            this.help = help;
+            this.labelNames = labelNames;
+        }
+
+        /**
+         * @param labelValues One value per label name, in order
+         * @return The histogram of the label values
+         */
+        public LatencyHistogram labels(String... labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException(name + " takes " + labelNames.length + " labels");
+            }
+            return series.computeIfAbsent(List.of(labelValues), key -> new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Reads the current values of a gauge, by label values (one per label name, in order)
+     */
+    public interface Gauge {
+        Map<List<String>, ? extends Number> read() throws Exception;
+    }
+
+    private static final class GaugeFamily {
+        private final String help;
+        private final String[] labelNames;
+        private final Gauge values;
+
+        private GaugeFamily(String help, String[] labelNames, Gauge values) {
+            this.help = help;
+            this.labelNames = labelNames;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Register a timer, or get the one registered under the name
+     * @param name Metric name, ending in _seconds
+     * @param help Description
+     * @param labelNames Label names
+     * @return The timer
+     */
+    public static Timer timer(String name, String help, String... labelNames) {
+        return TIMERS.computeIfAbsent(name, key -> new Timer(name, help, labelNames.clone()));
+    }
+
+    /**
+     * Register a gauge without labels
+     * @param name Metric name
+     * @param help Description
+     * @param value Reads the value
+     */
+    public static void gauge(String name, String help, Supplier<? extends Number> value) {
+        gauge(name, help, new String[0], () -> Map.of(List.of(), value.get()));
+    }
+
+    /**
+     * Register a gauge with labels, replacing any registered under the name
+     * @param name Metric name
+     * @param help Description
+     * @param labelNames Label names
+     * @param values Reads the value of every label combination
+     */
+    public static void gauge(String name, String help, String[] labelNames, Gauge values) {
+        GAUGES.put(name, new GaugeFamily(help, labelNames.clone(), values));
+    }
+
+    /**
+     * Wrap an object so that every call of an interface method is timed in
+     * dao_call_duration_seconds, labelled with the interface and method name
+     * @param type The interface, e.g. AttendanceDao.class
+     * @param target The implementation
+     * @return The timed object
+     */
+    public static <T> T timed(Class<T> type, T target) {
+        Timer timer = timer("dao_call_duration_seconds", "Duration of DAO calls", "dao", "method");
+        String dao = type.getSimpleName();
+        Map<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            LatencyHistogram histogram = histograms.computeIfAbsent(method,
+                    m -> timer.labels(dao, m.getName()));
+            long start = System.nanoTime();
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    /**
+     * Write every metric in the Prometheus text exposition format (version 0.0.4)
+     * @param out Where to write
+     * @throws IOException If writing fails
+     */
+    public static void writePrometheus(Appendable out) throws IOException {
+        for (Timer timer : new TreeMap<>(TIMERS).values()) {
+            out.append("# HELP ").append(timer.name).append(' ').append(timer.help).append('\n');
+            out.append("# TYPE ").append(timer.name).append(" histogram\n");
+            for (Map.Entry<List<String>, LatencyHistogram> entry : timer.series.entrySet()) {
+                String labels = labels(timer.labelNames, entry.getKey());
+                LatencyHistogram histogram = entry.getValue();
+                // Read the count first, so no bucket exceeds +Inf while calls are recorded
+                long count = histogram.getCount();
+                for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                    out.append(timer.name).append("_bucket{").append(labels)
+                       .append(labels.isEmpty() ? "" : ",").append("le=\"").append(BUCKET_LABELS[i]).append("\"} ")
+                       .append(String.valueOf(Math.min(count, histogram.countAtOrBelow(BUCKET_BOUNDS[i])))).append('\n');
+                }
+                out.append(timer.name).append("_bucket{").append(labels)
+                   .append(labels.isEmpty() ? "" : ",").append("le=\"+Inf\"} ").append(String.valueOf(count)).append('\n');
+                out.append(timer.name).append("_sum").append(braces(labels)).append(' ')
+                   .append(format(histogram.getSumSeconds())).append('\n');
+                out.append(timer.name).append("_count").append(braces(labels)).append(' ')
+                   .append(String.valueOf(count)).append('\n');
+            }
+            // The largest duration since startup, which the buckets only bound
+            out.append("# TYPE ").append(timer.name).append("_max gauge\n");
+            for (Map.Entry<List<String>, LatencyHistogram> entry : timer.series.entrySet()) {
+                out.append(timer.name).append("_max").append(braces(labels(timer.labelNames, entry.getKey())))
+                   .append(' ').append(format(entry.getValue().getMaxSeconds())).append('\n');
+            }
+        }
+
+        for (Map.Entry<String, GaugeFamily> entry : new TreeMap<>(GAUGES).entrySet()) {
+            String name = entry.getKey();
+            GaugeFamily gauge = entry.getValue();
+            Map<List<String>, ? extends Number> values;
+            try {
+                values = gauge.values.read();
+            } catch (Exception e) {
+                // Leave the gauge out rather than fail the scrape
+                LOGGER.log(Level.WARNING, "Error reading metric " + name, e);
+                continue;
+            }
+            out.append("# HELP ").append(name).append(' ').append(gauge.help).append('\n');
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            for (Map.Entry<List<String>, ? extends Number> value : values.entrySet()) {
+                out.append(name).append(braces(labels(gauge.labelNames, value.getKey()))).append(' ')
+                   .append(format(value.getValue().doubleValue())).append('\n');
+            }
+        }
+    }
+
+    private static String labels(String[] names, List<String> values) {
+        List<String> pairs = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            pairs.add(names[i] + "=\"" + escape(values.get(i)) + "\"");
+        }
+        return String.join(",", pairs);
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+}
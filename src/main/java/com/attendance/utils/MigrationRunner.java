@@ -0,0 +1,338 @@
+package com.attendance.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned schema migrations and records them in the schema_migrations table.
+ *
+ * SQL migrations live in src/main/resources/database/migrations and are listed in
+ * {@link #SQL_MIGRATIONS}; the file name gives the version (V{n}__description.sql).
+ * Each migration runs in its own transaction under an advisory lock, so several
+ * application instances starting together apply it only once.
+ */
+public class MigrationRunner {
+    private static final Logger LOGGER = Logger.getLogger(MigrationRunner.class.getName());
+
+    private static final String MIGRATIONS_PATH = "/database/migrations/";
+
+    // Add new SQL migrations here, in version order
+    private static final String[] SQL_MIGRATIONS = {
+        "V1__attendance_indexes.sql",
+        "V3__keyset_pagination_indexes.sql",
+        "V4__notification_outbox.sql",
+        "V5__notification_digest.sql",
+        "V6__attendance_upsert_columns.sql",
+        "V7__approved_leave_index.sql",
+        "V8__http_sessions.sql",
+        "V9__attendance_rollup_version.sql",
+        "V10__face_embeddings.sql",
+        "V11__attendance_partitioned_upsert_key.sql",
+        "V12__attendance_marked_by_user.sql",
+        "V13__attendance_rollup_build.sql"
+    };
+
+    // Arbitrary application-wide key for pg_advisory_lock
+    private static final long LOCK_KEY = 7_246_381_001L;
+
+    private static final String CREATE_HISTORY_TABLE =
+            "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+            "version INT PRIMARY KEY," +
+            "description VARCHAR(200) NOT NULL," +
+            "checksum VARCHAR(20)," +
+            "execution_ms BIGINT," +
+            "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP" +
+            ")";
+
+    /**
+     * A single schema change
+     */
+    public interface Migration {
+        int getVersion();
+
+        String getDescription();
+
+        /**
+         * @return A checksum of the migration source, or null if it cannot change
+         */
+        default String getChecksum() {
+            return null;
+        }
+
+        /**
+         * Optional migrations can be switched off by configuration; a disabled
+         * migration is not recorded, so it runs once it is enabled
+         */
+        default boolean isEnabled() {
+            return true;
+        }
+
+        void migrate(Connection conn) throws SQLException;
+
+        /**
+         * Called on every startup once the migration has been applied
+         * (e.g. to create partitions for a new academic year)
+         */
+        default void afterStartup(Connection conn) throws SQLException {
+        }
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * Create a runner with the built-in migrations
+     */
+    public MigrationRunner() {
+        for (String resource : SQL_MIGRATIONS) {
+            migrations.add(SqlMigration.load(resource));
+        }
+        migrations.add(new AttendancePartitionMigration());
+        migrations.sort(Comparator.comparingInt(Migration::getVersion));
+    }
+
+    /**
+     * Apply all pending migrations
+     * @return Number of migrations applied
+     * @throws SQLException If a migration fails (later migrations are not attempted)
+     */
+    public int migrate() throws SQLException {
+        int applied = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_HISTORY_TABLE);
+                stmt.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+
+            try {
+                Map<Integer, String> history = loadHistory(conn);
+
+                for (Migration migration : migrations) {
+                    int version = migration.getVersion();
+                    if (history.containsKey(version)) {
+                        String recorded = history.get(version);
+                        String current = migration.getChecksum();
+                        if (recorded != null && current != null && !recorded.equals(current)) {
+                            LOGGER.warning("Migration V" + version + " has changed since it was applied " +
+                                           "(checksum " + recorded + " -> " + current + ")");
+                        }
+                        continue;
+                    }
+
+                    if (!migration.isEnabled()) {
+                        LOGGER.info("Skipping disabled migration V" + version + ": " + migration.getDescription());
+                        continue;
+                    }
+
+                    apply(conn, migration);
+                    history.put(version, migration.getChecksum());
+                    applied++;
+                }
+
+                for (Migration migration : migrations) {
+                    if (history.containsKey(migration.getVersion())) {
+                        migration.afterStartup(conn);
+                    }
+                }
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        }
+
+        LOGGER.info("Schema migrations complete: " + applied + " applied");
+        return applied;
+    }
+
+    private Map<Integer, String> loadHistory(Connection conn) throws SQLException {
+        Map<Integer, String> history = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                history.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return history;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        LOGGER.info("Applying migration V" + migration.getVersion() + ": " + migration.getDescription());
+        long start = System.currentTimeMillis();
+
+        conn.setAutoCommit(false);
+        try {
+            migration.migrate(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum, execution_ms) " +
+                    "VALUES (?, ?, ?, ?)")) {
+                stmt.setInt(1, migration.getVersion());
+                stmt.setString(2, migration.getDescription());
+                stmt.setString(3, migration.getChecksum());
+                stmt.setLong(4, System.currentTimeMillis() - start);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            LOGGER.info("Migration V" + migration.getVersion() + " applied in " +
+                        (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Error rolling back migration", ex);
+            }
+            LOGGER.log(Level.SEVERE, "Migration V" + migration.getVersion() + " failed", e);
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * A migration read from a classpath SQL script
+     */
+    static class SqlMigration implements Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final String checksum;
+
+        SqlMigration(int version, String description, String script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+            this.checksum = Long.toHexString(crc.getValue());
+        }
+
+        static SqlMigration load(String fileName) {
+            int separator = fileName.indexOf("__");
+            if (!fileName.startsWith("V") || separator < 0) {
+                throw new IllegalArgumentException("Migration file name must look like V1__description.sql: " + fileName);
+            }
+            int version = Integer.parseInt(fileName.substring(1, separator));
+            String description = fileName.substring(separator + 2).replace(".sql", "").replace('_', ' ');
+
+            try (InputStream in = MigrationRunner.class.getResourceAsStream(MIGRATIONS_PATH + fileName)) {
+                if (in == null) {
+                    throw new IllegalStateException("Migration script not found on classpath: " + fileName);
+                }
+                return new SqlMigration(version, description, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read migration script: " + fileName, e);
+            }
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String getChecksum() {
+            return checksum;
+        }
+
+        @Override
+        public void migrate(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : splitStatements(script)) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    /**
+     * Split a script into statements on ';', ignoring semicolons inside quotes,
+     * dollar-quoted bodies and comments
+     */
+    public static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        int length = script.length();
+
+        while (i < length) {
+            char c = script.charAt(i);
+
+            if (c == '-' && i + 1 < length && script.charAt(i + 1) == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+                current.append('\n');
+                continue;
+            }
+
+            if (c == '\'') {
+                int end = i + 1;
+                while (end < length) {
+                    if (script.charAt(end) == '\'') {
+                        if (end + 1 < length && script.charAt(end + 1) == '\'') {
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+                current.append(script, i, end);
+                i = end;
+                continue;
+            }
+
+            if (c == '$') {
+                int tagEnd = script.indexOf('$', i + 1);
+                if (tagEnd > 0 && script.substring(i + 1, tagEnd).matches("[A-Za-z_]*")) {
+                    String tag = script.substring(i, tagEnd + 1);
+                    int close = script.indexOf(tag, tagEnd + 1);
+                    int end = close < 0 ? length : close + tag.length();
+                    current.append(script, i, end);
+                    i = end;
+                    continue;
+                }
+            }
+
+            if (c == ';') {
+                addStatement(statements, current);
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+            i++;
+        }
+
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder statement) {
+        String sql = statement.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.attendance.utils;
+
+import com.attendance.dao.NotificationOutboxDao;
+import com.attendance.dao.impl.NotificationOutboxDaoImpl;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job for NOTIFICATION_MODE=digest: instead of one email per marked record,
+ * every student with attendance on the previous day gets a single summary of that day,
+ * including a warning for subjects below LOW_ATTENDANCE_THRESHOLD (default 75).
+ *
+ * The digests are enqueued in the NotificationOutbox and delivered by
+ * NotificationOutboxWorker. The job runs at startup (catching up a missed run) and
+ * every day at NOTIFICATION_DIGEST_TIME (HH:mm, default 07:00); a day is only
+ * digested once.
+ */
+public class NotificationDigestJob {
+    private static final Logger LOGGER = Logger.getLogger(NotificationDigestJob.class.getName());
+
+    private final NotificationOutboxDao outboxDao;
+    private final LocalTime runAt;
+    private final double threshold;
+    private ScheduledExecutorService scheduler;
+
+    public NotificationDigestJob() {
+        this(new NotificationOutboxDaoImpl(), parseTime(AppSettings.getString("NOTIFICATION_DIGEST_TIME", "07:00")),
+             AppSettings.getDouble("LOW_ATTENDANCE_THRESHOLD", 75.0));
+    }
+
+    public NotificationDigestJob(NotificationOutboxDao outboxDao, LocalTime runAt, double threshold) {
+        this.outboxDao = outboxDao;
+        this.runAt = runAt;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return True if attendance notifications are sent as daily digests instead of per record
+     */
+    public static boolean isDigestMode() {
+        return "digest".equalsIgnoreCase(AppSettings.getString("NOTIFICATION_MODE", "immediate"));
+    }
+
+    /**
+     * Start the job; the first run happens immediately
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-digest-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::runOnce);
+        scheduleNext();
+        LOGGER.info("Attendance digest job scheduled daily at " + runAt);
+    }
+
+    /**
+     * Stop the job, waiting briefly for a running pass to finish
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Enqueue the digests for the previous day, unless that was already done
+     */
+    public void runOnce() {
+        Date day = Date.valueOf(LocalDate.now().minusDays(1));
+        try {
+            long start = System.currentTimeMillis();
+            int digests = outboxDao.enqueueAttendanceDigests(day, day, threshold);
+            if (digests >= 0) {
+                LOGGER.info("Enqueued " + digests + " attendance digests for " + day + " in " +
+                            (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Attendance digest for " + day + " failed", e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Unexpected error in attendance digest job", e);
+        }
+    }
+
+    /**
+     * Schedule the next daily run; rescheduled after every run so the time of day
+     * stays correct across daylight saving changes
+     */
+    private synchronized void scheduleNext() {
+        if (scheduler == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.schedule(() -> {
+            runOnce();
+            scheduleNext();
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static LocalTime parseTime(String value) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            LOGGER.warning("Invalid NOTIFICATION_DIGEST_TIME '" + value + "', using 07:00");
+            return LocalTime.of(7, 0);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.attendance.utils;
+
+import com.attendance.dao.NotificationOutboxDao;
+import com.attendance.dao.impl.NotificationOutboxDaoImpl;
+import com.attendance.models.Notification;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job that delivers the notifications in the NotificationOutbox.
+ *
+ * Every NOTIFICATION_POLL_SECONDS (default 5) it claims the due notifications of up to
+ * NOTIFICATION_BATCH_RECIPIENTS recipients (default 100) and sends one email per
+ * recipient on a pool of NOTIFICATION_WORKER_THREADS threads (default 4), at most
+ * NOTIFICATION_MAX_PER_SECOND emails per second (default 10). The next batch is only
+ * claimed when the previous one is finished, so a slow SMTP server makes the outbox
+ * grow instead of the queue in memory. Failed deliveries are retried with exponential
+ * backoff (NOTIFICATION_RETRY_BACKOFF_SECONDS, default 30, up to
+ * NOTIFICATION_RETRY_MAX_BACKOFF_SECONDS, default 3600) until
+ * NOTIFICATION_MAX_ATTEMPTS (default 8). Delivered notifications are deleted after
+ * NOTIFICATION_RETENTION_DAYS (default 30).
+ *
+ * Delivery is at least once: if the application stops between sending an email and
+ * recording it, the notification is sent again once its lease expires.
+ */
+public class NotificationOutboxWorker {
+    private static final Logger LOGGER = Logger.getLogger(NotificationOutboxWorker.class.getName());
+
+    private final NotificationOutboxDao outboxDao;
+    private final EmailNotificationService emailService;
+    private final long pollSeconds;
+    private final int batchRecipients;
+    private final int threads;
+    private final RateLimiter rateLimiter;
+    private final int maxAttempts;
+    private final long backoffSeconds;
+    private final long maxBackoffSeconds;
+    private final int retentionDays;
+    private final long leaseSeconds;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService senders;
+
+    public NotificationOutboxWorker() {
+        this(new NotificationOutboxDaoImpl(), EmailNotificationService.getInstance());
+    }
+
+    public NotificationOutboxWorker(NotificationOutboxDao outboxDao, EmailNotificationService emailService) {
+        this.outboxDao = outboxDao;
+        this.emailService = emailService;
+        this.pollSeconds = Math.max(1, AppSettings.getLong("NOTIFICATION_POLL_SECONDS", 5));
+        this.batchRecipients = Math.max(1, AppSettings.getInt("NOTIFICATION_BATCH_RECIPIENTS", 100));
+        this.threads = Math.max(1, AppSettings.getInt("NOTIFICATION_WORKER_THREADS", 4));
+        int maxPerSecond = Math.max(1, AppSettings.getInt("NOTIFICATION_MAX_PER_SECOND", 10));
+        this.rateLimiter = new RateLimiter(maxPerSecond);
+        this.maxAttempts = Math.max(1, AppSettings.getInt("NOTIFICATION_MAX_ATTEMPTS", 8));
+        this.backoffSeconds = Math.max(1, AppSettings.getLong("NOTIFICATION_RETRY_BACKOFF_SECONDS", 30));
+        this.maxBackoffSeconds = Math.max(backoffSeconds, AppSettings.getLong("NOTIFICATION_RETRY_MAX_BACKOFF_SECONDS", 3600));
+        this.retentionDays = Math.max(1, AppSettings.getInt("NOTIFICATION_RETENTION_DAYS", 30));
+        // Long enough for a whole batch at the rate limit, so a claim never expires while it is being sent
+        this.leaseSeconds = 60 + 2L * batchRecipients / maxPerSecond;
+    }
+
+    /**
+     * Start the worker; the first poll happens immediately
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("notification-outbox"));
+        senders = Executors.newFixedThreadPool(threads, daemonThreads("notification-sender"));
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, pollSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::purge, 1, 24, TimeUnit.HOURS);
+        LOGGER.info("Notification outbox worker polling every " + pollSeconds + " seconds with " +
+                    threads + " sender threads");
+    }
+
+    /**
+     * Stop the worker, waiting briefly for emails being sent; notifications that were
+     * claimed but not sent are retried after their lease expires
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            senders.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        senders = null;
+    }
+
+    /**
+     * Deliver due notifications until the outbox has no more due recipients
+     */
+    public void runOnce() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Notification> claimed = outboxDao.claimDue(batchRecipients, leaseSeconds);
+                if (claimed.isEmpty()) {
+                    return;
+                }
+
+                // Rows come ordered by recipient; each recipient gets a single email
+                Map<Integer, List<Notification>> byRecipient = new LinkedHashMap<>();
+                for (Notification notification : claimed) {
+                    byRecipient.computeIfAbsent(notification.getRecipientId(), id -> new ArrayList<>()).add(notification);
+                }
+
+                AtomicInteger sent = new AtomicInteger();
+                List<Callable<Void>> tasks = new ArrayList<>(byRecipient.size());
+                for (List<Notification> notifications : byRecipient.values()) {
+                    tasks.add(() -> {
+                        if (deliver(notifications)) {
+                            sent.incrementAndGet();
+                        }
+                        return null;
+                    });
+                }
+                ExecutorService pool;
+                synchronized (this) {
+                    pool = senders;
+                }
+                if (pool == null) {
+                    for (Callable<Void> task : tasks) {
+                        task.call();
+                    }
+                } else {
+                    for (Future<Void> result : pool.invokeAll(tasks)) {
+                        try {
+                            result.get();
+                        } catch (ExecutionException e) {
+                            // Recording the outcome failed; the notification is retried after its lease
+                            LOGGER.log(Level.SEVERE, "Error recording notification delivery", e.getCause());
+                        }
+                    }
+                }
+
+                LOGGER.info("Notification outbox: " + claimed.size() + " notifications for " +
+                            byRecipient.size() + " recipients, " + sent.get() + " emails sent");
+                if (byRecipient.size() < batchRecipients) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Notification outbox poll failed", e);
+        } catch (Exception e) {
+            // Never let an unexpected failure cancel the scheduled task
+            LOGGER.log(Level.SEVERE, "Unexpected error in notification outbox worker", e);
+        }
+    }
+
+    /**
+     * Send one recipient's notifications and record the outcome
+     * @return True if the email was sent
+     */
+    private boolean deliver(List<Notification> notifications) throws SQLException, InterruptedException {
+        List<Long> ids = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            ids.add(notification.getNotificationId());
+        }
+        Notification first = notifications.get(0);
+
+        if (first.getRecipientEmail() == null || first.getRecipientEmail().isEmpty()) {
+            outboxDao.markFailed(ids, "Recipient has no email address", 0, backoffSeconds, maxBackoffSeconds);
+            return false;
+        }
+
+        rateLimiter.acquire();
+        try {
+            emailService.sendNotifications(first.getRecipientEmail(), first.getRecipientName(), notifications);
+        } catch (SmtpClient.SmtpException e) {
+            LOGGER.log(Level.WARNING, "SMTP server rejected notification for user " + first.getRecipientId() +
+                       ": " + e.getMessage());
+            outboxDao.markFailed(ids, e.getMessage(), e.isPermanent() ? 0 : maxAttempts,
+                                 backoffSeconds, maxBackoffSeconds);
+            return false;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error sending notification to user " + first.getRecipientId(), e);
+            outboxDao.markFailed(ids, String.valueOf(e.getMessage()), maxAttempts, backoffSeconds, maxBackoffSeconds);
+            return false;
+        }
+        outboxDao.markSent(ids);
+        return true;
+    }
+
+    private void purge() {
+        try {
+            int purged = outboxDao.purgeSent(retentionDays);
+            if (purged > 0) {
+                LOGGER.info("Purged " + purged + " delivered notifications");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Purging delivered notifications failed", e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Unexpected error purging delivered notifications", e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Spaces out permits evenly so at most permitsPerSecond are handed out per second
+     */
+    private static class RateLimiter {
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+
+        RateLimiter(int permitsPerSecond) {
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(nextFreeNanos, now);
+                nextFreeNanos = slot + intervalNanos;
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
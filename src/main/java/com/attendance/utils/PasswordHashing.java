@@ -7,7 +7,9 @@ import java.util.Base64;
 
 /**
  * Utility class for password hashing and verification
+ * @deprecated Stored passwords are created and checked by PasswordUtils
  */
+@Deprecated
 public class PasswordHashing {
     
     private static final int SALT_LENGTH = 16;
@@ -49,7 +51,7 @@ public class PasswordHashing {
      */
     public static boolean verifyPassword(String password, String storedSalt, String storedHash) {
         String hashedPassword = hashPassword(password, storedSalt);
-        return hashedPassword.equals(storedHash);
+        return PasswordUtils.constantTimeEquals(hashedPassword, storedHash);
     }
     
     /**
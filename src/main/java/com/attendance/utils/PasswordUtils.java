@@ -1,5 +1,9 @@
 package com.attendance.utils;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -8,7 +12,12 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Utility class for password hashing and verification
+ * Utility class for password hashing and verification.
+ *
+ * Passwords are stored as "pbkdf2-sha256$iterations$salt$hash" (PBKDF2-HMAC-SHA256,
+ * Base64 salt and hash). The iteration count is part of the stored value, so it can be
+ * raised with PASSWORD_HASH_ITERATIONS without invalidating existing hashes; see
+ * needsRehash. Older "salt:hash" values (one round of salted SHA-256) still verify.
  */
 public class PasswordUtils {
     private static final Logger LOGGER = Logger.getLogger(PasswordUtils.class.getName());
@@ -16,6 +25,18 @@ public class PasswordUtils {
     // Constants for salt generation
     private static final int SALT_LENGTH = 16;
     private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final String PBKDF2_PREFIX = "pbkdf2-sha256";
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int PBKDF2_KEY_BITS = 256;
+    private static final int MIN_ITERATIONS = 10_000;
+
+    /**
+     * Cost of new hashes; pick it with benchmarks/PasswordHashBenchmark so a login stays
+     * within its latency budget at peak load
+     */
+    private static final int ITERATIONS =
+            Math.max(MIN_ITERATIONS, AppSettings.getInt("PASSWORD_HASH_ITERATIONS", 210_000));
     
     /**
      * Generate a secure random salt
@@ -60,7 +81,7 @@ public class PasswordUtils {
      */
     public static boolean verifyPassword(String password, String hashedPassword, String salt) {
         String hashedInput = hashPassword(password, salt);
-        return hashedInput.equals(hashedPassword);
+        return constantTimeEquals(hashedInput, hashedPassword);
     }
     
     /**
@@ -70,32 +91,66 @@ public class PasswordUtils {
      * @param inputPassword the password to verify
      * @param storedPassword the stored password (in plain text)
      * @return true if the password matches
+     * @deprecated Stored passwords are hashed; use verifySecurePassword
      */
+    @Deprecated
     public static boolean verifyPlainTextPassword(String inputPassword, String storedPassword) {
-        return inputPassword.equals(storedPassword);
+        return constantTimeEquals(inputPassword, storedPassword);
     }
     
     /**
-     * Generate a secure password hash (with auto-generated salt)
-     * This is a simplified version that generates salt internally and returns a formatted string
+     * Generate a secure password hash (with auto-generated salt) at the configured cost
      * 
      * @param password the password to hash
-     * @return a formatted string containing both the salt and hash, separated by ':'
+     * @return a formatted string "pbkdf2-sha256$iterations$salt$hash"
      */
     public static String generateSecurePassword(String password) {
-        String salt = generateSalt();
-        String hash = hashPassword(password, salt);
-        return salt + ":" + hash;
+        return generateSecurePassword(password, ITERATIONS);
+    }
+
+    /**
+     * Generate a secure password hash (with auto-generated salt)
+     * 
+     * @param password the password to hash
+     * @param iterations the PBKDF2 iteration count
+     * @return a formatted string "pbkdf2-sha256$iterations$salt$hash"
+     */
+    public static String generateSecurePassword(String password, int iterations) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PBKDF2_PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(pbkdf2(password, salt, iterations));
     }
     
     /**
-     * Verify a password against a secure formatted password string (salt:hash)
+     * Verify a password against a stored password string, either
+     * "pbkdf2-sha256$iterations$salt$hash" or the older "salt:hash"
      * 
      * @param password the password to verify
-     * @param securePassword the stored secure password string (salt:hash)
+     * @param securePassword the stored secure password string
      * @return true if the password matches
      */
     public static boolean verifySecurePassword(String password, String securePassword) {
+        if (password == null || securePassword == null) {
+            return false;
+        }
+        if (securePassword.startsWith(PBKDF2_PREFIX + "$")) {
+            String[] parts = securePassword.split("\\$");
+            if (parts.length != 4) {
+                return false;
+            }
+            try {
+                int iterations = Integer.parseInt(parts[1]);
+                byte[] salt = Base64.getDecoder().decode(parts[2]);
+                byte[] hash = Base64.getDecoder().decode(parts[3]);
+                return MessageDigest.isEqual(pbkdf2(password, salt, iterations), hash);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Malformed password hash");
+                return false;
+            }
+        }
+
         String[] parts = securePassword.split(":");
         if (parts.length != 2) {
             return false;
@@ -104,7 +159,64 @@ public class PasswordUtils {
         String salt = parts[0];
         String hash = parts[1];
         
-        return verifyPassword(password, hash, salt);
+        try {
+            return verifyPassword(password, hash, salt);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Malformed password hash");
+            return false;
+        }
+    }
+
+    /**
+     * Check whether a stored password should be replaced by a new hash after a successful
+     * login: it uses the legacy format or fewer iterations than currently configured
+     * 
+     * @param securePassword the stored secure password string
+     * @return true if the password should be rehashed
+     */
+    public static boolean needsRehash(String securePassword) {
+        if (securePassword == null || !securePassword.startsWith(PBKDF2_PREFIX + "$")) {
+            return true;
+        }
+        String[] parts = securePassword.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return the PBKDF2 iteration count of new hashes
+     */
+    public static int getIterations() {
+        return ITERATIONS;
+    }
+
+    /**
+     * Compare two strings in time that depends only on their length, so a mismatch does
+     * not reveal how many leading characters were right
+     */
+    static boolean constantTimeEquals(String a, String b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Invalid iteration count: " + iterations);
+        }
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, PBKDF2_KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            LOGGER.log(Level.SEVERE, "Error hashing password", e);
+            throw new RuntimeException("Error hashing password", e);
+        } finally {
+            spec.clearPassword();
+        }
     }
     
     /**
@@ -0,0 +1,139 @@
+package com.attendance.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing for logins on a small fixed pool with a bounded queue. Hashing
+ * is deliberately expensive, so a burst of logins would otherwise occupy every request
+ * thread; here at most PASSWORD_VERIFY_THREADS hashes run at once, and logins beyond
+ * the queue (PASSWORD_VERIFY_QUEUE) or waiting longer than PASSWORD_VERIFY_TIMEOUT_MS
+ * are turned away with LoginThrottledException.
+ */
+public final class PasswordVerifier {
+
+    /**
+     * Outcome of a verification
+     */
+    public static final class Result {
+        private final boolean matches;
+        private final String upgradedHash;
+
+        Result(boolean matches, String upgradedHash) {
+            this.matches = matches;
+            this.upgradedHash = upgradedHash;
+        }
+
+        public boolean matches() {
+            return matches;
+        }
+
+        /**
+         * @return A new hash of the password to store in place of the old one, or null
+         *         if the stored hash is current (or the password did not match)
+         */
+        public String getUpgradedHash() {
+            return upgradedHash;
+        }
+    }
+
+    private static final long TIMEOUT_MILLIS = AppSettings.getLong("PASSWORD_VERIFY_TIMEOUT_MS", 5000L);
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    // Verified for unknown accounts, so they take as long as known ones; made up front so
+    // that the first such login does not also pay for hashing it
+    private static final String DUMMY_HASH = PasswordUtils.generateSecurePassword("");
+
+    private PasswordVerifier() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = Math.max(1, AppSettings.getInt("PASSWORD_VERIFY_THREADS",
+                Runtime.getRuntime().availableProcessors()));
+        int queueSize = Math.max(1, AppSettings.getInt("PASSWORD_VERIFY_QUEUE", 64));
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "password-verifier-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (r, executor) -> {
+                    throw new LoginThrottledException("Too many logins in progress",
+                            new RejectedExecutionException("Password verification queue is full"));
+                });
+    }
+
+    /**
+     * Verify a password and, when it matches a hash in an outdated format or cost,
+     * compute its replacement
+     * @param password The password entered
+     * @param storedHash The stored password hash
+     * @return The result
+     * @throws LoginThrottledException If the verifier is saturated
+     */
+    public static Result verify(String password, String storedHash) {
+        return await(EXECUTOR.submit(() -> {
+            boolean matches = PasswordUtils.verifySecurePassword(password, storedHash);
+            if (!PasswordUtils.needsRehash(storedHash)) {
+                return new Result(matches, null);
+            }
+            // A legacy (or cheaper) hash verifies faster than a current one. The rehash, or
+            // for a wrong password a dummy verification, makes up the difference, so the
+            // response time does not tell which accounts still have an old hash.
+            if (!matches) {
+                PasswordUtils.verifySecurePassword(password, DUMMY_HASH);
+                return new Result(false, null);
+            }
+            return new Result(true, PasswordUtils.generateSecurePassword(password));
+        }));
+    }
+
+    /**
+     * Spend the time of a verification for a login of an unknown account
+     * @param password The password entered
+     * @throws LoginThrottledException If the verifier is saturated
+     */
+    public static void verifyDummy(String password) {
+        await(EXECUTOR.submit(() -> {
+            PasswordUtils.verifySecurePassword(password, DUMMY_HASH);
+            return null;
+        }));
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new LoginThrottledException("Password verification timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException("Interrupted waiting for password verification", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Password verification failed", cause);
+        }
+    }
+
+    /**
+     * @return Number of verifications waiting for a thread
+     */
+    public static int getQueuedCount() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
@@ -0,0 +1,192 @@
+package com.attendance.utils;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EXPLAIN-based regression check for the main Attendance queries.
+ *
+ * Each query is planned with representative parameters; a sequential scan of
+ * Attendance (or one of its partitions) is reported once the table holds at least
+ * DB_EXPLAIN_MIN_ROWS rows (default 10000), since below that a seq scan is the
+ * planner's correct choice. Run it with {@code java com.attendance.utils.QueryPlanCheck}
+ * (exit code 1 on a regression) or at startup with DB_EXPLAIN_CHECK=true.
+ */
+public class QueryPlanCheck {
+    private static final Logger LOGGER = Logger.getLogger(QueryPlanCheck.class.getName());
+
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (attendance\\w*)", Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, String> queries = new LinkedHashMap<>();
+    private final Map<String, CsvExporter.ParameterBinder> binders = new LinkedHashMap<>();
+    private final long minRows;
+
+    public QueryPlanCheck() {
+        this(AppSettings.getLong("DB_EXPLAIN_MIN_ROWS", 10000));
+    }
+
+    public QueryPlanCheck(long minRows) {
+        this.minRows = minRows;
+
+        Date today = Date.valueOf(LocalDate.now());
+        Date monthAgo = Date.valueOf(LocalDate.now().minusMonths(1));
+        String year = String.valueOf(LocalDate.now().getYear());
+
+        add("findByDate",
+            "SELECT * FROM Attendance WHERE attendance_date = ?", today);
+        add("findBySubject",
+            "SELECT * FROM Attendance WHERE subject_code = ? ORDER BY attendance_date", "CS101");
+        add("findRecentByStudent",
+            "SELECT * FROM Attendance WHERE student_id = ? ORDER BY attendance_date DESC LIMIT 10", 1);
+        add("findByClassAndDate",
+            "SELECT a.* FROM Attendance a " +
+            "JOIN StudentEnrollments se ON a.student_id = se.student_id AND se.academic_year = a.academic_year " +
+            "WHERE se.class_id = ? AND a.attendance_date = ?", 1, today);
+        // The filter queries are built and bound as AttendanceFilterController does
+        Map<String, Object> absences = new HashMap<>();
+        absences.put("semester", "1");
+        absences.put("academicYear", year);
+        absences.put("status", "Absent");
+        absences.put("fromDate", monthAgo);
+        absences.put("toDate", today);
+        addFilter("getFilteredAttendanceResults", new AttendanceFilterQuery(absences).page(501, null));
+        addFilter("getFilteredAttendanceResults (next page)", new AttendanceFilterQuery(absences)
+                  .page(501, AttendanceFilterQuery.cursorOf(LocalDate.now().minusDays(7), "CS101", 1, 1)));
+
+        Map<String, Object> belowThreshold = new HashMap<>();
+        belowThreshold.put("semester", "1");
+        belowThreshold.put("academicYear", year);
+        belowThreshold.put("fromDate", monthAgo);
+        belowThreshold.put("toDate", today);
+        belowThreshold.put("threshold", 75.0);
+        belowThreshold.put("comparisonType", "below");
+        addFilter("getFilteredAttendanceResults (below threshold)",
+                  new AttendanceFilterQuery(belowThreshold).page(501, null));
+    }
+
+    private void add(String name, String sql, Object... params) {
+        queries.put(name, sql);
+        binders.put(name, stmt -> {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+        });
+    }
+
+    private void addFilter(String name, AttendanceFilterQuery query) {
+        queries.put(name, query.toSql(AttendanceFilterQuery.RESULT_COLUMNS, "", true));
+        binders.put(name, stmt -> query.bind(stmt, true));
+    }
+
+    /**
+     * Plan every query and report sequential scans of large Attendance tables
+     * @return One message per regression; empty if all plans use indexes
+     * @throws SQLException If a database error occurs
+     */
+    public List<String> run() throws SQLException {
+        List<String> problems = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (Map.Entry<String, String> entry : queries.entrySet()) {
+                String name = entry.getKey();
+                List<String> plan;
+                try {
+                    plan = explain(conn, entry.getValue(), binders.get(name));
+                } catch (SQLException e) {
+                    problems.add(name + ": could not be planned (" + e.getMessage() + ")");
+                    continue;
+                }
+
+                for (String line : plan) {
+                    Matcher matcher = SEQ_SCAN.matcher(line);
+                    if (matcher.find()) {
+                        String relation = matcher.group(1);
+                        long rows = estimatedRows(conn, relation);
+                        if (rows >= minRows) {
+                            problems.add(name + ": sequential scan on " + relation + " (~" + rows + " rows)\n" +
+                                         String.join("\n", plan));
+                        }
+                    }
+                }
+                LOGGER.fine(name + " plan:\n" + String.join("\n", plan));
+            }
+        }
+
+        return problems;
+    }
+
+    private List<String> explain(Connection conn, String sql, CsvExporter.ParameterBinder binder)
+            throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+        }
+        return plan;
+    }
+
+    private long estimatedRows(Connection conn, String relation) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT GREATEST(reltuples, 0)::BIGINT FROM pg_class WHERE oid = to_regclass(?)")) {
+            stmt.setString(1, relation);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Run the check and log any regressions as warnings (used at startup)
+     */
+    public static void logRegressions() {
+        try {
+            List<String> problems = new QueryPlanCheck().run();
+            if (problems.isEmpty()) {
+                LOGGER.info("Query plan check passed");
+            }
+            for (String problem : problems) {
+                LOGGER.warning("Query plan regression - " + problem);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Query plan check failed to run", e);
+        }
+    }
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try {
+            List<String> problems = new QueryPlanCheck().run();
+            if (problems.isEmpty()) {
+                System.out.println("Query plan check passed");
+            }
+            for (String problem : problems) {
+                System.out.println("REGRESSION " + problem);
+            }
+            exitCode = problems.isEmpty() ? 0 : 1;
+        } catch (SQLException e) {
+            System.err.println("Query plan check failed: " + e.getMessage());
+            exitCode = 2;
+        } finally {
+            DatabaseConnection.closeAllConnections();
+        }
+        // Only after the pool is closed: System.exit skips pending finally blocks
+        System.exit(exitCode);
+    }
+}
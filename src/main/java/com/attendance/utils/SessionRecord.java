@@ -0,0 +1,255 @@
+package com.attendance.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact binary form of an HTTP session, as kept in a SessionStore: the signed-in
+ * user's ID, role and department, the attendance filter parameters and any other
+ * scalar (String, Integer, Long, Double, Boolean) attributes. The User object itself
+ * is not stored; it is looked up again by ID when the session is loaded.
+ */
+public class SessionRecord {
+
+    private static final byte VERSION = 1;
+
+    // Longer strings do not fit DataOutput.writeUTF and are not kept
+    private static final int MAX_STRING_LENGTH = 16 * 1024;
+
+    private static final byte TYPE_STRING = 'S';
+    private static final byte TYPE_INTEGER = 'I';
+    private static final byte TYPE_LONG = 'L';
+    private static final byte TYPE_DOUBLE = 'D';
+    private static final byte TYPE_BOOLEAN = 'Z';
+
+    private long creationTime;
+    private long lastAccessedTime;
+    private int maxInactiveInterval;
+    private Integer userId;
+    private String role;
+    private Integer departmentId;
+    private final Map<String, Object> filterParams = new LinkedHashMap<>();
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(long creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    public void setLastAccessedTime(long lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+    }
+
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    public void setMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Integer getDepartmentId() {
+        return departmentId;
+    }
+
+    public void setDepartmentId(Integer departmentId) {
+        this.departmentId = departmentId;
+    }
+
+    public Map<String, Object> getFilterParams() {
+        return Collections.unmodifiableMap(filterParams);
+    }
+
+    /**
+     * @return False if the value is not of a type a record can hold (and was not added)
+     */
+    public boolean putFilterParam(String name, Object value) {
+        if (!isStorable(value)) {
+            return false;
+        }
+        filterParams.put(name, value);
+        return true;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * @return False if the value is not of a type a record can hold (and was not added)
+     */
+    public boolean putAttribute(String name, Object value) {
+        if (!isStorable(value)) {
+            return false;
+        }
+        attributes.put(name, value);
+        return true;
+    }
+
+    /**
+     * @param value An attribute value
+     * @return True if a record can hold the value
+     */
+    public static boolean isStorable(Object value) {
+        if (value instanceof String) {
+            return ((String) value).length() <= MAX_STRING_LENGTH;
+        }
+        return value instanceof Integer || value instanceof Long
+                || value instanceof Double || value instanceof Boolean;
+    }
+
+    /**
+     * Compare everything but the last access time, to tell whether a record has to be
+     * written back to the store after a request
+     * @param other Another record, may be null
+     * @return True if both records hold the same session state
+     */
+    public boolean sameContent(SessionRecord other) {
+        return other != null
+                && creationTime == other.creationTime
+                && maxInactiveInterval == other.maxInactiveInterval
+                && Objects.equals(userId, other.userId)
+                && Objects.equals(role, other.role)
+                && Objects.equals(departmentId, other.departmentId)
+                && filterParams.equals(other.filterParams)
+                && attributes.equals(other.attributes);
+    }
+
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(creationTime);
+            out.writeLong(lastAccessedTime);
+            out.writeInt(maxInactiveInterval);
+            writeNullableInt(out, userId);
+            writeNullableString(out, role);
+            writeNullableInt(out, departmentId);
+            writeValues(out, filterParams);
+            writeValues(out, attributes);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SessionRecord decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported session record version: " + version);
+            }
+            SessionRecord record = new SessionRecord();
+            record.creationTime = in.readLong();
+            record.lastAccessedTime = in.readLong();
+            record.maxInactiveInterval = in.readInt();
+            record.userId = readNullableInt(in);
+            record.role = readNullableString(in);
+            record.departmentId = readNullableInt(in);
+            readValues(in, record.filterParams);
+            readValues(in, record.attributes);
+            return record;
+        }
+    }
+
+    private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readNullableInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeValues(DataOutputStream out, Map<String, Object> values) throws IOException {
+        out.writeShort(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            out.writeUTF(entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                out.writeByte(TYPE_STRING);
+                out.writeUTF((String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(TYPE_INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else {
+                out.writeByte(TYPE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            }
+        }
+    }
+
+    private static void readValues(DataInputStream in, Map<String, Object> values) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_STRING:
+                    values.put(name, in.readUTF());
+                    break;
+                case TYPE_INTEGER:
+                    values.put(name, in.readInt());
+                    break;
+                case TYPE_LONG:
+                    values.put(name, in.readLong());
+                    break;
+                case TYPE_DOUBLE:
+                    values.put(name, in.readDouble());
+                    break;
+                case TYPE_BOOLEAN:
+                    values.put(name, in.readBoolean());
+                    break;
+                default:
+                    throw new IOException("Unknown session value type: " + (char) type);
+            }
+        }
+    }
+}
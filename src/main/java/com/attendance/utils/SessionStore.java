@@ -0,0 +1,40 @@
+package com.attendance.utils;
+
+import java.io.IOException;
+
+/**
+ * Store for serialized HTTP session records (see ExternalSessionManager). A store shared
+ * by several application instances lets any instance serve any request of a session,
+ * so no sticky load balancing is needed.
+ */
+public interface SessionStore {
+
+    /**
+     * @param sessionId The session ID
+     * @return The session record, or null if there is none or it has expired
+     * @throws IOException If the store cannot be read
+     */
+    byte[] load(String sessionId) throws IOException;
+
+    /**
+     * Insert or replace a session record
+     * @param sessionId The session ID
+     * @param record The session record
+     * @param expiresAt Time (epoch milliseconds) after which the record is discarded
+     * @throws IOException If the store cannot be written
+     */
+    void save(String sessionId, byte[] record, long expiresAt) throws IOException;
+
+    /**
+     * @param sessionId The session ID
+     * @throws IOException If the store cannot be written
+     */
+    void remove(String sessionId) throws IOException;
+
+    /**
+     * Delete expired records
+     * @return Number of records deleted
+     * @throws IOException If the store cannot be written
+     */
+    int purgeExpired() throws IOException;
+}
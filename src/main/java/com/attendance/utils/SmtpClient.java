@@ -0,0 +1,213 @@
+package com.attendance.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Minimal SMTP client for plain-text emails (RFC 5321), so the application does not
+ * need a mail library. Supports implicit TLS, STARTTLS and AUTH PLAIN; one connection
+ * is opened per message.
+ */
+public class SmtpClient {
+
+    /**
+     * A negative SMTP reply; 5xx replies are permanent and should not be retried
+     */
+    public static class SmtpException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int replyCode;
+
+        public SmtpException(int replyCode, String message) {
+            super(message);
+            this.replyCode = replyCode;
+        }
+
+        public int getReplyCode() {
+            return replyCode;
+        }
+
+        public boolean isPermanent() {
+            return replyCode >= 500;
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final boolean ssl;
+    private final boolean startTls;
+    private final int timeoutMillis;
+
+    /**
+     * @param host SMTP server host
+     * @param port SMTP server port
+     * @param username User for AUTH PLAIN, or null to send without authentication
+     * @param password Password for AUTH PLAIN
+     * @param ssl Connect with TLS (usually port 465)
+     * @param startTls Upgrade the connection with STARTTLS (usually port 587)
+     * @param timeoutMillis Connect and read timeout
+     */
+    public SmtpClient(String host, int port, String username, String password,
+                      boolean ssl, boolean startTls, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.ssl = ssl;
+        this.startTls = startTls;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Send a plain-text email
+     * @param from Sender address
+     * @param recipients Recipient addresses
+     * @param subject The subject
+     * @param body The body
+     * @throws SmtpException If the server rejects the message
+     * @throws IOException If the connection fails
+     */
+    public void send(String from, List<String> recipients, String subject, String body) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            if (ssl) {
+                socket = upgrade(socket);
+            }
+            Session session = new Session(socket);
+            session.expect(220);
+            session.command("EHLO " + localName(), 250);
+
+            if (startTls && !ssl) {
+                session.command("STARTTLS", 220);
+                socket = upgrade(socket);
+                session = new Session(socket);
+                session.command("EHLO " + localName(), 250);
+            }
+            if (username != null && !username.isEmpty()) {
+                String credentials = "\0" + username + "\0" + (password != null ? password : "");
+                session.command("AUTH PLAIN " + Base64.getEncoder().encodeToString(
+                        credentials.getBytes(StandardCharsets.UTF_8)), 235);
+            }
+
+            session.command("MAIL FROM:<" + from + ">", 250);
+            for (String recipient : recipients) {
+                session.command("RCPT TO:<" + recipient + ">", 250, 251);
+            }
+            session.command("DATA", 354);
+            session.write(message(from, recipients, subject, body));
+            session.command(".", 250);
+            session.command("QUIT", 221);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private Socket upgrade(Socket socket) throws IOException {
+        SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                .createSocket(socket, host, port, true);
+        sslSocket.startHandshake();
+        return sslSocket;
+    }
+
+    private static String localName() {
+        try {
+            return InetAddress.getLocalHost().getCanonicalHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+
+    private static String message(String from, List<String> recipients, String subject, String body) {
+        StringBuilder message = new StringBuilder();
+        message.append("From: ").append(from).append("\r\n")
+               .append("To: ").append(String.join(", ", recipients)).append("\r\n")
+               .append("Subject: ").append(encodeHeader(subject)).append("\r\n")
+               .append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now())).append("\r\n")
+               .append("MIME-Version: 1.0\r\n")
+               .append("Content-Type: text/plain; charset=UTF-8\r\n")
+               .append("Content-Transfer-Encoding: 8bit\r\n")
+               .append("\r\n");
+        // Normalise line endings and escape lines starting with a dot (RFC 5321 4.5.2)
+        for (String line : body.split("\r?\n", -1)) {
+            if (line.startsWith(".")) {
+                message.append('.');
+            }
+            message.append(line).append("\r\n");
+        }
+        return message.toString();
+    }
+
+    private static String encodeHeader(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 126) {
+                return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) + "?=";
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reads replies and writes commands on one connection
+     */
+    private static class Session {
+        private final BufferedReader reader;
+        private final OutputStream out;
+
+        Session(Socket socket) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = socket.getOutputStream();
+        }
+
+        void write(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        void command(String command, int... expectedCodes) throws IOException {
+            write(command + "\r\n");
+            expect(expectedCodes);
+        }
+
+        void expect(int... expectedCodes) throws IOException {
+            // Multi-line replies continue while the code is followed by '-'
+            String line;
+            StringBuilder reply = new StringBuilder();
+            do {
+                line = reader.readLine();
+                if (line == null || line.length() < 3) {
+                    throw new IOException("Connection closed by SMTP server");
+                }
+                reply.append(line).append(' ');
+            } while (line.length() > 3 && line.charAt(3) == '-');
+
+            int code;
+            try {
+                code = Integer.parseInt(line.substring(0, 3));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid SMTP reply: " + line);
+            }
+            for (int expected : expectedCodes) {
+                if (code == expected) {
+                    return;
+                }
+            }
+            throw new SmtpException(code, reply.toString().trim());
+        }
+    }
+}
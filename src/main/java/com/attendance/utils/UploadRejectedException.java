@@ -0,0 +1,26 @@
+package com.attendance.utils;
+
+import java.io.IOException;
+
+/**
+ * Thrown when BiometricUploadStore refuses an upload: either the upload itself is too
+ * large, or the store is full with other uploads, in which case it can be retried shortly
+ */
+public class UploadRejectedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public UploadRejectedException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    /**
+     * @return True if the store was full, so the same upload may succeed later
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,9 @@
+-- Face recognition (see FaceEmbedder and FaceIndex): each registered face is kept as
+-- one quantized feature vector, a few hundred bytes, next to its registration flags.
+-- embedding_version names the extractor that produced it, so vectors of an older
+-- extractor can be told apart (and re-registered) after it changes.
+-- Applied by MigrationRunner; every statement is idempotent. The legacy initializer
+-- layout has no BiometricData table, so it is skipped there.
+
+ALTER TABLE IF EXISTS BiometricData ADD COLUMN IF NOT EXISTS face_embedding BYTEA;
+ALTER TABLE IF EXISTS BiometricData ADD COLUMN IF NOT EXISTS embedding_version SMALLINT;
@@ -0,0 +1,27 @@
+-- Unique key used by AttendanceDaoImpl.upsertAttendance on a partitioned Attendance
+-- (INSERT ... ON CONFLICT (student_id, subject_code, attendance_date, academic_year)).
+-- AttendancePartitionMigration now always creates it; earlier versions dropped it when
+-- the old table's key was a unique index (V6) or when the table had no key at all.
+-- Applied by MigrationRunner; unpartitioned tables are left to V6.
+
+DO $$
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('attendance')) = 'p'
+       AND NOT EXISTS (
+           SELECT 1 FROM pg_index i
+           WHERE i.indrelid = to_regclass('attendance') AND i.indisunique
+             AND i.indnkeyatts = 4
+             AND (SELECT array_agg(a.attname::text ORDER BY a.attname)
+                  FROM pg_attribute a
+                  WHERE a.attrelid = i.indrelid AND a.attnum = ANY(i.indkey))
+                 = ARRAY['academic_year', 'attendance_date', 'student_id', 'subject_code']) THEN
+        IF EXISTS (SELECT 1 FROM Attendance
+                   GROUP BY student_id, subject_code, attendance_date, academic_year HAVING COUNT(*) > 1) THEN
+            RAISE WARNING 'Attendance has duplicate (student_id, subject_code, attendance_date, academic_year) rows; '
+                          'remove them and add attendance_partitioned_student_subject_date_key to enable upserts';
+        ELSE
+            ALTER TABLE Attendance ADD CONSTRAINT attendance_partitioned_student_subject_date_key
+                UNIQUE (student_id, subject_code, attendance_date, academic_year);
+        END IF;
+    END IF;
+END $$;
@@ -0,0 +1,10 @@
+-- The user who marked or last changed each record, by user id (see
+-- AttendanceDaoImpl.upsertAttendance and getTeacherMarkedAttendanceSummary).
+-- marked_by is kept for the names and markers written by earlier versions; numeric
+-- values there were user ids and are carried over.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+ALTER TABLE Attendance ADD COLUMN IF NOT EXISTS marked_by_user_id INTEGER;
+
+UPDATE Attendance SET marked_by_user_id = CAST(marked_by AS INTEGER)
+WHERE marked_by_user_id IS NULL AND marked_by ~ '^[0-9]{1,9}$';
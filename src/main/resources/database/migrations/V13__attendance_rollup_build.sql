@@ -0,0 +1,23 @@
+-- Fill AttendanceRollup from the existing attendance records, so the rollup-backed reports
+-- are right from the first request instead of showing 0% until AttendanceRollupJob has
+-- run. Afterwards the rollups are kept up to date by the writers (see AttendanceRollupDao).
+-- Applied by MigrationRunner; the table is only filled while it is empty.
+
+DO $$
+BEGIN
+    IF to_regclass('attendancerollup') IS NOT NULL
+       AND NOT EXISTS (SELECT 1 FROM AttendanceRollup) THEN
+        INSERT INTO AttendanceRollup (student_id, subject_code, academic_year, semester, attendance_month,
+                                      present_count, absent_count, leave_count, total_count)
+        SELECT student_id, subject_code, academic_year, semester,
+               CAST(EXTRACT(MONTH FROM attendance_date) AS INTEGER),
+               SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END),
+               SUM(CASE WHEN status = 'Absent' THEN 1 ELSE 0 END),
+               SUM(CASE WHEN status = 'On Leave' THEN 1 ELSE 0 END),
+               COUNT(*)
+        FROM Attendance
+        WHERE academic_year IS NOT NULL AND semester IS NOT NULL
+        GROUP BY student_id, subject_code, academic_year, semester,
+                 CAST(EXTRACT(MONTH FROM attendance_date) AS INTEGER);
+    END IF;
+END $$;
@@ -0,0 +1,49 @@
+-- Indexes matching the Attendance DAO and filter-engine predicates.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+-- findByDate, findByClassAndDate, daily reports
+CREATE INDEX IF NOT EXISTS idx_attendance_date
+    ON Attendance (attendance_date);
+
+-- findBySubject, findBySubjectDateAndSemester, per-subject listings ordered by date
+CREATE INDEX IF NOT EXISTS idx_attendance_subject_date
+    ON Attendance (subject_code, attendance_date);
+
+-- Filter engine (academic_year, semester, status and a date range); covers the
+-- remaining selected columns so the scan does not need to visit the heap
+CREATE INDEX IF NOT EXISTS idx_attendance_year_semester_status_date
+    ON Attendance (academic_year, semester, status, attendance_date)
+    INCLUDE (student_id, subject_code);
+
+-- Student history ordered by date (findByStudent, findRecentByStudent)
+CREATE INDEX IF NOT EXISTS idx_attendance_student_date
+    ON Attendance (student_id, attendance_date DESC)
+    INCLUDE (subject_code, status);
+
+-- Supporting tables differ between the schema.sql and the legacy initializer
+-- layouts, so only index the ones that exist
+DO $$
+BEGIN
+    -- Class membership joins (StudentEnrollments se ON se.student_id = a.student_id)
+    IF to_regclass('studentenrollments') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_student_enrollments_class_year
+            ON StudentEnrollments (class_id, academic_year) INCLUDE (student_id);
+    END IF;
+
+    IF to_regclass('studentenrollment') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_student_enrollment_class_year
+            ON StudentEnrollment (class_id, academic_year) INCLUDE (user_id);
+    END IF;
+
+    -- Teacher filter (EXISTS on subject_code, class_id, teacher_id)
+    IF to_regclass('teacherassignments') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_teacher_assignments_subject_class_teacher
+            ON TeacherAssignments (subject_code, class_id, teacher_id);
+    END IF;
+
+    -- Leave lookups by student and date range
+    IF to_regclass('leaveapplications') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_leave_applications_student_dates
+            ON LeaveApplications (student_id, start_date, end_date);
+    END IF;
+END $$;
@@ -0,0 +1,27 @@
+-- Indexes for the keyset paginated listings (KeysetQuery): the equality filter
+-- followed by the sort key, so every page is a short range scan.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+-- AttendanceDaoImpl.findAll/findByDate pages, newest first by (attendance_date, attendance_id);
+-- also serves everything idx_attendance_date did
+CREATE INDEX IF NOT EXISTS idx_attendance_date_id
+    ON Attendance (attendance_date, attendance_id);
+DROP INDEX IF EXISTS idx_attendance_date;
+
+-- AttendanceDaoImpl.findBySubject pages; supersedes idx_attendance_subject_date
+CREATE INDEX IF NOT EXISTS idx_attendance_subject_date_id
+    ON Attendance (subject_code, attendance_date, attendance_id);
+DROP INDEX IF EXISTS idx_attendance_subject_date;
+
+-- UserDaoImpl.findByRole pages (findAll pages use the primary key)
+CREATE INDEX IF NOT EXISTS idx_users_role_id
+    ON Users (role, user_id);
+
+DO $$
+BEGIN
+    -- EnrollmentRequestDaoImpl.findByStatus pages
+    IF to_regclass('enrollmentrequests') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_enrollment_requests_status_id
+            ON EnrollmentRequests (status, request_id);
+    END IF;
+END $$;
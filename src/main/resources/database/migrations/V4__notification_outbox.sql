@@ -0,0 +1,25 @@
+-- Transactional outbox for email notifications: rows are written in the same
+-- transaction as the attendance change they describe and delivered afterwards by
+-- NotificationOutboxWorker. Applied by MigrationRunner; every statement is idempotent.
+
+CREATE TABLE IF NOT EXISTS NotificationOutbox (
+    notification_id BIGSERIAL PRIMARY KEY,
+    recipient_id INT NOT NULL REFERENCES Users(user_id) ON DELETE CASCADE,
+    notification_type VARCHAR(50) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    message TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'Pending',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    last_error TEXT
+);
+
+-- NotificationOutboxDaoImpl.claimDue: only undelivered rows, so the index stays small
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_due
+    ON NotificationOutbox (next_attempt_at, recipient_id) WHERE status = 'Pending';
+
+-- NotificationOutboxDaoImpl.purgeSent
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_sent
+    ON NotificationOutbox (sent_at) WHERE status = 'Sent';
@@ -0,0 +1,12 @@
+-- Daily attendance digests (NOTIFICATION_MODE=digest): one row per digested period,
+-- inserted in the same transaction as the period's digest notifications, so a period
+-- is digested once even if several application instances run the job.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+CREATE TABLE IF NOT EXISTS NotificationDigestRun (
+    period_start DATE NOT NULL,
+    period_end DATE NOT NULL,
+    digest_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (period_start, period_end)
+);
@@ -0,0 +1,31 @@
+-- Columns and unique key used by AttendanceDaoImpl.upsertAttendance
+-- (INSERT ... ON CONFLICT (student_id, subject_code, attendance_date) DO UPDATE).
+-- schema.sql already has them; tables created by DatabaseInitializationListener do not.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+ALTER TABLE Attendance ADD COLUMN IF NOT EXISTS marked_by VARCHAR(100);
+ALTER TABLE Attendance ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+DO $$
+BEGIN
+    -- A partitioned table already has (student_id, subject_code, attendance_date, academic_year)
+    -- from AttendancePartitionMigration; otherwise make sure the three-column key exists
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('attendance')) <> 'p'
+       AND NOT EXISTS (
+           SELECT 1 FROM pg_index i
+           WHERE i.indrelid = to_regclass('attendance') AND i.indisunique
+             AND i.indnkeyatts = 3
+             AND (SELECT array_agg(a.attname::text ORDER BY a.attname)
+                  FROM pg_attribute a
+                  WHERE a.attrelid = i.indrelid AND a.attnum = ANY(i.indkey))
+                 = ARRAY['attendance_date', 'student_id', 'subject_code']) THEN
+        IF EXISTS (SELECT 1 FROM Attendance
+                   GROUP BY student_id, subject_code, attendance_date HAVING COUNT(*) > 1) THEN
+            RAISE WARNING 'Attendance has duplicate (student_id, subject_code, attendance_date) rows; '
+                          'remove them and create uq_attendance_student_subject_date to enable upserts';
+        ELSE
+            CREATE UNIQUE INDEX uq_attendance_student_subject_date
+                ON Attendance (student_id, subject_code, attendance_date);
+        END IF;
+    END IF;
+END $$;
@@ -0,0 +1,14 @@
+-- Index for the leave-aware status lookups (LeaveApplicationDaoImpl.findApprovedLeavesBy*,
+-- AttendanceDaoImpl.findEffectiveByClassAndDateRange): approved leave per student by start date.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+DO $$
+BEGIN
+    -- Only for the LeaveApplications layout used by LeaveApplicationDaoImpl
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'leaveapplications' AND column_name = 'from_date') THEN
+        CREATE INDEX IF NOT EXISTS idx_leave_applications_approved
+            ON LeaveApplications (student_id, from_date, to_date)
+            WHERE status = 'APPROVED';
+    END IF;
+END $$;
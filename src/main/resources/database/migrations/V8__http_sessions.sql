@@ -0,0 +1,14 @@
+-- Shared HTTP session store (SESSION_STORE=jdbc, see JdbcSessionStore): one compact
+-- binary record per session. Sessions are disposable, so the table is unlogged
+-- (no WAL; emptied after a crash, which only logs users out).
+-- Applied by MigrationRunner; every statement is idempotent.
+
+CREATE UNLOGGED TABLE IF NOT EXISTS HttpSessions (
+    session_id VARCHAR(128) PRIMARY KEY,
+    record BYTEA NOT NULL,
+    -- Epoch milliseconds
+    expires_at BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_http_sessions_expires
+    ON HttpSessions (expires_at);
@@ -0,0 +1,7 @@
+-- Version counter of the attendance data behind the dashboards: advanced by every
+-- change to Attendance / AttendanceRollup (see AttendanceRollupDao.markChanged)
+-- and used to build the ETags of the dashboard widget API. A sequence rather than a
+-- counter row, so concurrent writers never wait on each other for it.
+-- Applied by MigrationRunner; every statement is idempotent.
+
+CREATE SEQUENCE IF NOT EXISTS attendance_rollup_version;
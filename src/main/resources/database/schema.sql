@@ -95,12 +95,31 @@ CREATE TABLE IF NOT EXISTS Attendance (
     semester VARCHAR(10) NOT NULL,
     academic_year VARCHAR(20) NOT NULL,
     marked_by VARCHAR(100),
+    marked_by_user_id INTEGER,
     remarks TEXT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
     UNIQUE (student_id, subject_code, attendance_date)
 );
 
+-- AttendanceRollup table (precomputed counts per student/subject/month for reports,
+-- maintained by AttendanceDaoImpl and reconciled by AttendanceRollupJob)
+CREATE TABLE IF NOT EXISTS AttendanceRollup (
+    student_id INTEGER NOT NULL,
+    subject_code VARCHAR(20) NOT NULL,
+    academic_year VARCHAR(20) NOT NULL,
+    semester VARCHAR(10) NOT NULL,
+    attendance_month SMALLINT NOT NULL,
+    present_count INTEGER NOT NULL DEFAULT 0,
+    absent_count INTEGER NOT NULL DEFAULT 0,
+    leave_count INTEGER NOT NULL DEFAULT 0,
+    total_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (student_id, subject_code, academic_year, semester, attendance_month)
+);
+
+CREATE INDEX IF NOT EXISTS idx_attendance_rollup_year_semester ON AttendanceRollup (academic_year, semester);
+
 -- EnrollmentRequests table (for student registration workflow)
 CREATE TABLE IF NOT EXISTS EnrollmentRequests (
     request_id SERIAL PRIMARY KEY,
@@ -0,0 +1,171 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.attendance.models.*" %>
+<%@ page import="com.attendance.utils.SessionUtil" %>
+<%@ page import="java.util.*" %>
+<%!
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return value.toString().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String selected(Object value, String filter) {
+        return String.valueOf(value).equals(filter) ? "selected" : "";
+    }
+%>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Students - Attendance Management System</title>
+    <link rel="stylesheet" href="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/css/bootstrap.min.css">
+    <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/5.15.1/css/all.min.css">
+    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+</head>
+<body>
+    <%-- Check if user is logged in and is an administrator or principal --%>
+    <%
+        User user = SessionUtil.getUser(request);
+        if (user == null || !(user.isAdmin() || user.isPrincipal())) {
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+        String departmentFilter = (String) request.getAttribute("departmentFilter");
+        String classFilter = (String) request.getAttribute("classFilter");
+        String academicYearFilter = (String) request.getAttribute("academicYearFilter");
+        String statusFilter = (String) request.getAttribute("statusFilter");
+        List<Department> allDepartments = (List<Department>) request.getAttribute("allDepartments");
+        List<com.attendance.models.Class> allClasses = (List<com.attendance.models.Class>) request.getAttribute("allClasses");
+        List<String> academicYears = (List<String>) request.getAttribute("academicYears");
+        Map<Integer, StudentEnrollment> enrollments = (Map<Integer, StudentEnrollment>) request.getAttribute("enrollments");
+        Map<Integer, com.attendance.models.Class> classes = (Map<Integer, com.attendance.models.Class>) request.getAttribute("classes");
+        Map<Integer, Department> departments = (Map<Integer, Department>) request.getAttribute("departments");
+    %>
+
+    <%-- Include header --%>
+    <jsp:include page="/views/common/header.jsp" />
+
+    <div class="container mt-4">
+        <div class="row">
+            <div class="col-md-12">
+                <nav aria-label="breadcrumb">
+                    <ol class="breadcrumb">
+                        <li class="breadcrumb-item"><a href="${pageContext.request.contextPath}/dashboard">Dashboard</a></li>
+                        <li class="breadcrumb-item active" aria-current="page">Students</li>
+                    </ol>
+                </nav>
+
+                <div class="d-flex justify-content-between align-items-center mb-4">
+                    <h2>Student Management</h2>
+                    <a href="${pageContext.request.contextPath}/admin/students/create" class="btn btn-success">
+                        <i class="fas fa-plus"></i> Add Student
+                    </a>
+                </div>
+            </div>
+        </div>
+
+        <% if (request.getAttribute("error") != null) { %>
+            <div class="alert alert-danger"><%= escape(request.getAttribute("error")) %></div>
+        <% } %>
+        <% if (request.getAttribute("success") != null) { %>
+            <div class="alert alert-success"><%= escape(request.getAttribute("success")) %></div>
+        <% } %>
+
+        <form method="get" action="${pageContext.request.contextPath}/admin/students" class="form-inline mb-3">
+            <select name="departmentId" class="form-control mr-2">
+                <option value="">All departments</option>
+                <% if (allDepartments != null) { for (Department department : allDepartments) { %>
+                    <option value="<%= department.getDepartmentId() %>" <%= selected(department.getDepartmentId(), departmentFilter) %>><%= escape(department.getName()) %></option>
+                <% } } %>
+            </select>
+            <select name="classId" class="form-control mr-2">
+                <option value="">All classes</option>
+                <% if (allClasses != null) { for (com.attendance.models.Class cls : allClasses) { %>
+                    <option value="<%= cls.getClassId() %>" <%= selected(cls.getClassId(), classFilter) %>><%= escape(cls.getName()) %></option>
+                <% } } %>
+            </select>
+            <select name="academicYear" class="form-control mr-2">
+                <option value="">All years</option>
+                <% if (academicYears != null) { for (String year : academicYears) { %>
+                    <option value="<%= year %>" <%= selected(year, academicYearFilter) %>><%= year %></option>
+                <% } } %>
+            </select>
+            <select name="status" class="form-control mr-2">
+                <option value="">All statuses</option>
+                <% for (String status : new String[] {"Active", "Pending", "Inactive"}) { %>
+                    <option value="<%= status %>" <%= selected(status, statusFilter) %>><%= status %></option>
+                <% } %>
+            </select>
+            <button type="submit" class="btn btn-primary"><i class="fas fa-filter"></i> Filter</button>
+        </form>
+
+        <div class="card">
+            <div class="card-header bg-primary text-white">
+                <h5 class="card-title mb-0">Students</h5>
+            </div>
+            <div class="card-body">
+                <div class="table-responsive">
+                    <table class="table table-striped">
+                        <thead>
+                            <tr>
+                                <th>Name</th>
+                                <th>Email</th>
+                                <th>Department</th>
+                                <th>Class</th>
+                                <th>Status</th>
+                                <th>Actions</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <%
+                                List<User> students = (List<User>) request.getAttribute("students");
+                                if (students != null && !students.isEmpty()) {
+                                    for (User student : students) {
+                                        StudentEnrollment enrollment = enrollments != null ? enrollments.get(student.getUserId()) : null;
+                                        com.attendance.models.Class cls = enrollment != null && classes != null ? classes.get(enrollment.getClassId()) : null;
+                                        Department department = cls != null && departments != null ? departments.get(cls.getDepartmentId()) : null;
+                            %>
+                                <tr>
+                                    <td><%= escape(student.getFullName()) %></td>
+                                    <td><%= escape(student.getEmail()) %></td>
+                                    <td><%= department != null ? escape(department.getName()) : "-" %></td>
+                                    <td><%= cls != null ? escape(cls.getName()) : "Not enrolled" %></td>
+                                    <td><%= escape(student.getStatus()) %></td>
+                                    <td>
+                                        <a href="${pageContext.request.contextPath}/admin/students/view/<%= student.getUserId() %>" class="btn btn-sm btn-info">
+                                            <i class="fas fa-eye"></i> View
+                                        </a>
+                                        <a href="${pageContext.request.contextPath}/admin/students/edit/<%= student.getUserId() %>" class="btn btn-sm btn-primary">
+                                            <i class="fas fa-edit"></i> Edit
+                                        </a>
+                                    </td>
+                                </tr>
+                            <%
+                                    }
+                                } else {
+                            %>
+                                <tr>
+                                    <td colspan="6" class="text-center">No students found</td>
+                                </tr>
+                            <% } %>
+                        </tbody>
+                    </table>
+                </div>
+
+                <%-- Next/first page links (only the unfiltered list is paginated) --%>
+                <jsp:include page="/views/common/pagination.jsp" />
+            </div>
+        </div>
+    </div>
+
+    <%-- Include footer --%>
+    <jsp:include page="/views/common/footer.jsp" />
+
+    <script src="https://code.jquery.com/jquery-3.5.1.slim.min.js"></script>
+    <script src="https://cdn.jsdelivr.net/npm/popper.js@1.16.1/dist/umd/popper.min.js"></script>
+    <script src="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/js/bootstrap.min.js"></script>
+    <script src="${pageContext.request.contextPath}/assets/js/scripts.js"></script>
+</body>
+</html>
@@ -0,0 +1,144 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.attendance.models.User" %>
+<%@ page import="com.attendance.utils.SessionUtil" %>
+<%@ page import="java.util.*" %>
+<%!
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return value.toString().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+%>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Users - Attendance Management System</title>
+    <link rel="stylesheet" href="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/css/bootstrap.min.css">
+    <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/5.15.1/css/all.min.css">
+    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+</head>
+<body>
+    <%-- Check if user is logged in and is an administrator --%>
+    <%
+        User user = SessionUtil.getUser(request);
+        if (user == null || !user.isAdmin()) {
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+        String roleFilter = request.getParameter("role");
+        String statusFilter = request.getParameter("status");
+        String searchQuery = request.getParameter("query");
+    %>
+
+    <%-- Include header --%>
+    <jsp:include page="/views/common/header.jsp" />
+
+    <div class="container mt-4">
+        <div class="row">
+            <div class="col-md-12">
+                <nav aria-label="breadcrumb">
+                    <ol class="breadcrumb">
+                        <li class="breadcrumb-item"><a href="${pageContext.request.contextPath}/dashboard">Dashboard</a></li>
+                        <li class="breadcrumb-item active" aria-current="page">Users</li>
+                    </ol>
+                </nav>
+
+                <div class="d-flex justify-content-between align-items-center mb-4">
+                    <h2>User Management</h2>
+                    <a href="${pageContext.request.contextPath}/admin/users/create" class="btn btn-success">
+                        <i class="fas fa-plus"></i> Add User
+                    </a>
+                </div>
+            </div>
+        </div>
+
+        <% if (request.getAttribute("error") != null) { %>
+            <div class="alert alert-danger"><%= escape(request.getAttribute("error")) %></div>
+        <% } %>
+        <% if (request.getAttribute("success") != null) { %>
+            <div class="alert alert-success"><%= escape(request.getAttribute("success")) %></div>
+        <% } %>
+
+        <form method="get" action="${pageContext.request.contextPath}/admin/users" class="form-inline mb-3">
+            <select name="role" class="form-control mr-2">
+                <option value="">All roles</option>
+                <% for (String role : new String[] {"Admin", "Principal", "HOD", "Teacher", "ClassTeacher", "Student"}) { %>
+                    <option value="<%= role %>" <%= role.equals(roleFilter) ? "selected" : "" %>><%= role %></option>
+                <% } %>
+            </select>
+            <select name="status" class="form-control mr-2">
+                <option value="">All statuses</option>
+                <% for (String status : new String[] {"Active", "Pending", "Inactive"}) { %>
+                    <option value="<%= status %>" <%= status.equals(statusFilter) ? "selected" : "" %>><%= status %></option>
+                <% } %>
+            </select>
+            <input type="text" name="query" class="form-control mr-2" placeholder="Name or email" value="<%= escape(searchQuery) %>">
+            <button type="submit" class="btn btn-primary"><i class="fas fa-filter"></i> Filter</button>
+        </form>
+
+        <div class="card">
+            <div class="card-header bg-primary text-white">
+                <h5 class="card-title mb-0">Users</h5>
+            </div>
+            <div class="card-body">
+                <div class="table-responsive">
+                    <table class="table table-striped">
+                        <thead>
+                            <tr>
+                                <th>Name</th>
+                                <th>Email</th>
+                                <th>Role</th>
+                                <th>Status</th>
+                                <th>Actions</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <%
+                                List<User> users = (List<User>) request.getAttribute("users");
+                                if (users != null && !users.isEmpty()) {
+                                    for (User listed : users) {
+                            %>
+                                <tr>
+                                    <td><%= escape(listed.getFullName()) %></td>
+                                    <td><%= escape(listed.getEmail()) %></td>
+                                    <td><%= escape(listed.getRole()) %></td>
+                                    <td><%= escape(listed.getStatus()) %></td>
+                                    <td>
+                                        <a href="${pageContext.request.contextPath}/admin/users/view/<%= listed.getUserId() %>" class="btn btn-sm btn-info">
+                                            <i class="fas fa-eye"></i> View
+                                        </a>
+                                        <a href="${pageContext.request.contextPath}/admin/users/edit/<%= listed.getUserId() %>" class="btn btn-sm btn-primary">
+                                            <i class="fas fa-edit"></i> Edit
+                                        </a>
+                                    </td>
+                                </tr>
+                            <%
+                                    }
+                                } else {
+                            %>
+                                <tr>
+                                    <td colspan="5" class="text-center">No users found</td>
+                                </tr>
+                            <% } %>
+                        </tbody>
+                    </table>
+                </div>
+
+                <%-- Next/first page links (only the role filter and the full list are paginated) --%>
+                <jsp:include page="/views/common/pagination.jsp" />
+            </div>
+        </div>
+    </div>
+
+    <%-- Include footer --%>
+    <jsp:include page="/views/common/footer.jsp" />
+
+    <script src="https://code.jquery.com/jquery-3.5.1.slim.min.js"></script>
+    <script src="https://cdn.jsdelivr.net/npm/popper.js@1.16.1/dist/umd/popper.min.js"></script>
+    <script src="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/js/bootstrap.min.js"></script>
+    <script src="${pageContext.request.contextPath}/assets/js/scripts.js"></script>
+</body>
+</html>
@@ -0,0 +1,143 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.attendance.models.*" %>
+<%@ page import="com.attendance.utils.SessionUtil" %>
+<%@ page import="java.util.*" %>
+<%!
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return value.toString().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+%>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Detailed Attendance Report - Attendance Management System</title>
+    <link rel="stylesheet" href="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/css/bootstrap.min.css">
+    <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/5.15.1/css/all.min.css">
+    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+</head>
+<body>
+    <%-- Check if user is logged in and is an HOD --%>
+    <%
+        User user = SessionUtil.getUser(request);
+        if (user == null || !user.isHOD()) {
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+        AttendanceFilterResult filteredResults = (AttendanceFilterResult) request.getAttribute("filteredResults");
+        Map<String, Integer> filterSummary = (Map<String, Integer>) request.getAttribute("filterSummary");
+        Map<Integer, User> students = (Map<Integer, User>) request.getAttribute("students");
+        Map<String, Subject> subjects = (Map<String, Subject>) request.getAttribute("subjects");
+        Map<Integer, com.attendance.models.Class> classes = (Map<Integer, com.attendance.models.Class>) request.getAttribute("classes");
+        Department department = (Department) request.getAttribute("department");
+    %>
+
+    <%-- Include header --%>
+    <jsp:include page="/views/common/header.jsp" />
+
+    <div class="container mt-4">
+        <nav aria-label="breadcrumb">
+            <ol class="breadcrumb">
+                <li class="breadcrumb-item"><a href="${pageContext.request.contextPath}/dashboard">Dashboard</a></li>
+                <li class="breadcrumb-item"><a href="${pageContext.request.contextPath}/hod/attendance/filter/form">Filter Attendance</a></li>
+                <li class="breadcrumb-item active" aria-current="page">Detailed Report</li>
+            </ol>
+        </nav>
+
+        <div class="d-flex justify-content-between align-items-center mb-4">
+            <h2>Detailed Attendance Report<% if (department != null) { %> <small class="text-muted"><%= escape(department.getName()) %></small><% } %></h2>
+            <div>
+                <a href="${pageContext.request.contextPath}/hod/attendance/filter/form" class="btn btn-secondary">
+                    <i class="fas fa-filter"></i> Change Filter
+                </a>
+                <a href="${pageContext.request.contextPath}/hod/attendance/filter/export" class="btn btn-success ml-2">
+                    <i class="fas fa-file-csv"></i> Export CSV
+                </a>
+            </div>
+        </div>
+
+        <% if (request.getAttribute("error") != null) { %>
+            <div class="alert alert-danger"><%= escape(request.getAttribute("error")) %></div>
+        <% } %>
+
+        <%-- Figures over every filtered record, not only this page --%>
+        <% if (filterSummary != null) {
+               int total = filterSummary.get("totalRecords");
+               int present = filterSummary.get("presentCount");
+        %>
+            <div class="row mb-4">
+                <div class="col-md-3"><div class="card"><div class="card-body">
+                    <h6 class="text-muted">Records</h6><h4><%= total %></h4>
+                </div></div></div>
+                <div class="col-md-3"><div class="card"><div class="card-body">
+                    <h6 class="text-muted">Students</h6><h4><%= filterSummary.get("studentCount") %></h4>
+                </div></div></div>
+                <div class="col-md-3"><div class="card"><div class="card-body">
+                    <h6 class="text-muted">Present / Absent / On Leave</h6>
+                    <h4><%= present %> / <%= filterSummary.get("absentCount") %> / <%= filterSummary.get("leaveCount") %></h4>
+                </div></div></div>
+                <div class="col-md-3"><div class="card"><div class="card-body">
+                    <h6 class="text-muted">Attendance</h6>
+                    <h4><%= total > 0 ? String.format("%.1f%%", present * 100.0 / total) : "-" %></h4>
+                </div></div></div>
+            </div>
+        <% } %>
+
+        <div class="card">
+            <div class="card-header bg-primary text-white">
+                <h5 class="card-title mb-0">Records</h5>
+            </div>
+            <div class="card-body">
+                <div class="table-responsive">
+                    <table class="table table-striped">
+                        <thead>
+                            <tr>
+                                <th>Date</th>
+                                <th>Student</th>
+                                <th>Subject</th>
+                                <th>Class</th>
+                                <th>Status</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <% if (filteredResults != null && !filteredResults.isEmpty()) {
+                                   for (AttendanceFilterResult.Row row : filteredResults) {
+                                       User student = students != null ? students.get(row.getStudentId()) : null;
+                                       Subject subject = subjects != null ? subjects.get(row.getSubjectCode()) : null;
+                                       com.attendance.models.Class cls = classes != null ? classes.get(row.getClassId()) : null;
+                            %>
+                                <tr>
+                                    <td><%= row.getAttendanceDate() %></td>
+                                    <td><%= student != null ? escape(student.getFullName()) : row.getStudentId() %></td>
+                                    <td><%= subject != null ? escape(subject.getSubjectName()) : escape(row.getSubjectCode()) %></td>
+                                    <td><%= cls != null ? escape(cls.getName()) : row.getClassId() %></td>
+                                    <td><%= escape(row.getStatus()) %></td>
+                                </tr>
+                            <%     }
+                               } else { %>
+                                <tr>
+                                    <td colspan="5" class="text-center">No attendance records match the filter</td>
+                                </tr>
+                            <% } %>
+                        </tbody>
+                    </table>
+                </div>
+
+                <jsp:include page="/views/common/pagination.jsp" />
+            </div>
+        </div>
+    </div>
+
+    <%-- Include footer --%>
+    <jsp:include page="/views/common/footer.jsp" />
+
+    <script src="https://code.jquery.com/jquery-3.5.1.slim.min.js"></script>
+    <script src="https://cdn.jsdelivr.net/npm/popper.js@1.16.1/dist/umd/popper.min.js"></script>
+    <script src="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/js/bootstrap.min.js"></script>
+    <script src="${pageContext.request.contextPath}/assets/js/scripts.js"></script>
+</body>
+</html>
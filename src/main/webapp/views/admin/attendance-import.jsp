@@ -0,0 +1,195 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.attendance.models.AttendanceImportResult" %>
+<%@ page import="com.attendance.models.User" %>
+<%@ page import="com.attendance.utils.SessionUtil" %>
+<%@ page import="java.util.*" %>
+<%!
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return value.toString().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+%>
+<%
+    AttendanceImportResult importResult = (AttendanceImportResult) request.getAttribute("importResult");
+    boolean running = importResult != null && !importResult.isFinished();
+%>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <% if (running) { %>
+    <meta http-equiv="refresh" content="2">
+    <% } %>
+    <title>Attendance Import - Attendance Management System</title>
+    <link rel="stylesheet" href="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/css/bootstrap.min.css">
+    <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/5.15.1/css/all.min.css">
+    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+</head>
+<body>
+    <%-- Check if user is logged in and is an administrator --%>
+    <%
+        User user = SessionUtil.getUser(request);
+        if (user == null || !user.isAdmin()) {
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+    %>
+
+    <%-- Include header --%>
+    <jsp:include page="/views/common/header.jsp" />
+
+    <div class="container mt-4">
+        <div class="row">
+            <div class="col-md-12">
+                <nav aria-label="breadcrumb">
+                    <ol class="breadcrumb">
+                        <li class="breadcrumb-item"><a href="${pageContext.request.contextPath}/dashboard">Dashboard</a></li>
+                        <li class="breadcrumb-item active" aria-current="page">Attendance Import</li>
+                    </ol>
+                </nav>
+            </div>
+        </div>
+
+        <% if (request.getAttribute("error") != null) { %>
+            <div class="alert alert-danger"><%= escape(request.getAttribute("error")) %></div>
+        <% } %>
+
+        <div class="row">
+            <div class="col-md-5">
+                <div class="card mb-4">
+                    <div class="card-header bg-primary text-white">
+                        <h5 class="card-title mb-0"><i class="fas fa-file-import"></i> Import Attendance</h5>
+                    </div>
+                    <div class="card-body">
+                        <form action="${pageContext.request.contextPath}/admin/attendance-import" method="post" enctype="multipart/form-data">
+                            <div class="form-group">
+                                <label for="file">CSV file or biometric log</label>
+                                <input type="file" class="form-control-file" id="file" name="file" accept=".csv,.txt" required>
+                                <small class="form-text text-muted">
+                                    Header with student_id, subject_code and attendance_date (or timestamp);
+                                    optional status, semester and academic_year columns.
+                                </small>
+                            </div>
+                            <div class="form-group">
+                                <label for="semester">Semester</label>
+                                <input type="text" class="form-control" id="semester" name="semester" maxlength="10"
+                                       placeholder="From the student's enrollment">
+                            </div>
+                            <div class="form-group">
+                                <label for="academicYear">Academic year</label>
+                                <input type="text" class="form-control" id="academicYear" name="academicYear" maxlength="20"
+                                       placeholder="From the attendance date">
+                            </div>
+                            <div class="form-group form-check">
+                                <input type="checkbox" class="form-check-input" id="dryRun" name="dryRun">
+                                <label class="form-check-label" for="dryRun">Dry run (validate only, nothing is saved)</label>
+                            </div>
+                            <button type="submit" class="btn btn-primary"><i class="fas fa-upload"></i> Import</button>
+                        </form>
+                    </div>
+                </div>
+            </div>
+
+            <div class="col-md-7">
+                <% if (importResult != null) { %>
+                <div class="card mb-4">
+                    <div class="card-header">
+                        <h5 class="card-title mb-0"><%= escape(importResult.getSource()) %>
+                            <% if (importResult.isDryRun()) { %><span class="badge badge-info">Dry run</span><% } %>
+                        </h5>
+                    </div>
+                    <div class="card-body">
+                        <p>
+                            <% if (importResult.getPhase() == AttendanceImportResult.Phase.COMPLETED) { %>
+                                <span class="badge badge-success">Completed</span>
+                            <% } else if (importResult.getPhase() == AttendanceImportResult.Phase.FAILED) { %>
+                                <span class="badge badge-danger">Failed</span>
+                            <% } else { %>
+                                <span class="badge badge-warning"><%= importResult.getPhase() %></span>
+                            <% } %>
+                            <span class="text-muted ml-2"><%= importResult.getElapsedMillis() / 1000.0 %> s</span>
+                        </p>
+                        <% if (importResult.getErrorMessage() != null) { %>
+                            <div class="alert alert-danger"><%= escape(importResult.getErrorMessage()) %></div>
+                        <% } %>
+                        <table class="table table-sm">
+                            <tr><th>Rows read</th><td><%= importResult.getRowsRead() %></td></tr>
+                            <tr><th>Rows staged</th><td><%= importResult.getRowsStaged() %></td></tr>
+                            <tr><th>Rows rejected</th><td><%= importResult.getRowsRejected() %></td></tr>
+                            <% if (importResult.getPhase() == AttendanceImportResult.Phase.COMPLETED) { %>
+                            <tr><th>Inserted</th><td><%= importResult.getInsertedCount() %></td></tr>
+                            <tr><th>Updated</th><td><%= importResult.getUpdatedCount() %></td></tr>
+                            <tr><th>Unchanged</th><td><%= importResult.getUnchangedCount() %></td></tr>
+                            <tr><th>Superseded by a later row</th><td><%= importResult.getSupersededCount() %></td></tr>
+                            <% } %>
+                        </table>
+
+                        <%
+                            List<AttendanceImportResult.RejectedRow> rejectedRows =
+                                    (List<AttendanceImportResult.RejectedRow>) request.getAttribute("rejectedRows");
+                            if (rejectedRows != null && !rejectedRows.isEmpty()) {
+                        %>
+                            <h6>Rejected rows<% if (rejectedRows.size() < importResult.getRowsRejected()) { %>
+                                (first <%= rejectedRows.size() %>)<% } %></h6>
+                            <table class="table table-sm table-striped">
+                                <thead>
+                                    <tr><th>Line</th><th>Reason</th><th>Row</th></tr>
+                                </thead>
+                                <tbody>
+                                <% for (AttendanceImportResult.RejectedRow row : rejectedRows) { %>
+                                    <tr>
+                                        <td><%= row.getLineNumber() %></td>
+                                        <td><%= escape(row.getReason()) %></td>
+                                        <td><code><%= escape(row.getLine()) %></code></td>
+                                    </tr>
+                                <% } %>
+                                </tbody>
+                            </table>
+                        <% } %>
+                    </div>
+                </div>
+                <% } %>
+
+                <%
+                    List<Map.Entry<String, AttendanceImportResult>> imports =
+                            (List<Map.Entry<String, AttendanceImportResult>>) request.getAttribute("imports");
+                    if (imports != null && !imports.isEmpty()) {
+                %>
+                <div class="card">
+                    <div class="card-header">
+                        <h5 class="card-title mb-0">Recent imports</h5>
+                    </div>
+                    <div class="card-body">
+                        <table class="table table-sm">
+                            <thead>
+                                <tr><th>File</th><th>Status</th><th>Rows</th></tr>
+                            </thead>
+                            <tbody>
+                            <% for (Map.Entry<String, AttendanceImportResult> entry : imports) { %>
+                                <tr>
+                                    <td><a href="${pageContext.request.contextPath}/admin/attendance-import/<%= entry.getKey() %>"><%= escape(entry.getValue().getSource()) %></a></td>
+                                    <td><%= entry.getValue().getPhase() %></td>
+                                    <td><%= entry.getValue().getRowsRead() %></td>
+                                </tr>
+                            <% } %>
+                            </tbody>
+                        </table>
+                    </div>
+                </div>
+                <% } %>
+            </div>
+        </div>
+    </div>
+
+    <%-- Include footer --%>
+    <jsp:include page="/views/common/footer.jsp" />
+
+    <script src="https://code.jquery.com/jquery-3.5.1.slim.min.js"></script>
+    <script src="https://cdn.jsdelivr.net/npm/popper.js@1.16.1/dist/umd/popper.min.js"></script>
+    <script src="https://stackpath.bootstrapcdn.com/bootstrap/4.5.2/js/bootstrap.min.js"></script>
+    <script src="${pageContext.request.contextPath}/assets/js/scripts.js"></script>
+</body>
+</html>
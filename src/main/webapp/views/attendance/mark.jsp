@@ -1,6 +1,7 @@
 <%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 <%@ page import="com.attendance.models.User" %>
 <%@ page import="com.attendance.models.Attendance" %>
+<%@ page import="com.attendance.models.LeaveIntervalIndex" %>
 <%@ page import="com.attendance.models.StudentEnrollment" %>
 <%@ page import="com.attendance.models.Subject" %>
 <%@ page import="com.attendance.utils.SessionUtil" %>
@@ -170,6 +171,7 @@
                 <% 
                     List<StudentEnrollment> enrollments = (List<StudentEnrollment>) request.getAttribute("enrollments");
                     Map<Integer, Attendance> attendanceMap = (Map<Integer, Attendance>) request.getAttribute("attendanceMap");
+                    LeaveIntervalIndex leaveIndex = (LeaveIntervalIndex) request.getAttribute("leaveIndex");
                     
                     if (enrollments != null && !enrollments.isEmpty() && 
                         selectedClassId != null && selectedSubject != null && 
@@ -205,6 +207,10 @@
                                                     if (existingAttendance != null) {
                                                         currentStatus = existingAttendance.getStatus();
                                                     }
+                                                } else if (leaveIndex != null &&
+                                                           leaveIndex.isOnLeave(student.getUserId(), Date.valueOf(request.getAttribute("selectedDate").toString()))) {
+                                                    // Approved leave on the selected date
+                                                    currentStatus = "Leave";
                                                 }
                                             %>
                                                 <tr>
@@ -0,0 +1,45 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.attendance.dao.Page" %>
+<%@ page import="java.net.URLEncoder" %>
+<%@ page import="java.nio.charset.StandardCharsets" %>
+<%@ page import="java.util.Map" %>
+
+<%-- Next/first page links for a keyset paginated list; include after the table.
+     Expects the Page in the "listPage" request attribute and keeps the other query
+     parameters (filters, size) in the links. --%>
+<%
+    Page<?> listPage = (Page<?>) request.getAttribute("listPage");
+    if (listPage != null) {
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
+            if ("cursor".equals(parameter.getKey())) {
+                continue;
+            }
+            for (String value : parameter.getValue()) {
+                query.append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8)).append('=')
+                     .append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+            }
+        }
+        String baseUrl = (String) request.getAttribute("jakarta.servlet.forward.request_uri");
+        if (baseUrl == null) {
+            baseUrl = request.getRequestURI();
+        }
+        boolean firstPage = request.getParameter("cursor") == null || request.getParameter("cursor").isEmpty();
+%>
+    <nav aria-label="Page navigation">
+        <ul class="pagination justify-content-center">
+            <li class="page-item <%= firstPage ? "disabled" : "" %>">
+                <a class="page-link" href="<%= baseUrl %>?<%= query %>">
+                    <i class="fas fa-angle-double-left"></i> First
+                </a>
+            </li>
+            <li class="page-item <%= listPage.isLastPage() ? "disabled" : "" %>">
+                <a class="page-link" href="<%= listPage.isLastPage() ? "#" : baseUrl + "?" + query + "cursor=" + listPage.getNextCursor() %>">
+                    Next <i class="fas fa-angle-right"></i>
+                </a>
+            </li>
+        </ul>
+    </nav>
+<%
+    }
+%>
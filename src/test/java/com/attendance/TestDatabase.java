@@ -0,0 +1,79 @@
+package com.attendance;
+
+import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.MigrationRunner;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A local PostgreSQL server for the tests that need a database, started once per test run.
+ * DatabaseConnection is pointed at it through the DATABASE_URL system property, so start()
+ * must be called before any code touches DatabaseConnection.
+ */
+public final class TestDatabase {
+    private static EmbeddedPostgres server;
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Start the server, unless an earlier test class did
+     * @throws IOException If PostgreSQL cannot be started
+     */
+    public static synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = EmbeddedPostgres.start();
+        // Stopped by the server's own shutdown hook
+        System.setProperty("DATABASE_URL", server.getJdbcUrl("postgres", "postgres"));
+    }
+
+    /**
+     * Drop every table, leaving an empty public schema. The pool is closed first, so no
+     * connection keeps statements prepared against the old tables.
+     */
+    public static void clear() throws SQLException {
+        DatabaseConnection.closeAllConnections();
+        execute("DROP SCHEMA public CASCADE", "CREATE SCHEMA public");
+    }
+
+    /**
+     * Recreate the schema.sql tables and apply the migrations, as a new installation would
+     */
+    public static void reset() throws SQLException {
+        clear();
+        execute(MigrationRunner.splitStatements(resource("/database/schema.sql")).toArray(new String[0]));
+        new MigrationRunner().migrate();
+    }
+
+    /**
+     * Run statements on a connection of their own
+     */
+    public static void execute(String... sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String statement : sql) {
+                stmt.execute(statement);
+            }
+        }
+    }
+
+    private static String resource(String path) {
+        try (InputStream in = TestDatabase.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Not on the classpath: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + path, e);
+        }
+    }
+}
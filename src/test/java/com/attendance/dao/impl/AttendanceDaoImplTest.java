@@ -0,0 +1,130 @@
+package com.attendance.dao.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.attendance.TestDatabase;
+import com.attendance.models.AttendanceImportResult;
+import com.attendance.models.MarkAttendanceResult;
+import com.attendance.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ON CONFLICT writes of AttendanceDaoImpl (upsertAttendance and mergeStaged) and the
+ * marking user they record, against the schema.sql tables
+ */
+class AttendanceDaoImplTest {
+    private static final int TEACHER = 10;
+    private static final int OTHER_TEACHER = 11;
+    private static final Date DATE = Date.valueOf("2024-09-02");
+
+    private final AttendanceDaoImpl dao = new AttendanceDaoImpl();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        TestDatabase.start();
+    }
+
+    @BeforeEach
+    void createSchema() throws SQLException {
+        TestDatabase.reset();
+        TestDatabase.execute(
+                "INSERT INTO Users (user_id, full_name, email, password, role) VALUES " +
+                "(1, 'Student One', 's1@example.com', 'x', 'Student'), " +
+                "(2, 'Student Two', 's2@example.com', 'x', 'Student'), " +
+                "(10, 'Teacher One', 't1@example.com', 'x', 'Teacher'), " +
+                "(11, 'Teacher Two', 't2@example.com', 'x', 'Teacher')",
+                "INSERT INTO Subjects (subject_code, subject_name) VALUES ('CS101', 'Programming')");
+    }
+
+    @Test
+    void upsertInsertsThenUpdatesOnlyChangedRecords() throws SQLException {
+        MarkAttendanceResult first = dao.upsertAttendance("CS101", DATE, "1", "2024-25",
+                statuses("Present", "Absent"), TEACHER);
+        assertEquals(2, first.getInsertedCount());
+
+        MarkAttendanceResult second = dao.upsertAttendance("CS101", DATE, "1", "2024-25",
+                statuses("Present", "Present"), OTHER_TEACHER);
+        assertEquals(0, second.getInsertedCount());
+        assertEquals(1, second.getUpdatedCount());
+        assertEquals(1, second.getUnchangedCount());
+        assertEquals(MarkAttendanceResult.Outcome.UPDATED, second.getOutcome(2));
+
+        assertEquals(2, count("SELECT COUNT(*) FROM Attendance"));
+        assertEquals(TEACHER, count("SELECT marked_by_user_id FROM Attendance WHERE student_id = 1"));
+        assertEquals(OTHER_TEACHER, count("SELECT marked_by_user_id FROM Attendance WHERE student_id = 2"));
+    }
+
+    @Test
+    void teacherSummaryCountsTheRecordsTheTeacherMarked() throws SQLException {
+        dao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Present", "Absent"), TEACHER);
+        dao.upsertAttendance("CS101", Date.valueOf("2024-09-03"), "1", "2024-25",
+                statuses("Present", "Present"), OTHER_TEACHER);
+
+        Map<String, Integer> summary = dao.getTeacherMarkedAttendanceSummary(TEACHER, "2024-25", "1", null);
+        assertEquals(2, summary.get("totalRecords"));
+        assertEquals(1, summary.get("presentCount"));
+        assertEquals(1, summary.get("absentCount"));
+
+        Map<String, Integer> september = dao.getTeacherMarkedAttendanceSummary(OTHER_TEACHER, "2024-25", "1", "9");
+        assertEquals(2, september.get("presentCount"));
+    }
+
+    @Test
+    void mergeStagedKeepsTheLastRowPerKey() throws SQLException {
+        dao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Present", "Present"), TEACHER);
+
+        AttendanceImportResult result = new AttendanceImportResult("test.csv", false, 10);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TEMP TABLE staging (line_no BIGINT, student_id INTEGER, " +
+                             "subject_code VARCHAR(20), attendance_date DATE, status VARCHAR(20), " +
+                             "semester VARCHAR(10), academic_year VARCHAR(20)) ON COMMIT DROP");
+                stmt.execute("INSERT INTO staging VALUES " +
+                             "(2, 1, 'CS101', DATE '2024-09-02', 'Absent', '1', '2024-25'), " +
+                             "(3, 1, 'CS101', DATE '2024-09-02', 'On Leave', '1', '2024-25'), " +
+                             "(4, 2, 'CS101', DATE '2024-09-02', 'Present', '1', '2024-25'), " +
+                             "(5, 2, 'CS101', DATE '2024-09-03', 'Absent', '1', '2024-25')");
+            }
+            dao.mergeStaged(conn, "staging", OTHER_TEACHER, result);
+            conn.commit();
+        }
+
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(1, result.getUnchangedCount());
+        assertEquals(1, result.getSupersededCount());
+        assertEquals(3, count("SELECT COUNT(*) FROM Attendance"));
+        assertEquals(1, count("SELECT COUNT(*) FROM Attendance WHERE student_id = 1 AND status = 'On Leave' " +
+                              "AND marked_by_user_id = " + OTHER_TEACHER));
+        assertEquals(TEACHER, count("SELECT marked_by_user_id FROM Attendance " +
+                                    "WHERE student_id = 2 AND attendance_date = DATE '2024-09-02'"));
+    }
+
+    private static Map<Integer, String> statuses(String first, String second) {
+        Map<Integer, String> statuses = new LinkedHashMap<>();
+        statuses.put(1, first);
+        statuses.put(2, second);
+        return statuses;
+    }
+
+    private static long count(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.attendance.dao.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.attendance.TestDatabase;
+import com.attendance.utils.DatabaseConnection;
+import com.attendance.utils.MigrationRunner;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The drift corrections of AttendanceRollupDaoImpl, which must neither lose nor block the
+ * deltas that AttendanceDaoImpl writes concurrently
+ */
+class AttendanceRollupDaoImplTest {
+    private static final int TEACHER = 10;
+    private static final Date DATE = Date.valueOf("2024-09-02");
+    private static final String BUCKET = "student_id = 1 AND subject_code = 'CS101' AND attendance_month = 9";
+
+    private final AttendanceDaoImpl attendanceDao = new AttendanceDaoImpl();
+    private final AttendanceRollupDaoImpl rollupDao = new AttendanceRollupDaoImpl();
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        TestDatabase.start();
+    }
+
+    @BeforeEach
+    void createSchema() throws SQLException {
+        TestDatabase.reset();
+        TestDatabase.execute(
+                "INSERT INTO Users (user_id, full_name, email, password, role) VALUES " +
+                "(1, 'Student One', 's1@example.com', 'x', 'Student'), " +
+                "(2, 'Student Two', 's2@example.com', 'x', 'Student'), " +
+                "(10, 'Teacher One', 't1@example.com', 'x', 'Teacher')",
+                "INSERT INTO Subjects (subject_code, subject_name) VALUES " +
+                "('CS101', 'Programming'), ('CS102', 'Databases')");
+    }
+
+    @Test
+    void reconcileCorrectsDriftedAndOrphanedRows() throws SQLException {
+        attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Present", "Absent"), TEACHER);
+        TestDatabase.execute(
+                "UPDATE AttendanceRollup SET present_count = 5, total_count = 5 WHERE " + BUCKET,
+                "INSERT INTO AttendanceRollup (student_id, subject_code, academic_year, semester, " +
+                "attendance_month, present_count, total_count) VALUES (2, 'CS102', '2024-25', '1', 9, 3, 3)");
+
+        assertEquals(2, rollupDao.reconcile());
+
+        assertEquals(1, count("SELECT present_count FROM AttendanceRollup WHERE " + BUCKET));
+        assertEquals(1, count("SELECT total_count FROM AttendanceRollup WHERE " + BUCKET));
+        assertEquals(2, count("SELECT COUNT(*) FROM AttendanceRollup"));
+        assertEquals(0, rollupDao.reconcile());
+    }
+
+    @Test
+    void reconcileDoesNotWaitForOpenWriters() throws Exception {
+        try (Connection writer = DatabaseConnection.getConnection()) {
+            writer.setAutoCommit(false);
+            try (Statement stmt = writer.createStatement()) {
+                stmt.execute("INSERT INTO Attendance (student_id, subject_code, attendance_date, status, " +
+                             "semester, academic_year) VALUES (1, 'CS101', DATE '2024-09-02', 'Present', '1', '2024-25')");
+            }
+            rollupDao.applyDelta(writer, 1, "CS101", "2024-25", "1", DATE, "Present", 1);
+
+            // A table lock would wait for the writer's ROW EXCLUSIVE lock until it commits
+            assertEquals(0, assertTimeoutPreemptively(Duration.ofSeconds(10), rollupDao::reconcile));
+            writer.commit();
+        }
+
+        assertEquals(0, rollupDao.reconcile());
+        assertEquals(1, count("SELECT present_count FROM AttendanceRollup WHERE " + BUCKET));
+    }
+
+    @Test
+    void rebuildKeepsDeltasCommittedAfterItsSnapshot() throws SQLException {
+        attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Present", "Absent"), TEACHER);
+        TestDatabase.execute("DELETE FROM AttendanceRollup");
+
+        assertEquals(2, rollupDao.rebuild());
+        attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Absent", "Absent"), TEACHER);
+
+        assertEquals(0, count("SELECT present_count FROM AttendanceRollup WHERE " + BUCKET));
+        assertEquals(1, count("SELECT absent_count FROM AttendanceRollup WHERE " + BUCKET));
+        assertEquals(0, rollupDao.reconcile());
+    }
+
+    @Test
+    void migrationBuildsTheRollupOfExistingAttendance() throws SQLException {
+        TestDatabase.execute(
+                "INSERT INTO Attendance (student_id, subject_code, attendance_date, status, semester, " +
+                "academic_year) VALUES (1, 'CS101', DATE '2024-09-02', 'Present', '1', '2024-25'), " +
+                "(1, 'CS101', DATE '2024-09-03', 'On Leave', '1', '2024-25')",
+                "DELETE FROM schema_migrations WHERE version = 13");
+
+        new MigrationRunner().migrate();
+
+        assertEquals(1, count("SELECT present_count FROM AttendanceRollup WHERE " + BUCKET));
+        assertEquals(1, count("SELECT leave_count FROM AttendanceRollup WHERE " + BUCKET));
+        assertEquals(2, count("SELECT total_count FROM AttendanceRollup WHERE " + BUCKET));
+    }
+
+    @Test
+    void deleteBySubjectRemovesItsRollups() throws SQLException {
+        attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Present", "Absent"), TEACHER);
+        attendanceDao.upsertAttendance("CS102", DATE, "1", "2024-25", statuses("Present", "Present"), TEACHER);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            assertEquals(2, attendanceDao.deleteBySubject(conn, "CS101"));
+            conn.commit();
+        }
+
+        assertEquals(0, count("SELECT COUNT(*) FROM AttendanceRollup WHERE subject_code = 'CS101'"));
+        assertEquals(2, count("SELECT COUNT(*) FROM AttendanceRollup WHERE subject_code = 'CS102'"));
+        assertEquals(0, rollupDao.reconcile());
+    }
+
+    @Test
+    void versionStartsAtZeroAndAdvancesWithEachChange() throws SQLException {
+        assertEquals(0, rollupDao.getVersion());
+
+        attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Present", "Absent"), TEACHER);
+        assertEquals(1, rollupDao.getVersion());
+
+        attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25", statuses("Absent", "Absent"), TEACHER);
+        assertEquals(2, rollupDao.getVersion());
+    }
+
+    @Test
+    void changeIsRolledBackWhenTheVersionCannotAdvance() throws SQLException {
+        TestDatabase.execute("DROP SEQUENCE attendance_rollup_version");
+
+        assertThrows(SQLException.class, () -> attendanceDao.upsertAttendance("CS101", DATE, "1", "2024-25",
+                statuses("Present", "Absent"), TEACHER));
+
+        assertEquals(0, count("SELECT COUNT(*) FROM Attendance"));
+        assertEquals(0, count("SELECT COUNT(*) FROM AttendanceRollup"));
+    }
+
+    private static Map<Integer, String> statuses(String first, String second) {
+        Map<Integer, String> statuses = new LinkedHashMap<>();
+        statuses.put(1, first);
+        statuses.put(2, second);
+        return statuses;
+    }
+
+    private static long count(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
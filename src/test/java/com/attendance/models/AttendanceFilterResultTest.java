@@ -0,0 +1,66 @@
+package com.attendance.models;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Columnar storage of attendance filter rows: growth, row views, distinct values and counts
+ */
+class AttendanceFilterResultTest {
+
+    @Test
+    void rowsReadBackPastTheInitialCapacity() {
+        AttendanceFilterResult result = new AttendanceFilterResult(16);
+        for (int i = 0; i < 40; i++) {
+            result.addRow(i, LocalDate.of(2024, 9, 1).plusDays(i), 100 + i % 3, i % 2 == 0 ? "CS101" : "MA201",
+                          "1", "2024-2025", i % 4 == 0 ? "Absent" : "Present", 7);
+        }
+        result.addRow(40, null, 200, null, null, null, "Leave", 8);
+
+        assertEquals(41, result.size());
+        AttendanceFilterResult.Row row = result.get(37);
+        assertEquals(37, row.getAttendanceId());
+        assertEquals(Date.valueOf("2024-10-08"), row.getAttendanceDate());
+        assertEquals(101, row.getStudentId());
+        assertEquals("MA201", row.getSubjectCode());
+        assertEquals("2024-2025", row.getAcademicYear());
+        assertEquals("Present", row.getStatus());
+
+        AttendanceFilterResult.Row last = result.get(40);
+        assertNull(last.getAttendanceDate());
+        assertNull(last.getSubjectCode());
+        assertEquals("Leave", last.getStatus());
+        assertThrows(IndexOutOfBoundsException.class, () -> result.get(41));
+    }
+
+    @Test
+    void distinctValuesAndCountsCoverOnlyKeptRows() {
+        AttendanceFilterResult result = new AttendanceFilterResult();
+        result.addRow(1, LocalDate.of(2024, 9, 2), 12, "CS101", "1", "2024-2025", "Present", 3);
+        result.addRow(2, LocalDate.of(2024, 9, 2), 11, "CS101", "1", "2024-2025", "Absent", 3);
+        result.addRow(3, LocalDate.of(2024, 9, 3), 12, "MA201", "1", "2024-2025", "Present", 2);
+        result.addRow(4, LocalDate.of(2024, 9, 3), 13, "PH301", "1", "2024-2025", "Present", 5);
+
+        result.truncate(3);
+        Map<String, int[]> counts = result.countBySubject("Present");
+
+        assertEquals(3, result.size());
+        assertEquals(List.of("CS101", "MA201"), result.getSubjectCodes());
+        assertArrayEquals(new int[] {11, 12}, result.getDistinctStudentIds());
+        assertArrayEquals(new int[] {2, 3}, result.getDistinctClassIds());
+        assertEquals(2, counts.size());
+        assertArrayEquals(new int[] {1, 2}, counts.get("CS101"));
+        assertArrayEquals(new int[] {1, 1}, counts.get("MA201"));
+        assertArrayEquals(new int[] {0, 2}, result.countBySubject("Leave").get("CS101"));
+        assertThrows(IllegalArgumentException.class, () -> result.truncate(-1));
+    }
+}
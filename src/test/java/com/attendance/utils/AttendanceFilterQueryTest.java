@@ -0,0 +1,115 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.attendance.dao.PageRequest;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * SQL and parameters of the attendance filter, and its keyset cursors
+ */
+class AttendanceFilterQueryTest {
+
+    @Test
+    void pageSeeksPastTheCursorRow() throws Exception {
+        String cursor = AttendanceFilterQuery.cursorOf(LocalDate.of(2024, 9, 2), "CS101", 7, 42);
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filter()).page(11, cursor);
+
+        String sql = query.toSql(AttendanceFilterQuery.RESULT_COLUMNS, "", true);
+        Map<Integer, Object> params = bind(query, false);
+
+        assertTrue(sql.endsWith(AttendanceFilterQuery.ORDER_BY + " LIMIT ?"), sql);
+        assertEquals(count(sql, '?'), params.size());
+        assertEquals("CS101", params.get(1));
+        assertEquals(Date.valueOf("2024-09-02"), params.get(2));
+        assertEquals("CS101", params.get(5));
+        assertEquals(7, params.get(6));
+        assertEquals(42, params.get(7));
+        assertEquals(11, params.get(8));
+    }
+
+    @Test
+    void firstPageHasNoSeek() throws Exception {
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filter()).page(11, null);
+
+        String sql = query.toSql(AttendanceFilterQuery.RESULT_COLUMNS, "", true);
+
+        assertFalse(sql.contains("a.attendance_date <"), sql);
+        assertEquals(count(sql, '?'), bind(query, false).size());
+    }
+
+    @Test
+    void aggregateCoversEveryRowOfAPagedFilter() throws Exception {
+        Map<String, Object> filter = filter();
+        filter.put("threshold", 75.0);
+        filter.put("comparisonType", "below");
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filter)
+                .page(11, AttendanceFilterQuery.cursorOf(LocalDate.of(2024, 9, 2), "CS101", 7, 42));
+
+        String sql = query.toAggregateSql(AttendanceFilterQuery.COUNT_COLUMNS, "a.student_id, a.subject_code", true);
+        Map<Integer, Object> params = bind(query, true);
+
+        assertFalse(sql.contains("LIMIT"), sql);
+        assertFalse(sql.contains("ORDER BY"), sql);
+        assertTrue(sql.contains("a.group_percentage < ?"), sql);
+        assertTrue(sql.endsWith("GROUP BY a.student_id, a.subject_code"), sql);
+        assertEquals(count(sql, '?'), params.size());
+        assertEquals(75.0, params.get(params.size()));
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsTampering() {
+        String cursor = AttendanceFilterQuery.cursorOf(LocalDate.of(2024, 9, 2), "CS 101/é", 7, 42);
+        AttendanceFilterQuery query = new AttendanceFilterQuery(filter());
+
+        assertArrayEquals(new String[] {"2024-09-02", "CS 101/é", "7", "42"}, PageRequest.decodeCursor(cursor, 4));
+        query.page(5, cursor);
+        assertThrows(IllegalArgumentException.class, () -> query.page(5, "not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> query.page(5, PageRequest.encodeCursor("2024-09-02", "CS101")));
+        assertThrows(IllegalArgumentException.class, () -> query.page(5, PageRequest.encodeCursor("yesterday", "CS101", 7, 42)));
+    }
+
+    private static Map<String, Object> filter() {
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("subjectCode", "CS101");
+        return filter;
+    }
+
+    /**
+     * The parameters bound by bind (or bindConditions, for aggregates), by index
+     */
+    private static Map<Integer, Object> bind(AttendanceFilterQuery query, boolean aggregate) throws Exception {
+        Map<Integer, Object> params = new TreeMap<>();
+        PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length == 2) {
+                        params.put((Integer) args[0], args[1]);
+                    }
+                    return null;
+                });
+        if (aggregate) {
+            query.bindConditions(stmt, true);
+        } else {
+            query.bind(stmt, true);
+        }
+        return params;
+    }
+
+    private static int count(String sql, char c) {
+        return (int) sql.chars().filter(ch -> ch == c).count();
+    }
+}
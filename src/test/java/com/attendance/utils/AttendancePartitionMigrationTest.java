@@ -0,0 +1,169 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.attendance.TestDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The upsert key of Attendance must survive every route to a partitioned table:
+ * AttendanceDaoImpl writes with ON CONFLICT on (student_id, subject_code, attendance_date),
+ * plus academic_year once the table is partitioned.
+ */
+class AttendancePartitionMigrationTest {
+    private static final String KEY = "student_id, subject_code, attendance_date";
+    private static final String PARTITIONED_KEY = AttendancePartitionMigration.UPSERT_KEY;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        TestDatabase.start();
+    }
+
+    @BeforeEach
+    void clearDatabase() throws SQLException {
+        TestDatabase.clear();
+    }
+
+    @AfterEach
+    void disablePartitioning() {
+        System.clearProperty("DB_PARTITION_ATTENDANCE");
+    }
+
+    @Test
+    void legacyTableGetsTheUpsertKey() throws SQLException {
+        createLegacySchema();
+        new MigrationRunner().migrate();
+
+        assertFalse(isPartitioned());
+        assertUpsertUpdatesInPlace(KEY);
+    }
+
+    @Test
+    void legacyTablePartitionedBeforeTheUpsertColumnsGetsTheKey() throws SQLException {
+        // A new installation applies V2 before V6, to a table without any unique key
+        createLegacySchema();
+        System.setProperty("DB_PARTITION_ATTENDANCE", "true");
+        new MigrationRunner().migrate();
+
+        assertTrue(isPartitioned());
+        assertUpsertUpdatesInPlace(PARTITIONED_KEY);
+    }
+
+    @Test
+    void uniqueIndexFromV6IsReplacedByThePartitionedKey() throws SQLException {
+        createLegacySchema();
+        new MigrationRunner().migrate();
+        insertAttendance("2024-25", "Present");
+
+        System.setProperty("DB_PARTITION_ATTENDANCE", "true");
+        new MigrationRunner().migrate();
+
+        assertTrue(isPartitioned());
+        assertEquals(1, count("SELECT COUNT(*) FROM Attendance"));
+        assertEquals(1, count("SELECT COUNT(*) FROM attendance_2024"));
+        assertUpsertUpdatesInPlace(PARTITIONED_KEY);
+    }
+
+    @Test
+    void schemaTablePartitionedKeepsTheKey() throws SQLException {
+        System.setProperty("DB_PARTITION_ATTENDANCE", "true");
+        TestDatabase.reset();
+        TestDatabase.execute(
+                "INSERT INTO Users (user_id, full_name, email, password, role) " +
+                "VALUES (1, 'Student One', 'one@example.com', 'x', 'Student')",
+                "INSERT INTO Subjects (subject_code, subject_name) VALUES ('CS101', 'Programming')");
+
+        assertTrue(isPartitioned());
+        assertUpsertUpdatesInPlace(PARTITIONED_KEY);
+    }
+
+    @Test
+    void partitionedTableWithoutTheKeyIsRepaired() throws SQLException {
+        createLegacySchema();
+        System.setProperty("DB_PARTITION_ATTENDANCE", "true");
+        new MigrationRunner().migrate();
+
+        // As left by the partition migration before it always created the key
+        TestDatabase.execute(
+                "ALTER TABLE Attendance DROP CONSTRAINT " + AttendancePartitionMigration.UPSERT_KEY_NAME,
+                "DELETE FROM schema_migrations WHERE version = 11");
+        new MigrationRunner().migrate();
+
+        assertUpsertUpdatesInPlace(PARTITIONED_KEY);
+    }
+
+    @Test
+    void duplicateKeysStopThePartitioning() throws SQLException {
+        createLegacySchema();
+        TestDatabase.execute("CREATE TABLE schema_migrations (version INT PRIMARY KEY, " +
+                             "description VARCHAR(200) NOT NULL, checksum VARCHAR(20), execution_ms BIGINT, " +
+                             "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        insertAttendance("2024-25", "Present");
+        insertAttendance("2024-25", "Absent");
+
+        System.setProperty("DB_PARTITION_ATTENDANCE", "true");
+        SQLException e = assertThrows(SQLException.class, () -> new MigrationRunner().migrate());
+
+        assertTrue(e.getMessage().contains("duplicated"), e.getMessage());
+        assertFalse(isPartitioned());
+        assertEquals(2, count("SELECT COUNT(*) FROM Attendance"));
+    }
+
+    /**
+     * The tables DatabaseInitializer creates: an Attendance table without a unique key
+     */
+    private void createLegacySchema() throws SQLException {
+        assertTrue(DatabaseInitializer.initializeDatabase());
+        TestDatabase.execute(
+                "INSERT INTO Users (user_id, name, email, password, role) " +
+                "VALUES (1, 'Student One', 'one@example.com', 'x', 'Student')",
+                "INSERT INTO Subject (subject_code, subject_name) VALUES ('CS101', 'Programming')");
+    }
+
+    private void insertAttendance(String academicYear, String status) throws SQLException {
+        TestDatabase.execute("INSERT INTO Attendance (student_id, subject_code, attendance_date, status, " +
+                             "semester, academic_year) VALUES (1, 'CS101', DATE '2024-09-02', '" + status +
+                             "', '1', '" + academicYear + "')");
+    }
+
+    private void assertUpsertUpdatesInPlace(String conflictTarget) throws SQLException {
+        String sql = "INSERT INTO Attendance (student_id, subject_code, attendance_date, status, semester, " +
+                     "academic_year) VALUES (1, 'CS101', DATE '2024-09-02', ?, '1', '2024-25') " +
+                     "ON CONFLICT (" + conflictTarget + ") DO UPDATE SET status = EXCLUDED.status";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, "Present");
+            stmt.executeUpdate();
+            stmt.setString(1, "Absent");
+            stmt.executeUpdate();
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM Attendance"));
+        assertEquals(1, count("SELECT COUNT(*) FROM Attendance WHERE status = 'Absent'"));
+    }
+
+    private boolean isPartitioned() throws SQLException {
+        return count("SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = 'attendance'::regclass") == 1;
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Borrowing, returning and shutting down the connection pool, against stub physical connections
+ */
+class ConnectionPoolTest {
+
+    private final List<StubConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void returnedConnectionIsReusedAndReset() throws SQLException {
+        pool = newPool(2, 0, false);
+
+        Connection first = pool.getConnection();
+        first.setAutoCommit(false);
+        first.close();
+        Connection second = pool.getConnection();
+
+        assertTrue(first.isClosed());
+        assertFalse(second.isClosed());
+        assertEquals(1, opened.size());
+        assertEquals(1, opened.get(0).rollbacks.get());
+        assertTrue(second.getAutoCommit());
+        assertEquals(1, pool.getActiveConnections());
+        assertThrows(SQLException.class, first::createStatement);
+    }
+
+    @Test
+    void exhaustedPoolTimesOut() throws SQLException {
+        pool = newPool(1, 0, false);
+        Connection held = pool.getConnection();
+
+        assertThrows(SQLException.class, pool::getConnection);
+        assertEquals(1L, pool.getStatistics().get("timeouts"));
+
+        held.close();
+        pool.getConnection().close();
+    }
+
+    @Test
+    void closingABorrowedConnectionAfterShutdownDestroysItOnce() throws SQLException {
+        pool = newPool(2, 0, false);
+        Connection borrowed = pool.getConnection();
+        pool.getConnection().close();
+
+        pool.shutdown();
+        borrowed.close();
+
+        for (StubConnection stub : opened) {
+            assertEquals(1, stub.closes.get());
+        }
+        assertEquals(0, pool.getTotalConnections());
+        assertEquals(2L, pool.getStatistics().get("connectionsDestroyed"));
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+
+    @Test
+    void borrowStackIsOnlyCapturedWhenRequested() throws Exception {
+        assertNull(reportedLeak(false).getThrown());
+        assertNotNull(reportedLeak(true).getThrown());
+    }
+
+    private LogRecord reportedLeak(boolean captureBorrowTrace) throws Exception {
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getMessage().startsWith("Possible connection leak")) {
+                    synchronized (records) {
+                        records.add(record);
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+        Level level = logger.getLevel();
+        logger.setLevel(Level.WARNING);
+        logger.addHandler(handler);
+        ConnectionPool leaking = newPool(1, 1, captureBorrowTrace);
+        try {
+            leaking.getConnection();
+            // The housekeeper runs every second at the shortest
+            for (int i = 0; i < 50; i++) {
+                synchronized (records) {
+                    if (!records.isEmpty()) {
+                        assertEquals(1L, leaking.getStatistics().get("leaksDetected"));
+                        return records.get(0);
+                    }
+                }
+                Thread.sleep(100);
+            }
+            throw new AssertionError("No leak was reported");
+        } finally {
+            leaking.shutdown();
+            logger.removeHandler(handler);
+            logger.setLevel(level);
+        }
+    }
+
+    private ConnectionPool newPool(int maxSize, long leakThresholdMillis, boolean captureBorrowTrace) {
+        return new ConnectionPool("test", this::open, 0, maxSize, 100, 2000, 60000,
+                                  leakThresholdMillis, captureBorrowTrace);
+    }
+
+    private Connection open() {
+        StubConnection stub = new StubConnection();
+        synchronized (opened) {
+            opened.add(stub);
+        }
+        return stub.connection;
+    }
+
+    /**
+     * Physical connection that counts close and rollback calls
+     */
+    private static final class StubConnection {
+        final AtomicInteger closes = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        volatile boolean autoCommit = true;
+
+        final Connection connection = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            closes.incrementAndGet();
+                            return null;
+                        case "isClosed":
+                            return closes.get() > 0;
+                        case "isValid":
+                            return closes.get() == 0;
+                        case "getAutoCommit":
+                            return autoCommit;
+                        case "setAutoCommit":
+                            autoCommit = (Boolean) args[0];
+                            return null;
+                        case "rollback":
+                            rollbacks.incrementAndGet();
+                            return null;
+                        case "isReadOnly":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
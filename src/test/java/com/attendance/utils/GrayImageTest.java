@@ -0,0 +1,106 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Decoding, grayscale conversion, cropping and resizing of GrayImage
+ */
+class GrayImageTest {
+
+    @Test
+    void convertsWithLumaWeights() {
+        BufferedImage rgb = new BufferedImage(4, 1, BufferedImage.TYPE_INT_RGB);
+        rgb.setRGB(0, 0, 0xffffff);
+        rgb.setRGB(1, 0, 0xff0000);
+        rgb.setRGB(2, 0, 0x00ff00);
+        rgb.setRGB(3, 0, 0x0000ff);
+
+        GrayImage gray = GrayImage.fromBufferedImage(rgb);
+
+        assertEquals(255, gray.get(0, 0));
+        assertEquals(76, gray.get(1, 0));
+        assertEquals(150, gray.get(2, 0));
+        assertEquals(29, gray.get(3, 0));
+    }
+
+    @Test
+    void cropIsClippedToTheImage() {
+        GrayImage image = gradient(4, 3);
+
+        GrayImage cropped = image.crop(2, -1, 5, 3);
+
+        assertEquals(2, cropped.getWidth());
+        assertEquals(2, cropped.getHeight());
+        assertEquals(image.get(2, 0), cropped.get(0, 0));
+        assertEquals(image.get(3, 1), cropped.get(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> image.crop(4, 0, 2, 2));
+    }
+
+    @Test
+    void resizeInterpolatesBetweenCorners() {
+        GrayImage image = new GrayImage(2, 1, new byte[] {0, (byte) 200});
+
+        GrayImage resized = image.resize(5, 2);
+
+        assertEquals(5, resized.getWidth());
+        assertEquals(2, resized.getHeight());
+        assertEquals(0, resized.get(0, 1));
+        assertEquals(100, resized.get(2, 0));
+        assertEquals(200, resized.get(4, 1));
+    }
+
+    @Test
+    void rejectsPixelsThatDoNotMatchTheSize() {
+        assertThrows(IllegalArgumentException.class, () -> new GrayImage(2, 2, new byte[3]));
+        assertThrows(IllegalArgumentException.class, () -> new GrayImage(0, 1, new byte[0]));
+    }
+
+    @Test
+    void readsFromTheBufferPosition() throws IOException {
+        BufferedImage rgb = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        rgb.setRGB(2, 1, 0xffffff);
+        byte[] png = png(rgb);
+        // The image is read from the position to the limit, as from a mapped spool file
+        ByteBuffer buffer = ByteBuffer.allocate(png.length + 8);
+        buffer.position(5);
+        buffer.put(png).flip().position(5);
+
+        GrayImage gray = GrayImage.read(buffer, 6);
+
+        assertEquals(3, gray.getWidth());
+        assertEquals(2, gray.getHeight());
+        assertEquals(255, gray.get(2, 1));
+        assertEquals(0, gray.get(0, 0));
+    }
+
+    @Test
+    void rejectsLargeOrUnknownImages() throws IOException {
+        byte[] png = png(new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB));
+
+        assertThrows(IOException.class, () -> GrayImage.read(ByteBuffer.wrap(png), 5));
+        assertThrows(IOException.class, () -> GrayImage.read(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), 100));
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static GrayImage gradient(int width, int height) {
+        byte[] pixels = new byte[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (i * 10);
+        }
+        return new GrayImage(width, height, pixels);
+    }
+}
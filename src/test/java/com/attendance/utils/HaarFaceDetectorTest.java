@@ -0,0 +1,101 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.attendance.models.FaceRegion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cascade parsing and face detection, with the bundled cascade and with a one-feature
+ * cascade that fires on a vertical edge, bright on the left
+ */
+class HaarFaceDetectorTest {
+
+    private static final String EDGE_CASCADE =
+            "<opencv_storage><cascade>"
+            + "<stageType>BOOST</stageType><featureType>HAAR</featureType>"
+            + "<height>6</height><width>6</width>"
+            + "<stages><_><maxWeakCount>1</maxWeakCount><stageThreshold>0</stageThreshold>"
+            + "<weakClassifiers><_><internalNodes>0 -1 0 0.5</internalNodes><leafValues>-1. 1.</leafValues></_>"
+            + "</weakClassifiers></_></stages>"
+            + "<features><_><rects><_>0 0 6 6 -1.</_><_>0 0 3 6 2.</_></rects><tilted>%s</tilted></_></features>"
+            + "</cascade></opencv_storage>";
+
+    @Test
+    void bundledCascadeFindsNoFaceInAFlatImage() throws IOException {
+        HaarCascade cascade = HaarCascade.load(Path.of("data/haarcascade_frontalface_default.xml"));
+
+        List<FaceRegion> faces = new HaarFaceDetector(cascade, 1.1, 3, 24).detect(flat(160, 120, 128));
+
+        assertEquals(24, cascade.getWindowWidth());
+        assertEquals(25, cascade.getStageCount());
+        assertTrue(faces.isEmpty());
+    }
+
+    @Test
+    void detectsAndGroupsWindowsOnTheEdge() throws IOException {
+        HaarFaceDetector detector = new HaarFaceDetector(edgeCascade("0"), 1.25, 2, 6);
+
+        List<FaceRegion> faces = detector.detect(edge(64, 64, 32, true));
+
+        assertFalse(faces.isEmpty());
+        for (FaceRegion face : faces) {
+            assertTrue(face.getX() < 32 && face.getX() + face.getWidth() > 32, face.toString());
+            assertTrue(face.getNeighbors() > 2, face.toString());
+        }
+        for (int i = 1; i < faces.size(); i++) {
+            assertTrue(faces.get(i - 1).getArea() >= faces.get(i).getArea());
+        }
+    }
+
+    @Test
+    void ignoresFlatImagesAndTheOppositeEdge() throws IOException {
+        HaarFaceDetector detector = new HaarFaceDetector(edgeCascade("0"), 1.25, 0, 6);
+
+        assertTrue(detector.detectRaw(flat(64, 64, 90)).isEmpty());
+        assertTrue(detector.detectRaw(edge(64, 64, 32, false)).isEmpty());
+        assertTrue(detector.detect(flat(4, 4, 90)).isEmpty());
+    }
+
+    @Test
+    void rejectsUnsupportedCascades() {
+        assertThrows(IOException.class, () -> edgeCascade("1"));
+        assertThrows(IOException.class, () -> parse("<opencv_storage></opencv_storage>"));
+        assertThrows(IllegalArgumentException.class, () -> new HaarFaceDetector(edgeCascade("0"), 1.0, 3, 6));
+    }
+
+    private static HaarCascade edgeCascade(String tilted) throws IOException {
+        return parse(String.format(EDGE_CASCADE, tilted));
+    }
+
+    private static HaarCascade parse(String xml) throws IOException {
+        return HaarCascade.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static GrayImage flat(int width, int height, int value) {
+        byte[] pixels = new byte[width * height];
+        Arrays.fill(pixels, (byte) value);
+        return new GrayImage(width, height, pixels);
+    }
+
+    private static GrayImage edge(int width, int height, int edgeX, boolean brightLeft) {
+        byte[] pixels = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = (byte) ((x < edgeX) == brightLeft ? 200 : 50);
+            }
+        }
+        return new GrayImage(width, height, pixels);
+    }
+}
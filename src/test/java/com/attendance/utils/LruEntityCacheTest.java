@@ -0,0 +1,102 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hits, copies, eviction, expiry and invalidation of the in-process entity cache
+ */
+class LruEntityCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void hitsHandOutCopies() throws SQLException {
+        LruEntityCache<Integer, StringBuilder> cache = newCache(10, 60000);
+
+        StringBuilder loaded = cache.get(1, this::load);
+        loaded.append(" changed by the caller");
+        StringBuilder first = cache.get(1, this::load);
+        StringBuilder second = cache.get(1, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals("entity 1", first.toString());
+        assertNotSame(first, second);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() throws SQLException {
+        LruEntityCache<Integer, StringBuilder> cache = newCache(2, 60000);
+
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.get(1, this::load);
+        cache.get(3, this::load);
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws Exception {
+        LruEntityCache<Integer, StringBuilder> cache = newCache(10, 20);
+
+        cache.get(1, this::load);
+        Thread.sleep(50);
+        cache.get(1, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void missingEntityIsNotCached() throws SQLException {
+        LruEntityCache<Integer, StringBuilder> cache = newCache(10, 60000);
+        EntityCache.Loader<Integer, StringBuilder> none = key -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.get(1, none));
+        assertNull(cache.get(1, none));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() throws SQLException {
+        LruEntityCache<Integer, StringBuilder> cache = newCache(10, 60000);
+
+        // A write invalidates the key while the (now stale) row is being read
+        StringBuilder stale = cache.get(1, key -> {
+            cache.invalidate(key);
+            return load(key);
+        });
+        cache.get(1, this::load);
+
+        assertEquals("entity 1", stale.toString());
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    private StringBuilder load(Integer key) {
+        loads.incrementAndGet();
+        return new StringBuilder("entity " + key);
+    }
+
+    private static LruEntityCache<Integer, StringBuilder> newCache(int maxEntries, long ttlMillis) {
+        return new LruEntityCache<>("test", maxEntries, ttlMillis, StringBuilder::new);
+    }
+}
@@ -0,0 +1,71 @@
+package com.attendance.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verification results of PasswordVerifier, and the time a wrong password costs for each
+ * kind of stored hash
+ */
+class PasswordVerifierTest {
+
+    @Test
+    void currentHashMatchesWithoutUpgrade() {
+        String stored = PasswordUtils.generateSecurePassword("secret");
+
+        PasswordVerifier.Result result = PasswordVerifier.verify("secret", stored);
+
+        assertTrue(result.matches());
+        assertNull(result.getUpgradedHash());
+        assertFalse(PasswordVerifier.verify("wrong", stored).matches());
+    }
+
+    @Test
+    void legacyHashMatchesAndIsUpgraded() {
+        String stored = legacyHash("secret");
+
+        PasswordVerifier.Result result = PasswordVerifier.verify("secret", stored);
+
+        assertTrue(result.matches());
+        assertNotNull(result.getUpgradedHash());
+        assertFalse(PasswordUtils.needsRehash(result.getUpgradedHash()));
+        assertTrue(PasswordUtils.verifySecurePassword("secret", result.getUpgradedHash()));
+    }
+
+    @Test
+    void wrongPasswordCostsAboutTheSameForEveryKindOfAccount() {
+        String current = PasswordUtils.generateSecurePassword("secret");
+        String legacy = legacyHash("secret");
+
+        long currentNanos = fastest(() -> assertFalse(PasswordVerifier.verify("wrong", current).matches()));
+        long legacyNanos = fastest(() -> {
+            PasswordVerifier.Result result = PasswordVerifier.verify("wrong", legacy);
+            assertFalse(result.matches());
+            assertNull(result.getUpgradedHash());
+        });
+        long unknownNanos = fastest(() -> PasswordVerifier.verifyDummy("wrong"));
+
+        // A salted SHA-256 alone is thousands of times faster than the PBKDF2 check
+        assertTrue(legacyNanos > currentNanos / 2, legacyNanos + " ns vs " + currentNanos + " ns");
+        assertTrue(unknownNanos > currentNanos / 2, unknownNanos + " ns vs " + currentNanos + " ns");
+    }
+
+    private static String legacyHash(String password) {
+        String salt = PasswordUtils.generateSalt();
+        return salt + ":" + PasswordUtils.hashPassword(password, salt);
+    }
+
+    private static long fastest(Runnable verification) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            verification.run();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}